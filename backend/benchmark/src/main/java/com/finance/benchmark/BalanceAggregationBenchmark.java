@@ -0,0 +1,81 @@
+package com.finance.benchmark;
+
+import com.finance.dto.AccountAmountSummary;
+import com.finance.service.AccountBalanceService;
+import com.finance.service.ReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 余额汇总基准测试
+ *
+ * <p>直接调用报表服务（不经报表缓存），衡量按科目期间发生额汇总的耗时：
+ * 资产负债表取截至年末的余额，利润表取全年发生额，
+ * 月中起止的区间同时用到期间汇总和首尾月份的分录明细。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BalanceAggregationBenchmark {
+
+    @Param({"10000"})
+    public int voucherCount;
+
+    @Param({"4"})
+    public int linesPerVoucher;
+
+    @Param({"200"})
+    public int subjectCount;
+
+    private LedgerFixture fixture;
+    private ReportService reportService;
+    private AccountBalanceService accountBalanceService;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = LedgerFixture.load(voucherCount, linesPerVoucher, subjectCount);
+        reportService = fixture.getBean(ReportService.class);
+        accountBalanceService = fixture.getBean(AccountBalanceService.class);
+        startDate = fixture.getStartDate();
+        endDate = fixture.getEndDate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> balanceSheet() {
+        return reportService.generateBalanceSheet(endDate);
+    }
+
+    @Benchmark
+    public Map<String, Object> incomeStatement() {
+        return reportService.generateIncomeStatement(startDate, endDate);
+    }
+
+    @Benchmark
+    public List<AccountAmountSummary> partialMonthSummary() {
+        return accountBalanceService.summarize(startDate.plusDays(10), endDate.minusDays(10));
+    }
+}
@@ -0,0 +1,52 @@
+package com.finance.benchmark;
+
+import com.finance.FinanceManagementApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+
+/**
+ * 基准测试使用的Spring上下文
+ *
+ * <p>以非Web方式启动完整的应用上下文，数据源为独立命名的H2内存库（MySQL兼容模式），
+ * 表结构由Hibernate按实体创建。每次启动使用新的库名，同一JVM内的多个基准测试互不影响。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * 启动应用上下文
+     *
+     * @param extraProperties 追加或覆盖的配置项，格式为 key=value
+     * @return 应用上下文，使用完毕后需关闭
+     */
+    public static ConfigurableApplicationContext start(String... extraProperties) {
+        String url = "jdbc:h2:mem:bench-" + UUID.randomUUID()
+            + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE,PERIOD,YEAR,MONTH;DB_CLOSE_DELAY=-1";
+        return new SpringApplicationBuilder(FinanceManagementApplication.class)
+            .web(WebApplicationType.NONE)
+            .bannerMode(Banner.Mode.OFF)
+            .logStartupInfo(false)
+            .properties(
+                "spring.datasource.url=" + url,
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.jpa.hibernate.ddl-auto=create",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "spring.jpa.show-sql=false",
+                "spring.jpa.open-in-view=false",
+                "logging.level.root=WARN")
+            .properties(extraProperties)
+            .run();
+    }
+}
@@ -0,0 +1,158 @@
+package com.finance.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.dto.JournalImportVoucher;
+import com.finance.entity.BankStatement;
+import com.finance.repository.AccountSubjectRepository;
+import com.finance.repository.BankStatementRepository;
+import com.finance.service.AccountSubjectService;
+import com.finance.service.JournalEntryImportService;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准测试数据夹具
+ *
+ * <p>启动内嵌H2的应用上下文，写入 {@link LedgerGenerator} 生成的科目表和已过账凭证，
+ * 并按凭证中的银行存款发生额生成银行流水：</p>
+ * <ul>
+ *   <li>约70%为同金额流水，日期偏移0~2天</li>
+ *   <li>约15%拆成两笔流水（多对一）</li>
+ *   <li>约15%没有流水（账面有、银行无）</li>
+ *   <li>另加约5%的随机金额流水（银行有、账面无）</li>
+ * </ul>
+ * 凭证经由导入服务写入，同时维护科目余额汇总表，与线上过账后的数据形态一致。
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public class LedgerFixture implements AutoCloseable {
+
+    /** 基准测试使用的银行账号 */
+    public static final String BANK_ACCOUNT = "6222000000000001";
+
+    private static final long SEED = 20250101L;
+    private static final int MONTHS = 12;
+    private static final int IMPORT_BATCH = 5000;
+
+    private final ConfigurableApplicationContext context;
+    private final LedgerGenerator generator;
+
+    private LedgerFixture(ConfigurableApplicationContext context, LedgerGenerator generator) {
+        this.context = context;
+        this.generator = generator;
+    }
+
+    /**
+     * 启动上下文并生成数据
+     *
+     * @param voucherCount 凭证数量
+     * @param linesPerVoucher 每张凭证的明细行数
+     * @param subjectCount 科目数量
+     * @return 数据夹具
+     */
+    public static LedgerFixture load(int voucherCount, int linesPerVoucher, int subjectCount) {
+        LedgerGenerator generator = new LedgerGenerator(SEED, subjectCount, LocalDate.of(2025, 1, 1), MONTHS);
+        ConfigurableApplicationContext context = BenchmarkContext.start();
+        LedgerFixture fixture = new LedgerFixture(context, generator);
+        try {
+            fixture.loadSubjects();
+            fixture.loadVouchers(voucherCount, linesPerVoucher);
+            fixture.loadBankStatements();
+        } catch (RuntimeException | IOException e) {
+            context.close();
+            throw new IllegalStateException("生成基准测试数据失败", e);
+        }
+        return fixture;
+    }
+
+    private void loadSubjects() {
+        getBean(AccountSubjectRepository.class).saveAll(generator.getSubjects());
+        getBean(AccountSubjectService.class).refresh();
+    }
+
+    /**
+     * 分批序列化为JSON后经导入服务写入
+     */
+    private void loadVouchers(int voucherCount, int linesPerVoucher) throws IOException {
+        ObjectMapper objectMapper = getBean(ObjectMapper.class);
+        JournalEntryImportService importService = getBean(JournalEntryImportService.class);
+        for (int offset = 0; offset < voucherCount; offset += IMPORT_BATCH) {
+            int size = Math.min(IMPORT_BATCH, voucherCount - offset);
+            List<JournalImportVoucher> batch = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                batch.add(generator.voucher("V" + (offset + i), "已过账", linesPerVoucher));
+            }
+            Map<String, Object> result = importService.importVouchers(
+                new ByteArrayInputStream(objectMapper.writeValueAsBytes(batch)), "json");
+            if (((Number) result.get("failureCount")).intValue() > 0) {
+                throw new IllegalStateException("导入凭证失败：" + result.get("errors"));
+            }
+        }
+    }
+
+    private void loadBankStatements() {
+        Random random = generator.getRandom();
+        List<BankStatement> statements = new ArrayList<>();
+        for (LedgerGenerator.BankMovement movement : generator.getBankMovements()) {
+            int roll = random.nextInt(100);
+            LocalDate date = movement.getDate().plusDays(random.nextInt(3));
+            if (roll < 70) {
+                statements.add(statement(statements.size(), date, movement.getCents()));
+            } else if (roll < 85 && Math.abs(movement.getCents()) > 1) {
+                long first = movement.getCents() / 2;
+                statements.add(statement(statements.size(), date, first));
+                statements.add(statement(statements.size(), date.plusDays(1), movement.getCents() - first));
+            }
+        }
+        int noise = generator.getBankMovements().size() / 20;
+        for (int i = 0; i < noise; i++) {
+            long cents = (random.nextBoolean() ? 1 : -1) * (100L + random.nextInt(1_000_000));
+            LocalDate date = generator.getStartDate().plusDays(random.nextInt(365));
+            statements.add(statement(statements.size(), date, cents));
+        }
+        getBean(BankStatementRepository.class).saveAll(statements);
+    }
+
+    private BankStatement statement(int index, LocalDate date, long cents) {
+        BankStatement statement = new BankStatement();
+        statement.setBankAccount(BANK_ACCOUNT);
+        statement.setBankName("基准测试银行");
+        statement.setTransactionDate(date);
+        statement.setTransactionNo("BM" + index);
+        statement.setTransactionType(cents >= 0 ? "收入" : "支出");
+        statement.setAmount(BigDecimal.valueOf(Math.abs(cents), 2));
+        statement.setReconciliationStatus("未对账");
+        return statement;
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public LedgerGenerator getGenerator() {
+        return generator;
+    }
+
+    public LocalDate getStartDate() {
+        return generator.getStartDate();
+    }
+
+    public LocalDate getEndDate() {
+        return generator.getEndDate();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
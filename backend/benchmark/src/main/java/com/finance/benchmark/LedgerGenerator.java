@@ -0,0 +1,211 @@
+package com.finance.benchmark;
+
+import com.finance.dto.JournalImportVoucher;
+import com.finance.entity.AccountSubject;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 合成账簿数据生成器
+ *
+ * <p>按给定的科目数量、每张凭证明细行数生成科目表和借贷平衡的已过账凭证，
+ * 随机数种子固定，相同参数每次生成的数据完全一致，便于前后对比。</p>
+ *
+ * <p>科目表由15个常用一级科目及其二级明细科目组成，凭证只使用末级科目；
+ * 约一半的凭证含一条银行存款明细，其银行存款净发生额记录在 {@link #getBankMovements()} 中，
+ * 供生成与之对应的银行流水。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public class LedgerGenerator {
+
+    /** 一级科目：编码、名称、类型、余额方向 */
+    private static final String[][] TOP_LEVEL = {
+        {"1001", "库存现金", "资产", "借方"},
+        {"1002", "银行存款", "资产", "借方"},
+        {"1122", "应收账款", "资产", "借方"},
+        {"1403", "原材料", "资产", "借方"},
+        {"1405", "库存商品", "资产", "借方"},
+        {"1601", "固定资产", "资产", "借方"},
+        {"2202", "应付账款", "负债", "贷方"},
+        {"2211", "应付职工薪酬", "负债", "贷方"},
+        {"2221", "应交税费", "负债", "贷方"},
+        {"4001", "实收资本", "所有者权益", "贷方"},
+        {"4103", "本年利润", "所有者权益", "贷方"},
+        {"6001", "主营业务收入", "损益", "贷方"},
+        {"6401", "主营业务成本", "损益", "借方"},
+        {"6602", "管理费用", "损益", "借方"},
+        {"6603", "财务费用", "损益", "借方"}
+    };
+
+    /** 科目数量上限：每个一级科目最多99个二级科目 */
+    public static final int MAX_SUBJECTS = TOP_LEVEL.length * 100;
+
+    private final Random random;
+    private final LocalDate startDate;
+    private final int days;
+    private final List<AccountSubject> subjects = new ArrayList<>();
+    private final List<String> leafCodes = new ArrayList<>();
+    private final List<String> bankCodes = new ArrayList<>();
+    private final List<BankMovement> bankMovements = new ArrayList<>();
+
+    /**
+     * @param seed 随机数种子
+     * @param subjectCount 科目数量（含一级科目），不少于一级科目数
+     * @param startDate 凭证日期起始日
+     * @param months 凭证日期跨越的月数
+     */
+    public LedgerGenerator(long seed, int subjectCount, LocalDate startDate, int months) {
+        if (subjectCount < TOP_LEVEL.length || subjectCount > MAX_SUBJECTS) {
+            throw new IllegalArgumentException("科目数量应在 " + TOP_LEVEL.length + " 到 " + MAX_SUBJECTS + " 之间");
+        }
+        this.random = new Random(seed);
+        this.startDate = startDate;
+        this.days = (int) ChronoUnit.DAYS.between(startDate, startDate.plusMonths(months));
+        buildChart(subjectCount);
+    }
+
+    /**
+     * 生成科目表：先建全部一级科目，再轮流为各一级科目增加二级科目直到达到数量
+     */
+    private void buildChart(int subjectCount) {
+        int[] childCounts = new int[TOP_LEVEL.length];
+        for (int i = 0; i < subjectCount - TOP_LEVEL.length; i++) {
+            childCounts[i % TOP_LEVEL.length]++;
+        }
+        for (int i = 0; i < TOP_LEVEL.length; i++) {
+            String[] top = TOP_LEVEL[i];
+            subjects.add(subject(top[0], top[1], top[2], top[3], 1));
+            if (childCounts[i] == 0) {
+                addLeaf(top[0]);
+            }
+            for (int child = 1; child <= childCounts[i]; child++) {
+                String code = top[0] + String.format("%02d", child);
+                subjects.add(subject(code, top[1] + child, top[2], top[3], 2));
+                addLeaf(code);
+            }
+        }
+    }
+
+    private void addLeaf(String code) {
+        leafCodes.add(code);
+        if (code.startsWith("1002")) {
+            bankCodes.add(code);
+        }
+    }
+
+    private AccountSubject subject(String code, String name, String type, String direction, int level) {
+        AccountSubject subject = new AccountSubject();
+        subject.setCode(code);
+        subject.setName(name);
+        subject.setType(type);
+        subject.setCategory(type);
+        subject.setParentId(0L);
+        subject.setLevel(level);
+        subject.setDirection(direction);
+        subject.setEnabled(true);
+        return subject;
+    }
+
+    /**
+     * 生成一张凭证：前一半明细为借方、后一半为贷方，借贷合计相等
+     *
+     * @param voucherKey 凭证标识
+     * @param status 凭证状态
+     * @param linesPerVoucher 明细行数，不少于2
+     * @return 凭证
+     */
+    public JournalImportVoucher voucher(String voucherKey, String status, int linesPerVoucher) {
+        int lines = Math.max(2, linesPerVoucher);
+        int debitLines = lines / 2;
+        int creditLines = lines - debitLines;
+        LocalDate entryDate = startDate.plusDays(random.nextInt(days));
+
+        // 约一半的凭证第一条借方或第一条贷方使用银行存款科目
+        int bankLine = random.nextBoolean() ? (random.nextBoolean() ? 0 : debitLines) : -1;
+
+        JournalImportVoucher voucher = new JournalImportVoucher();
+        voucher.setVoucherKey(voucherKey);
+        voucher.setEntryDate(entryDate);
+        voucher.setDescription("合成凭证" + voucherKey);
+        voucher.setStatus(status);
+        voucher.setBusinessType(random.nextBoolean() ? "销售" : "采购");
+
+        long debitTotal = 0;
+        for (int i = 0; i < debitLines; i++) {
+            long cents = 100 + random.nextInt(1_000_000);
+            debitTotal += cents;
+            voucher.getLines().add(line(i == bankLine, "借", cents));
+        }
+        long remaining = debitTotal;
+        for (int i = 0; i < creditLines; i++) {
+            long cents = i == creditLines - 1 ? remaining : Math.max(1, debitTotal / creditLines);
+            remaining -= cents;
+            voucher.getLines().add(line(debitLines + i == bankLine, "贷", cents));
+        }
+
+        if (bankLine >= 0) {
+            JournalImportVoucher.Line line = voucher.getLines().get(bankLine);
+            long cents = line.getAmount().movePointRight(2).longValue();
+            bankMovements.add(new BankMovement(entryDate, "借".equals(line.getDirection()) ? cents : -cents));
+        }
+        return voucher;
+    }
+
+    private JournalImportVoucher.Line line(boolean bank, String direction, long cents) {
+        List<String> codes = bank ? bankCodes : leafCodes;
+        JournalImportVoucher.Line line = new JournalImportVoucher.Line();
+        line.setAccountCode(codes.get(random.nextInt(codes.size())));
+        line.setDirection(direction);
+        line.setAmount(BigDecimal.valueOf(cents, 2));
+        return line;
+    }
+
+    public List<AccountSubject> getSubjects() {
+        return subjects;
+    }
+
+    public List<BankMovement> getBankMovements() {
+        return bankMovements;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return startDate.plusDays(days - 1);
+    }
+
+    /**
+     * 凭证中的一笔银行存款发生额：日期及金额（分，借方为正、贷方为负）
+     */
+    public static class BankMovement {
+        private final LocalDate date;
+        private final long cents;
+
+        BankMovement(LocalDate date, long cents) {
+            this.date = date;
+            this.cents = cents;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public long getCents() {
+            return cents;
+        }
+    }
+}
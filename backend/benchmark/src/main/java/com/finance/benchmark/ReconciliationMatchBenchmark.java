@@ -0,0 +1,75 @@
+package com.finance.benchmark;
+
+import com.finance.service.BankMatchEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 银行对账自动匹配基准测试
+ *
+ * <p>对全年的银行流水和银行存款分录执行一次自动匹配（一对一、多对一、一对多），
+ * 匹配在外层事务中执行并回滚，每次调用面对的都是同一批未对账数据。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReconciliationMatchBenchmark {
+
+    @Param({"10000"})
+    public int voucherCount;
+
+    @Param({"4"})
+    public int linesPerVoucher;
+
+    @Param({"200"})
+    public int subjectCount;
+
+    @Param({"0", "3"})
+    public int toleranceDays;
+
+    private LedgerFixture fixture;
+    private BankMatchEngine bankMatchEngine;
+    private TransactionTemplate transactionTemplate;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = LedgerFixture.load(voucherCount, linesPerVoucher, subjectCount);
+        bankMatchEngine = fixture.getBean(BankMatchEngine.class);
+        transactionTemplate = new TransactionTemplate(fixture.getBean(PlatformTransactionManager.class));
+        startDate = fixture.getStartDate();
+        endDate = fixture.getEndDate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> autoMatch() {
+        return transactionTemplate.execute(tx -> {
+            tx.setRollbackOnly();
+            return bankMatchEngine.match(LedgerFixture.BANK_ACCOUNT, startDate, endDate, toleranceDays);
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package com.finance.benchmark;
+
+import com.finance.service.NumberSequenceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 凭证号生成基准测试
+ *
+ * <p>分别在单线程和8线程并发下取号，衡量号段缓存的命中开销和号段耗尽时加锁分配新号段的开销，
+ * 以及导入时使用的批量取号（每次100个）的吞吐量。号段大小可通过 {@code blockSize} 调整。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VoucherNumberBenchmark {
+
+    private static final String PREFIX = "BM";
+
+    @Param({"20"})
+    public int blockSize;
+
+    private ConfigurableApplicationContext context;
+    private NumberSequenceService numberSequenceService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("finance.number-sequence.block-size=" + blockSize);
+        numberSequenceService = context.getBean(NumberSequenceService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String nextNumber() {
+        return numberSequenceService.nextNumber(PREFIX, prefix -> null);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String nextNumberContended() {
+        return numberSequenceService.nextNumber(PREFIX, prefix -> null);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<String> nextNumbersBatch() {
+        return numberSequenceService.nextNumbers(PREFIX, 100, prefix -> null);
+    }
+}
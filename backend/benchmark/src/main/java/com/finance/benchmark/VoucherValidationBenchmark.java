@@ -0,0 +1,111 @@
+package com.finance.benchmark;
+
+import com.finance.dto.JournalImportVoucher;
+import com.finance.entity.AccountSubject;
+import com.finance.entity.JournalEntry;
+import com.finance.entity.JournalEntryLine;
+import com.finance.service.AccountSubjectService;
+import com.finance.service.AccountSubjectSnapshot;
+import com.finance.service.JournalEntryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 凭证校验与保存基准测试
+ *
+ * <p>每次调用保存一张新凭证：生成凭证号、按科目表快照校验明细、校验借贷平衡、写入凭证，
+ * 已过账凭证还要更新科目余额汇总表。保存在外层事务中执行并回滚，账簿数据不随迭代增长
+ * （凭证号序列在独立事务中分配，会持续递增）。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VoucherValidationBenchmark {
+
+    private static final int TEMPLATE_COUNT = 256;
+
+    @Param({"1000"})
+    public int voucherCount;
+
+    @Param({"2", "10", "50"})
+    public int linesPerVoucher;
+
+    @Param({"200"})
+    public int subjectCount;
+
+    @Param({"草稿", "已过账"})
+    public String status;
+
+    private LedgerFixture fixture;
+    private JournalEntryService journalEntryService;
+    private TransactionTemplate transactionTemplate;
+    private AccountSubjectSnapshot subjects;
+    private final List<JournalImportVoucher> templates = new ArrayList<>();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = LedgerFixture.load(voucherCount, linesPerVoucher, subjectCount);
+        journalEntryService = fixture.getBean(JournalEntryService.class);
+        transactionTemplate = new TransactionTemplate(fixture.getBean(PlatformTransactionManager.class));
+        subjects = fixture.getBean(AccountSubjectService.class).snapshot();
+        for (int i = 0; i < TEMPLATE_COUNT; i++) {
+            templates.add(fixture.getGenerator().voucher("T" + i, status, linesPerVoucher));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public JournalEntry save() {
+        JournalEntry entry = toEntry(templates.get(next++ % TEMPLATE_COUNT));
+        return transactionTemplate.execute(tx -> {
+            tx.setRollbackOnly();
+            return journalEntryService.save(entry);
+        });
+    }
+
+    /**
+     * 按接口提交的形式构造凭证：明细只带科目ID
+     */
+    private JournalEntry toEntry(JournalImportVoucher voucher) {
+        JournalEntry entry = new JournalEntry();
+        entry.setEntryDate(voucher.getEntryDate());
+        entry.setDescription(voucher.getDescription());
+        entry.setBusinessType(voucher.getBusinessType());
+        entry.setStatus(voucher.getStatus());
+        List<JournalEntryLine> lines = new ArrayList<>(voucher.getLines().size());
+        for (JournalImportVoucher.Line source : voucher.getLines()) {
+            AccountSubject subject = new AccountSubject();
+            subject.setId(subjects.getByCode(source.getAccountCode()).getId());
+            JournalEntryLine line = new JournalEntryLine();
+            line.setAccountSubject(subject);
+            line.setDirection(source.getDirection());
+            line.setAmount(source.getAmount());
+            lines.add(line);
+        }
+        entry.setEntryLines(lines);
+        return entry;
+    }
+}
@@ -0,0 +1,49 @@
+package com.finance.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.finance.entity.AccountSubject;
+import com.finance.service.AccountSubjectService;
+import org.hibernate.Hibernate;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+
+/**
+ * 会计科目引用序列化器
+ *
+ * <p>用于延迟加载的科目关联（如凭证明细的会计科目）：只取关联的科目ID，
+ * 再从科目表快照中取出完整科目输出，不会触发延迟加载查询，
+ * 输出的JSON结构与直接序列化科目实体相同。</p>
+ *
+ * <p>由Spring的Jackson处理器实例化，支持依赖注入。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public class AccountSubjectReferenceSerializer extends StdSerializer<AccountSubject> {
+
+    @Autowired
+    private AccountSubjectService accountSubjectService;
+
+    public AccountSubjectReferenceSerializer() {
+        super(AccountSubject.class);
+    }
+
+    @Override
+    public void serialize(AccountSubject value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        Long id = value instanceof HibernateProxy
+            ? (Long) ((HibernateProxy) value).getHibernateLazyInitializer().getIdentifier()
+            : value.getId();
+        AccountSubject subject = accountSubjectService != null
+            ? accountSubjectService.snapshot().getById(id) : null;
+        if (subject == null) {
+            // 快照中没有时（如科目刚被其他实例新增），退回加载实体
+            subject = (AccountSubject) Hibernate.unproxy(value);
+        }
+        provider.defaultSerializeValue(subject, gen);
+    }
+}
@@ -0,0 +1,101 @@
+package com.finance.common;
+
+/**
+ * 字符串布隆过滤器
+ *
+ * <p>以位数组记录一组字符串，判断某个字符串"一定不在集合中"或"可能在集合中"。
+ * 不在集合中的判断是确定的；可能在集合中的判断有一定误判率，需要时再到数据库确认。
+ * 每个元素只占约10位（误判率1%时），远小于保存字符串本身。</p>
+ *
+ * <p>不是线程安全的，只在单个线程中构建和查询。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public final class BloomFilter {
+
+    /** 位数组最大长度，约256MB */
+    private static final long MAX_BITS = 1L << 31;
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+    private long size;
+
+    /**
+     * 按预计元素数量和期望误判率确定位数组长度和哈希函数个数
+     *
+     * @param expectedInsertions 预计元素数量
+     * @param falsePositiveRate 期望误判率，如0.01
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("误判率应在0到1之间：" + falsePositiveRate);
+        }
+        long n = Math.max(expectedInsertions, 1);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bits = Math.min(Math.max(bits, 64), MAX_BITS);
+        this.words = new long[(int) ((bits + 63) / 64)];
+        this.bitCount = words.length * 64L;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    /**
+     * 加入一个字符串
+     */
+    public void put(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long index = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            words[(int) (index >>> 6)] |= 1L << index;
+        }
+        size++;
+    }
+
+    /**
+     * 判断字符串是否可能在集合中
+     *
+     * @return false表示一定不在集合中，true表示可能在集合中
+     */
+    public boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long index = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            if ((words[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 已加入的元素个数（含重复加入）
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * FNV-1a 64位哈希后再做一次混合，使各位分布均匀
+     */
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE53A6C1BL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
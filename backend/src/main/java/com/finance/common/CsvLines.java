@@ -0,0 +1,64 @@
+package com.finance.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV行解析工具
+ *
+ * <p>供逐行读取的导入功能使用，只处理单行内容：字段以逗号分隔，
+ * 支持双引号包围的字段及 "" 转义，不支持引号内换行。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public final class CsvLines {
+
+    private CsvLines() {
+    }
+
+    /**
+     * 拆分一行CSV
+     *
+     * @param line 一行文本
+     * @return 各字段的值，未去除首尾空白
+     */
+    public static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * 去除首行开头的UTF-8 BOM
+     *
+     * @param headerLine 首行文本
+     * @return 去除BOM后的文本
+     */
+    public static String stripBom(String headerLine) {
+        return headerLine.startsWith("\uFEFF") ? headerLine.substring(1) : headerLine;
+    }
+}
@@ -0,0 +1,43 @@
+package com.finance.common;
+
+import lombok.Data;
+import java.util.List;
+
+/**
+ * 游标分页结果
+ *
+ * <p>返回格式示例：</p>
+ * <pre>{@code
+ * {
+ *   "items": [ ... ],
+ *   "size": 20,
+ *   "hasNext": true,
+ *   "nextCursor": "MjAyNS0wMS0xNXwxMjM0NQ",
+ *   "total": null
+ * }
+ * }</pre>
+ *
+ * @param <T> 数据类型
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see PageQuery
+ */
+@Data
+public class CursorPage<T> {
+
+    /** 本页数据 */
+    private List<T> items;
+
+    /** 每页条数 */
+    private Integer size;
+
+    /** 是否还有下一页 */
+    private Boolean hasNext;
+
+    /** 下一页游标，没有下一页时为null */
+    private String nextCursor;
+
+    /** 满足条件的总条数，仅在请求 withTotal=true 时返回 */
+    private Long total;
+}
@@ -0,0 +1,203 @@
+package com.finance.common;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 游标（键集）分页查询工具
+ *
+ * <p>按"排序字段 + ID"组合键翻页：下一页的条件为
+ * {@code (排序字段, id) > (上一页最后一行的排序字段, id)}（降序时为小于），
+ * 配合排序字段上的索引，无论翻到第几页，每次查询都只扫描一页的数据，
+ * 不像 OFFSET 分页那样越往后越慢。</p>
+ *
+ * <p>每次多查一行判断是否有下一页，默认不执行 COUNT 查询；
+ * 只有请求 withTotal=true 时才额外统计总数。</p>
+ *
+ * <p>排序字段须为非空列，由调用方以白名单形式限定。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see PageQuery
+ * @see CursorPage
+ */
+@Component
+public class KeysetPager {
+
+    /** 每页最大条数 */
+    private static final int MAX_SIZE = 500;
+
+    /** 游标中排序值与ID的分隔符 */
+    private static final char SEPARATOR = '|';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 执行一次游标分页查询
+     *
+     * @param type 实体类型
+     * @param filter 过滤条件，可为null
+     * @param query 分页参数
+     * @param sortableFields 允许排序的字段
+     * @param <T> 实体类型
+     * @return 分页结果
+     */
+    public <T> CursorPage<T> page(Class<T> type, Specification<T> filter, PageQuery query,
+                                  Set<String> sortableFields) {
+        String sortField = query.getSort() == null || query.getSort().isEmpty() ? "id" : query.getSort();
+        if (!"id".equals(sortField) && !sortableFields.contains(sortField)) {
+            throw new RuntimeException("不支持的排序字段：" + sortField + "，可选：id、" + String.join("、", sortableFields));
+        }
+        boolean ascending = "asc".equalsIgnoreCase(query.getOrder());
+        int size = query.getSize() == null ? 20 : Math.max(1, Math.min(query.getSize(), MAX_SIZE));
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> cq = cb.createQuery(type);
+        Root<T> root = cq.from(type);
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter != null) {
+            Predicate predicate = filter.toPredicate(root, cq, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        if (query.getCursor() != null && !query.getCursor().isEmpty()) {
+            predicates.add(afterCursor(cb, root, sortField, ascending, query.getCursor()));
+        }
+        cq.select(root).where(predicates.toArray(new Predicate[0]));
+        if ("id".equals(sortField)) {
+            cq.orderBy(ascending ? cb.asc(root.get("id")) : cb.desc(root.get("id")));
+        } else {
+            cq.orderBy(ascending ? cb.asc(root.get(sortField)) : cb.desc(root.get(sortField)),
+                ascending ? cb.asc(root.get("id")) : cb.desc(root.get("id")));
+        }
+
+        List<T> rows = entityManager.createQuery(cq).setMaxResults(size + 1).getResultList();
+        boolean hasNext = rows.size() > size;
+        List<T> items = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+
+        CursorPage<T> page = new CursorPage<>();
+        page.setItems(items);
+        page.setSize(size);
+        page.setHasNext(hasNext);
+        if (hasNext) {
+            page.setNextCursor(encodeCursor(items.get(items.size() - 1), sortField));
+        }
+        if (Boolean.TRUE.equals(query.getWithTotal())) {
+            page.setTotal(count(type, filter));
+        }
+        return page;
+    }
+
+    /**
+     * 统计满足过滤条件的总条数
+     */
+    private <T> long count(Class<T> type, Specification<T> filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<T> root = cq.from(type);
+        cq.select(cb.count(root));
+        if (filter != null) {
+            Predicate predicate = filter.toPredicate(root, cq, cb);
+            if (predicate != null) {
+                cq.where(predicate);
+            }
+        }
+        return entityManager.createQuery(cq).getSingleResult();
+    }
+
+    /**
+     * 构造"位于游标之后"的条件
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <T> Predicate afterCursor(CriteriaBuilder cb, Root<T> root, String sortField,
+                                      boolean ascending, String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("无效的分页游标");
+        }
+        int index = decoded.lastIndexOf(SEPARATOR);
+        if (index < 0) {
+            throw new RuntimeException("无效的分页游标");
+        }
+        Long lastId;
+        try {
+            lastId = Long.valueOf(decoded.substring(index + 1));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("无效的分页游标");
+        }
+        Path<Long> idPath = root.get("id");
+        Predicate afterId = ascending ? cb.greaterThan(idPath, lastId) : cb.lessThan(idPath, lastId);
+        if ("id".equals(sortField)) {
+            return afterId;
+        }
+
+        Path<Comparable> sortPath = root.get(sortField);
+        Comparable lastValue = parseValue(sortPath.getJavaType(), decoded.substring(0, index));
+        Predicate afterValue = ascending
+            ? cb.greaterThan(sortPath, lastValue) : cb.lessThan(sortPath, lastValue);
+        return cb.or(afterValue, cb.and(cb.equal(sortPath, lastValue), afterId));
+    }
+
+    /**
+     * 生成指向某一行之后的游标：Base64("排序值|id")
+     */
+    private String encodeCursor(Object row, String sortField) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(row);
+        Object id = wrapper.getPropertyValue("id");
+        String raw = wrapper.getPropertyValue(sortField) + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 按排序字段的类型解析游标中的排序值
+     */
+    @SuppressWarnings("rawtypes")
+    private Comparable parseValue(Class<?> javaType, String value) {
+        try {
+            if (javaType == String.class) {
+                return value;
+            }
+            if (javaType == Long.class) {
+                return Long.valueOf(value);
+            }
+            if (javaType == Integer.class) {
+                return Integer.valueOf(value);
+            }
+            if (javaType == BigDecimal.class) {
+                return new BigDecimal(value);
+            }
+            if (javaType == LocalDate.class) {
+                return LocalDate.parse(value);
+            }
+            if (javaType == LocalDateTime.class) {
+                return LocalDateTime.parse(value);
+            }
+        } catch (RuntimeException e) {
+            throw new RuntimeException("无效的分页游标");
+        }
+        throw new RuntimeException("不支持按该字段类型分页：" + javaType.getSimpleName());
+    }
+}
@@ -0,0 +1,37 @@
+package com.finance.common;
+
+import lombok.Data;
+
+/**
+ * 游标分页查询参数
+ *
+ * <p>用于各模块的 /page 接口，由请求参数直接绑定，如：
+ * {@code /journal-entry/page?size=50&sort=entryDate&order=desc&cursor=...}</p>
+ *
+ * <p>首次查询不传 cursor；之后把上一页返回的 nextCursor 原样传回即可取下一页。
+ * 翻页过程中 sort 和 order 必须保持不变。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see CursorPage
+ * @see KeysetPager
+ */
+@Data
+public class PageQuery {
+
+    /** 上一页返回的游标，首页为空 */
+    private String cursor;
+
+    /** 每页条数，默认20，最大500 */
+    private Integer size = 20;
+
+    /** 排序字段，默认按ID，可选字段由各接口限定 */
+    private String sort = "id";
+
+    /** 排序方向：asc、desc，默认desc（最新的在前） */
+    private String order = "desc";
+
+    /** 是否同时返回满足条件的总条数，默认false，大表上统计总数代价较高 */
+    private Boolean withTotal = false;
+}
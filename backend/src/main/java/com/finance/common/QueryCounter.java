@@ -0,0 +1,66 @@
+package com.finance.common;
+
+/**
+ * 当前线程的SQL计数器
+ *
+ * <p>计数在 {@link #start()} 与 {@link #stop()} 之间进行，由 {@link QueryCountInspector}
+ * 把Hibernate准备执行的每条SQL记到当前线程的统计中；未开始计数的线程（如报表生成线程）不记录。
+ * 通过JdbcTemplate直接执行的SQL（批量导入、导出、银行流水匹配）不经过Hibernate，不在统计之内。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see QueryStats
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    /**
+     * 在当前线程开始新的计数
+     *
+     * @return 本次计数的统计
+     */
+    public static QueryStats start() {
+        return start(new QueryStats());
+    }
+
+    /**
+     * 在当前线程继续累加到已有的统计，用于异步请求的后续派发
+     *
+     * @param stats 已有的统计
+     * @return 传入的统计
+     */
+    public static QueryStats start(QueryStats stats) {
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * 结束当前线程的计数
+     *
+     * @return 本次计数的统计，未开始计数时返回null
+     */
+    public static QueryStats stop() {
+        QueryStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    /**
+     * @return 当前线程正在进行的计数，未开始时返回null
+     */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    static void record(String sql) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.record(sql);
+        }
+    }
+}
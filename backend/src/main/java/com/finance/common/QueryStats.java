@@ -0,0 +1,85 @@
+package com.finance.common;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SQL语句执行统计
+ *
+ * <p>记录一次请求（或测试中的一段代码）内经由Hibernate执行的SQL语句：总条数，
+ * 以及每条不同SQL的执行次数。Hibernate生成的SQL参数都是占位符，同一条SQL反复执行
+ * 通常意味着逐行延迟加载，即N+1查询。</p>
+ *
+ * <p>测试中可用于限定接口的查询数量：</p>
+ * <pre>{@code
+ * QueryStats stats = QueryCounter.start();
+ * try {
+ *     journalEntryService.findAll(JournalEntryService.VIEW_LINES);
+ * } finally {
+ *     QueryCounter.stop();
+ * }
+ * stats.assertAtMost(3);
+ * }</pre>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see QueryCounter
+ */
+public class QueryStats {
+
+    /** SQL -> 执行次数，按首次执行顺序排列 */
+    private final Map<String, Integer> counts = new LinkedHashMap<>();
+
+    private int total;
+
+    synchronized void record(String sql) {
+        total++;
+        counts.merge(sql, 1, Integer::sum);
+    }
+
+    /**
+     * @return 执行的SQL语句总条数
+     */
+    public synchronized int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return 每条不同SQL的执行次数
+     */
+    public synchronized Map<String, Integer> getCounts() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(counts));
+    }
+
+    /**
+     * 取得重复执行达到阈值的SQL，即疑似N+1查询
+     *
+     * @param threshold 重复次数阈值
+     * @return SQL -> 执行次数
+     */
+    public synchronized Map<String, Integer> getRepeated(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        counts.forEach((sql, count) -> {
+            if (count >= threshold) {
+                repeated.put(sql, count);
+            }
+        });
+        return repeated;
+    }
+
+    /**
+     * 断言执行的SQL不超过给定条数
+     *
+     * @param max 最多允许的条数
+     * @throws AssertionError 超出时抛出，消息中列出各SQL的执行次数
+     */
+    public synchronized void assertAtMost(int max) {
+        if (total > max) {
+            StringBuilder message = new StringBuilder("期望最多执行" + max + "条SQL，实际执行" + total + "条：");
+            counts.forEach((sql, count) -> message.append("\n  ").append(count).append(" × ").append(sql));
+            throw new AssertionError(message.toString());
+        }
+    }
+}
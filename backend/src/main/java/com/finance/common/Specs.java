@@ -0,0 +1,81 @@
+package com.finance.common;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+/**
+ * 常用查询条件构造工具
+ *
+ * <p>参数为空时返回null，可直接用于 {@code Specification.where(...).and(...)} 链式拼接，
+ * 未传的过滤条件自动忽略。字段名支持关联路径，如：employee.id。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+public final class Specs {
+
+    private Specs() {
+    }
+
+    /**
+     * 字段等于指定值
+     */
+    public static <T> Specification<T> equal(String field, Object value) {
+        if (value == null || (value instanceof String && ((String) value).isEmpty())) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(path(root, field), value);
+    }
+
+    /**
+     * 字段在闭区间内，任一端为空时只按另一端过滤
+     */
+    public static <T, Y extends Comparable<? super Y>> Specification<T> between(String field, Y from, Y to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Path<Y> path = path(root, field);
+            if (from == null) {
+                return cb.lessThanOrEqualTo(path, to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(path, from);
+            }
+            return cb.between(path, from, to);
+        };
+    }
+
+    /**
+     * 任一字段包含关键字
+     */
+    public static <T> Specification<T> contains(String keyword, String... fields) {
+        if (keyword == null || keyword.isEmpty()) {
+            return null;
+        }
+        String pattern = "%" + keyword + "%";
+        return (root, query, cb) -> {
+            Predicate[] predicates = new Predicate[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                predicates[i] = cb.like(Specs.<String>path(root, fields[i]), pattern);
+            }
+            return cb.or(predicates);
+        };
+    }
+
+    /**
+     * 按字段名（支持 a.b 形式的关联路径）取属性路径
+     */
+    @SuppressWarnings("unchecked")
+    public static <Y> Path<Y> path(Root<?> root, String field) {
+        Path<?> path = root;
+        for (String part : field.split("\\.")) {
+            path = path.get(part);
+        }
+        return (Path<Y>) path;
+    }
+}
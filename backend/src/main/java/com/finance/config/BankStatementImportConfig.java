@@ -0,0 +1,41 @@
+package com.finance.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 银行流水导入线程池配置类
+ *
+ * <p>上传的对账单文件先保存为临时文件，再在独立的线程池中解析和写入，请求立即返回任务ID。
+ * 线程数决定同时导入的文件数量，队列已满时提交任务会被拒绝。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Configuration
+public class BankStatementImportConfig {
+
+    /**
+     * 银行流水导入线程池
+     *
+     * @param threads 线程数
+     * @param queueCapacity 等待队列长度
+     * @return 线程池
+     */
+    @Bean(name = "bankImportExecutor")
+    public ThreadPoolTaskExecutor bankImportExecutor(
+            @Value("${finance.bank-import.worker-threads:1}") int threads,
+            @Value("${finance.bank-import.queue-capacity:10}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("bank-import-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,38 @@
+package com.finance.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 监控指标配置类
+ *
+ * <p>指标由 Spring Boot Actuator 和 Micrometer 采集，通过 /actuator/prometheus 以Prometheus格式输出：</p>
+ * <ul>
+ *   <li>接口耗时：每个控制器接口自动记录 http.server.requests，按 uri、method、status 区分</li>
+ *   <li>业务耗时：关键服务方法上标注 {@code @Timed}，由本类注册的切面计时，指标名以 finance. 开头</li>
+ *   <li>业务计数：报表缓存命中、凭证导入成功/失败等由各服务直接累加</li>
+ *   <li>Hibernate统计：开启 hibernate.generate_statistics 后自动输出 hibernate.* 指标，
+ *       包括SQL执行次数、实体加载次数、二级缓存命中等</li>
+ *   <li>连接池、JVM、报表线程池等由 Spring Boot 自动注册</li>
+ * </ul>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 使 {@code @Timed} 注解在Spring Bean的方法上生效
+     *
+     * @param registry 指标注册表
+     * @return 计时切面
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
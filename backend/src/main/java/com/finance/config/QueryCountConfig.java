@@ -0,0 +1,30 @@
+package com.finance.config;
+
+import com.finance.common.QueryCountInspector;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SQL计数配置类
+ *
+ * <p>为Hibernate注册 {@link QueryCountInspector}，使 {@link QueryCountFilter} 能按请求统计SQL。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Configuration
+public class QueryCountConfig {
+
+    /**
+     * 注册SQL语句检查器
+     *
+     * @return Hibernate配置定制器
+     */
+    @Bean
+    public HibernatePropertiesCustomizer queryCountCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector());
+    }
+}
@@ -0,0 +1,162 @@
+package com.finance.config;
+
+import com.finance.common.QueryCounter;
+import com.finance.common.QueryStats;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 请求级SQL计数过滤器
+ *
+ * <p>每个HTTP请求处理期间统计经由Hibernate执行的SQL（包括响应序列化时触发的延迟加载），请求结束时：</p>
+ * <ul>
+ *   <li>记录指标 finance.http.queries（每个请求的SQL条数分布，按接口uri区分）</li>
+ *   <li>同一条SQL重复执行达到阈值时记为疑似N+1查询，输出警告日志并累加指标 finance.http.n-plus-one</li>
+ *   <li>统计结果放在请求属性 {@link #STATS_ATTRIBUTE} 中，测试可据此断言接口的最大查询数</li>
+ * </ul>
+ *
+ * <p>开发环境可开启 finance.query-counter.expose-header，在响应头 {@value #HEADER} 中返回SQL条数。
+ * 响应头必须先于响应体发送，开启后响应体会先缓存在内存中，请求处理完毕再输出，因此只应在开发环境使用；
+ * 服务器推送（text/event-stream）请求和 finance.query-counter.streaming-paths 中的流式下载接口不缓存，
+ * 也不返回该响应头，以免大文件导出整个缓存在内存中。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see QueryCounter
+ */
+@Slf4j
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    /** 请求属性：本次请求的SQL统计 */
+    public static final String STATS_ATTRIBUTE = QueryCountFilter.class.getName() + ".STATS";
+
+    /** 响应头：本次请求执行的SQL条数 */
+    public static final String HEADER = "X-Query-Count";
+
+    private static final int MAX_LOGGED_SQL_LENGTH = 300;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${finance.query-counter.enabled:true}")
+    private boolean enabled;
+
+    /** 是否在响应头中返回SQL条数，仅用于开发环境 */
+    @Value("${finance.query-counter.expose-header:false}")
+    private boolean exposeHeader;
+
+    /** 同一条SQL在一个请求内执行达到该次数即视为疑似N+1查询 */
+    @Value("${finance.query-counter.n-plus-one-threshold:10}")
+    private int nPlusOneThreshold;
+
+    /** 直接写出响应体的流式接口（路径模式，不含上下文路径），开启响应头时也不缓存响应体 */
+    @Value("${finance.query-counter.streaming-paths:/journal-entry/export,/dashboard/stream}")
+    private List<String> streamingPaths;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // 异步请求的后续派发继续累加到同一份统计，并在最后一次派发结束时输出
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        QueryStats stats = (QueryStats) request.getAttribute(STATS_ATTRIBUTE);
+        if (stats == null) {
+            stats = new QueryStats();
+            request.setAttribute(STATS_ATTRIBUTE, stats);
+        }
+        HttpServletResponse target = response;
+        if (exposeHeader && !isAsyncDispatch(request) && !isEventStream(request) && !isStreamingPath(request)) {
+            target = new ContentCachingResponseWrapper(response);
+        }
+
+        QueryCounter.start(stats);
+        try {
+            filterChain.doFilter(request, target);
+        } finally {
+            QueryCounter.stop();
+        }
+        if (request.isAsyncStarted()) {
+            return;
+        }
+
+        ContentCachingResponseWrapper cached = WebUtils.getNativeResponse(target, ContentCachingResponseWrapper.class);
+        if (cached != null) {
+            cached.setHeader(HEADER, String.valueOf(stats.getTotal()));
+            cached.copyBodyToResponse();
+        }
+        report(request, stats);
+    }
+
+    private void report(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("finance.http.queries")
+            .description("每个请求执行的SQL条数")
+            .tag("method", request.getMethod())
+            .tag("uri", uri)
+            .register(meterRegistry)
+            .record(stats.getTotal());
+
+        Map<String, Integer> repeated = stats.getRepeated(nPlusOneThreshold);
+        if (!repeated.isEmpty()) {
+            meterRegistry.counter("finance.http.n-plus-one", "method", request.getMethod(), "uri", uri).increment();
+            repeated.forEach((sql, count) -> log.warn("疑似N+1查询：{} {} 中同一条SQL执行了{}次（共{}条）：{}",
+                request.getMethod(), uri, count, stats.getTotal(), abbreviate(sql)));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("{} {} 执行SQL {}条", request.getMethod(), request.getRequestURI(), stats.getTotal());
+        }
+    }
+
+    private static boolean isEventStream(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return accept != null && accept.contains("text/event-stream");
+    }
+
+    private boolean isStreamingPath(HttpServletRequest request) {
+        String path = urlPathHelper.getPathWithinApplication(request);
+        for (String pattern : streamingPaths) {
+            if (pathMatcher.match(pattern.trim(), path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String abbreviate(String sql) {
+        String compact = sql.replaceAll("\\s+", " ").trim();
+        return compact.length() > MAX_LOGGED_SQL_LENGTH ? compact.substring(0, MAX_LOGGED_SQL_LENGTH) + "..." : compact;
+    }
+}
@@ -0,0 +1,41 @@
+package com.finance.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 报表任务线程池配置类
+ *
+ * <p>报表在独立的线程池中生成，不占用请求线程。线程数决定同时生成的报表数量，
+ * 队列已满时提交任务会被拒绝，避免大量报表请求同时扫描总账。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Configuration
+public class ReportJobConfig {
+
+    /**
+     * 报表生成线程池
+     *
+     * @param threads 线程数
+     * @param queueCapacity 等待队列长度
+     * @return 线程池
+     */
+    @Bean(name = "reportExecutor")
+    public ThreadPoolTaskExecutor reportExecutor(
+            @Value("${finance.report.worker-threads:2}") int threads,
+            @Value("${finance.report.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,7 +1,10 @@
 package com.finance.controller;
 
+import com.finance.common.CursorPage;
+import com.finance.common.PageQuery;
 import com.finance.common.Result;
 import com.finance.entity.AccountSubject;
+import com.finance.service.AccountSubjectClosureService;
 import com.finance.service.AccountSubjectService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -14,11 +17,27 @@ public class AccountSubjectController {
     @Autowired
     private AccountSubjectService accountSubjectService;
 
+    @Autowired
+    private AccountSubjectClosureService accountSubjectClosureService;
+
     @GetMapping("/list")
     public Result<List<AccountSubject>> list() {
         return Result.success(accountSubjectService.findAll());
     }
 
+    @GetMapping("/page")
+    public Result<CursorPage<AccountSubject>> page(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) String keyword,
+            PageQuery query) {
+        try {
+            return Result.success(accountSubjectService.page(type, enabled, keyword, query));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public Result<AccountSubject> getById(@PathVariable Long id) {
         AccountSubject subject = accountSubjectService.findById(id);
@@ -71,14 +90,14 @@ public class AccountSubjectController {
             return Result.error("删除失败：" + e.getMessage());
         }
     }
-}
-
-
-
-
-
-
-
-
-
 
+    @PostMapping("/rebuild-closure")
+    public Result<Integer> rebuildClosure() {
+        try {
+            int rows = accountSubjectClosureService.rebuild();
+            return Result.success("重建成功", rows);
+        } catch (Exception e) {
+            return Result.error("重建科目闭包表失败：" + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.finance.controller;
+
+import com.finance.common.Result;
+import com.finance.entity.BankAccountSubject;
+import com.finance.service.BankAccountSubjectService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/bank-account-subject")
+public class BankAccountSubjectController {
+
+    @Autowired
+    private BankAccountSubjectService bankAccountSubjectService;
+
+    @GetMapping("/list")
+    public Result<List<BankAccountSubject>> list() {
+        return Result.success(bankAccountSubjectService.findAll());
+    }
+
+    @GetMapping("/{id}")
+    public Result<BankAccountSubject> getById(@PathVariable Long id) {
+        BankAccountSubject mapping = bankAccountSubjectService.findById(id);
+        if (mapping != null) {
+            return Result.success(mapping);
+        }
+        return Result.error("对应关系不存在");
+    }
+
+    @PostMapping("/save")
+    public Result<BankAccountSubject> save(@RequestBody BankAccountSubject mapping) {
+        try {
+            BankAccountSubject saved = bankAccountSubjectService.save(mapping);
+            return Result.success("保存成功", saved);
+        } catch (Exception e) {
+            return Result.error("保存失败：" + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public Result<Void> delete(@PathVariable Long id) {
+        try {
+            bankAccountSubjectService.delete(id);
+            return Result.success("删除成功", null);
+        } catch (Exception e) {
+            return Result.error("删除失败：" + e.getMessage());
+        }
+    }
+}
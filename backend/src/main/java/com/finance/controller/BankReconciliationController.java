@@ -1,8 +1,11 @@
 package com.finance.controller;
 
+import com.finance.common.CursorPage;
+import com.finance.common.PageQuery;
 import com.finance.common.Result;
 import com.finance.entity.BankReconciliation;
 import com.finance.service.BankReconciliationService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
@@ -12,6 +15,7 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @RestController
 @RequestMapping("/bank-reconciliation")
 public class BankReconciliationController {
@@ -24,6 +28,20 @@ public class BankReconciliationController {
         return Result.success(reconciliationService.findAll());
     }
 
+    @GetMapping("/page")
+    public Result<CursorPage<BankReconciliation>> page(
+            @RequestParam(required = false) String bankAccount,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            PageQuery query) {
+        try {
+            return Result.success(reconciliationService.page(bankAccount, status, startDate, endDate, query));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public Result<BankReconciliation> getById(@PathVariable Long id) {
         BankReconciliation reconciliation = reconciliationService.findById(id);
@@ -49,7 +67,7 @@ public class BankReconciliationController {
                 bankAccount, reconciliationDate, bankBalance, createdBy);
             return Result.success("生成成功", result);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("生成余额调节表失败：{}", e.getMessage(), e);
             return Result.error("生成失败：" + e.getMessage());
         }
     }
@@ -66,11 +84,13 @@ public class BankReconciliationController {
             
             LocalDate startDate = LocalDate.parse(startDateStr);
             LocalDate endDate = LocalDate.parse(endDateStr);
+            Integer toleranceDays = params.get("toleranceDays") != null
+                ? Integer.valueOf(params.get("toleranceDays").toString()) : null;
             
-            Map<String, Object> result = reconciliationService.autoMatch(bankAccount, startDate, endDate);
+            Map<String, Object> result = reconciliationService.autoMatch(bankAccount, startDate, endDate, toleranceDays);
             return Result.success("自动对账完成", result);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("自动对账失败：{}", e.getMessage(), e);
             return Result.error("自动对账失败：" + e.getMessage());
         }
     }
@@ -92,7 +112,7 @@ public class BankReconciliationController {
                 bankAccount, reconciliationDate, bankBalance, createdBy);
             return Result.success("生成成功", result);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("生成余额调节表失败：{}", e.getMessage(), e);
             return Result.error("生成失败：" + e.getMessage());
         }
     }
@@ -1,12 +1,18 @@
 package com.finance.controller;
 
+import com.finance.common.CursorPage;
+import com.finance.common.PageQuery;
 import com.finance.common.Result;
+import com.finance.dto.BankStatementImportJob;
 import com.finance.entity.BankStatement;
+import com.finance.service.BankStatementImportService;
 import com.finance.service.BankStatementService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -18,11 +24,30 @@ public class BankStatementController {
     @Autowired
     private BankStatementService bankStatementService;
 
+    @Autowired
+    private BankStatementImportService bankStatementImportService;
+
     @GetMapping("/list")
     public Result<List<BankStatement>> list() {
         return Result.success(bankStatementService.findAll());
     }
 
+    @GetMapping("/page")
+    public Result<CursorPage<BankStatement>> page(
+            @RequestParam(required = false) String bankAccount,
+            @RequestParam(required = false) String reconciliationStatus,
+            @RequestParam(required = false) String transactionType,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(required = false) String keyword,
+            PageQuery query) {
+        try {
+            return Result.success(bankStatementService.page(bankAccount, reconciliationStatus, transactionType, startDate, endDate, keyword, query));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public Result<BankStatement> getById(@PathVariable Long id) {
         BankStatement statement = bankStatementService.findById(id);
@@ -70,6 +95,36 @@ public class BankStatementController {
         }
     }
 
+    /**
+     * 上传银行对账单文件（CSV 或 MT940），在后台导入，返回任务ID
+     */
+    @PostMapping("/import")
+    public Result<BankStatementImportJob> importFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String bankAccount,
+            @RequestParam(required = false) String bankName) {
+        try (InputStream in = file.getInputStream()) {
+            BankStatementImportJob job = bankStatementImportService.submit(
+                in, file.getOriginalFilename(), format, bankAccount, bankName);
+            return Result.success("已提交导入任务", job);
+        } catch (Exception e) {
+            return Result.error("导入失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询导入任务进度
+     */
+    @GetMapping("/import/{jobId}")
+    public Result<BankStatementImportJob> importProgress(@PathVariable String jobId) {
+        BankStatementImportJob job = bankStatementImportService.getJob(jobId);
+        if (job != null) {
+            return Result.success(job);
+        }
+        return Result.error("导入任务不存在或已过期");
+    }
+
     @DeleteMapping("/{id}")
     public Result<Void> delete(@PathVariable Long id) {
         try {
@@ -84,9 +139,10 @@ public class BankStatementController {
     public Result<Map<String, Object>> autoMatch(
             @RequestParam String bankAccount,
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
-            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(required = false) Integer toleranceDays) {
         try {
-            Map<String, Object> result = bankStatementService.autoMatch(bankAccount, startDate, endDate);
+            Map<String, Object> result = bankStatementService.autoMatch(bankAccount, startDate, endDate, toleranceDays);
             return Result.success("自动匹配完成", result);
         } catch (Exception e) {
             return Result.error("自动匹配失败：" + e.getMessage());
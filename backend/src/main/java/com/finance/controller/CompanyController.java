@@ -1,5 +1,7 @@
 package com.finance.controller;
 
+import com.finance.common.CursorPage;
+import com.finance.common.PageQuery;
 import com.finance.common.Result;
 import com.finance.entity.Company;
 import com.finance.service.CompanyService;
@@ -19,6 +21,17 @@ public class CompanyController {
         return Result.success(companyService.findAll());
     }
 
+    @GetMapping("/page")
+    public Result<CursorPage<Company>> page(
+            @RequestParam(required = false) String keyword,
+            PageQuery query) {
+        try {
+            return Result.success(companyService.page(keyword, query));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public Result<Company> getById(@PathVariable Long id) {
         Company company = companyService.findById(id);
@@ -1,5 +1,7 @@
 package com.finance.controller;
 
+import com.finance.common.CursorPage;
+import com.finance.common.PageQuery;
 import com.finance.common.Result;
 import com.finance.entity.Customer;
 import com.finance.service.CustomerService;
@@ -19,6 +21,19 @@ public class CustomerController {
         return Result.success(customerService.findAll());
     }
 
+    @GetMapping("/page")
+    public Result<CursorPage<Customer>> page(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String keyword,
+            PageQuery query) {
+        try {
+            return Result.success(customerService.page(status, category, keyword, query));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public Result<Customer> getById(@PathVariable Long id) {
         Customer customer = customerService.findById(id);
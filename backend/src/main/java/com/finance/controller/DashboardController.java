@@ -1,13 +1,14 @@
 package com.finance.controller;
 
 import com.finance.common.Result;
-import com.finance.service.*;
+import com.finance.service.DashboardService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -18,42 +19,15 @@ import java.util.Map;
 public class DashboardController {
 
     @Autowired
-    private JournalEntryService journalEntryService;
-
-    @Autowired
-    private PurchaseOrderService purchaseOrderService;
-
-    @Autowired
-    private SalesInvoiceService salesInvoiceService;
-
-    @Autowired
-    private EmployeeExpenseService employeeExpenseService;
+    private DashboardService dashboardService;
 
     /**
      * 获取首页统计数据
      */
     @GetMapping("/statistics")
     public Result<Map<String, Object>> getStatistics() {
-        Map<String, Object> statistics = new HashMap<>();
-        
         try {
-            // 统计会计凭证数量
-            long journalEntryCount = journalEntryService.count();
-            statistics.put("journalEntryCount", journalEntryCount);
-
-            // 统计采购订单数量
-            long purchaseOrderCount = purchaseOrderService.count();
-            statistics.put("purchaseOrderCount", purchaseOrderCount);
-
-            // 统计销售单数量
-            long salesInvoiceCount = salesInvoiceService.count();
-            statistics.put("salesInvoiceCount", salesInvoiceCount);
-
-            // 统计员工费用数量
-            long employeeExpenseCount = employeeExpenseService.count();
-            statistics.put("employeeExpenseCount", employeeExpenseCount);
-
-            return Result.success(statistics);
+            return Result.success(dashboardService.getStatistics());
         } catch (Exception e) {
             return Result.error("获取统计数据失败：" + e.getMessage());
         }
@@ -64,22 +38,18 @@ public class DashboardController {
      */
     @GetMapping("/notifications")
     public Result<Map<String, Object>> getNotifications() {
-        Map<String, Object> notifications = new HashMap<>();
-        
         try {
-            // 获取最新的3条会计凭证
-            notifications.put("journalEntries", journalEntryService.getLatest(3));
-
-            // 获取最新的3条采购订单
-            notifications.put("purchaseOrders", purchaseOrderService.getLatest(3));
-
-            // 获取最新的3条销售单
-            notifications.put("salesInvoices", salesInvoiceService.getLatest(3));
-
-            return Result.success(notifications);
+            return Result.success(dashboardService.getNotifications());
         } catch (Exception e) {
             return Result.error("获取通知数据失败：" + e.getMessage());
         }
     }
-}
 
+    /**
+     * 订阅首页数据推送，单据变动后推送最新的统计数据和通知
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return dashboardService.subscribe();
+    }
+}
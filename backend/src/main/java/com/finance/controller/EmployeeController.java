@@ -1,5 +1,7 @@
 package com.finance.controller;
 
+import com.finance.common.CursorPage;
+import com.finance.common.PageQuery;
 import com.finance.common.Result;
 import com.finance.entity.Employee;
 import com.finance.service.EmployeeService;
@@ -19,6 +21,19 @@ public class EmployeeController {
         return Result.success(employeeService.findAll());
     }
 
+    @GetMapping("/page")
+    public Result<CursorPage<Employee>> page(
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String keyword,
+            PageQuery query) {
+        try {
+            return Result.success(employeeService.page(department, status, keyword, query));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public Result<Employee> getById(@PathVariable Long id) {
         Employee employee = employeeService.findById(id);
@@ -1,10 +1,14 @@
 package com.finance.controller;
 
+import com.finance.common.CursorPage;
+import com.finance.common.PageQuery;
 import com.finance.common.Result;
 import com.finance.entity.EmployeeExpense;
 import com.finance.service.EmployeeExpenseService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -19,6 +23,22 @@ public class EmployeeExpenseController {
         return Result.success(employeeExpenseService.findAll());
     }
 
+    @GetMapping("/page")
+    public Result<CursorPage<EmployeeExpense>> page(
+            @RequestParam(required = false) Long employeeId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String expenseType,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(required = false) String keyword,
+            PageQuery query) {
+        try {
+            return Result.success(employeeExpenseService.page(employeeId, status, expenseType, startDate, endDate, keyword, query));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public Result<EmployeeExpense> getById(@PathVariable Long id) {
         EmployeeExpense expense = employeeExpenseService.findById(id);
@@ -0,0 +1,76 @@
+package com.finance.controller;
+
+import com.finance.common.Result;
+import com.finance.entity.ExchangeRate;
+import com.finance.service.ExchangeRateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 外币汇率控制器
+ */
+@RestController
+@RequestMapping("/exchange-rate")
+public class ExchangeRateController {
+
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    @GetMapping("/list")
+    public Result<List<ExchangeRate>> list() {
+        return Result.success(exchangeRateService.findAll());
+    }
+
+    @GetMapping("/currency/{currency}")
+    public Result<List<ExchangeRate>> getByCurrency(@PathVariable String currency) {
+        return Result.success(exchangeRateService.findByCurrency(currency));
+    }
+
+    @GetMapping("/{id}")
+    public Result<ExchangeRate> getById(@PathVariable Long id) {
+        ExchangeRate exchangeRate = exchangeRateService.findById(id);
+        if (exchangeRate != null) {
+            return Result.success(exchangeRate);
+        }
+        return Result.error("汇率不存在");
+    }
+
+    /**
+     * 查询某币种在指定日期适用的汇率
+     */
+    @GetMapping("/rate")
+    public Result<BigDecimal> rate(
+            @RequestParam String currency,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date) {
+        try {
+            return Result.success(exchangeRateService.requireRateOn(currency, date));
+        } catch (Exception e) {
+            return Result.error("查询汇率失败：" + e.getMessage());
+        }
+    }
+
+    @PostMapping("/save")
+    public Result<ExchangeRate> save(@RequestBody ExchangeRate exchangeRate) {
+        try {
+            ExchangeRate saved = exchangeRateService.save(exchangeRate);
+            return Result.success("保存成功", saved);
+        } catch (Exception e) {
+            return Result.error("保存失败：" + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public Result<Void> delete(@PathVariable Long id) {
+        try {
+            exchangeRateService.delete(id);
+            return Result.success("删除成功", null);
+        } catch (Exception e) {
+            return Result.error("删除失败：" + e.getMessage());
+        }
+    }
+}
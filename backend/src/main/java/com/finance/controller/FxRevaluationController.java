@@ -0,0 +1,45 @@
+package com.finance.controller;
+
+import com.finance.common.Result;
+import com.finance.service.FxRevaluationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * 期末汇兑损益调整控制器
+ */
+@RestController
+@RequestMapping("/fx-revaluation")
+public class FxRevaluationController {
+
+    @Autowired
+    private FxRevaluationService fxRevaluationService;
+
+    /**
+     * 试算期末汇兑损益，不生成凭证
+     */
+    @GetMapping("/preview")
+    public Result<Map<String, Object>> preview(@RequestParam Integer period) {
+        try {
+            return Result.success(fxRevaluationService.preview(period));
+        } catch (Exception e) {
+            return Result.error("试算汇兑损益失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 期末汇兑损益调整，生成并过账调整凭证
+     */
+    @PostMapping("/run")
+    public Result<Map<String, Object>> run(
+            @RequestParam Integer period,
+            @RequestParam(required = false) String createdBy) {
+        try {
+            return Result.success("调整完成", fxRevaluationService.revalue(period, createdBy));
+        } catch (Exception e) {
+            return Result.error("汇兑损益调整失败：" + e.getMessage());
+        }
+    }
+}
@@ -1,13 +1,25 @@
 package com.finance.controller;
 
+import com.finance.common.CursorPage;
+import com.finance.common.PageQuery;
 import com.finance.common.Result;
+import com.finance.dto.JournalEntryView;
 import com.finance.entity.JournalEntry;
+import com.finance.service.JournalEntryExportService;
+import com.finance.service.JournalEntryImportService;
 import com.finance.service.JournalEntryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/journal-entry")
@@ -16,30 +28,81 @@ public class JournalEntryController {
     @Autowired
     private JournalEntryService journalEntryService;
 
+    @Autowired
+    private JournalEntryImportService journalEntryImportService;
+
+    @Autowired
+    private JournalEntryExportService journalEntryExportService;
+
+    /**
+     * 凭证列表
+     * view 参数选择返回内容：header 只有凭证头（默认），lines 带分录明细，full 再带科目编码和名称
+     */
     @GetMapping("/list")
-    public Result<List<JournalEntry>> list() {
-        return Result.success(journalEntryService.findAll());
+    public Result<List<JournalEntryView>> list(
+            @RequestParam(defaultValue = JournalEntryService.VIEW_HEADER) String view) {
+        try {
+            return Result.success(journalEntryService.findAll(view));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
+    }
+
+    @GetMapping("/page")
+    public Result<CursorPage<JournalEntryView>> page(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String businessType,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = JournalEntryService.VIEW_HEADER) String view,
+            PageQuery query) {
+        try {
+            return Result.success(journalEntryService.page(status, businessType, startDate, endDate, keyword, query, view));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
     }
 
+    /**
+     * 凭证详情，默认 full 视图：凭证、明细及科目编码和名称，一条查询取出
+     */
     @GetMapping("/{id}")
-    public Result<JournalEntry> getById(@PathVariable Long id) {
-        JournalEntry entry = journalEntryService.findById(id);
-        if (entry != null) {
-            return Result.success(entry);
+    public Result<JournalEntryView> getById(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = JournalEntryService.VIEW_FULL) String view) {
+        try {
+            JournalEntryView entry = journalEntryService.findView(id, view);
+            if (entry != null) {
+                return Result.success(entry);
+            }
+            return Result.error("会计分录不存在");
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
         }
-        return Result.error("会计分录不存在");
     }
 
     @GetMapping("/status/{status}")
-    public Result<List<JournalEntry>> getByStatus(@PathVariable String status) {
-        return Result.success(journalEntryService.findByStatus(status));
+    public Result<List<JournalEntryView>> getByStatus(
+            @PathVariable String status,
+            @RequestParam(defaultValue = JournalEntryService.VIEW_HEADER) String view) {
+        try {
+            return Result.success(journalEntryService.findByStatus(status, view));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
     }
 
     @GetMapping("/date-range")
-    public Result<List<JournalEntry>> getByDateRange(
+    public Result<List<JournalEntryView>> getByDateRange(
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
-            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
-        return Result.success(journalEntryService.findByDateRange(startDate, endDate));
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(defaultValue = JournalEntryService.VIEW_HEADER) String view) {
+        try {
+            return Result.success(journalEntryService.findByDateRange(startDate, endDate, view));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
     }
 
     @PostMapping("/save")
@@ -74,14 +137,51 @@ public class JournalEntryController {
             return Result.error("删除失败：" + e.getMessage());
         }
     }
-}
-
-
-
-
-
-
-
-
 
+    @PostMapping("/batch-import")
+    public Result<Map<String, Object>> batchImport(@RequestParam("file") MultipartFile file,
+                                                   @RequestParam(required = false) String format) {
+        if (format == null || format.isEmpty()) {
+            String filename = file.getOriginalFilename();
+            format = filename != null && filename.toLowerCase().endsWith(".csv") ? "csv" : "json";
+        }
+        try (InputStream in = file.getInputStream()) {
+            Map<String, Object> result = journalEntryImportService.importVouchers(in, format);
+            return Result.success("导入完成", result);
+        } catch (Exception e) {
+            return Result.error("导入失败：" + e.getMessage());
+        }
+    }
 
+    @GetMapping("/export")
+    public void export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String accountCode,
+            HttpServletResponse response) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("不支持的导出格式：" + format + "，可选：ndjson、csv");
+            return;
+        }
+        String filename = "会计分录" + (csv ? ".csv" : ".ndjson");
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename*=UTF-8''"
+            + URLEncoder.encode(filename, StandardCharsets.UTF_8.name()));
+        try {
+            journalEntryExportService.export(response.getOutputStream(), format, startDate, endDate, status, accountCode);
+        } catch (RuntimeException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("导出失败：" + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.finance.controller;
+
+import com.finance.common.Result;
+import com.finance.service.LedgerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 账簿查询控制器
+ */
+@RestController
+@RequestMapping("/ledger")
+public class LedgerController {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    /**
+     * 查询总账
+     * 期间格式为 yyyyMM，默认本年1月至本月
+     */
+    @GetMapping("/general")
+    public Result<Map<String, Object>> general(
+            @RequestParam String accountCode,
+            @RequestParam(required = false) Integer startPeriod,
+            @RequestParam(required = false) Integer endPeriod) {
+        try {
+            LocalDate today = LocalDate.now();
+            if (endPeriod == null) {
+                endPeriod = today.getYear() * 100 + today.getMonthValue();
+            }
+            if (startPeriod == null) {
+                startPeriod = endPeriod / 100 * 100 + 1;
+            }
+            return Result.success(ledgerService.generalLedger(accountCode, startPeriod, endPeriod));
+        } catch (Exception e) {
+            return Result.error("查询总账失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 分页查询明细账
+     * 首页不传 cursor；之后把上一页返回的 nextCursor 原样传回即可取下一页
+     */
+    @GetMapping("/detail")
+    public Result<Map<String, Object>> detail(
+            @RequestParam String accountCode,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return Result.success(ledgerService.detailLedger(accountCode, startDate, endDate, cursor, size));
+        } catch (Exception e) {
+            return Result.error("查询明细账失败：" + e.getMessage());
+        }
+    }
+}
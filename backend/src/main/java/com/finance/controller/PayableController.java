@@ -0,0 +1,76 @@
+package com.finance.controller;
+
+import com.finance.common.Result;
+import com.finance.service.PayableAgingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 应付账款账龄与付款预测控制器
+ */
+@RestController
+@RequestMapping("/payable")
+public class PayableController {
+
+    @Autowired
+    private PayableAgingService payableAgingService;
+
+    /**
+     * 全部供应商的应付账龄
+     */
+    @GetMapping("/aging")
+    public Result<Map<String, Object>> aging(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate asOf) {
+        try {
+            return Result.success(payableAgingService.portfolio(asOf));
+        } catch (Exception e) {
+            return Result.error("查询应付账龄失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 单个供应商的应付账龄及未付清的采购订单
+     */
+    @GetMapping("/aging/supplier/{supplierId}")
+    public Result<Map<String, Object>> supplierAging(
+            @PathVariable Long supplierId,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate asOf) {
+        try {
+            return Result.success(payableAgingService.supplier(supplierId, asOf));
+        } catch (Exception e) {
+            return Result.error("查询供应商应付账龄失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 按周预测应付款项，默认13周
+     */
+    @GetMapping("/forecast")
+    public Result<Map<String, Object>> forecast(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate asOf,
+            @RequestParam(required = false) Integer weeks) {
+        try {
+            return Result.success(payableAgingService.forecast(asOf, weeks));
+        } catch (Exception e) {
+            return Result.error("查询付款预测失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 根据全部采购订单重建应付余额
+     * 首次启用账龄分析或数据修复时使用
+     */
+    @PostMapping("/rebuild")
+    public Result<Integer> rebuild() {
+        try {
+            int rows = payableAgingService.rebuild();
+            return Result.success("重建成功", rows);
+        } catch (Exception e) {
+            return Result.error("重建应付余额失败：" + e.getMessage());
+        }
+    }
+}
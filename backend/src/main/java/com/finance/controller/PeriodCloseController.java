@@ -0,0 +1,65 @@
+package com.finance.controller;
+
+import com.finance.common.Result;
+import com.finance.entity.AccountingPeriod;
+import com.finance.service.PeriodCloseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 会计期间结账控制器
+ */
+@RestController
+@RequestMapping("/period-close")
+public class PeriodCloseController {
+
+    @Autowired
+    private PeriodCloseService periodCloseService;
+
+    @GetMapping("/list")
+    public Result<List<AccountingPeriod>> list() {
+        return Result.success(periodCloseService.findAll());
+    }
+
+    /**
+     * 查询最近一个已结账期间
+     */
+    @GetMapping("/status")
+    public Result<Map<String, Object>> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("closedThrough", periodCloseService.getClosedThrough());
+        return Result.success(status);
+    }
+
+    /**
+     * 结账
+     */
+    @PostMapping("/close")
+    public Result<AccountingPeriod> close(
+            @RequestParam Integer period,
+            @RequestParam(required = false) String closedBy) {
+        try {
+            return Result.success("结账成功", periodCloseService.close(period, closedBy));
+        } catch (Exception e) {
+            return Result.error("结账失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 反结账
+     */
+    @PostMapping("/reopen")
+    public Result<AccountingPeriod> reopen(
+            @RequestParam Integer period,
+            @RequestParam(required = false) String reopenedBy) {
+        try {
+            return Result.success("反结账成功", periodCloseService.reopen(period, reopenedBy));
+        } catch (Exception e) {
+            return Result.error("反结账失败：" + e.getMessage());
+        }
+    }
+}
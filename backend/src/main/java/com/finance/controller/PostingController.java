@@ -0,0 +1,78 @@
+package com.finance.controller;
+
+import com.finance.common.Result;
+import com.finance.entity.PostingTemplate;
+import com.finance.service.PostingEngine;
+import com.finance.service.PostingTemplateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 业务单据生成凭证控制器
+ */
+@RestController
+@RequestMapping("/posting")
+public class PostingController {
+
+    @Autowired
+    private PostingEngine postingEngine;
+
+    @Autowired
+    private PostingTemplateService postingTemplateService;
+
+    @GetMapping("/template/list")
+    public Result<List<PostingTemplate>> listTemplates() {
+        return Result.success(postingTemplateService.findAll());
+    }
+
+    @GetMapping("/template/{id}")
+    public Result<PostingTemplate> getTemplate(@PathVariable Long id) {
+        PostingTemplate template = postingTemplateService.findById(id);
+        if (template != null) {
+            return Result.success(template);
+        }
+        return Result.error("凭证模板不存在");
+    }
+
+    @PostMapping("/template/save")
+    public Result<PostingTemplate> saveTemplate(@RequestBody PostingTemplate template) {
+        try {
+            PostingTemplate saved = postingTemplateService.save(template);
+            return Result.success("保存成功", saved);
+        } catch (Exception e) {
+            return Result.error("保存失败：" + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/template/{id}")
+    public Result<Void> deleteTemplate(@PathVariable Long id) {
+        try {
+            postingTemplateService.delete(id);
+            return Result.success("删除成功", null);
+        } catch (Exception e) {
+            return Result.error("删除失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 为日期范围内已审核的业务单据批量生成凭证，已生成过凭证的单据自动跳过
+     */
+    @PostMapping("/generate")
+    public Result<Map<String, Object>> generate(
+            @RequestParam(required = false) String businessType,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean post,
+            @RequestParam(required = false) String createdBy) {
+        try {
+            return Result.success("生成完成", postingEngine.generate(businessType, startDate, endDate, post, createdBy));
+        } catch (Exception e) {
+            return Result.error("生成失败：" + e.getMessage());
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.finance.controller;
 
+import com.finance.common.CursorPage;
+import com.finance.common.PageQuery;
 import com.finance.common.Result;
 import com.finance.entity.PurchaseOrder;
 import com.finance.service.PurchaseOrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -19,6 +24,21 @@ public class PurchaseOrderController {
         return Result.success(purchaseOrderService.findAll());
     }
 
+    @GetMapping("/page")
+    public Result<CursorPage<PurchaseOrder>> page(
+            @RequestParam(required = false) Long supplierId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(required = false) String keyword,
+            PageQuery query) {
+        try {
+            return Result.success(purchaseOrderService.page(supplierId, status, startDate, endDate, keyword, query));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public Result<PurchaseOrder> getById(@PathVariable Long id) {
         PurchaseOrder order = purchaseOrderService.findById(id);
@@ -43,6 +63,16 @@ public class PurchaseOrderController {
         }
     }
 
+    @PostMapping("/{id}/payment")
+    public Result<PurchaseOrder> pay(@PathVariable Long id, @RequestParam BigDecimal amount) {
+        try {
+            PurchaseOrder saved = purchaseOrderService.pay(id, amount);
+            return Result.success("付款成功", saved);
+        } catch (Exception e) {
+            return Result.error("付款失败：" + e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{id}")
     public Result<Void> delete(@PathVariable Long id) {
         try {
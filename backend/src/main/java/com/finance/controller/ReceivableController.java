@@ -0,0 +1,62 @@
+package com.finance.controller;
+
+import com.finance.common.Result;
+import com.finance.service.ReceivableAgingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 应收账款账龄控制器
+ */
+@RestController
+@RequestMapping("/receivable")
+public class ReceivableController {
+
+    @Autowired
+    private ReceivableAgingService receivableAgingService;
+
+    /**
+     * 全部客户的应收账龄
+     */
+    @GetMapping("/aging")
+    public Result<Map<String, Object>> aging(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate asOf) {
+        try {
+            return Result.success(receivableAgingService.portfolio(asOf));
+        } catch (Exception e) {
+            return Result.error("查询应收账龄失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 单个客户的应收账龄及未收清的销售单
+     */
+    @GetMapping("/aging/customer/{customerId}")
+    public Result<Map<String, Object>> customerAging(
+            @PathVariable Long customerId,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate asOf) {
+        try {
+            return Result.success(receivableAgingService.customer(customerId, asOf));
+        } catch (Exception e) {
+            return Result.error("查询客户应收账龄失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 根据全部销售单重建应收余额
+     * 首次启用账龄分析或数据修复时使用
+     */
+    @PostMapping("/rebuild")
+    public Result<Integer> rebuild() {
+        try {
+            int rows = receivableAgingService.rebuild();
+            return Result.success("重建成功", rows);
+        } catch (Exception e) {
+            return Result.error("重建应收余额失败：" + e.getMessage());
+        }
+    }
+}
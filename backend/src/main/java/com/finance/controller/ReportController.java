@@ -1,16 +1,22 @@
 package com.finance.controller;
 
 import com.finance.common.Result;
-import com.finance.service.ReportService;
+import com.finance.service.AccountBalanceService;
+import com.finance.dto.ReportJob;
+import com.finance.service.ReportJobService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 财务报表控制器
@@ -19,8 +25,14 @@ import java.util.Map;
 @RequestMapping("/report")
 public class ReportController {
 
+    /** 长轮询最长等待时间（秒） */
+    private static final int MAX_WAIT_SECONDS = 60;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
     @Autowired
-    private ReportService reportService;
+    private AccountBalanceService accountBalanceService;
 
     /**
      * 获取资产负债表
@@ -32,7 +44,7 @@ public class ReportController {
             if (endDate == null) {
                 endDate = LocalDate.now();
             }
-            Map<String, Object> report = reportService.generateBalanceSheet(endDate);
+            Map<String, Object> report = reportJobService.generate(ReportJobService.BALANCE_SHEET, null, endDate);
             return Result.success(report);
         } catch (Exception e) {
             return Result.error("生成资产负债表失败：" + e.getMessage());
@@ -53,7 +65,7 @@ public class ReportController {
             if (startDate == null) {
                 startDate = LocalDate.of(endDate.getYear(), 1, 1); // 默认本年初
             }
-            Map<String, Object> report = reportService.generateIncomeStatement(startDate, endDate);
+            Map<String, Object> report = reportJobService.generate(ReportJobService.INCOME_STATEMENT, startDate, endDate);
             return Result.success(report);
         } catch (Exception e) {
             return Result.error("生成利润表失败：" + e.getMessage());
@@ -74,20 +86,92 @@ public class ReportController {
             if (startDate == null) {
                 startDate = LocalDate.of(endDate.getYear(), 1, 1); // 默认本年初
             }
-            Map<String, Object> report = reportService.generateCashFlow(startDate, endDate);
+            Map<String, Object> report = reportJobService.generate(ReportJobService.CASH_FLOW, startDate, endDate);
             return Result.success(report);
         } catch (Exception e) {
             return Result.error("生成现金流量表失败：" + e.getMessage());
         }
     }
-}
-
-
-
-
-
-
 
+    /**
+     * 获取科目余额表
+     */
+    @GetMapping("/trial-balance")
+    public Result<Map<String, Object>> getTrialBalance(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+        try {
+            if (endDate == null) {
+                endDate = LocalDate.now();
+            }
+            if (startDate == null) {
+                startDate = endDate.withDayOfMonth(1); // 默认本月初
+            }
+            Map<String, Object> report = reportJobService.generate(ReportJobService.TRIAL_BALANCE, startDate, endDate);
+            return Result.success(report);
+        } catch (Exception e) {
+            return Result.error("生成科目余额表失败：" + e.getMessage());
+        }
+    }
 
+    /**
+     * 提交报表任务
+     * 报表在后台生成，返回任务ID；命中缓存时任务直接为已完成状态
+     */
+    @PostMapping("/jobs")
+    public Result<ReportJob> submitJob(
+            @RequestParam String type,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+        try {
+            if (endDate == null) {
+                endDate = LocalDate.now();
+            }
+            if (startDate == null) {
+                startDate = LocalDate.of(endDate.getYear(), 1, 1); // 默认本年初
+            }
+            return Result.success("报表任务已提交", reportJobService.submit(type, startDate, endDate));
+        } catch (Exception e) {
+            return Result.error("提交报表任务失败：" + e.getMessage());
+        }
+    }
 
+    /**
+     * 查询报表任务
+     * wait 大于0时为长轮询：任务未完成则最多等待 wait 秒，完成后立即返回
+     */
+    @GetMapping("/jobs/{id}")
+    public DeferredResult<Result<ReportJob>> getJob(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0") int wait) {
+        long timeoutMillis = Math.max(1, Math.min(wait, MAX_WAIT_SECONDS)) * 1000L;
+        DeferredResult<Result<ReportJob>> deferred = new DeferredResult<>(timeoutMillis,
+            () -> Result.success(reportJobService.getJob(id)));
+        ReportJob job = reportJobService.getJob(id);
+        if (job == null) {
+            deferred.setResult(Result.error("报表任务不存在或已过期"));
+            return deferred;
+        }
+        CompletableFuture<ReportJob> done = reportJobService.whenDone(id);
+        if (wait <= 0 || done == null || done.isDone()) {
+            deferred.setResult(Result.success(done != null && done.isDone() ? done.join() : job));
+            return deferred;
+        }
+        done.thenAccept(finished -> deferred.setResult(Result.success(finished)));
+        return deferred;
+    }
 
+    /**
+     * 根据全部已过账凭证重建科目期间发生额
+     * 首次启用期间发生额或数据修复时使用
+     */
+    @PostMapping("/rebuild-balances")
+    public Result<Integer> rebuildBalances() {
+        try {
+            int rows = accountBalanceService.rebuild();
+            return Result.success("重建成功", rows);
+        } catch (Exception e) {
+            return Result.error("重建科目期间发生额失败：" + e.getMessage());
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.finance.controller;
 
+import com.finance.common.CursorPage;
+import com.finance.common.PageQuery;
 import com.finance.common.Result;
 import com.finance.entity.SalesInvoice;
 import com.finance.service.SalesInvoiceService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -19,6 +24,21 @@ public class SalesInvoiceController {
         return Result.success(salesInvoiceService.findAll());
     }
 
+    @GetMapping("/page")
+    public Result<CursorPage<SalesInvoice>> page(
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(required = false) String keyword,
+            PageQuery query) {
+        try {
+            return Result.success(salesInvoiceService.page(customerId, status, startDate, endDate, keyword, query));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public Result<SalesInvoice> getById(@PathVariable Long id) {
         SalesInvoice invoice = salesInvoiceService.findById(id);
@@ -43,6 +63,16 @@ public class SalesInvoiceController {
         }
     }
 
+    @PostMapping("/{id}/receipt")
+    public Result<SalesInvoice> receive(@PathVariable Long id, @RequestParam BigDecimal amount) {
+        try {
+            SalesInvoice saved = salesInvoiceService.receive(id, amount);
+            return Result.success("收款成功", saved);
+        } catch (Exception e) {
+            return Result.error("收款失败：" + e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{id}")
     public Result<Void> delete(@PathVariable Long id) {
         try {
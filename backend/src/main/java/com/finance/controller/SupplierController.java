@@ -1,5 +1,7 @@
 package com.finance.controller;
 
+import com.finance.common.CursorPage;
+import com.finance.common.PageQuery;
 import com.finance.common.Result;
 import com.finance.entity.Supplier;
 import com.finance.service.SupplierService;
@@ -19,6 +21,19 @@ public class SupplierController {
         return Result.success(supplierService.findAll());
     }
 
+    @GetMapping("/page")
+    public Result<CursorPage<Supplier>> page(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String keyword,
+            PageQuery query) {
+        try {
+            return Result.success(supplierService.page(status, category, keyword, query));
+        } catch (Exception e) {
+            return Result.error("查询失败：" + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public Result<Supplier> getById(@PathVariable Long id) {
         Supplier supplier = supplierService.findById(id);
@@ -0,0 +1,72 @@
+package com.finance.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * 科目发生额汇总行
+ *
+ * <p>报表计算使用的紧凑汇总结果，一行表示某个科目（可选按业务类型细分）
+ * 在查询区间内的借方、贷方发生额合计，由JPQL构造表达式直接生成，
+ * 避免加载完整的凭证实体图。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+@NoArgsConstructor
+public class AccountAmountSummary {
+
+    /** 科目编码 */
+    private String code;
+
+    /** 科目余额方向：借方、贷方 */
+    private String subjectDirection;
+
+    /** 业务类型，未按业务类型分组时为null */
+    private String businessType;
+
+    /** 借方发生额合计 */
+    private BigDecimal debitAmount;
+
+    /** 贷方发生额合计 */
+    private BigDecimal creditAmount;
+
+    public AccountAmountSummary(String code, String subjectDirection,
+                                BigDecimal debitAmount, BigDecimal creditAmount) {
+        this(code, subjectDirection, null, debitAmount, creditAmount);
+    }
+
+    public AccountAmountSummary(String code, String subjectDirection, String businessType,
+                                BigDecimal debitAmount, BigDecimal creditAmount) {
+        this.code = code;
+        this.subjectDirection = subjectDirection;
+        this.businessType = businessType;
+        this.debitAmount = debitAmount != null ? debitAmount : BigDecimal.ZERO;
+        this.creditAmount = creditAmount != null ? creditAmount : BigDecimal.ZERO;
+    }
+
+    /**
+     * 按科目余额方向计算余额
+     * 贷方科目：贷方 - 借方；其余科目：借方 - 贷方
+     *
+     * @return 科目余额
+     */
+    public BigDecimal getBalance() {
+        if ("贷方".equals(subjectDirection)) {
+            return creditAmount.subtract(debitAmount);
+        }
+        return debitAmount.subtract(creditAmount);
+    }
+
+    /**
+     * 借方净额（借方 - 贷方），用于现金类科目的收支方向判断
+     *
+     * @return 借方净额
+     */
+    public BigDecimal getNetDebit() {
+        return debitAmount.subtract(creditAmount);
+    }
+}
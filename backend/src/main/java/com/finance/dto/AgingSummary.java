@@ -0,0 +1,85 @@
+package com.finance.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * 账龄汇总行
+ *
+ * <p>一行表示一个往来单位（或全部往来单位合计）截至某日的未结清金额按逾期天数的分段，
+ * 由JPQL构造表达式直接生成。逾期天数 = 截止日 - 到期日，分段为：
+ * 未到期、0-30天、31-60天、61-90天、90天以上。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+@NoArgsConstructor
+public class AgingSummary {
+
+    /** 往来单位ID（客户或供应商），全部合计时为null */
+    private Long partyId;
+
+    /** 往来单位编码 */
+    private String partyCode;
+
+    /** 往来单位名称 */
+    private String partyName;
+
+    /** 未结清单据张数 */
+    private Long documentCount;
+
+    /** 未到期金额 */
+    private BigDecimal notDue;
+
+    /** 逾期0-30天金额 */
+    private BigDecimal days0To30;
+
+    /** 逾期31-60天金额 */
+    private BigDecimal days31To60;
+
+    /** 逾期61-90天金额 */
+    private BigDecimal days61To90;
+
+    /** 逾期90天以上金额 */
+    private BigDecimal over90;
+
+    public AgingSummary(Long documentCount, BigDecimal notDue, BigDecimal days0To30,
+                        BigDecimal days31To60, BigDecimal days61To90, BigDecimal over90) {
+        this(null, null, null, documentCount, notDue, days0To30, days31To60, days61To90, over90);
+    }
+
+    public AgingSummary(Long partyId, String partyCode, String partyName, Long documentCount,
+                        BigDecimal notDue, BigDecimal days0To30, BigDecimal days31To60,
+                        BigDecimal days61To90, BigDecimal over90) {
+        this.partyId = partyId;
+        this.partyCode = partyCode;
+        this.partyName = partyName;
+        this.documentCount = documentCount != null ? documentCount : 0L;
+        this.notDue = notDue != null ? notDue : BigDecimal.ZERO;
+        this.days0To30 = days0To30 != null ? days0To30 : BigDecimal.ZERO;
+        this.days31To60 = days31To60 != null ? days31To60 : BigDecimal.ZERO;
+        this.days61To90 = days61To90 != null ? days61To90 : BigDecimal.ZERO;
+        this.over90 = over90 != null ? over90 : BigDecimal.ZERO;
+    }
+
+    /**
+     * 未结清金额合计
+     *
+     * @return 各分段金额之和
+     */
+    public BigDecimal getTotal() {
+        return notDue.add(days0To30).add(days31To60).add(days61To90).add(over90);
+    }
+
+    /**
+     * 逾期金额合计
+     *
+     * @return 除未到期外各分段金额之和
+     */
+    public BigDecimal getOverdue() {
+        return days0To30.add(days31To60).add(days61To90).add(over90);
+    }
+}
@@ -0,0 +1,74 @@
+package com.finance.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 银行流水导入任务状态
+ *
+ * <p>提交导入任务或查询任务时返回，是任务在查询时刻的进度副本。
+ * 导入过程中各项计数随分块写入不断增加，任务结束后不再变化。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+public class BankStatementImportJob {
+
+    /** 任务ID */
+    private String id;
+
+    /** 上传的文件名 */
+    private String fileName;
+
+    /** 文件格式：csv、mt940 */
+    private String format;
+
+    /** 任务状态：导入中、已完成、失败 */
+    private String status;
+
+    /** 文件大小（字节） */
+    private long totalBytes;
+
+    /** 已读取的字节数 */
+    private long bytesRead;
+
+    /** 读取进度百分比，0-100 */
+    private int progress;
+
+    /** 已读取的流水笔数 */
+    private int rowsRead;
+
+    /** 写入成功的笔数 */
+    private int insertedCount;
+
+    /** 因"银行账号 + 交易流水号"已存在而跳过的笔数 */
+    private int duplicateCount;
+
+    /** 校验或写入失败的笔数 */
+    private int failureCount;
+
+    /** 失败明细：行号、交易流水号、原因 */
+    private List<Map<String, Object>> errors;
+
+    /** 失败明细是否因超过上限而未全部返回 */
+    private boolean errorsTruncated;
+
+    /** 余额不连续的次数 */
+    private int balanceBreakCount;
+
+    /** 余额不连续的位置：银行账号、行号、应有余额、文件中的余额，超过上限时只计数不返回 */
+    private List<Map<String, Object>> balanceBreaks;
+
+    /** 提交时间 */
+    private LocalDateTime submittedAt;
+
+    /** 完成时间，未完成时为null */
+    private LocalDateTime finishedAt;
+
+    /** 任务失败的原因，如文件无法读取 */
+    private String error;
+}
@@ -0,0 +1,58 @@
+package com.finance.dto;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 导入文件中的一笔银行流水
+ *
+ * <p>由银行对账单文件解析得到，校验通过后写入银行流水表。
+ * 交易类型为收入时金额记入账户，为支出时从账户扣减。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+public class BankStatementImportRow {
+
+    /** 在导入文件中的行号 */
+    private int rowNumber;
+
+    /** 银行账号 */
+    private String bankAccount;
+
+    /** 银行名称 */
+    private String bankName;
+
+    /** 交易日期（银行记账日期） */
+    private LocalDate transactionDate;
+
+    /** 交易流水号 */
+    private String transactionNo;
+
+    /** 交易类型：收入、支出 */
+    private String transactionType;
+
+    /** 交易金额，大于0 */
+    private BigDecimal amount;
+
+    /** 交易后的账户余额，文件未提供时为null */
+    private BigDecimal balance;
+
+    /** 对方户名 */
+    private String counterparty;
+
+    /** 对方账号 */
+    private String counterpartyAccount;
+
+    /** 用途/摘要 */
+    private String purpose;
+
+    /** 备注 */
+    private String remark;
+
+    /** 解析失败的原因，解析成功时为null */
+    private String error;
+}
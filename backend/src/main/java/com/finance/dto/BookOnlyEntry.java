@@ -0,0 +1,49 @@
+package com.finance.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 企业已记银行未记的凭证（未达账项）
+ *
+ * <p>由JPQL构造表达式直接生成，除凭证头信息外还带有该凭证在银行存款科目上的净发生额，
+ * 用于在余额调节表中区分企业已收银行未收（为正）和企业已付银行未付（为负）。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+@NoArgsConstructor
+public class BookOnlyEntry {
+
+    /** 凭证ID */
+    private Long id;
+
+    /** 凭证号 */
+    private String voucherNo;
+
+    /** 记账日期 */
+    private LocalDate entryDate;
+
+    /** 摘要 */
+    private String description;
+
+    /** 凭证总金额 */
+    private BigDecimal totalAmount;
+
+    /** 银行存款科目净发生额，借方为正、贷方为负 */
+    private BigDecimal bankAmount;
+
+    public BookOnlyEntry(Long id, String voucherNo, LocalDate entryDate, String description,
+                         BigDecimal totalAmount, BigDecimal bankAmount) {
+        this.id = id;
+        this.voucherNo = voucherNo;
+        this.entryDate = entryDate;
+        this.description = description;
+        this.totalAmount = totalAmount;
+        this.bankAmount = bankAmount;
+    }
+}
@@ -0,0 +1,78 @@
+package com.finance.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 会计分录凭证头信息
+ *
+ * <p>列表视图由JPQL构造表达式直接生成，只查询凭证主表，不加载分录明细。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see JournalEntryView
+ */
+@Data
+@NoArgsConstructor
+public class JournalEntryHeader {
+
+    /** 凭证ID */
+    private Long id;
+
+    /** 凭证号 */
+    private String voucherNo;
+
+    /** 记账日期 */
+    private LocalDate entryDate;
+
+    /** 摘要 */
+    private String description;
+
+    /** 总金额 */
+    private BigDecimal totalAmount;
+
+    /** 业务类型 */
+    private String businessType;
+
+    /** 关联业务ID */
+    private Long businessId;
+
+    /** 状态 */
+    private String status;
+
+    /** 制单人 */
+    private String createdBy;
+
+    /** 审核人 */
+    private String approvedBy;
+
+    /** 审核时间 */
+    private LocalDateTime approvedAt;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    public JournalEntryHeader(Long id, String voucherNo, LocalDate entryDate, String description,
+                              BigDecimal totalAmount, String businessType, Long businessId, String status,
+                              String createdBy, String approvedBy, LocalDateTime approvedAt,
+                              LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.voucherNo = voucherNo;
+        this.entryDate = entryDate;
+        this.description = description;
+        this.totalAmount = totalAmount;
+        this.businessType = businessType;
+        this.businessId = businessId;
+        this.status = status;
+        this.createdBy = createdBy;
+        this.approvedBy = approvedBy;
+        this.approvedAt = approvedAt;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+}
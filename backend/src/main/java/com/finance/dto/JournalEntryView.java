@@ -0,0 +1,80 @@
+package com.finance.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 会计分录读取模型
+ *
+ * <p>按接口的 view 参数决定包含的内容和查询方式：</p>
+ * <ul>
+ *   <li>header：只有凭证头，一条SQL查询凭证主表</li>
+ *   <li>lines：凭证头和分录明细，明细只带科目ID，一条 join fetch 查询</li>
+ *   <li>full：在 lines 的基础上带出科目编码和名称，科目信息取自科目表快照，不额外查询</li>
+ * </ul>
+ * 凭证头字段平铺输出，与凭证实体的JSON结构一致；未加载的部分不输出。
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+@NoArgsConstructor
+public class JournalEntryView {
+
+    /** 凭证头信息 */
+    @JsonUnwrapped
+    private JournalEntryHeader header;
+
+    /** 分录明细，header 视图下不输出 */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Line> entryLines;
+
+    public JournalEntryView(JournalEntryHeader header, List<Line> entryLines) {
+        this.header = header;
+        this.entryLines = entryLines;
+    }
+
+    /**
+     * 分录明细
+     */
+    @Data
+    public static class Line {
+
+        /** 明细ID */
+        private Long id;
+
+        /** 会计科目ID */
+        private Long accountSubjectId;
+
+        /** 会计科目编码，仅 full 视图输出 */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String accountCode;
+
+        /** 会计科目名称，仅 full 视图输出 */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String accountName;
+
+        /** 借贷方向：借、贷 */
+        private String direction;
+
+        /** 金额 */
+        private BigDecimal amount;
+
+        /** 备注 */
+        private String remark;
+
+        /** 币种 */
+        private String currency;
+
+        /** 汇率 */
+        private BigDecimal exchangeRate;
+
+        /** 原币金额 */
+        private BigDecimal foreignAmount;
+    }
+}
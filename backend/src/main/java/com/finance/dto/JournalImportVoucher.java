@@ -0,0 +1,76 @@
+package com.finance.dto;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入的凭证
+ *
+ * <p>对应导入文件中的一张凭证。JSON文件为此对象的数组；CSV文件每行一条明细，
+ * 相邻且凭证标识（voucherKey）相同的行组成一张凭证。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+public class JournalImportVoucher {
+
+    /** 上游系统的凭证标识，用于错误定位和CSV分组 */
+    private String voucherKey;
+
+    /** 记账日期 */
+    private LocalDate entryDate;
+
+    /** 摘要说明 */
+    private String description;
+
+    /** 业务类型 */
+    private String businessType;
+
+    /** 关联业务ID */
+    private Long businessId;
+
+    /** 状态：草稿、已过账、已审核，为空时按草稿导入 */
+    private String status;
+
+    /** 制单人 */
+    private String createdBy;
+
+    /** 凭证在导入文件中的位置（JSON为第几张凭证，CSV为起始行号） */
+    private int rowNumber;
+
+    /** 分录明细 */
+    private List<Line> lines = new ArrayList<>();
+
+    /**
+     * 导入的分录明细，会计科目以科目编码表示
+     */
+    @Data
+    public static class Line {
+
+        /** 科目编码 */
+        private String accountCode;
+
+        /** 借贷方向：借、贷 */
+        private String direction;
+
+        /** 金额 */
+        private BigDecimal amount;
+
+        /** 备注 */
+        private String remark;
+
+        /** 币种，为空时默认CNY */
+        private String currency;
+
+        /** 汇率，为空时默认1 */
+        private BigDecimal exchangeRate;
+
+        /** 外币金额 */
+        private BigDecimal foreignAmount;
+    }
+}
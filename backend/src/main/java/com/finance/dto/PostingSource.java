@@ -0,0 +1,57 @@
+package com.finance.dto;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 待生成凭证的业务单据
+ *
+ * <p>由JPQL构造表达式直接生成，只查询生成凭证所需的列，不加载单据明细和往来单位。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see com.finance.service.PostingEngine
+ */
+@Data
+public class PostingSource {
+
+    /** 单据ID */
+    private Long id;
+
+    /** 单据编号 */
+    private String documentNo;
+
+    /** 单据日期，即凭证的记账日期 */
+    private LocalDate documentDate;
+
+    /** 分类，员工费用为费用类型，其他单据为null */
+    private String category;
+
+    /** 价税合计或报销金额 */
+    private BigDecimal amount;
+
+    /** 税额，没有税额时为0 */
+    private BigDecimal taxAmount;
+
+    /**
+     * 销售单、采购订单
+     */
+    public PostingSource(Long id, String documentNo, LocalDate documentDate, BigDecimal amount,
+                         BigDecimal taxAmount) {
+        this.id = id;
+        this.documentNo = documentNo;
+        this.documentDate = documentDate;
+        this.amount = amount;
+        this.taxAmount = taxAmount != null ? taxAmount : BigDecimal.ZERO;
+    }
+
+    /**
+     * 员工费用单
+     */
+    public PostingSource(Long id, String documentNo, LocalDate documentDate, String category, BigDecimal amount) {
+        this(id, documentNo, documentDate, amount, BigDecimal.ZERO);
+        this.category = category;
+    }
+}
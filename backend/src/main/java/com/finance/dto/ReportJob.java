@@ -0,0 +1,50 @@
+package com.finance.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 报表任务状态
+ *
+ * <p>提交报表任务或查询任务时返回，是任务在查询时刻的状态副本。
+ * 任务完成后 result 为报表内容，失败时 error 为失败原因。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+public class ReportJob {
+
+    /** 任务ID */
+    private String id;
+
+    /** 报表类型：balance-sheet、income-statement、cash-flow */
+    private String reportType;
+
+    /** 开始日期，资产负债表为null */
+    private LocalDate startDate;
+
+    /** 结束日期 */
+    private LocalDate endDate;
+
+    /** 任务状态：生成中、已完成、失败 */
+    private String status;
+
+    /** 结果是否直接取自缓存 */
+    private boolean cached;
+
+    /** 提交时间 */
+    private LocalDateTime submittedAt;
+
+    /** 完成时间，未完成时为null */
+    private LocalDateTime finishedAt;
+
+    /** 失败原因 */
+    private String error;
+
+    /** 报表内容，未完成时为null */
+    private Map<String, Object> result;
+}
@@ -0,0 +1,56 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 科目期末余额快照实体类
+ *
+ * <p>会计期间结账时生成，一行表示某个科目截至该期间期末的累计借方、贷方发生额。
+ * 期间结账后不再有凭证变动，快照与明细账保持一致；计算某日的科目余额时取该日之前最近一个快照，
+ * 再加上快照之后的发生额，不必从第一张凭证开始汇总。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see AccountingPeriod
+ */
+@Data
+@Entity
+@Table(name = "account_balance_snapshot",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_account_balance_snapshot",
+           columnNames = {"period", "accountSubjectId"}))
+public class AccountBalanceSnapshot {
+
+    /** 记录唯一标识ID，数据库自增主键 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 会计期间，必填项，格式 yyyyMM */
+    @Column(nullable = false)
+    private Integer period;
+
+    /** 会计科目ID，必填项 */
+    @Column(nullable = false)
+    private Long accountSubjectId;
+
+    /** 截至期末的累计借方发生额，必填项，精度18位，小数点后2位 */
+    @Column(nullable = false, precision = 18, scale = 2)
+    private BigDecimal debitAmount;
+
+    /** 截至期末的累计贷方发生额，必填项，精度18位，小数点后2位 */
+    @Column(nullable = false, precision = 18, scale = 2)
+    private BigDecimal creditAmount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
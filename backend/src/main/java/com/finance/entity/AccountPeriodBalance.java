@@ -0,0 +1,82 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 科目期间发生额实体类
+ *
+ * <p>按"会计科目 × 会计期间（自然月）× 业务类型"汇总已过账凭证的借贷发生额，
+ * 由凭证过账、修改、删除时增量维护。报表只需读取这些预汇总行，
+ * 不再随凭证历史的增长而扫描全部分录明细。</p>
+ *
+ * <p>会计期间以整数 yyyyMM 表示，如 202501 表示2025年1月，便于按区间比较。
+ * 业务类型为空的凭证以空字符串记录，保证唯一键生效。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+@Entity
+@Table(name = "account_period_balance",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_account_period_balance",
+           columnNames = {"account_subject_id", "period", "business_type"}))
+public class AccountPeriodBalance {
+
+    /** 记录唯一标识ID，数据库自增主键 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 会计科目ID，必填项 */
+    @Column(name = "account_subject_id", nullable = false)
+    private Long accountSubjectId;
+
+    /** 会计期间，必填项，格式 yyyyMM */
+    @Column(nullable = false)
+    private Integer period;
+
+    /** 业务类型，与凭证的业务类型一致，为空时记录空字符串，最大长度50字符 */
+    @Column(name = "business_type", nullable = false, length = 50)
+    private String businessType;
+
+    /** 本期借方发生额，必填项，精度18位，小数点后2位 */
+    @Column(nullable = false, precision = 18, scale = 2)
+    private BigDecimal debitAmount;
+
+    /** 本期贷方发生额，必填项，精度18位，小数点后2位 */
+    @Column(nullable = false, precision = 18, scale = 2)
+    private BigDecimal creditAmount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 计算日期所属的会计期间
+     *
+     * @param date 日期
+     * @return 会计期间，格式 yyyyMM
+     */
+    public static int periodOf(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+}
@@ -0,0 +1,45 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+
+/**
+ * 会计科目闭包表实体类
+ *
+ * <p>一行表示一对"上级科目 → 下级科目"关系，记录科目与其每一级上级科目（含自身）之间的层级距离，
+ * 由科目保存、删除时按 parentId 维护。例如 100201 的上级为 1002 时，存在以下两行：
+ * (100201 → 100201, 0)、(1002 → 100201, 1)。</p>
+ *
+ * <p>报表把发生额按下级科目关联本表再按上级科目分组，一条 GROUP BY 即可把每笔金额
+ * 归集到它的全部上级科目，不再逐级递归查找。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+@Entity
+@Table(name = "account_subject_closure",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_account_subject_closure",
+           columnNames = {"ancestor_id", "descendant_id"}),
+       indexes = @Index(name = "idx_account_subject_closure_descendant", columnList = "descendant_id, ancestor_id"))
+public class AccountSubjectClosure {
+
+    /** 记录唯一标识ID，数据库自增主键 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 上级科目ID（含自身），必填项 */
+    @Column(name = "ancestor_id", nullable = false)
+    private Long ancestorId;
+
+    /** 下级科目ID，必填项 */
+    @Column(name = "descendant_id", nullable = false)
+    private Long descendantId;
+
+    /** 层级距离，自身为0，直接上级为1，必填项 */
+    @Column(nullable = false)
+    private Integer depth;
+}
@@ -0,0 +1,53 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 会计期间结账记录实体类
+ *
+ * <p>每个结过账的会计期间一行。结账按月份顺序进行，已结账的期间总是从最早的月份起连续的一段：
+ * 首次结账时该期间及之前的全部月份一并冻结，之后只能结下一个月，反结账只能反结最近一个已结账期间。</p>
+ *
+ * <p>已结账期间内不能新增、修改、删除、过账凭证，期末科目余额保存在
+ * {@link AccountBalanceSnapshot} 中，报表从最近的余额快照开始计算。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+@Entity
+@Table(name = "accounting_period")
+public class AccountingPeriod {
+
+    /** 记录唯一标识ID，数据库自增主键 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 会计期间，必填项，唯一，格式 yyyyMM */
+    @Column(nullable = false, unique = true)
+    private Integer period;
+
+    /** 结账状态，必填项，可选值：已结账、已反结账，最大长度20字符 */
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    /** 最近一次结账时间 */
+    @Column
+    private LocalDateTime closedAt;
+
+    /** 最近一次结账人，最大长度50字符 */
+    @Column(length = 50)
+    private String closedBy;
+
+    /** 最近一次反结账时间 */
+    @Column
+    private LocalDateTime reopenedAt;
+
+    /** 最近一次反结账人，最大长度50字符 */
+    @Column(length = 50)
+    private String reopenedBy;
+}
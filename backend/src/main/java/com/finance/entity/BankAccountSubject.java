@@ -0,0 +1,60 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 银行账户与会计科目对应关系实体类
+ *
+ * <p>指定每个银行账号在总账中对应的银行存款明细科目（如 100201 工商银行基本户），
+ * 银行对账时以该科目（含下级科目）的发生额计算账面余额、查找企业已记银行未记的凭证。
+ * 未配置对应关系的银行账号使用整个银行存款科目。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+@Entity
+@Table(name = "bank_account_subject")
+public class BankAccountSubject {
+
+    /** 记录唯一标识ID，数据库自增主键 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 银行账号，必填项，唯一，最大长度50字符 */
+    @Column(nullable = false, unique = true, length = 50)
+    private String bankAccount;
+
+    /** 开户银行名称，最大长度100字符 */
+    @Column(length = 100)
+    private String bankName;
+
+    /** 对应的会计科目ID，必填项 */
+    @Column(nullable = false)
+    private Long accountSubjectId;
+
+    /** 备注，最大长度500字符 */
+    @Column(length = 500)
+    private String remark;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -15,13 +15,19 @@ import java.time.LocalDateTime;
  * <p>支持银行对账功能，可以标识未达账项（企业已记账但银行未入账，
  * 或银行已入账但企业未记账）。</p>
  * 
+ * <p>同一银行账号下交易流水号唯一，重复导入同一对账单时由唯一约束兜底。</p>
+ * 
  * @author 财务管理系统
  * @version 1.0
  * @since 2025-01-01
  */
 @Data
 @Entity
-@Table(name = "bank_statement")
+@Table(name = "bank_statement",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_bank_statement_account_no",
+           columnNames = {"bankAccount", "transactionNo"}),
+       indexes = @Index(name = "idx_bank_statement_transaction_date", columnList = "transactionDate, id"))
 public class BankStatement {
     
     /** 流水唯一标识ID，数据库自增主键 */
@@ -41,7 +47,7 @@ public class BankStatement {
     @Column(nullable = false)
     private LocalDate transactionDate;
 
-    /** 交易流水号，必填项，银行系统生成的唯一流水号，最大长度50字符 */
+    /** 交易流水号，必填项，银行系统生成的流水号，同一银行账号下唯一，最大长度50字符 */
     @Column(nullable = false, length = 50)
     private String transactionNo;
 
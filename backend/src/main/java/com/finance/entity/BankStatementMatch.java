@@ -0,0 +1,65 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 银行流水与会计分录匹配关系实体类
+ *
+ * <p>一行表示一笔银行流水与一张会计分录的对应关系。同一次匹配产生的多行
+ * 具有相同的匹配组号，支持以下匹配方式：</p>
+ * <ul>
+ *   <li>一对一：一笔流水对应一张分录</li>
+ *   <li>一对多：一笔流水对应多张分录（如一笔汇总付款对应多张付款凭证）</li>
+ *   <li>多对一：多笔流水对应一张分录（如分次到账的一笔收款）</li>
+ *   <li>手工：人工指定的匹配</li>
+ * </ul>
+ *
+ * <p>每张分录最多参与一个匹配组，每笔流水最多属于一个匹配组。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+@Entity
+@Table(name = "bank_statement_match",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_bank_statement_match",
+           columnNames = {"bankStatementId", "journalEntryId"}),
+       indexes = {
+           @Index(name = "idx_bank_statement_match_entry", columnList = "journalEntryId"),
+           @Index(name = "idx_bank_statement_match_group", columnList = "matchGroup")
+       })
+public class BankStatementMatch {
+
+    /** 匹配关系唯一标识ID，数据库自增主键 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 银行流水ID，必填项 */
+    @Column(nullable = false)
+    private Long bankStatementId;
+
+    /** 会计分录ID，必填项 */
+    @Column(nullable = false)
+    private Long journalEntryId;
+
+    /** 匹配组号，同一次匹配的各行相同，必填项，最大长度40字符 */
+    @Column(nullable = false, length = 40)
+    private String matchGroup;
+
+    /** 匹配方式，必填项，可选值：一对一、一对多、多对一、手工，最大长度20字符 */
+    @Column(nullable = false, length = 20)
+    private String matchType;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,52 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 业务单据生成凭证记录实体类
+ *
+ * <p>记录由业务单据自动生成的凭证，"业务类型 + 业务单据ID"唯一，保证同一张单据只生成一张凭证：
+ * 重复执行生成任务时跳过已有记录的单据，两个任务同时写入同一张单据时后提交的一方违反唯一约束而回滚。
+ * 删除生成的凭证时一并删除记录，单据可以重新生成。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see com.finance.service.PostingEngine
+ */
+@Data
+@Entity
+@Table(name = "business_posting",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_business_posting",
+           columnNames = {"businessType", "businessId"}),
+       indexes = @Index(name = "idx_business_posting_entry", columnList = "journalEntryId"))
+public class BusinessPosting {
+
+    /** 记录唯一标识ID，数据库自增主键 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 业务类型，必填项，可选值：销售、采购、员工费用，最大长度50字符 */
+    @Column(nullable = false, length = 50)
+    private String businessType;
+
+    /** 业务单据ID，必填项 */
+    @Column(nullable = false)
+    private Long businessId;
+
+    /** 生成的凭证ID，必填项 */
+    @Column(nullable = false)
+    private Long journalEntryId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
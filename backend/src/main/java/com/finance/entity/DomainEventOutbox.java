@@ -0,0 +1,58 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 领域事件出站记录实体类
+ *
+ * <p>业务服务在变动单据的同一事务中写入出站记录，事务提交后由事件总线按ID顺序读取、
+ * 投递给订阅方并记录投递时间。应用在提交后、投递前退出的，重启后继续投递未投递的记录。
+ * 已投递的记录保留一段时间后清理。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see com.finance.event.DomainEvent
+ */
+@Data
+@Entity
+@Table(name = "domain_event_outbox",
+       indexes = @Index(name = "idx_domain_event_outbox_published", columnList = "publishedAt, id"))
+public class DomainEventOutbox {
+
+    /** 出站记录唯一标识ID，数据库自增主键，即事件序号 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 单据类型，必填项，如：journalEntry、bankStatement，最大长度40字符 */
+    @Column(nullable = false, length = 40)
+    private String documentType;
+
+    /** 变动类型，必填项，如：created、posted、matched，最大长度20字符 */
+    @Column(nullable = false, length = 20)
+    private String action;
+
+    /** 单据ID，批量变动时为空 */
+    @Column
+    private Long documentId;
+
+    /** 单据编号，最大长度50字符 */
+    @Column(length = 50)
+    private String documentNo;
+
+    /** 附加数据，JSON格式 */
+    @Lob
+    @Column
+    private String payload;
+
+    /** 发生时间，必填项 */
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    /** 投递时间，为空表示尚未投递 */
+    @Column
+    private LocalDateTime publishedAt;
+}
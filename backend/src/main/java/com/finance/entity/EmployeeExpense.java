@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "employee_expense")
+@Table(name = "employee_expense",
+       indexes = @Index(name = "idx_employee_expense_expense_date", columnList = "expenseDate, id"))
 public class EmployeeExpense {
     
     /** 费用单唯一标识ID，数据库自增主键 */
@@ -0,0 +1,65 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 外币汇率实体类
+ *
+ * <p>记录外币兑人民币的汇率及其生效日期。某日适用的汇率为该日及之前最近一次生效的汇率，
+ * 同一币种同一生效日期只有一条记录。外币凭证未填写汇率时按凭证日期取汇率，
+ * 期末汇兑损益调整按期末日取汇率。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+@Entity
+@Table(name = "exchange_rate",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_exchange_rate",
+           columnNames = {"currency", "effective_date"}))
+public class ExchangeRate {
+
+    /** 汇率唯一标识ID，数据库自增主键 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 币种，必填项，如USD、EUR，最大长度10字符 */
+    @Column(nullable = false, length = 10)
+    private String currency;
+
+    /** 生效日期，必填项 */
+    @Column(name = "effective_date", nullable = false)
+    private LocalDate effectiveDate;
+
+    /** 汇率，1单位外币折合人民币的金额，必填项，精度10位，小数点后4位 */
+    @Column(nullable = false, precision = 10, scale = 4)
+    private BigDecimal rate;
+
+    /** 备注信息，如汇率来源，最大长度200字符 */
+    @Column(length = 200)
+    private String remark;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -23,7 +23,11 @@ import java.util.List;
  */
 @Data
 @Entity
-@Table(name = "journal_entry")
+@Table(name = "journal_entry",
+       indexes = {
+           @Index(name = "idx_journal_entry_entry_date", columnList = "entryDate, id"),
+           @Index(name = "idx_journal_entry_business", columnList = "businessType, businessId")
+       })
 public class JournalEntry {
     
     /** 分录唯一标识ID，数据库自增主键 */
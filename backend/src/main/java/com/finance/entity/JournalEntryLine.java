@@ -1,6 +1,8 @@
 package com.finance.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.finance.common.AccountSubjectReferenceSerializer;
 import lombok.Data;
 import javax.persistence.*;
 import java.math.BigDecimal;
@@ -20,7 +22,11 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "journal_entry_line")
+@Table(name = "journal_entry_line",
+       indexes = {
+           @Index(name = "idx_journal_entry_line_subject_entry", columnList = "account_subject_id, journal_entry_id"),
+           @Index(name = "idx_journal_entry_line_currency", columnList = "currency, account_subject_id")
+       })
 public class JournalEntryLine {
     
     /** 明细行唯一标识ID，数据库自增主键 */
@@ -41,10 +47,11 @@ public class JournalEntryLine {
     /**
      * 会计科目
      * 多对一关系，指定该明细行所使用的会计科目
-     * 立即加载以便显示科目信息
+     * 延迟加载，序列化时从科目表快照取完整科目信息，读取明细不再关联查询科目表
      */
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_subject_id", nullable = false)
+    @JsonSerialize(using = AccountSubjectReferenceSerializer.class)
     private AccountSubject accountSubject;
 
     /**
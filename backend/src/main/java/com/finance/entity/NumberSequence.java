@@ -0,0 +1,55 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 单据编号序列实体类
+ *
+ * <p>记录每个"单据前缀 + 日期"已分配出去的最大序号，用于凭证号、采购订单号、
+ * 销售单号、费用单号等按日连续编号的单据。</p>
+ *
+ * <p>应用实例按号段从该表预领序号（每次领取一个号段并立即提交），
+ * 号段内的序号在内存中分配，因此大部分单据保存不需要访问该表。
+ * 实例重启时未用完的号段会被跳过，编号可能出现间断，但不会重复。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+@Entity
+@Table(name = "number_sequence")
+public class NumberSequence {
+
+    /** 序列唯一标识ID，数据库自增主键 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 序列键，必填项，唯一索引，格式：前缀-YYYYMMDD，如：PZ-20250101，最大长度50字符 */
+    @Column(nullable = false, length = 50, unique = true)
+    private String seqKey;
+
+    /** 已分配（含已预领号段）的最大序号，必填项 */
+    @Column(nullable = false)
+    private Long currentValue;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,68 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 应付余额实体类
+ *
+ * <p>按"供应商 × 到期日"汇总尚未支付的采购订单金额，由采购订单保存、删除和付款时增量维护。
+ * 应付账龄和付款预测只需对这些预汇总行按到期日分段求和，不再扫描全部采购订单。</p>
+ *
+ * <p>采购订单没有单独的付款期限，以预计到货日期作为付款到期日，未填写时取订单日期。
+ * 只统计已审核、已完成的采购订单；余额归零的行保留在表中，查询时过滤。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+@Entity
+@Table(name = "payable_balance",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_payable_balance",
+           columnNames = {"supplier_id", "due_date"}),
+       indexes = @Index(name = "idx_payable_balance_due_date", columnList = "due_date"))
+public class PayableBalance {
+
+    /** 记录唯一标识ID，数据库自增主键 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 供应商ID，必填项 */
+    @Column(name = "supplier_id", nullable = false)
+    private Long supplierId;
+
+    /** 付款到期日，必填项 */
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    /** 未支付金额，必填项，精度18位，小数点后2位 */
+    @Column(name = "outstanding_amount", nullable = false, precision = 18, scale = 2)
+    private BigDecimal outstandingAmount;
+
+    /** 未付清的采购订单张数 */
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
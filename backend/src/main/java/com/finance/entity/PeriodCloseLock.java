@@ -0,0 +1,39 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 结账锁实体类
+ *
+ * <p>表中只有一行，记录最近一个已结账期间，用于结账与过账互斥：变动科目期间发生额的事务对该行加共享锁，
+ * 并以加锁读取的结果判断期间是否已结账；结账、反结账对该行加排他锁，等待进行中的过账事务提交后再汇总发生额。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see AccountingPeriod
+ */
+@Data
+@Entity
+@Table(name = "period_close_lock")
+public class PeriodCloseLock {
+
+    /** 锁行ID，固定为1 */
+    @Id
+    private Long id;
+
+    /** 最近一个已结账期间（yyyyMM），没有已结账期间时为null */
+    @Column
+    private Integer closedThrough;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,87 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 凭证模板实体类
+ *
+ * <p>指定业务单据生成凭证时使用的会计科目。一条模板对应一种业务类型，
+ * 员工费用可按费用类型（分类）分别配置，未配置分类模板的使用该业务类型的默认模板（分类为空）。</p>
+ *
+ * <p>生成的凭证结构：
+ * <ul>
+ *   <li>销售：借 借方科目（价税合计），贷 贷方科目（不含税金额），贷 税额科目（税额）</li>
+ *   <li>采购：借 借方科目（不含税金额），借 税额科目（税额），贷 贷方科目（价税合计）</li>
+ *   <li>员工费用：借 借方科目，贷 贷方科目，均为报销金额</li>
+ * </ul>
+ * 未配置税额科目或税额为0时不生成税额行，税额并入不含税金额一方。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see com.finance.service.PostingEngine
+ */
+@Data
+@Entity
+@Table(name = "posting_template",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_posting_template",
+           columnNames = {"businessType", "category"}))
+public class PostingTemplate {
+
+    /** 模板唯一标识ID，数据库自增主键 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 业务类型，必填项，可选值：销售、采购、员工费用，最大长度50字符 */
+    @Column(nullable = false, length = 50)
+    private String businessType;
+
+    /** 分类，员工费用为费用类型（如：差旅费），为空表示该业务类型的默认模板，最大长度50字符 */
+    @Column(length = 50)
+    private String category;
+
+    /** 凭证摘要，生成的凭证摘要为"摘要 单据编号"，为空时使用业务类型，最大长度200字符 */
+    @Column(length = 200)
+    private String summary;
+
+    /** 借方科目编码，必填项，最大长度20字符 */
+    @Column(nullable = false, length = 20)
+    private String debitAccountCode;
+
+    /** 贷方科目编码，必填项，最大长度20字符 */
+    @Column(nullable = false, length = 20)
+    private String creditAccountCode;
+
+    /** 税额科目编码，如：2221 应交税费，最大长度20字符 */
+    @Column(length = 20)
+    private String taxAccountCode;
+
+    /** 是否启用，必填项，停用的模板不参与生成 */
+    @Column(nullable = false)
+    private Boolean enabled = true;
+
+    /** 备注，最大长度500字符 */
+    @Column(length = 500)
+    private String remark;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -22,7 +22,8 @@ import java.util.List;
  */
 @Data
 @Entity
-@Table(name = "purchase_order")
+@Table(name = "purchase_order",
+       indexes = @Index(name = "idx_purchase_order_order_date", columnList = "orderDate, id"))
 public class PurchaseOrder {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,68 @@
+package com.finance.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 应收余额实体类
+ *
+ * <p>按"客户 × 到期日"汇总尚未收回的销售单金额，由销售单保存、删除和收款时增量维护。
+ * 账龄分析只需按到期日对这些预汇总行分段求和，不再扫描全部销售单；
+ * 同一客户的单据多集中在少数几个到期日，行数远少于销售单。</p>
+ *
+ * <p>销售单未填写到期日时以销售日期作为到期日。只统计已审核、已完成的销售单；
+ * 余额归零的行保留在表中，查询时过滤。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Data
+@Entity
+@Table(name = "receivable_balance",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_receivable_balance",
+           columnNames = {"customer_id", "due_date"}))
+public class ReceivableBalance {
+
+    /** 记录唯一标识ID，数据库自增主键 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 客户ID，必填项 */
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    /** 应收款到期日，必填项 */
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    /** 未收回金额，必填项，精度18位，小数点后2位 */
+    @Column(name = "outstanding_amount", nullable = false, precision = 18, scale = 2)
+    private BigDecimal outstandingAmount;
+
+    /** 未收清的销售单张数 */
+    @Column(name = "invoice_count", nullable = false)
+    private Long invoiceCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -22,7 +22,8 @@ import java.util.List;
  */
 @Data
 @Entity
-@Table(name = "sales_invoice")
+@Table(name = "sales_invoice",
+       indexes = @Index(name = "idx_sales_invoice_invoice_date", columnList = "invoiceDate, id"))
 public class SalesInvoice {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
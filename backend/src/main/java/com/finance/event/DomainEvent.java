@@ -0,0 +1,172 @@
+package com.finance.event;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 领域事件
+ *
+ * <p>影响总账或业务单据的变动（凭证过账、删除，银行流水保存、匹配，采购订单、销售单、员工费用单的增删改）
+ * 由对应的服务在同一事务内通过 {@link com.finance.service.DomainEventBus} 发布：事件先写入出站表，
+ * 事务提交后再按写入顺序分批投递给 {@link DomainEventSubscriber}，回滚的变动不会被投递。</p>
+ *
+ * <p>批量导入等不逐张发布事件的操作发布 {@link #BULK} 事件，只说明某类单据有变动，
+ * 订阅方需自行重新加载。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Getter
+public class DomainEvent {
+
+    /** 单据类型：会计凭证 */
+    public static final String JOURNAL_ENTRY = "journalEntry";
+
+    /** 单据类型：采购订单 */
+    public static final String PURCHASE_ORDER = "purchaseOrder";
+
+    /** 单据类型：销售单 */
+    public static final String SALES_INVOICE = "salesInvoice";
+
+    /** 单据类型：员工费用单 */
+    public static final String EMPLOYEE_EXPENSE = "employeeExpense";
+
+    /** 单据类型：银行流水 */
+    public static final String BANK_STATEMENT = "bankStatement";
+
+    /** 变动：新增 */
+    public static final String CREATED = "created";
+
+    /** 变动：修改 */
+    public static final String UPDATED = "updated";
+
+    /** 变动：删除 */
+    public static final String DELETED = "deleted";
+
+    /** 变动：凭证过账 */
+    public static final String POSTED = "posted";
+
+    /** 变动：银行流水匹配，载荷中 statementIds、journalEntryIds 为同一匹配组的流水和凭证 */
+    public static final String MATCHED = "matched";
+
+    /** 变动：银行流水取消匹配，载荷中 statementIds 为一并取消的流水 */
+    public static final String UNMATCHED = "unmatched";
+
+    /** 变动：批量变动，未逐张说明 */
+    public static final String BULK = "bulk";
+
+    /** 出站表中的序号，按发布顺序递增，发布前为null */
+    private final Long sequence;
+
+    /** 单据类型 */
+    private final String documentType;
+
+    /** 变动类型 */
+    private final String action;
+
+    /** 单据ID，批量变动时为null */
+    private final Long id;
+
+    /** 单据编号，删除或批量变动时为null */
+    private final String documentNo;
+
+    /** 附加数据，值为可序列化为JSON的简单类型、列表或Map */
+    private final Map<String, Object> payload;
+
+    /** 发生时间 */
+    private final LocalDateTime occurredAt;
+
+    public DomainEvent(Long sequence, String documentType, String action, Long id, String documentNo,
+                       Map<String, Object> payload, LocalDateTime occurredAt) {
+        this.sequence = sequence;
+        this.documentType = documentType;
+        this.action = action;
+        this.id = id;
+        this.documentNo = documentNo;
+        this.payload = payload;
+        this.occurredAt = occurredAt;
+    }
+
+    /**
+     * 新建待发布的事件
+     *
+     * @param documentType 单据类型
+     * @param action 变动类型
+     * @param id 单据ID
+     * @param documentNo 单据编号
+     * @return 事件
+     */
+    public static DomainEvent of(String documentType, String action, Long id, String documentNo) {
+        return new DomainEvent(null, documentType, action, id, documentNo, new LinkedHashMap<>(), LocalDateTime.now());
+    }
+
+    /**
+     * 新增或修改事件
+     *
+     * @param documentType 单据类型
+     * @param created 是否为新增
+     * @param id 单据ID
+     * @param documentNo 单据编号
+     * @return 事件
+     */
+    public static DomainEvent saved(String documentType, boolean created, Long id, String documentNo) {
+        return of(documentType, created ? CREATED : UPDATED, id, documentNo);
+    }
+
+    /**
+     * 删除事件
+     *
+     * @param documentType 单据类型
+     * @param id 单据ID
+     * @return 事件
+     */
+    public static DomainEvent deleted(String documentType, Long id) {
+        return of(documentType, DELETED, id, null);
+    }
+
+    /**
+     * 批量变动事件
+     *
+     * @param documentType 单据类型
+     * @return 事件
+     */
+    public static DomainEvent bulk(String documentType) {
+        return of(documentType, BULK, null, null);
+    }
+
+    /**
+     * 添加附加数据，仅在发布前使用
+     *
+     * @param key 键
+     * @param value 值
+     * @return 当前事件
+     */
+    public DomainEvent with(String key, Object value) {
+        payload.put(key, value);
+        return this;
+    }
+
+    /**
+     * 取得附加数据
+     *
+     * @param key 键
+     * @return 值，不存在时返回null
+     */
+    public Object get(String key) {
+        return payload != null ? payload.get(key) : null;
+    }
+
+    /**
+     * 是否为某类单据的事件
+     *
+     * @param documentType 单据类型
+     * @return 是返回true
+     */
+    public boolean isOf(String documentType) {
+        return this.documentType.equals(documentType);
+    }
+}
@@ -0,0 +1,37 @@
+package com.finance.event;
+
+import java.util.List;
+
+/**
+ * 领域事件订阅方
+ *
+ * <p>实现为Spring Bean即可自动订阅。事件在事务提交后由单一的投递线程按发布顺序分批投递，
+ * 同一订阅方不会并发收到两批事件；多个订阅方按 {@link org.springframework.core.annotation.Order} 依次调用。</p>
+ *
+ * <p>订阅方抛出的异常只记录日志，不影响其他订阅方，该批事件也不会重投，
+ * 因此订阅方维护的缓存或汇总数据应能从数据库重新加载。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see DomainEvent
+ */
+public interface DomainEventSubscriber {
+
+    /**
+     * 是否订阅该事件，默认订阅全部事件
+     *
+     * @param event 事件
+     * @return 订阅返回true
+     */
+    default boolean accepts(DomainEvent event) {
+        return true;
+    }
+
+    /**
+     * 处理一批事件
+     *
+     * @param events 按发布顺序排列的事件，只包含 {@link #accepts} 返回true的事件，不为空
+     */
+    void onEvents(List<DomainEvent> events);
+}
@@ -0,0 +1,77 @@
+package com.finance.repository;
+
+import com.finance.dto.AccountAmountSummary;
+import com.finance.entity.AccountBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 科目期末余额快照数据访问接口
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see AccountBalanceSnapshot
+ */
+@Repository
+public interface AccountBalanceSnapshotRepository extends JpaRepository<AccountBalanceSnapshot, Long> {
+
+    /**
+     * 查询某期间的全部科目快照
+     *
+     * @param period 会计期间（yyyyMM）
+     * @return 快照列表
+     */
+    List<AccountBalanceSnapshot> findByPeriod(Integer period);
+
+    /**
+     * 删除某期间的全部科目快照，反结账时使用
+     *
+     * @param period 会计期间（yyyyMM）
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("DELETE FROM AccountBalanceSnapshot s WHERE s.period = ?1")
+    int deleteByPeriod(Integer period);
+
+    /**
+     * 按科目返回某期间的快照，格式与期间发生额汇总相同，可直接与之后的发生额合并
+     *
+     * @param period 会计期间（yyyyMM）
+     * @return 科目累计发生额列表
+     */
+    @Query("SELECT new com.finance.dto.AccountAmountSummary(s.code, s.direction, b.debitAmount, b.creditAmount) " +
+           "FROM AccountBalanceSnapshot b, AccountSubject s " +
+           "WHERE s.id = b.accountSubjectId AND b.period = ?1")
+    List<AccountAmountSummary> summarizeByPeriod(Integer period);
+
+    /**
+     * 按科目返回某期间的快照，每个科目的金额包含其全部下级科目
+     * 快照行经科目闭包表归集到每一级上级科目后分组求和
+     *
+     * @param period 会计期间（yyyyMM）
+     * @return 科目累计发生额列表
+     */
+    @Query("SELECT new com.finance.dto.AccountAmountSummary(s.code, s.direction, " +
+           "SUM(b.debitAmount), SUM(b.creditAmount)) " +
+           "FROM AccountBalanceSnapshot b, AccountSubjectClosure c, AccountSubject s " +
+           "WHERE c.descendantId = b.accountSubjectId AND s.id = c.ancestorId AND b.period = ?1 " +
+           "GROUP BY s.code, s.direction")
+    List<AccountAmountSummary> summarizeRollupByPeriod(Integer period);
+
+    /**
+     * 汇总指定科目在某期间快照中的借方净余额（借方为正、贷方为负）
+     *
+     * @param subjectIds 会计科目ID集合
+     * @param period 会计期间（yyyyMM）
+     * @return 借方净余额，无快照时为0
+     */
+    @Query("SELECT COALESCE(SUM(b.debitAmount - b.creditAmount), 0) FROM AccountBalanceSnapshot b " +
+           "WHERE b.accountSubjectId IN ?1 AND b.period = ?2")
+    BigDecimal sumNetAt(Collection<Long> subjectIds, Integer period);
+}
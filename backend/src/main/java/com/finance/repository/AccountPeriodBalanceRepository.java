@@ -0,0 +1,153 @@
+package com.finance.repository;
+
+import com.finance.dto.AccountAmountSummary;
+import com.finance.entity.AccountPeriodBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 科目期间发生额数据访问接口
+ *
+ * <p>提供科目期间发生额的增量累加、全量重建以及按期间区间汇总的查询方法。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see AccountPeriodBalance
+ */
+@Repository
+public interface AccountPeriodBalanceRepository extends JpaRepository<AccountPeriodBalance, Long> {
+
+    /**
+     * 累加科目期间发生额
+     * 记录不存在时插入，存在时在原值上累加，由数据库行锁保证并发过账的正确性
+     *
+     * @param accountSubjectId 会计科目ID
+     * @param period 会计期间（yyyyMM）
+     * @param businessType 业务类型（为空时传空字符串）
+     * @param debitAmount 借方发生额增量（冲回时为负数）
+     * @param creditAmount 贷方发生额增量（冲回时为负数）
+     * @return 受影响的行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO account_period_balance " +
+            "(account_subject_id, period, business_type, debit_amount, credit_amount, created_at, updated_at) " +
+            "VALUES (?1, ?2, ?3, ?4, ?5, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE debit_amount = debit_amount + VALUES(debit_amount), " +
+            "credit_amount = credit_amount + VALUES(credit_amount), updated_at = NOW()",
+            nativeQuery = true)
+    int accumulate(Long accountSubjectId, Integer period, String businessType,
+                   BigDecimal debitAmount, BigDecimal creditAmount);
+
+    /**
+     * 清空全部期间发生额，用于全量重建
+     */
+    @Modifying
+    @Query("DELETE FROM AccountPeriodBalance")
+    void deleteAllInBulk();
+
+    /**
+     * 根据已过账凭证明细重新生成全部期间发生额
+     *
+     * @return 生成的记录数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO account_period_balance " +
+            "(account_subject_id, period, business_type, debit_amount, credit_amount, created_at, updated_at) " +
+            "SELECT l.account_subject_id, YEAR(e.entry_date) * 100 + MONTH(e.entry_date), " +
+            "COALESCE(e.business_type, ''), " +
+            "SUM(CASE WHEN l.direction = '借' THEN l.amount ELSE 0 END), " +
+            "SUM(CASE WHEN l.direction = '贷' THEN l.amount ELSE 0 END), NOW(), NOW() " +
+            "FROM journal_entry_line l JOIN journal_entry e ON e.id = l.journal_entry_id " +
+            "WHERE e.status = '已过账' " +
+            "GROUP BY l.account_subject_id, YEAR(e.entry_date) * 100 + MONTH(e.entry_date), " +
+            "COALESCE(e.business_type, '')",
+            nativeQuery = true)
+    int rebuildFromJournalLines();
+
+    /**
+     * 按科目汇总指定期间区间内的发生额
+     *
+     * @param startPeriod 开始期间（包含）
+     * @param endPeriod 结束期间（包含）
+     * @return 科目发生额汇总列表
+     */
+    @Query("SELECT new com.finance.dto.AccountAmountSummary(s.code, s.direction, " +
+           "SUM(b.debitAmount), SUM(b.creditAmount)) " +
+           "FROM AccountPeriodBalance b, AccountSubject s " +
+           "WHERE s.id = b.accountSubjectId AND b.period BETWEEN ?1 AND ?2 " +
+           "GROUP BY s.code, s.direction")
+    List<AccountAmountSummary> summarizeByPeriodBetween(Integer startPeriod, Integer endPeriod);
+
+    /**
+     * 按科目汇总指定期间区间内的发生额，每个科目的金额包含其全部下级科目
+     * 发生额经科目闭包表归集到每一级上级科目后分组求和
+     *
+     * @param startPeriod 开始期间（包含）
+     * @param endPeriod 结束期间（包含）
+     * @return 科目发生额汇总列表
+     */
+    @Query("SELECT new com.finance.dto.AccountAmountSummary(s.code, s.direction, " +
+           "SUM(b.debitAmount), SUM(b.creditAmount)) " +
+           "FROM AccountPeriodBalance b, AccountSubjectClosure c, AccountSubject s " +
+           "WHERE c.descendantId = b.accountSubjectId AND s.id = c.ancestorId AND b.period BETWEEN ?1 AND ?2 " +
+           "GROUP BY s.code, s.direction")
+    List<AccountAmountSummary> summarizeRollupByPeriodBetween(Integer startPeriod, Integer endPeriod);
+
+    /**
+     * 按科目和业务类型汇总指定期间区间内现金类科目（库存现金、银行存款及其明细）的发生额
+     * 下级科目经科目闭包表确定，不依赖科目编码前缀
+     *
+     * @param startPeriod 开始期间（包含）
+     * @param endPeriod 结束期间（包含）
+     * @return 现金类科目按业务类型的发生额汇总列表
+     */
+    @Query("SELECT new com.finance.dto.AccountAmountSummary(s.code, s.direction, b.businessType, " +
+           "SUM(b.debitAmount), SUM(b.creditAmount)) " +
+           "FROM AccountPeriodBalance b, AccountSubject s, AccountSubjectClosure c, AccountSubject a " +
+           "WHERE s.id = b.accountSubjectId AND b.period BETWEEN ?1 AND ?2 " +
+           "AND c.descendantId = s.id AND a.id = c.ancestorId AND a.code IN ('1001', '1002') " +
+           "GROUP BY s.code, s.direction, b.businessType")
+    List<AccountAmountSummary> summarizeCashByPeriodBetween(Integer startPeriod, Integer endPeriod);
+
+    /**
+     * 汇总指定科目在期间区间（两端均不含）内的借方净发生额（借方为正、贷方为负）
+     *
+     * @param subjectIds 会计科目ID集合
+     * @param afterPeriod 开始期间（不含），从最早期间开始时传0
+     * @param beforePeriod 结束期间（不含）
+     * @return 借方净发生额，无发生额时为0
+     */
+    @Query("SELECT COALESCE(SUM(b.debitAmount - b.creditAmount), 0) FROM AccountPeriodBalance b " +
+           "WHERE b.accountSubjectId IN ?1 AND b.period > ?2 AND b.period < ?3")
+    BigDecimal sumNetBetween(Collection<Long> subjectIds, Integer afterPeriod, Integer beforePeriod);
+
+    /**
+     * 按科目ID汇总期间区间内的借方、贷方发生额，用于生成期末余额快照
+     *
+     * @param afterPeriod 开始期间（不含），从最早期间开始时传0
+     * @param endPeriod 结束期间（包含）
+     * @return 每行为 [科目ID, 借方发生额, 贷方发生额]
+     */
+    @Query("SELECT b.accountSubjectId, SUM(b.debitAmount), SUM(b.creditAmount) FROM AccountPeriodBalance b " +
+           "WHERE b.period > ?1 AND b.period <= ?2 GROUP BY b.accountSubjectId")
+    List<Object[]> sumBySubjectBetween(Integer afterPeriod, Integer endPeriod);
+
+    /**
+     * 按期间汇总指定科目的借方、贷方发生额，用于总账
+     *
+     * @param subjectIds 会计科目ID集合，通常为某科目及其下级科目
+     * @param startPeriod 开始期间（包含）
+     * @param endPeriod 结束期间（包含）
+     * @return 每行为 [期间, 借方发生额, 贷方发生额]，按期间排列，没有发生额的期间不返回
+     */
+    @Query("SELECT b.period, SUM(b.debitAmount), SUM(b.creditAmount) FROM AccountPeriodBalance b " +
+           "WHERE b.accountSubjectId IN ?1 AND b.period BETWEEN ?2 AND ?3 " +
+           "GROUP BY b.period ORDER BY b.period")
+    List<Object[]> sumByPeriodBetween(Collection<Long> subjectIds, Integer startPeriod, Integer endPeriod);
+}
@@ -0,0 +1,92 @@
+package com.finance.repository;
+
+import com.finance.entity.AccountSubjectClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 会计科目闭包表数据访问接口
+ *
+ * <p>提供闭包关系的挂接、摘除和层级查询方法。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see AccountSubjectClosure
+ */
+@Repository
+public interface AccountSubjectClosureRepository extends JpaRepository<AccountSubjectClosure, Long> {
+
+    /**
+     * 将以某科目为根的子树挂到新的上级科目下
+     * 为上级科目的每个上级（含自身）与子树中的每个科目生成一行关系
+     *
+     * @param parentId 新的上级科目ID
+     * @param subjectId 子树根科目ID
+     * @return 插入的行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO account_subject_closure (ancestor_id, descendant_id, depth) " +
+            "SELECT p.ancestor_id, s.descendant_id, p.depth + s.depth + 1 " +
+            "FROM account_subject_closure p, account_subject_closure s " +
+            "WHERE p.descendant_id = ?1 AND s.ancestor_id = ?2",
+            nativeQuery = true)
+    int attach(Long parentId, Long subjectId);
+
+    /**
+     * 删除子树与子树之外上级科目之间的关系，用于移动子树
+     *
+     * @param subtreeIds 子树中的全部科目ID
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("DELETE FROM AccountSubjectClosure c WHERE c.descendantId IN ?1 AND c.ancestorId NOT IN ?1")
+    int detach(Collection<Long> subtreeIds);
+
+    /**
+     * 删除与某科目有关的全部关系
+     *
+     * @param subjectId 科目ID
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("DELETE FROM AccountSubjectClosure c WHERE c.ancestorId = ?1 OR c.descendantId = ?1")
+    int deleteBySubject(Long subjectId);
+
+    /**
+     * 清空全部关系，用于全量重建
+     */
+    @Modifying
+    @Query("DELETE FROM AccountSubjectClosure")
+    void deleteAllInBulk();
+
+    /**
+     * 查询科目及其全部下级科目的ID
+     *
+     * @param ancestorId 科目ID
+     * @return 科目ID列表，包含自身
+     */
+    @Query("SELECT c.descendantId FROM AccountSubjectClosure c WHERE c.ancestorId = ?1")
+    List<Long> findDescendantIds(Long ancestorId);
+
+    /**
+     * 查询闭包表中记录的直接上级科目
+     *
+     * @param subjectId 科目ID
+     * @return 直接上级科目ID，一级科目返回空列表
+     */
+    @Query("SELECT c.ancestorId FROM AccountSubjectClosure c WHERE c.descendantId = ?1 AND c.depth = 1")
+    List<Long> findParentId(Long subjectId);
+
+    /**
+     * 统计指定层级距离的关系数，层级距离为0的行数应与科目数相同
+     *
+     * @param depth 层级距离
+     * @return 行数
+     */
+    long countByDepth(Integer depth);
+}
@@ -0,0 +1,43 @@
+package com.finance.repository;
+
+import com.finance.entity.AccountingPeriod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 会计期间结账记录数据访问接口
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see AccountingPeriod
+ */
+@Repository
+public interface AccountingPeriodRepository extends JpaRepository<AccountingPeriod, Long> {
+
+    /**
+     * 根据会计期间查询结账记录
+     *
+     * @param period 会计期间（yyyyMM）
+     * @return 结账记录，从未结账时为空
+     */
+    Optional<AccountingPeriod> findByPeriod(Integer period);
+
+    /**
+     * 查询全部结账记录，按期间倒序
+     *
+     * @return 结账记录列表
+     */
+    List<AccountingPeriod> findAllByOrderByPeriodDesc();
+
+    /**
+     * 查询最近一个已结账期间
+     *
+     * @return 会计期间（yyyyMM），没有已结账期间时返回null
+     */
+    @Query("SELECT MAX(p.period) FROM AccountingPeriod p WHERE p.status = '已结账'")
+    Integer findLatestClosedPeriod();
+}
@@ -0,0 +1,26 @@
+package com.finance.repository;
+
+import com.finance.entity.BankAccountSubject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+/**
+ * 银行账户与会计科目对应关系数据访问接口
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see BankAccountSubject
+ */
+@Repository
+public interface BankAccountSubjectRepository extends JpaRepository<BankAccountSubject, Long> {
+
+    /**
+     * 根据银行账号查询对应关系
+     *
+     * @param bankAccount 银行账号
+     * @return 对应关系，未配置时为空
+     */
+    Optional<BankAccountSubject> findByBankAccount(String bankAccount);
+}
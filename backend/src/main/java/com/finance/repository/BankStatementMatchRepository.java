@@ -0,0 +1,62 @@
+package com.finance.repository;
+
+import com.finance.entity.BankStatementMatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+/**
+ * 银行流水匹配关系数据访问接口
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see BankStatementMatch
+ */
+@Repository
+public interface BankStatementMatchRepository extends JpaRepository<BankStatementMatch, Long> {
+
+    /**
+     * 查询某笔流水的匹配关系
+     *
+     * @param bankStatementId 银行流水ID
+     * @return 匹配关系列表
+     */
+    List<BankStatementMatch> findByBankStatementId(Long bankStatementId);
+
+    /**
+     * 查询某个匹配组的全部匹配关系
+     *
+     * @param matchGroup 匹配组号
+     * @return 匹配关系列表
+     */
+    List<BankStatementMatch> findByMatchGroup(String matchGroup);
+
+    /**
+     * 查询某张分录的匹配关系
+     *
+     * @param journalEntryId 会计分录ID
+     * @return 匹配关系列表
+     */
+    List<BankStatementMatch> findByJournalEntryId(Long journalEntryId);
+
+    /**
+     * 判断分录是否已参与匹配
+     *
+     * @param journalEntryId 会计分录ID
+     * @return 已匹配返回true
+     */
+    boolean existsByJournalEntryId(Long journalEntryId);
+
+    /**
+     * 删除某个匹配组
+     *
+     * @param matchGroup 匹配组号
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("DELETE FROM BankStatementMatch m WHERE m.matchGroup = ?1")
+    int deleteByMatchGroup(String matchGroup);
+}
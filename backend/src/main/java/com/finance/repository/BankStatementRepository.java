@@ -2,8 +2,10 @@ package com.finance.repository;
 
 import com.finance.entity.BankStatement;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -68,4 +70,67 @@ public interface BankStatementRepository extends JpaRepository<BankStatement, Lo
      */
     List<BankStatement> findByTransactionDateBetween(
         LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 查询指定银行账号截至某日、指定对账状态的流水记录
+     * 用于生成余额调节表时列出银行已记企业未记的未达账项
+     * 
+     * @param bankAccount 银行账号
+     * @param status 对账状态
+     * @param endDate 截止日期（包含）
+     * @return 符合条件的流水记录列表
+     */
+    List<BankStatement> findByBankAccountAndReconciliationStatusAndTransactionDateLessThanEqual(
+        String bankAccount, String status, LocalDate endDate);
+
+    /**
+     * 统计指定银行账号截至某日、指定对账状态的流水笔数
+     * 
+     * @param bankAccount 银行账号
+     * @param status 对账状态
+     * @param endDate 截止日期（包含）
+     * @return 流水笔数
+     */
+    long countByBankAccountAndReconciliationStatusAndTransactionDateLessThanEqual(
+        String bankAccount, String status, LocalDate endDate);
+
+    /**
+     * 查询指定银行账号下已存在的交易流水号
+     * 导入时按分块一次查询，用于跳过重复流水
+     * 
+     * @param bankAccount 银行账号
+     * @param transactionNos 交易流水号集合
+     * @return 其中已存在的交易流水号
+     */
+    @Query("SELECT s.transactionNo FROM BankStatement s WHERE s.bankAccount = ?1 AND s.transactionNo IN ?2")
+    List<String> findExistingTransactionNos(String bankAccount, Collection<String> transactionNos);
+
+    /**
+     * 统计指定银行账号的流水笔数
+     * 导入时用于确定重复检测过滤器的容量
+     * 
+     * @param bankAccount 银行账号
+     * @return 流水笔数
+     */
+    long countByBankAccount(String bankAccount);
+
+    /**
+     * 判断指定银行账号下是否已有该交易流水号
+     * 
+     * @param bankAccount 银行账号
+     * @param transactionNo 交易流水号
+     * @return 是否已存在
+     */
+    boolean existsByBankAccountAndTransactionNo(String bankAccount, String transactionNo);
+
+    /**
+     * 判断指定银行账号下除指定流水外是否已有该交易流水号
+     * 用于修改流水时的重复检查
+     * 
+     * @param bankAccount 银行账号
+     * @param transactionNo 交易流水号
+     * @param id 排除的流水ID
+     * @return 是否已存在
+     */
+    boolean existsByBankAccountAndTransactionNoAndIdNot(String bankAccount, String transactionNo, Long id);
 }
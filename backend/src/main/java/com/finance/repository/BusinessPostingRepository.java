@@ -0,0 +1,39 @@
+package com.finance.repository;
+
+import com.finance.entity.BusinessPosting;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+/**
+ * 业务单据生成凭证记录数据访问接口
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see BusinessPosting
+ */
+@Repository
+public interface BusinessPostingRepository extends JpaRepository<BusinessPosting, Long> {
+
+    /**
+     * 查询业务单据生成的凭证记录
+     *
+     * @param businessType 业务类型
+     * @param businessId 业务单据ID
+     * @return 记录，未生成凭证时为空
+     */
+    Optional<BusinessPosting> findByBusinessTypeAndBusinessId(String businessType, Long businessId);
+
+    /**
+     * 删除凭证对应的记录
+     *
+     * @param journalEntryId 凭证ID
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("DELETE FROM BusinessPosting p WHERE p.journalEntryId = ?1")
+    int deleteByJournalEntryId(Long journalEntryId);
+}
@@ -0,0 +1,61 @@
+package com.finance.repository;
+
+import com.finance.entity.DomainEventOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 领域事件出站记录数据访问接口
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see DomainEventOutbox
+ */
+@Repository
+public interface DomainEventOutboxRepository extends JpaRepository<DomainEventOutbox, Long> {
+
+    /**
+     * 按ID顺序查询尚未投递的记录
+     *
+     * @param pageable 分页参数，用于限制条数
+     * @return 出站记录列表
+     */
+    List<DomainEventOutbox> findByPublishedAtIsNullOrderByIdAsc(Pageable pageable);
+
+    /**
+     * 查询某类单据尚未投递的出站记录ID
+     *
+     * @param documentType 单据类型
+     * @return 出站记录ID列表
+     */
+    @Query("SELECT e.id FROM DomainEventOutbox e WHERE e.publishedAt IS NULL AND e.documentType = ?1")
+    List<Long> findUnpublishedIds(String documentType);
+
+    /**
+     * 记录投递时间
+     *
+     * @param ids 出站记录ID
+     * @param publishedAt 投递时间
+     * @return 更新的行数
+     */
+    @Modifying
+    @Query("UPDATE DomainEventOutbox e SET e.publishedAt = ?2 WHERE e.id IN ?1")
+    int markPublished(Collection<Long> ids, LocalDateTime publishedAt);
+
+    /**
+     * 删除早于某时间投递的记录
+     *
+     * @param before 时间
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("DELETE FROM DomainEventOutbox e WHERE e.publishedAt < ?1")
+    int deletePublishedBefore(LocalDateTime before);
+}
@@ -1,9 +1,13 @@
 package com.finance.repository;
 
+import com.finance.dto.PostingSource;
 import com.finance.entity.EmployeeExpense;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -54,4 +58,35 @@ public interface EmployeeExpenseRepository extends JpaRepository<EmployeeExpense
      * @return 日期范围内的费用报销单列表
      */
     List<EmployeeExpense> findByExpenseDateBetween(LocalDate startDate, LocalDate endDate);
+    
+    /**
+     * 查询以指定前缀开头的最大费用单号
+     * 用于单据编号计数器首次创建时确定起始序号
+     * 
+     * @param pattern LIKE匹配模式，如：EE-20250101-%
+     * @return 最大费用单号，不存在时返回null
+     */
+    @Query("SELECT MAX(e.expenseNo) FROM EmployeeExpense e WHERE e.expenseNo LIKE ?1")
+    String findMaxExpenseNoLike(String pattern);
+    
+    /**
+     * 按ID顺序查询指定状态、日期范围内尚未生成凭证的费用报销单，只取生成凭证所需的列
+     * 已有生成记录或已有凭证（业务类型、业务ID指向该单据）的单据均视为已生成
+     * 
+     * @param statuses 状态
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @param afterId 只查询ID大于该值的单据，用于分批读取
+     * @param businessType 生成凭证记录和凭证中的业务类型
+     * @param pageable 分页参数，用于限制条数
+     * @return 待生成凭证的单据列表
+     */
+    @Query("SELECT new com.finance.dto.PostingSource(x.id, x.expenseNo, x.expenseDate, x.expenseType, x.amount) " +
+           "FROM EmployeeExpense x " +
+           "WHERE x.status IN ?1 AND x.expenseDate BETWEEN ?2 AND ?3 AND x.id > ?4 " +
+           "AND NOT EXISTS (SELECT p.id FROM BusinessPosting p WHERE p.businessType = ?5 AND p.businessId = x.id) " +
+           "AND NOT EXISTS (SELECT e.id FROM JournalEntry e WHERE e.businessType = ?5 AND e.businessId = x.id) " +
+           "ORDER BY x.id")
+    List<PostingSource> findPostingSources(Collection<String> statuses, LocalDate startDate, LocalDate endDate,
+                                           Long afterId, String businessType, Pageable pageable);
 }
@@ -0,0 +1,56 @@
+package com.finance.repository;
+
+import com.finance.entity.ExchangeRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 外币汇率数据访问接口
+ *
+ * <p>提供按币种、生效日期查询汇率的方法。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see ExchangeRate
+ */
+@Repository
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long> {
+
+    /**
+     * 查询全部汇率，按币种、生效日期倒序排列
+     *
+     * @return 汇率列表
+     */
+    List<ExchangeRate> findAllByOrderByCurrencyAscEffectiveDateDesc();
+
+    /**
+     * 查询某币种的全部汇率，按生效日期倒序排列
+     *
+     * @param currency 币种
+     * @return 汇率列表
+     */
+    List<ExchangeRate> findByCurrencyOrderByEffectiveDateDesc(String currency);
+
+    /**
+     * 查询某币种在指定日期适用的汇率，即该日及之前最近一次生效的汇率
+     *
+     * @param currency 币种
+     * @param date 日期
+     * @return 汇率的 Optional 包装
+     */
+    Optional<ExchangeRate> findFirstByCurrencyAndEffectiveDateLessThanEqualOrderByEffectiveDateDesc(
+        String currency, LocalDate date);
+
+    /**
+     * 根据币种和生效日期查询汇率
+     *
+     * @param currency 币种
+     * @param effectiveDate 生效日期
+     * @return 汇率的 Optional 包装
+     */
+    Optional<ExchangeRate> findByCurrencyAndEffectiveDate(String currency, LocalDate effectiveDate);
+}
@@ -1,10 +1,17 @@
 package com.finance.repository;
 
+import com.finance.dto.AccountAmountSummary;
+import com.finance.dto.BookOnlyEntry;
+import com.finance.dto.JournalEntryHeader;
 import com.finance.entity.JournalEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +27,16 @@ import java.util.Optional;
  */
 @Repository
 public interface JournalEntryRepository extends JpaRepository<JournalEntry, Long> {
+
+    /** 凭证头构造表达式，只查询凭证主表 */
+    String HEADER_SELECT = "SELECT new com.finance.dto.JournalEntryHeader(e.id, e.voucherNo, e.entryDate, " +
+        "e.description, e.totalAmount, e.businessType, e.businessId, e.status, e.createdBy, e.approvedBy, " +
+        "e.approvedAt, e.createdAt, e.updatedAt) FROM JournalEntry e ";
+
+    /** 凭证连同明细一次查出；DISTINCT 只用于去除内存中重复的凭证，不下推到SQL */
+    String WITH_LINES_SELECT = "SELECT DISTINCT e FROM JournalEntry e LEFT JOIN FETCH e.entryLines ";
+
+    String PASS_DISTINCT_THROUGH = "hibernate.query.passDistinctThrough";
     
     /**
      * 根据凭证号查询会计分录
@@ -76,5 +93,219 @@ public interface JournalEntryRepository extends JpaRepository<JournalEntry, Long
      */
     @Query("SELECT e FROM JournalEntry e WHERE e.businessType = ?1 AND e.businessId = ?2")
     List<JournalEntry> findByBusinessTypeAndBusinessId(String businessType, Long businessId);
-}
+    
+    /**
+     * 按科目汇总指定日期范围和状态的分录明细发生额
+     * 在数据库中完成分组求和，只返回每个科目一行的汇总结果，不加载分录实体
+     * 
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @param status 分录状态
+     * @return 科目发生额汇总列表
+     */
+    @Query("SELECT new com.finance.dto.AccountAmountSummary(s.code, s.direction, " +
+           "SUM(CASE WHEN l.direction = '借' THEN l.amount ELSE 0 END), " +
+           "SUM(CASE WHEN l.direction = '贷' THEN l.amount ELSE 0 END)) " +
+           "FROM JournalEntryLine l JOIN l.journalEntry e JOIN l.accountSubject s " +
+           "WHERE e.entryDate BETWEEN ?1 AND ?2 AND e.status = ?3 " +
+           "GROUP BY s.code, s.direction")
+    List<AccountAmountSummary> summarizeByAccount(LocalDate startDate, LocalDate endDate, String status);
+    
+    /**
+     * 按科目汇总指定日期范围和状态的发生额，每个科目的金额包含其全部下级科目
+     * 明细经科目闭包表归集到每一级上级科目后分组求和
+     * 
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @param status 分录状态
+     * @return 科目发生额汇总列表
+     */
+    @Query("SELECT new com.finance.dto.AccountAmountSummary(s.code, s.direction, " +
+           "SUM(CASE WHEN l.direction = '借' THEN l.amount ELSE 0 END), " +
+           "SUM(CASE WHEN l.direction = '贷' THEN l.amount ELSE 0 END)) " +
+           "FROM JournalEntryLine l JOIN l.journalEntry e, AccountSubjectClosure c, AccountSubject s " +
+           "WHERE c.descendantId = l.accountSubject.id AND s.id = c.ancestorId " +
+           "AND e.entryDate BETWEEN ?1 AND ?2 AND e.status = ?3 " +
+           "GROUP BY s.code, s.direction")
+    List<AccountAmountSummary> summarizeRollupByAccount(LocalDate startDate, LocalDate endDate, String status);
+    
+    /**
+     * 按科目和币种汇总截至某日的外币发生额，用于期末汇兑损益调整
+     * 分别汇总借方、贷方的外币金额和折合的人民币金额
+     * 
+     * @param endDate 截止日期（包含）
+     * @param status 分录状态
+     * @param baseCurrency 本位币，不参与汇总
+     * @return 每行为 [科目ID, 币种, 借方外币金额, 贷方外币金额, 借方人民币金额, 贷方人民币金额, 缺少外币金额的明细数]，
+     *         外币金额可能为null
+     */
+    @Query("SELECT l.accountSubject.id, l.currency, " +
+           "SUM(CASE WHEN l.direction = '借' THEN l.foreignAmount ELSE 0 END), " +
+           "SUM(CASE WHEN l.direction = '贷' THEN l.foreignAmount ELSE 0 END), " +
+           "SUM(CASE WHEN l.direction = '借' THEN l.amount ELSE 0 END), " +
+           "SUM(CASE WHEN l.direction = '贷' THEN l.amount ELSE 0 END), " +
+           "SUM(CASE WHEN l.foreignAmount IS NULL THEN 1 ELSE 0 END) " +
+           "FROM JournalEntryLine l JOIN l.journalEntry e " +
+           "WHERE l.currency IS NOT NULL AND l.currency <> ?3 AND e.entryDate <= ?1 AND e.status = ?2 " +
+           "GROUP BY l.accountSubject.id, l.currency")
+    List<Object[]> sumForeignBalances(LocalDate endDate, String status, String baseCurrency);
+    
+    /**
+     * 按科目和业务类型汇总指定日期范围和状态的现金类科目（库存现金、银行存款及其明细）发生额
+     * 用于现金流量表，下级科目经科目闭包表确定，不依赖科目编码前缀
+     * 
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @param status 分录状态
+     * @return 现金类科目按业务类型的发生额汇总列表
+     */
+    @Query("SELECT new com.finance.dto.AccountAmountSummary(s.code, s.direction, e.businessType, " +
+           "SUM(CASE WHEN l.direction = '借' THEN l.amount ELSE 0 END), " +
+           "SUM(CASE WHEN l.direction = '贷' THEN l.amount ELSE 0 END)) " +
+           "FROM JournalEntryLine l JOIN l.journalEntry e JOIN l.accountSubject s, " +
+           "AccountSubjectClosure c, AccountSubject a " +
+           "WHERE e.entryDate BETWEEN ?1 AND ?2 AND e.status = ?3 " +
+           "AND c.descendantId = s.id AND a.id = c.ancestorId AND a.code IN ('1001', '1002') " +
+           "GROUP BY s.code, s.direction, e.businessType")
+    List<AccountAmountSummary> summarizeCashByAccount(LocalDate startDate, LocalDate endDate, String status);
+    
+    /**
+     * 查询以指定前缀开头的最大凭证号
+     * 用于单据编号计数器首次创建时确定起始序号
+     * 
+     * @param pattern LIKE匹配模式，如：PZ-20250101-%
+     * @return 最大凭证号，不存在时返回null
+     */
+    @Query("SELECT MAX(e.voucherNo) FROM JournalEntry e WHERE e.voucherNo LIKE ?1")
+    String findMaxVoucherNoLike(String pattern);
+    
+    /**
+     * 汇总指定科目在日期范围内的借方净发生额（借方为正、贷方为负）
+     * 
+     * @param subjectIds 会计科目ID集合
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @param status 分录状态
+     * @return 借方净发生额，无发生额时为0
+     */
+    @Query("SELECT COALESCE(SUM(CASE WHEN l.direction = '借' THEN l.amount ELSE -l.amount END), 0) " +
+           "FROM JournalEntryLine l JOIN l.journalEntry e " +
+           "WHERE l.accountSubject.id IN ?1 AND e.entryDate BETWEEN ?2 AND ?3 AND e.status = ?4")
+    BigDecimal sumNetAmount(Collection<Long> subjectIds, LocalDate startDate, LocalDate endDate, String status);
+    
+    /**
+     * 查询截至某日涉及指定科目、且未与任何银行流水匹配的凭证
+     * 匹配关系通过 NOT EXISTS 子查询在数据库中排除，结果带有凭证在这些科目上的净发生额
+     * 
+     * @param subjectIds 银行存款科目ID集合
+     * @param endDate 截止日期（包含）
+     * @param status 分录状态
+     * @return 未匹配凭证列表，按记账日期排序
+     */
+    @Query("SELECT new com.finance.dto.BookOnlyEntry(e.id, e.voucherNo, e.entryDate, e.description, e.totalAmount, " +
+           "SUM(CASE WHEN l.direction = '借' THEN l.amount ELSE -l.amount END)) " +
+           "FROM JournalEntryLine l JOIN l.journalEntry e " +
+           "WHERE l.accountSubject.id IN ?1 AND e.entryDate <= ?2 AND e.status = ?3 " +
+           "AND NOT EXISTS (SELECT m.id FROM BankStatementMatch m WHERE m.journalEntryId = e.id) " +
+           "AND NOT EXISTS (SELECT s.id FROM BankStatement s WHERE s.matchedJournalEntryId = e.id) " +
+           "GROUP BY e.id, e.voucherNo, e.entryDate, e.description, e.totalAmount " +
+           "HAVING SUM(CASE WHEN l.direction = '借' THEN l.amount ELSE -l.amount END) <> 0 " +
+           "ORDER BY e.entryDate, e.id")
+    List<BookOnlyEntry> findUnmatchedBankEntries(Collection<Long> subjectIds, LocalDate endDate, String status);
+    
+    /**
+     * 统计日期范围内非指定状态的分录数量
+     * 用于结账前检查期间内是否还有未过账的凭证
+     * 
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @param status 排除的分录状态
+     * @return 分录数量
+     */
+    long countByEntryDateBetweenAndStatusNot(LocalDate startDate, LocalDate endDate, String status);
+
+    /**
+     * 查询全部凭证头，按记账日期倒序
+     *
+     * @return 凭证头列表
+     */
+    @Query(HEADER_SELECT + "ORDER BY e.entryDate DESC, e.id DESC")
+    List<JournalEntryHeader> findAllHeaders();
+
+    /**
+     * 按状态查询凭证头，按记账日期倒序
+     *
+     * @param status 状态
+     * @return 凭证头列表
+     */
+    @Query(HEADER_SELECT + "WHERE e.status = ?1 ORDER BY e.entryDate DESC, e.id DESC")
+    List<JournalEntryHeader> findHeadersByStatus(String status);
+
+    /**
+     * 按日期范围查询凭证头，按记账日期排序
+     *
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @return 凭证头列表
+     */
+    @Query(HEADER_SELECT + "WHERE e.entryDate BETWEEN ?1 AND ?2 ORDER BY e.entryDate, e.id")
+    List<JournalEntryHeader> findHeadersByEntryDateBetween(LocalDate startDate, LocalDate endDate);
 
+    /**
+     * 查询全部凭证及其明细，按记账日期倒序
+     *
+     * @return 凭证列表，明细已加载
+     */
+    @Query(WITH_LINES_SELECT + "ORDER BY e.entryDate DESC, e.id DESC")
+    @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+    List<JournalEntry> findAllWithLines();
+
+    /**
+     * 按状态查询凭证及其明细，按记账日期倒序
+     *
+     * @param status 状态
+     * @return 凭证列表，明细已加载
+     */
+    @Query(WITH_LINES_SELECT + "WHERE e.status = ?1 ORDER BY e.entryDate DESC, e.id DESC")
+    @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+    List<JournalEntry> findWithLinesByStatus(String status);
+
+    /**
+     * 按日期范围查询凭证及其明细，按记账日期排序
+     *
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @return 凭证列表，明细已加载
+     */
+    @Query(WITH_LINES_SELECT + "WHERE e.entryDate BETWEEN ?1 AND ?2 ORDER BY e.entryDate, e.id")
+    @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+    List<JournalEntry> findWithLinesByEntryDateBetween(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 按ID集合查询凭证及其明细，用于分页结果补充明细
+     *
+     * @param ids 凭证ID集合
+     * @return 凭证列表，明细已加载，顺序不定
+     */
+    @Query(WITH_LINES_SELECT + "WHERE e.id IN ?1")
+    @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+    List<JournalEntry> findWithLinesByIdIn(Collection<Long> ids);
+
+    /**
+     * 查询单张凭证及其明细
+     *
+     * @param id 凭证ID
+     * @return 凭证，明细已加载
+     */
+    @Query("SELECT e FROM JournalEntry e LEFT JOIN FETCH e.entryLines WHERE e.id = ?1")
+    Optional<JournalEntry> findWithLinesById(Long id);
+
+    /**
+     * 统计使用某科目的分录明细条数（不论凭证状态）
+     *
+     * @param accountSubjectId 科目ID
+     * @return 明细条数
+     */
+    @Query("SELECT COUNT(l) FROM JournalEntryLine l WHERE l.accountSubject.id = ?1")
+    long countLinesByAccountSubjectId(Long accountSubjectId);
+}
@@ -0,0 +1,30 @@
+package com.finance.repository;
+
+import com.finance.entity.NumberSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+/**
+ * 单据编号序列数据访问接口
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see NumberSequence
+ */
+@Repository
+public interface NumberSequenceRepository extends JpaRepository<NumberSequence, Long> {
+
+    /**
+     * 根据序列键查询序列并加行锁（SELECT ... FOR UPDATE）
+     * 保证多个应用实例同时领取号段时不会领到重叠的序号
+     *
+     * @param seqKey 序列键
+     * @return 序列对象的 Optional 包装
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<NumberSequence> findBySeqKey(String seqKey);
+}
@@ -0,0 +1,143 @@
+package com.finance.repository;
+
+import com.finance.dto.AgingSummary;
+import com.finance.entity.PayableBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 应付余额数据访问接口
+ *
+ * <p>提供应付余额的增量累加、全量重建、按到期日分段汇总的账龄查询以及按到期日汇总的付款预测查询。
+ * 账龄查询的分段边界由调用方按截止日计算后传入：?1 截止日，?2 截止日前30天，
+ * ?3 截止日前60天，?4 截止日前90天。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see PayableBalance
+ */
+@Repository
+public interface PayableBalanceRepository extends JpaRepository<PayableBalance, Long> {
+
+    /**
+     * 累加供应商某到期日的应付余额
+     * 记录不存在时插入，存在时在原值上累加，由数据库行锁保证并发保存的正确性
+     *
+     * @param supplierId 供应商ID
+     * @param dueDate 到期日
+     * @param amount 未支付金额增量（冲回时为负数）
+     * @param orderCount 采购订单张数增量（冲回时为负数）
+     * @return 受影响的行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO payable_balance " +
+            "(supplier_id, due_date, outstanding_amount, order_count, created_at, updated_at) " +
+            "VALUES (?1, ?2, ?3, ?4, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE outstanding_amount = outstanding_amount + VALUES(outstanding_amount), " +
+            "order_count = order_count + VALUES(order_count), updated_at = NOW()",
+            nativeQuery = true)
+    int accumulate(Long supplierId, LocalDate dueDate, BigDecimal amount, long orderCount);
+
+    /**
+     * 清空全部应付余额，用于全量重建
+     */
+    @Modifying
+    @Query("DELETE FROM PayableBalance")
+    void deleteAllInBulk();
+
+    /**
+     * 根据采购订单重新生成全部应付余额
+     *
+     * @param statuses 计入应付的采购订单状态
+     * @return 生成的记录数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO payable_balance " +
+            "(supplier_id, due_date, outstanding_amount, order_count, created_at, updated_at) " +
+            "SELECT o.supplier_id, COALESCE(o.expected_date, o.order_date), " +
+            "SUM(o.total_amount - COALESCE(o.paid_amount, 0)), COUNT(*), NOW(), NOW() " +
+            "FROM purchase_order o " +
+            "WHERE o.status IN ?1 AND o.total_amount - COALESCE(o.paid_amount, 0) <> 0 " +
+            "GROUP BY o.supplier_id, COALESCE(o.expected_date, o.order_date)",
+            nativeQuery = true)
+    int rebuildFromOrders(Collection<String> statuses);
+
+    /**
+     * 全部供应商应付账龄合计
+     *
+     * @return 账龄汇总，没有应付时各分段为0
+     */
+    @Query("SELECT new com.finance.dto.AgingSummary(SUM(r.orderCount), " +
+           "SUM(CASE WHEN r.dueDate > ?1 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate <= ?1 AND r.dueDate >= ?2 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?2 AND r.dueDate >= ?3 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?3 AND r.dueDate >= ?4 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?4 THEN r.outstandingAmount ELSE 0 END)) " +
+           "FROM PayableBalance r WHERE r.outstandingAmount <> 0")
+    AgingSummary sumAging(LocalDate asOf, LocalDate days30, LocalDate days60, LocalDate days90);
+
+    /**
+     * 按供应商汇总应付账龄，按未支付金额从大到小排列
+     *
+     * @return 各供应商的账龄汇总
+     */
+    @Query("SELECT new com.finance.dto.AgingSummary(s.id, s.code, s.name, SUM(r.orderCount), " +
+           "SUM(CASE WHEN r.dueDate > ?1 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate <= ?1 AND r.dueDate >= ?2 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?2 AND r.dueDate >= ?3 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?3 AND r.dueDate >= ?4 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?4 THEN r.outstandingAmount ELSE 0 END)) " +
+           "FROM PayableBalance r, Supplier s WHERE s.id = r.supplierId AND r.outstandingAmount <> 0 " +
+           "GROUP BY s.id, s.code, s.name ORDER BY SUM(r.outstandingAmount) DESC")
+    List<AgingSummary> sumAgingBySupplier(LocalDate asOf, LocalDate days30, LocalDate days60, LocalDate days90);
+
+    /**
+     * 单个供应商的应付账龄
+     *
+     * @param supplierId 供应商ID
+     * @return 账龄汇总，供应商没有应付时返回null
+     */
+    @Query("SELECT new com.finance.dto.AgingSummary(s.id, s.code, s.name, SUM(r.orderCount), " +
+           "SUM(CASE WHEN r.dueDate > ?1 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate <= ?1 AND r.dueDate >= ?2 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?2 AND r.dueDate >= ?3 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?3 AND r.dueDate >= ?4 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?4 THEN r.outstandingAmount ELSE 0 END)) " +
+           "FROM PayableBalance r, Supplier s " +
+           "WHERE s.id = r.supplierId AND r.supplierId = ?5 AND r.outstandingAmount <> 0 " +
+           "GROUP BY s.id, s.code, s.name")
+    AgingSummary sumAgingOfSupplier(LocalDate asOf, LocalDate days30, LocalDate days60, LocalDate days90,
+                                    Long supplierId);
+
+    /**
+     * 按到期日汇总日期区间内到期的应付金额
+     * 用于付款预测，结果最多为区间天数行
+     *
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（不包含）
+     * @return 每行为 [到期日, 未支付金额]，按到期日排列
+     */
+    @Query("SELECT r.dueDate, SUM(r.outstandingAmount) FROM PayableBalance r " +
+           "WHERE r.dueDate >= ?1 AND r.dueDate < ?2 AND r.outstandingAmount <> 0 " +
+           "GROUP BY r.dueDate ORDER BY r.dueDate")
+    List<Object[]> sumByDueDateBetween(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 汇总区间之外的应付金额
+     *
+     * @param startDate 区间开始日期，早于该日到期的计为已逾期
+     * @param endDate 区间结束日期（不包含），该日及以后到期的计为区间之后
+     * @return 单行 [已逾期金额, 区间之后金额]
+     */
+    @Query("SELECT SUM(CASE WHEN r.dueDate < ?1 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate >= ?2 THEN r.outstandingAmount ELSE 0 END) " +
+           "FROM PayableBalance r WHERE r.outstandingAmount <> 0")
+    List<Object[]> sumOutside(LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,41 @@
+package com.finance.repository;
+
+import com.finance.entity.PeriodCloseLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+/**
+ * 结账锁数据访问接口
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see PeriodCloseLock
+ */
+@Repository
+public interface PeriodCloseLockRepository extends JpaRepository<PeriodCloseLock, Long> {
+
+    /**
+     * 加共享锁读取锁行，用于过账
+     *
+     * @param id 锁行ID
+     * @return 锁行，尚未创建时为空
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT l FROM PeriodCloseLock l WHERE l.id = ?1")
+    Optional<PeriodCloseLock> findForShare(Long id);
+
+    /**
+     * 加排他锁读取锁行，用于结账和反结账
+     *
+     * @param id 锁行ID
+     * @return 锁行，尚未创建时为空
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM PeriodCloseLock l WHERE l.id = ?1")
+    Optional<PeriodCloseLock> findForUpdate(Long id);
+}
@@ -0,0 +1,42 @@
+package com.finance.repository;
+
+import com.finance.entity.PostingTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 凭证模板数据访问接口
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see PostingTemplate
+ */
+@Repository
+public interface PostingTemplateRepository extends JpaRepository<PostingTemplate, Long> {
+
+    /**
+     * 根据业务类型和分类查询模板
+     *
+     * @param businessType 业务类型
+     * @param category 分类，为null时查询默认模板
+     * @return 模板，未配置时为空
+     */
+    Optional<PostingTemplate> findByBusinessTypeAndCategory(String businessType, String category);
+
+    /**
+     * 查询启用的模板
+     *
+     * @return 模板列表
+     */
+    List<PostingTemplate> findByEnabledTrue();
+
+    /**
+     * 按业务类型、分类排序查询全部模板
+     *
+     * @return 模板列表
+     */
+    List<PostingTemplate> findAllByOrderByBusinessTypeAscCategoryAsc();
+}
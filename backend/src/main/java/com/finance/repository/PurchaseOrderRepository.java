@@ -1,9 +1,15 @@
 package com.finance.repository;
 
+import com.finance.dto.PostingSource;
 import com.finance.entity.PurchaseOrder;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import javax.persistence.LockModeType;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +34,17 @@ public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Lo
      */
     Optional<PurchaseOrder> findByOrderNo(String orderNo);
     
+    /**
+     * 加排他锁读取采购订单（SELECT ... FOR UPDATE）
+     * 用于修改、删除采购订单和登记付款时同步应付余额，同一采购订单的并发修改依次执行，避免相互覆盖
+     * 
+     * @param id 采购订单ID
+     * @return 采购订单对象的 Optional 包装
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM PurchaseOrder o WHERE o.id = ?1")
+    Optional<PurchaseOrder> findForUpdate(Long id);
+    
     /**
      * 根据状态查询采购订单列表
      * 
@@ -54,4 +71,48 @@ public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Lo
      * @return 该供应商的订单列表
      */
     List<PurchaseOrder> findBySupplierId(Long supplierId);
+    
+    /**
+     * 查询以指定前缀开头的最大订单号
+     * 用于单据编号计数器首次创建时确定起始序号
+     * 
+     * @param pattern LIKE匹配模式，如：PO-20250101-%
+     * @return 最大订单号，不存在时返回null
+     */
+    @Query("SELECT MAX(e.orderNo) FROM PurchaseOrder e WHERE e.orderNo LIKE ?1")
+    String findMaxOrderNoLike(String pattern);
+    
+    /**
+     * 按ID顺序查询指定状态、日期范围内尚未生成凭证的采购订单，只取生成凭证所需的列
+     * 已有生成记录或已有凭证（业务类型、业务ID指向该单据）的单据均视为已生成
+     * 
+     * @param statuses 状态
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @param afterId 只查询ID大于该值的单据，用于分批读取
+     * @param businessType 生成凭证记录和凭证中的业务类型
+     * @param pageable 分页参数，用于限制条数
+     * @return 待生成凭证的单据列表
+     */
+    @Query("SELECT new com.finance.dto.PostingSource(o.id, o.orderNo, o.orderDate, o.totalAmount, o.taxAmount) " +
+           "FROM PurchaseOrder o " +
+           "WHERE o.status IN ?1 AND o.orderDate BETWEEN ?2 AND ?3 AND o.id > ?4 " +
+           "AND NOT EXISTS (SELECT p.id FROM BusinessPosting p WHERE p.businessType = ?5 AND p.businessId = o.id) " +
+           "AND NOT EXISTS (SELECT e.id FROM JournalEntry e WHERE e.businessType = ?5 AND e.businessId = o.id) " +
+           "ORDER BY o.id")
+    List<PostingSource> findPostingSources(Collection<String> statuses, LocalDate startDate, LocalDate endDate,
+                                           Long afterId, String businessType, Pageable pageable);
+    
+    /**
+     * 查询供应商尚未付清的采购订单，按到期日排列
+     * 用于供应商应付账龄的明细
+     * 
+     * @param supplierId 供应商ID
+     * @param statuses 计入应付的状态
+     * @return 未付清的采购订单列表
+     */
+    @Query("SELECT o FROM PurchaseOrder o WHERE o.supplier.id = ?1 AND o.status IN ?2 " +
+           "AND o.totalAmount - COALESCE(o.paidAmount, 0) <> 0 " +
+           "ORDER BY COALESCE(o.expectedDate, o.orderDate), o.id")
+    List<PurchaseOrder> findOpenBySupplier(Long supplierId, Collection<String> statuses);
 }
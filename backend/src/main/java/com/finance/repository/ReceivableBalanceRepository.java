@@ -0,0 +1,118 @@
+package com.finance.repository;
+
+import com.finance.dto.AgingSummary;
+import com.finance.entity.ReceivableBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 应收余额数据访问接口
+ *
+ * <p>提供应收余额的增量累加、全量重建以及按到期日分段汇总的账龄查询方法。
+ * 账龄查询的分段边界由调用方按截止日计算后传入：?1 截止日，?2 截止日前30天，
+ * ?3 截止日前60天，?4 截止日前90天。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see ReceivableBalance
+ */
+@Repository
+public interface ReceivableBalanceRepository extends JpaRepository<ReceivableBalance, Long> {
+
+    /**
+     * 累加客户某到期日的应收余额
+     * 记录不存在时插入，存在时在原值上累加，由数据库行锁保证并发保存的正确性
+     *
+     * @param customerId 客户ID
+     * @param dueDate 到期日
+     * @param amount 未收回金额增量（冲回时为负数）
+     * @param invoiceCount 销售单张数增量（冲回时为负数）
+     * @return 受影响的行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO receivable_balance " +
+            "(customer_id, due_date, outstanding_amount, invoice_count, created_at, updated_at) " +
+            "VALUES (?1, ?2, ?3, ?4, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE outstanding_amount = outstanding_amount + VALUES(outstanding_amount), " +
+            "invoice_count = invoice_count + VALUES(invoice_count), updated_at = NOW()",
+            nativeQuery = true)
+    int accumulate(Long customerId, LocalDate dueDate, BigDecimal amount, long invoiceCount);
+
+    /**
+     * 清空全部应收余额，用于全量重建
+     */
+    @Modifying
+    @Query("DELETE FROM ReceivableBalance")
+    void deleteAllInBulk();
+
+    /**
+     * 根据销售单重新生成全部应收余额
+     *
+     * @param statuses 计入应收的销售单状态
+     * @return 生成的记录数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO receivable_balance " +
+            "(customer_id, due_date, outstanding_amount, invoice_count, created_at, updated_at) " +
+            "SELECT i.customer_id, COALESCE(i.due_date, i.invoice_date), " +
+            "SUM(i.total_amount - COALESCE(i.received_amount, 0)), COUNT(*), NOW(), NOW() " +
+            "FROM sales_invoice i " +
+            "WHERE i.status IN ?1 AND i.total_amount - COALESCE(i.received_amount, 0) <> 0 " +
+            "GROUP BY i.customer_id, COALESCE(i.due_date, i.invoice_date)",
+            nativeQuery = true)
+    int rebuildFromInvoices(Collection<String> statuses);
+
+    /**
+     * 全部客户应收账龄合计
+     *
+     * @return 账龄汇总，没有应收时各分段为0
+     */
+    @Query("SELECT new com.finance.dto.AgingSummary(SUM(r.invoiceCount), " +
+           "SUM(CASE WHEN r.dueDate > ?1 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate <= ?1 AND r.dueDate >= ?2 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?2 AND r.dueDate >= ?3 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?3 AND r.dueDate >= ?4 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?4 THEN r.outstandingAmount ELSE 0 END)) " +
+           "FROM ReceivableBalance r WHERE r.outstandingAmount <> 0")
+    AgingSummary sumAging(LocalDate asOf, LocalDate days30, LocalDate days60, LocalDate days90);
+
+    /**
+     * 按客户汇总应收账龄，按未收回金额从大到小排列
+     *
+     * @return 各客户的账龄汇总
+     */
+    @Query("SELECT new com.finance.dto.AgingSummary(c.id, c.code, c.name, SUM(r.invoiceCount), " +
+           "SUM(CASE WHEN r.dueDate > ?1 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate <= ?1 AND r.dueDate >= ?2 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?2 AND r.dueDate >= ?3 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?3 AND r.dueDate >= ?4 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?4 THEN r.outstandingAmount ELSE 0 END)) " +
+           "FROM ReceivableBalance r, Customer c WHERE c.id = r.customerId AND r.outstandingAmount <> 0 " +
+           "GROUP BY c.id, c.code, c.name ORDER BY SUM(r.outstandingAmount) DESC")
+    List<AgingSummary> sumAgingByCustomer(LocalDate asOf, LocalDate days30, LocalDate days60, LocalDate days90);
+
+    /**
+     * 单个客户的应收账龄
+     *
+     * @param customerId 客户ID
+     * @return 账龄汇总，客户没有应收时返回null
+     */
+    @Query("SELECT new com.finance.dto.AgingSummary(c.id, c.code, c.name, SUM(r.invoiceCount), " +
+           "SUM(CASE WHEN r.dueDate > ?1 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate <= ?1 AND r.dueDate >= ?2 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?2 AND r.dueDate >= ?3 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?3 AND r.dueDate >= ?4 THEN r.outstandingAmount ELSE 0 END), " +
+           "SUM(CASE WHEN r.dueDate < ?4 THEN r.outstandingAmount ELSE 0 END)) " +
+           "FROM ReceivableBalance r, Customer c " +
+           "WHERE c.id = r.customerId AND r.customerId = ?5 AND r.outstandingAmount <> 0 " +
+           "GROUP BY c.id, c.code, c.name")
+    AgingSummary sumAgingOfCustomer(LocalDate asOf, LocalDate days30, LocalDate days60, LocalDate days90,
+                                    Long customerId);
+}
@@ -1,9 +1,15 @@
 package com.finance.repository;
 
+import com.finance.dto.PostingSource;
 import com.finance.entity.SalesInvoice;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import javax.persistence.LockModeType;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +34,17 @@ public interface SalesInvoiceRepository extends JpaRepository<SalesInvoice, Long
      */
     Optional<SalesInvoice> findByInvoiceNo(String invoiceNo);
     
+    /**
+     * 加排他锁读取销售单（SELECT ... FOR UPDATE）
+     * 用于修改、删除销售单和登记收款时同步应收余额，同一销售单的并发修改依次执行，避免相互覆盖
+     * 
+     * @param id 销售单ID
+     * @return 销售单对象的 Optional 包装
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM SalesInvoice i WHERE i.id = ?1")
+    Optional<SalesInvoice> findForUpdate(Long id);
+    
     /**
      * 根据状态查询销售单列表
      * 
@@ -54,4 +71,48 @@ public interface SalesInvoiceRepository extends JpaRepository<SalesInvoice, Long
      * @return 该客户的销售单列表
      */
     List<SalesInvoice> findByCustomerId(Long customerId);
+    
+    /**
+     * 查询以指定前缀开头的最大销售单号
+     * 用于单据编号计数器首次创建时确定起始序号
+     * 
+     * @param pattern LIKE匹配模式，如：SI-20250101-%
+     * @return 最大销售单号，不存在时返回null
+     */
+    @Query("SELECT MAX(e.invoiceNo) FROM SalesInvoice e WHERE e.invoiceNo LIKE ?1")
+    String findMaxInvoiceNoLike(String pattern);
+    
+    /**
+     * 按ID顺序查询指定状态、日期范围内尚未生成凭证的销售单，只取生成凭证所需的列
+     * 已有生成记录或已有凭证（业务类型、业务ID指向该单据）的单据均视为已生成
+     * 
+     * @param statuses 状态
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @param afterId 只查询ID大于该值的单据，用于分批读取
+     * @param businessType 生成凭证记录和凭证中的业务类型
+     * @param pageable 分页参数，用于限制条数
+     * @return 待生成凭证的单据列表
+     */
+    @Query("SELECT new com.finance.dto.PostingSource(i.id, i.invoiceNo, i.invoiceDate, i.totalAmount, i.taxAmount) " +
+           "FROM SalesInvoice i " +
+           "WHERE i.status IN ?1 AND i.invoiceDate BETWEEN ?2 AND ?3 AND i.id > ?4 " +
+           "AND NOT EXISTS (SELECT p.id FROM BusinessPosting p WHERE p.businessType = ?5 AND p.businessId = i.id) " +
+           "AND NOT EXISTS (SELECT e.id FROM JournalEntry e WHERE e.businessType = ?5 AND e.businessId = i.id) " +
+           "ORDER BY i.id")
+    List<PostingSource> findPostingSources(Collection<String> statuses, LocalDate startDate, LocalDate endDate,
+                                           Long afterId, String businessType, Pageable pageable);
+    
+    /**
+     * 查询客户尚未收清的销售单，按到期日排列
+     * 用于客户应收账龄的明细
+     * 
+     * @param customerId 客户ID
+     * @param statuses 计入应收的状态
+     * @return 未收清的销售单列表
+     */
+    @Query("SELECT i FROM SalesInvoice i WHERE i.customer.id = ?1 AND i.status IN ?2 " +
+           "AND i.totalAmount - COALESCE(i.receivedAmount, 0) <> 0 " +
+           "ORDER BY COALESCE(i.dueDate, i.invoiceDate), i.id")
+    List<SalesInvoice> findOpenByCustomer(Long customerId, Collection<String> statuses);
 }
@@ -0,0 +1,323 @@
+package com.finance.service;
+
+import com.finance.dto.AccountAmountSummary;
+import com.finance.entity.AccountPeriodBalance;
+import com.finance.entity.JournalEntry;
+import com.finance.entity.JournalEntryLine;
+import com.finance.repository.AccountBalanceSnapshotRepository;
+import com.finance.repository.AccountPeriodBalanceRepository;
+import com.finance.repository.JournalEntryRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 科目期间发生额服务类
+ *
+ * <p>维护按"科目 × 会计期间 × 业务类型"预汇总的借贷发生额，并为报表提供
+ * 任意日期区间的科目发生额汇总。</p>
+ *
+ * <p>维护规则：
+ * <ul>
+ *   <li>凭证过账时累加其明细发生额</li>
+ *   <li>已过账凭证被修改或删除时先冲回原发生额</li>
+ *   <li>所有变更与凭证操作处于同一事务中</li>
+ * </ul>
+ * </p>
+ *
+ * <p>查询规则：区间内的完整月份直接读取预汇总行，区间首尾不足一个月的部分
+ * 由数据库按凭证明细分组汇总，因此单次报表最多聚合两个不完整月份的明细，
+ * 且全程只返回紧凑的汇总行，不加载凭证实体。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see AccountPeriodBalance
+ */
+@Service
+public class AccountBalanceService {
+
+    /** 已过账状态 */
+    private static final String POSTED = "已过账";
+
+    /** 科目期间发生额数据访问对象 */
+    @Autowired
+    private AccountPeriodBalanceRepository accountPeriodBalanceRepository;
+
+    /** 会计分录数据访问对象 */
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    /** 科目期末余额快照数据访问对象 */
+    @Autowired
+    private AccountBalanceSnapshotRepository accountBalanceSnapshotRepository;
+
+    /** 结账服务，拒绝变动已结账期间并提供可用的余额快照期间 */
+    @Autowired
+    private PeriodCloseService periodCloseService;
+
+    /** 总账版本服务，发生额变动后通知报表缓存失效 */
+    @Autowired
+    private LedgerVersionService ledgerVersionService;
+
+    /**
+     * 将凭证发生额计入（或冲回）科目期间发生额
+     *
+     * <p>同一凭证中相同科目的明细先在内存中合并，每个科目只执行一次累加语句。</p>
+     *
+     * @param entry 会计分录（需包含明细行）
+     * @param sign 1表示计入，-1表示冲回
+     */
+    @Transactional
+    public void applyEntry(JournalEntry entry, int sign) {
+        applyEntries(Collections.singletonList(entry), sign);
+    }
+
+    /**
+     * 将多张凭证的发生额一次性计入（或冲回）科目期间发生额
+     *
+     * <p>先按"科目 × 期间 × 业务类型"在内存中合并，每个组合只执行一次累加语句，
+     * 用于批量导入等一次处理大量凭证的场景。</p>
+     *
+     * @param entries 会计分录列表（需包含明细行）
+     * @param sign 1表示计入，-1表示冲回
+     */
+    @Transactional
+    public void applyEntries(List<JournalEntry> entries, int sign) {
+        Map<String, BalanceDelta> deltas = new LinkedHashMap<>();
+        for (JournalEntry entry : entries) {
+            if (entry.getEntryLines() == null) {
+                continue;
+            }
+            Integer period = AccountPeriodBalance.periodOf(entry.getEntryDate());
+            String businessType = entry.getBusinessType() != null ? entry.getBusinessType() : "";
+            for (JournalEntryLine line : entry.getEntryLines()) {
+                if (line.getAccountSubject() == null || line.getAmount() == null) {
+                    continue;
+                }
+                Long subjectId = line.getAccountSubject().getId();
+                BalanceDelta delta = deltas.computeIfAbsent(subjectId + "|" + period + "|" + businessType,
+                    k -> new BalanceDelta(subjectId, period, businessType));
+                if ("借".equals(line.getDirection())) {
+                    delta.debit = delta.debit.add(line.getAmount());
+                } else if ("贷".equals(line.getDirection())) {
+                    delta.credit = delta.credit.add(line.getAmount());
+                }
+            }
+        }
+
+        Set<Integer> periods = new HashSet<>();
+        for (BalanceDelta delta : deltas.values()) {
+            periods.add(delta.period);
+        }
+        // 加锁并按数据库中的结账状态检查，结账需等待本事务提交
+        periodCloseService.lockOpen(periods);
+
+        BigDecimal multiplier = BigDecimal.valueOf(sign);
+        for (BalanceDelta delta : deltas.values()) {
+            accountPeriodBalanceRepository.accumulate(delta.accountSubjectId, delta.period, delta.businessType,
+                delta.debit.multiply(multiplier), delta.credit.multiply(multiplier));
+        }
+        ledgerVersionService.markChanged(periods);
+    }
+
+    /**
+     * 根据全部已过账凭证重建科目期间发生额
+     * 用于首次启用或数据修复
+     *
+     * @return 重建后的记录数
+     */
+    @Transactional
+    @Timed(value = "finance.balance.rebuild", description = "重建科目期间发生额")
+    public int rebuild() {
+        accountPeriodBalanceRepository.deleteAllInBulk();
+        int rows = accountPeriodBalanceRepository.rebuildFromJournalLines();
+        ledgerVersionService.markAllChanged();
+        return rows;
+    }
+
+    /**
+     * 按科目汇总日期区间内已过账凭证的发生额
+     *
+     * @param startDate 开始日期（包含），为null表示从第一张凭证开始
+     * @param endDate 结束日期（包含）
+     * @return 科目发生额汇总列表，同一科目可能出现多行，调用方需自行合并
+     */
+    @Transactional(readOnly = true)
+    public List<AccountAmountSummary> summarize(LocalDate startDate, LocalDate endDate) {
+        return summarize(startDate, endDate, Scope.ACCOUNT);
+    }
+
+    /**
+     * 按科目汇总日期区间内已过账凭证的发生额，每个科目的金额包含其全部下级科目
+     *
+     * <p>各项汇总查询经科目闭包表把每笔金额归集到它的每一级上级科目，
+     * 数据库端一次分组即可得到任意层级科目的发生额。</p>
+     *
+     * @param startDate 开始日期（包含），为null表示从第一张凭证开始
+     * @param endDate 结束日期（包含）
+     * @return 科目发生额汇总列表，同一科目可能出现多行，调用方需自行合并
+     */
+    @Transactional(readOnly = true)
+    public List<AccountAmountSummary> summarizeRollup(LocalDate startDate, LocalDate endDate) {
+        return summarize(startDate, endDate, Scope.ROLLUP);
+    }
+
+    /**
+     * 按科目和业务类型汇总日期区间内现金类科目的发生额
+     *
+     * @param startDate 开始日期（包含），为null表示从第一张凭证开始
+     * @param endDate 结束日期（包含）
+     * @return 现金类科目发生额汇总列表，同一科目可能出现多行，调用方需自行合并
+     */
+    @Transactional(readOnly = true)
+    public List<AccountAmountSummary> summarizeCash(LocalDate startDate, LocalDate endDate) {
+        return summarize(startDate, endDate, Scope.CASH);
+    }
+
+    /**
+     * 计算指定科目截至某日（包含）的借方净余额（借方为正、贷方为负）
+     *
+     * <p>截止日之前最近的余额快照（见 {@link PeriodCloseService}）作为起点，快照之后到上月末的部分
+     * 取自期间发生额表，当月1日至截止日按凭证明细汇总，聚合查询都在数据库中完成，不加载凭证。</p>
+     *
+     * @param subjectIds 会计科目ID集合，通常为某科目及其下级科目
+     * @param date 截止日期（包含）
+     * @return 借方净余额
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal netBalanceAsOf(Collection<Long> subjectIds, LocalDate date) {
+        if (subjectIds.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        Integer snapshotPeriod = periodCloseService.findSnapshotPeriod(date);
+        BigDecimal balance = snapshotPeriod != null
+            ? accountBalanceSnapshotRepository.sumNetAt(subjectIds, snapshotPeriod) : BigDecimal.ZERO;
+        int period = AccountPeriodBalance.periodOf(date);
+        if (snapshotPeriod != null && snapshotPeriod == period) {
+            return balance;
+        }
+        balance = balance.add(accountPeriodBalanceRepository
+            .sumNetBetween(subjectIds, snapshotPeriod != null ? snapshotPeriod : 0, period));
+        return balance.add(journalEntryRepository
+            .sumNetAmount(subjectIds, date.withDayOfMonth(1), date, POSTED));
+    }
+
+    /**
+     * 将日期区间拆分为"首部不完整月 + 完整月份 + 尾部不完整月"分别汇总
+     */
+    private List<AccountAmountSummary> summarize(LocalDate startDate, LocalDate endDate, Scope scope) {
+        List<AccountAmountSummary> result = new ArrayList<>();
+        if (startDate != null && startDate.isAfter(endDate)) {
+            return result;
+        }
+
+        // 从第一张凭证开始累计时，以最近的余额快照为起点，只汇总快照之后的发生额
+        if (startDate == null && scope != Scope.CASH) {
+            Integer snapshotPeriod = periodCloseService.findSnapshotPeriod(endDate);
+            if (snapshotPeriod != null) {
+                result.addAll(scope == Scope.ROLLUP
+                    ? accountBalanceSnapshotRepository.summarizeRollupByPeriod(snapshotPeriod)
+                    : accountBalanceSnapshotRepository.summarizeByPeriod(snapshotPeriod));
+                LocalDate deltaStart = LocalDate.of(snapshotPeriod / 100, snapshotPeriod % 100, 1).plusMonths(1);
+                if (!deltaStart.isAfter(endDate)) {
+                    result.addAll(summarize(deltaStart, endDate, scope));
+                }
+                return result;
+            }
+        }
+
+        // 第一个完整月份的首日，以及最后一个完整月份之后的首日
+        LocalDate fullStart = null;
+        if (startDate != null) {
+            fullStart = startDate.getDayOfMonth() == 1
+                ? startDate : startDate.withDayOfMonth(1).plusMonths(1);
+        }
+        LocalDate fullEndExclusive = endDate.equals(endDate.with(TemporalAdjusters.lastDayOfMonth()))
+            ? endDate.plusDays(1) : endDate.withDayOfMonth(1);
+
+        // 区间内没有完整月份，直接按明细汇总
+        if (fullStart != null && !fullStart.isBefore(fullEndExclusive)) {
+            result.addAll(summarizeLines(startDate, endDate, scope));
+            return result;
+        }
+
+        if (fullStart != null && startDate.isBefore(fullStart)) {
+            result.addAll(summarizeLines(startDate, fullStart.minusDays(1), scope));
+        }
+
+        int startPeriod = fullStart != null ? AccountPeriodBalance.periodOf(fullStart) : 0;
+        int endPeriod = AccountPeriodBalance.periodOf(fullEndExclusive.minusMonths(1));
+        result.addAll(summarizePeriods(startPeriod, endPeriod, scope));
+
+        if (!fullEndExclusive.isAfter(endDate)) {
+            result.addAll(summarizeLines(fullEndExclusive, endDate, scope));
+        }
+        return result;
+    }
+
+    /**
+     * 按期间发生额汇总完整月份
+     */
+    private List<AccountAmountSummary> summarizePeriods(int startPeriod, int endPeriod, Scope scope) {
+        switch (scope) {
+            case CASH:
+                return accountPeriodBalanceRepository.summarizeCashByPeriodBetween(startPeriod, endPeriod);
+            case ROLLUP:
+                return accountPeriodBalanceRepository.summarizeRollupByPeriodBetween(startPeriod, endPeriod);
+            default:
+                return accountPeriodBalanceRepository.summarizeByPeriodBetween(startPeriod, endPeriod);
+        }
+    }
+
+    /**
+     * 按凭证明细汇总不足一个月的日期区间
+     * 由数据库完成分组求和，不加载分录实体
+     */
+    private List<AccountAmountSummary> summarizeLines(LocalDate startDate, LocalDate endDate, Scope scope) {
+        switch (scope) {
+            case CASH:
+                return journalEntryRepository.summarizeCashByAccount(startDate, endDate, POSTED);
+            case ROLLUP:
+                return journalEntryRepository.summarizeRollupByAccount(startDate, endDate, POSTED);
+            default:
+                return journalEntryRepository.summarizeByAccount(startDate, endDate, POSTED);
+        }
+    }
+
+    /**
+     * 汇总范围：按科目、按现金类科目和业务类型、按科目并归集到上级科目
+     */
+    private enum Scope {
+        ACCOUNT, CASH, ROLLUP
+    }
+
+    /**
+     * 单个"科目 × 期间 × 业务类型"的发生额增量
+     */
+    private static class BalanceDelta {
+        private final Long accountSubjectId;
+        private final Integer period;
+        private final String businessType;
+        private BigDecimal debit = BigDecimal.ZERO;
+        private BigDecimal credit = BigDecimal.ZERO;
+
+        private BalanceDelta(Long accountSubjectId, Integer period, String businessType) {
+            this.accountSubjectId = accountSubjectId;
+            this.period = period;
+            this.businessType = businessType;
+        }
+    }
+}
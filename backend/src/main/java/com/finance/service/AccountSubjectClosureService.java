@@ -0,0 +1,184 @@
+package com.finance.service;
+
+import com.finance.entity.AccountSubject;
+import com.finance.entity.AccountSubjectClosure;
+import com.finance.repository.AccountSubjectClosureRepository;
+import com.finance.repository.AccountSubjectRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 会计科目闭包表维护服务类
+ *
+ * <p>按科目的 parentId 维护闭包表（见 {@link AccountSubjectClosure}）：</p>
+ * <ul>
+ *   <li>新增科目：插入自身一行，再挂到上级科目下</li>
+ *   <li>修改上级科目：先摘除整棵子树与原上级之间的关系，再整体挂到新上级下，
+ *       不允许把上级科目设为自身或下级科目</li>
+ *   <li>删除科目：删除与该科目有关的全部关系，科目服务只允许删除没有下级科目的科目</li>
+ * </ul>
+ * <p>以上操作与科目保存处于同一事务中。parentId 为空、为0或指向不存在的科目时视为一级科目。
+ * 启动时若闭包表与科目表不一致（如通过初始化脚本直接插入科目）则全量重建。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Slf4j
+@Service
+public class AccountSubjectClosureService {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO account_subject_closure (ancestor_id, descendant_id, depth) VALUES (?, ?, ?)";
+
+    @Autowired
+    private AccountSubjectClosureRepository accountSubjectClosureRepository;
+
+    @Autowired
+    private AccountSubjectRepository accountSubjectRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** 启动检查时重建闭包表使用的事务模板 */
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public AccountSubjectClosureService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 启动后检查闭包表，每个科目都应有一行指向自身的关系，不一致时全量重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verify() {
+        long subjects = accountSubjectRepository.count();
+        long selfRows = accountSubjectClosureRepository.countByDepth(0);
+        if (subjects != selfRows) {
+            int rows = transactionTemplate.execute(status -> rebuild());
+            log.info("科目闭包表与科目表不一致（科目{}个，闭包表{}个），已重建{}行", subjects, selfRows, rows);
+        }
+    }
+
+    /**
+     * 科目保存后维护闭包关系，需在保存科目的同一事务中调用
+     *
+     * @param subject 保存后的科目
+     * @param created 是否为新增
+     * @throws RuntimeException 上级科目为自身或下级科目时抛出
+     */
+    public void onSaved(AccountSubject subject, boolean created) {
+        Long id = subject.getId();
+        Long parentId = parentOf(subject);
+        if (created) {
+            insertSelf(id);
+            if (parentId != null) {
+                accountSubjectClosureRepository.attach(parentId, id);
+            }
+            return;
+        }
+
+        List<Long> recorded = accountSubjectClosureRepository.findParentId(id);
+        List<Long> subtree = accountSubjectClosureRepository.findDescendantIds(id);
+        if (subtree.isEmpty()) {
+            insertSelf(id);
+            subtree = new ArrayList<>();
+            subtree.add(id);
+        } else if (Objects.equals(recorded.isEmpty() ? null : recorded.get(0), parentId)) {
+            return;
+        }
+        if (parentId != null && subtree.contains(parentId)) {
+            throw new RuntimeException("上级科目不能是科目自身或其下级科目");
+        }
+        accountSubjectClosureRepository.detach(subtree);
+        if (parentId != null) {
+            accountSubjectClosureRepository.attach(parentId, id);
+        }
+    }
+
+    /**
+     * 科目删除后删除其闭包关系，需在删除科目的同一事务中调用
+     *
+     * @param subjectId 科目ID
+     */
+    public void onDeleted(Long subjectId) {
+        accountSubjectClosureRepository.deleteBySubject(subjectId);
+    }
+
+    /**
+     * 查询科目及其全部下级科目的ID
+     *
+     * @param subjectId 科目ID
+     * @return 科目ID列表，包含自身
+     */
+    public List<Long> descendantIds(Long subjectId) {
+        return accountSubjectClosureRepository.findDescendantIds(subjectId);
+    }
+
+    /**
+     * 根据全部科目的 parentId 重建闭包表
+     *
+     * @return 生成的关系行数
+     */
+    @Transactional
+    @Timed(value = "finance.subject.closure.rebuild", description = "重建科目闭包表")
+    public int rebuild() {
+        Map<Long, Long> parents = new HashMap<>();
+        for (AccountSubject subject : accountSubjectRepository.findAll()) {
+            parents.put(subject.getId(), subject.getParentId());
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        for (Long id : parents.keySet()) {
+            rows.add(new Object[] {id, id, 0});
+            // 逐级向上，遇到不存在的上级或循环引用时停止
+            Set<Long> visited = new HashSet<>();
+            visited.add(id);
+            Long ancestor = parents.get(id);
+            for (int depth = 1; ancestor != null && parents.containsKey(ancestor) && visited.add(ancestor); depth++) {
+                rows.add(new Object[] {ancestor, id, depth});
+                ancestor = parents.get(ancestor);
+            }
+        }
+
+        accountSubjectClosureRepository.deleteAllInBulk();
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        return rows.size();
+    }
+
+    private void insertSelf(Long id) {
+        AccountSubjectClosure self = new AccountSubjectClosure();
+        self.setAncestorId(id);
+        self.setDescendantId(id);
+        self.setDepth(0);
+        accountSubjectClosureRepository.save(self);
+    }
+
+    /**
+     * 科目的上级科目ID，一级科目返回null
+     */
+    private Long parentOf(AccountSubject subject) {
+        Long parentId = subject.getParentId();
+        if (parentId == null || parentId == 0 || !accountSubjectRepository.existsById(parentId)) {
+            return null;
+        }
+        return parentId;
+    }
+}
@@ -1,11 +1,25 @@
 package com.finance.service;
 
+import com.finance.common.CursorPage;
+import com.finance.common.KeysetPager;
+import com.finance.common.PageQuery;
+import com.finance.common.Specs;
 import com.finance.entity.AccountSubject;
 import com.finance.repository.AccountSubjectRepository;
+import com.finance.repository.JournalEntryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 会计科目业务逻辑服务类
@@ -13,26 +27,99 @@ import java.util.List;
  * <p>提供会计科目的业务处理方法，包括科目的查询、维护、分类等操作。
  * 支持科目树形结构的构建和管理。</p>
  * 
+ * <p>科目表变化很少而读取频繁（凭证保存校验、报表、科目下拉框），因此查询方法
+ * 均读取内存中的科目表快照（{@link AccountSubjectSnapshot}），不访问数据库。
+ * 快照在首次使用时加载，科目保存或删除的事务提交后整体重建。
+ * 多实例部署时，其他实例修改的科目需调用 {@link #refresh()} 后才会生效。</p>
+ * 
  * @author 财务管理系统
  * @version 1.0
  * @since 2025-01-01
  * @see AccountSubject
  * @see AccountSubjectRepository
+ * @see AccountSubjectSnapshot
  */
 @Service
 public class AccountSubjectService {
     
+    /** 分页查询允许的排序字段（除ID外） */
+    private static final Set<String> SORTABLE_FIELDS = new HashSet<>(
+        Arrays.asList("code"));
+    
     /** 会计科目数据访问对象 */
     @Autowired
     private AccountSubjectRepository accountSubjectRepository;
 
+    /** 会计凭证数据访问对象，删除科目前检查是否已被使用 */
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    /** 游标分页查询工具 */
+    @Autowired
+    private KeysetPager keysetPager;
+
+    /** 科目闭包表维护服务 */
+    @Autowired
+    private AccountSubjectClosureService accountSubjectClosureService;
+
+    /** 快照版本号生成器 */
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    /** 当前科目表快照，首次使用时加载 */
+    private volatile AccountSubjectSnapshot snapshot;
+
+    /**
+     * 获取当前科目表快照
+     * 
+     * @return 科目表快照
+     */
+    public AccountSubjectSnapshot snapshot() {
+        AccountSubjectSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = refresh();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 从数据库重新加载科目表快照
+     * 
+     * @return 新的科目表快照
+     */
+    public synchronized AccountSubjectSnapshot refresh() {
+        AccountSubjectSnapshot fresh = new AccountSubjectSnapshot(
+            versionSequence.incrementAndGet(), accountSubjectRepository.findAll());
+        snapshot = fresh;
+        return fresh;
+    }
+
     /**
      * 查询所有会计科目
      * 
      * @return 会计科目列表
      */
     public List<AccountSubject> findAll() {
-        return accountSubjectRepository.findAll();
+        return snapshot().getAll();
+    }
+
+    /**
+     * 游标分页查询
+     * 过滤条件为空时忽略
+     * 
+     * @param query 分页参数
+     * @return 分页结果
+     */
+    public CursorPage<AccountSubject> page(String type, Boolean enabled, String keyword,
+                                           PageQuery query) {
+        Specification<AccountSubject> filter = Specification.<AccountSubject>where(Specs.equal("type", type))
+            .and(Specs.equal("enabled", enabled))
+            .and(Specs.contains(keyword, "code", "name"));
+        return keysetPager.page(AccountSubject.class, filter, query, SORTABLE_FIELDS);
     }
 
     /**
@@ -42,7 +129,7 @@ public class AccountSubjectService {
      * @return 会计科目对象，不存在时返回null
      */
     public AccountSubject findById(Long id) {
-        return accountSubjectRepository.findById(id).orElse(null);
+        return snapshot().getById(id);
     }
 
     /**
@@ -52,7 +139,7 @@ public class AccountSubjectService {
      * @return 会计科目对象，不存在时返回null
      */
     public AccountSubject findByCode(String code) {
-        return accountSubjectRepository.findByCode(code).orElse(null);
+        return snapshot().getByCode(code);
     }
 
     /**
@@ -63,7 +150,7 @@ public class AccountSubjectService {
      * @return 子科目列表
      */
     public List<AccountSubject> findByParentId(Long parentId) {
-        return accountSubjectRepository.findByParentId(parentId);
+        return snapshot().getChildren(parentId);
     }
 
     /**
@@ -73,7 +160,7 @@ public class AccountSubjectService {
      * @return 该类型的科目列表
      */
     public List<AccountSubject> findByType(String type) {
-        return accountSubjectRepository.findByType(type);
+        return snapshot().getByType(type);
     }
 
     /**
@@ -82,30 +169,84 @@ public class AccountSubjectService {
      * @return 启用状态的科目列表
      */
     public List<AccountSubject> findEnabled() {
-        return accountSubjectRepository.findByEnabled(true);
+        return snapshot().getEnabled();
+    }
+
+    /**
+     * 查询某科目及其全部下级科目
+     * 
+     * @param code 科目编码
+     * @return 该科目及其全部下级科目（按闭包表，与编码是否同前缀无关），按编码排序；科目不存在时返回空列表
+     */
+    public List<AccountSubject> findSubtree(String code) {
+        AccountSubjectSnapshot current = snapshot();
+        AccountSubject root = current.getByCode(code);
+        List<AccountSubject> result = new ArrayList<>();
+        if (root == null) {
+            return result;
+        }
+        for (Long id : accountSubjectClosureService.descendantIds(root.getId())) {
+            AccountSubject subject = current.getById(id);
+            if (subject != null) {
+                result.add(subject);
+            }
+        }
+        result.sort(Comparator.comparing(AccountSubject::getCode));
+        return result;
     }
 
     /**
      * 保存会计科目
-     * 支持新增和更新操作
+     * 支持新增和更新操作，同时维护科目闭包表
      * 
      * @param accountSubject 会计科目对象
      * @return 保存后的科目对象
      */
     @Transactional
     public AccountSubject save(AccountSubject accountSubject) {
-        return accountSubjectRepository.save(accountSubject);
+        boolean created = accountSubject.getId() == null;
+        AccountSubject saved = accountSubjectRepository.save(accountSubject);
+        accountSubjectClosureService.onSaved(saved, created);
+        refreshAfterCommit();
+        return saved;
     }
 
     /**
      * 删除会计科目
-     * 注意：删除科目前需确保该科目未被使用
+     * 只能删除没有下级科目、也没有分录明细使用的科目，避免下级科目脱离科目树
      * 
      * @param id 科目ID
+     * @throws RuntimeException 科目有下级科目或已被分录明细使用时抛出
      */
     @Transactional
     public void delete(Long id) {
+        if (accountSubjectClosureService.descendantIds(id).size() > 1
+            || !accountSubjectRepository.findByParentId(id).isEmpty()) {
+            throw new RuntimeException("科目有下级科目，请先删除或移走下级科目");
+        }
+        long lines = journalEntryRepository.countLinesByAccountSubjectId(id);
+        if (lines > 0) {
+            throw new RuntimeException("科目已被 " + lines + " 条凭证明细使用，不能删除");
+        }
         accountSubjectRepository.deleteById(id);
+        accountSubjectClosureService.onDeleted(id);
+        refreshAfterCommit();
+    }
+
+    /**
+     * 在当前事务提交后重建快照，事务回滚时保持原快照
+     */
+    private void refreshAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh();
+            }
+        });
     }
 }
 
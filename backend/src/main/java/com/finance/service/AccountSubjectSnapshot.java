@@ -0,0 +1,187 @@
+package com.finance.service;
+
+import com.finance.entity.AccountSubject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 会计科目表内存快照
+ *
+ * <p>某一时刻全部会计科目的只读视图，由 {@link AccountSubjectService} 创建和替换。
+ * 快照创建后不再变化，科目新增、修改或删除时整体生成新快照并递增版本号，
+ * 因此多个线程可以无锁并发读取。</p>
+ *
+ * <p>提供以下索引：
+ * <ul>
+ *   <li>ID → 科目</li>
+ *   <li>科目编码 → 科目</li>
+ *   <li>父级科目ID → 子科目列表</li>
+ *   <li>科目类型 → 科目列表</li>
+ *   <li>科目编码前缀树，用于按编码前缀查询某科目及其全部下级科目</li>
+ * </ul>
+ * </p>
+ *
+ * <p>注意：快照中的科目对象为共享实例，调用方只能读取，不得修改。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see AccountSubjectService#snapshot()
+ */
+public final class AccountSubjectSnapshot {
+
+    /** 快照版本号，每次刷新递增 */
+    private final long version;
+
+    /** 全部科目，按ID顺序 */
+    private final List<AccountSubject> all;
+
+    /** 启用的科目，按ID顺序 */
+    private final List<AccountSubject> enabled;
+
+    private final Map<Long, AccountSubject> byId;
+
+    private final Map<String, AccountSubject> byCode;
+
+    private final Map<Long, List<AccountSubject>> childrenByParentId;
+
+    private final Map<String, List<AccountSubject>> byType;
+
+    /** 科目编码前缀树的根节点 */
+    private final TrieNode codeTrie = new TrieNode();
+
+    AccountSubjectSnapshot(long version, List<AccountSubject> subjects) {
+        this.version = version;
+
+        List<AccountSubject> sorted = new ArrayList<>(subjects);
+        sorted.sort((a, b) -> a.getId().compareTo(b.getId()));
+
+        List<AccountSubject> enabledList = new ArrayList<>();
+        Map<Long, AccountSubject> idMap = new HashMap<>();
+        Map<String, AccountSubject> codeMap = new HashMap<>();
+        Map<Long, List<AccountSubject>> childrenMap = new HashMap<>();
+        Map<String, List<AccountSubject>> typeMap = new HashMap<>();
+        for (AccountSubject subject : sorted) {
+            idMap.put(subject.getId(), subject);
+            codeMap.put(subject.getCode(), subject);
+            childrenMap.computeIfAbsent(subject.getParentId(), k -> new ArrayList<>()).add(subject);
+            typeMap.computeIfAbsent(subject.getType(), k -> new ArrayList<>()).add(subject);
+            if (Boolean.TRUE.equals(subject.getEnabled())) {
+                enabledList.add(subject);
+            }
+            insertIntoTrie(subject);
+        }
+        childrenMap.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        typeMap.replaceAll((k, v) -> Collections.unmodifiableList(v));
+
+        this.all = Collections.unmodifiableList(sorted);
+        this.enabled = Collections.unmodifiableList(enabledList);
+        this.byId = idMap;
+        this.byCode = codeMap;
+        this.childrenByParentId = childrenMap;
+        this.byType = typeMap;
+    }
+
+    /**
+     * @return 快照版本号
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return 全部科目，按ID顺序
+     */
+    public List<AccountSubject> getAll() {
+        return all;
+    }
+
+    /**
+     * @return 启用的科目，按ID顺序
+     */
+    public List<AccountSubject> getEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param id 科目ID
+     * @return 科目对象，不存在时返回null
+     */
+    public AccountSubject getById(Long id) {
+        return id != null ? byId.get(id) : null;
+    }
+
+    /**
+     * @param code 科目编码
+     * @return 科目对象，不存在时返回null
+     */
+    public AccountSubject getByCode(String code) {
+        return code != null ? byCode.get(code) : null;
+    }
+
+    /**
+     * @param parentId 父级科目ID
+     * @return 直接下级科目列表，没有时返回空列表
+     */
+    public List<AccountSubject> getChildren(Long parentId) {
+        return childrenByParentId.getOrDefault(parentId, Collections.emptyList());
+    }
+
+    /**
+     * @param type 科目类型（资产、负债、所有者权益、成本、损益）
+     * @return 该类型的科目列表，没有时返回空列表
+     */
+    public List<AccountSubject> getByType(String type) {
+        return byType.getOrDefault(type, Collections.emptyList());
+    }
+
+    /**
+     * 查询编码以指定前缀开头的全部科目
+     * 传入某个科目的编码即可得到该科目及其全部下级科目，如：1002 → 1002、100201、100202
+     *
+     * @param prefix 科目编码前缀
+     * @return 按科目编码排序的科目列表，没有时返回空列表
+     */
+    public List<AccountSubject> findByCodePrefix(String prefix) {
+        TrieNode node = codeTrie;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<AccountSubject> result = new ArrayList<>();
+        collect(node, result);
+        return result;
+    }
+
+    private void insertIntoTrie(AccountSubject subject) {
+        TrieNode node = codeTrie;
+        String code = subject.getCode();
+        for (int i = 0; i < code.length(); i++) {
+            node = node.children.computeIfAbsent(code.charAt(i), k -> new TrieNode());
+        }
+        node.subject = subject;
+    }
+
+    private void collect(TrieNode node, List<AccountSubject> result) {
+        if (node.subject != null) {
+            result.add(node.subject);
+        }
+        for (TrieNode child : node.children.values()) {
+            collect(child, result);
+        }
+    }
+
+    /**
+     * 前缀树节点，子节点按编码字符排序
+     */
+    private static class TrieNode {
+        private final Map<Character, TrieNode> children = new TreeMap<>();
+        private AccountSubject subject;
+    }
+}
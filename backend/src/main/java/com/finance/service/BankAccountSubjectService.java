@@ -0,0 +1,98 @@
+package com.finance.service;
+
+import com.finance.entity.AccountSubject;
+import com.finance.entity.BankAccountSubject;
+import com.finance.repository.BankAccountSubjectRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 银行账户与会计科目对应关系服务类
+ *
+ * <p>为银行对账确定某个银行账号在总账中对应的科目范围：已配置对应关系时取所配科目及其下级科目，
+ * 未配置时取整个银行存款科目（编码由 finance.bank-match.bank-subject-code 指定，默认1002）。
+ * 下级科目按科目闭包表取得，与编码是否同前缀无关。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see BankAccountSubject
+ */
+@Service
+public class BankAccountSubjectService {
+
+    @Autowired
+    private BankAccountSubjectRepository bankAccountSubjectRepository;
+
+    @Autowired
+    private AccountSubjectService accountSubjectService;
+
+    @Autowired
+    private AccountSubjectClosureService accountSubjectClosureService;
+
+    /** 银行存款科目编码，未配置对应关系的银行账号使用该科目及其下级科目 */
+    @Value("${finance.bank-match.bank-subject-code:1002}")
+    private String bankSubjectCode;
+
+    public List<BankAccountSubject> findAll() {
+        return bankAccountSubjectRepository.findAll();
+    }
+
+    public BankAccountSubject findById(Long id) {
+        return bankAccountSubjectRepository.findById(id).orElse(null);
+    }
+
+    public BankAccountSubject findByBankAccount(String bankAccount) {
+        return bankAccountSubjectRepository.findByBankAccount(bankAccount).orElse(null);
+    }
+
+    @Transactional
+    public BankAccountSubject save(BankAccountSubject mapping) {
+        if (mapping.getBankAccount() == null || mapping.getBankAccount().isEmpty()) {
+            throw new RuntimeException("银行账号不能为空");
+        }
+        if (mapping.getAccountSubjectId() == null
+            || accountSubjectService.snapshot().getById(mapping.getAccountSubjectId()) == null) {
+            throw new RuntimeException("会计科目不存在");
+        }
+        BankAccountSubject existing = findByBankAccount(mapping.getBankAccount());
+        if (existing != null && !existing.getId().equals(mapping.getId())) {
+            throw new RuntimeException("银行账号已配置对应科目：" + mapping.getBankAccount());
+        }
+        return bankAccountSubjectRepository.save(mapping);
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        bankAccountSubjectRepository.deleteById(id);
+    }
+
+    /**
+     * 取得银行账号对应的科目ID（含下级科目）
+     *
+     * @param bankAccount 银行账号
+     * @return 科目ID列表，科目不存在时为空列表
+     */
+    public List<Long> resolveSubjectIds(String bankAccount) {
+        AccountSubjectSnapshot snapshot = accountSubjectService.snapshot();
+        BankAccountSubject mapping = bankAccount != null ? findByBankAccount(bankAccount) : null;
+        AccountSubject subject;
+        if (mapping != null) {
+            subject = snapshot.getById(mapping.getAccountSubjectId());
+            if (subject == null) {
+                throw new RuntimeException("银行账号 " + bankAccount + " 对应的会计科目不存在");
+            }
+        } else {
+            subject = snapshot.getByCode(bankSubjectCode);
+            if (subject == null) {
+                return new ArrayList<>();
+            }
+        }
+        return accountSubjectClosureService.descendantIds(subject.getId());
+    }
+}
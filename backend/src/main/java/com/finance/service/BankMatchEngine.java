@@ -0,0 +1,449 @@
+package com.finance.service;
+
+import com.finance.event.DomainEvent;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 银行流水自动匹配引擎
+ *
+ * <p>将未对账的银行流水与已过账凭证中银行存款科目的净发生额进行匹配。
+ * 凭证一侧只查询"凭证ID、记账日期、银行存款净额"三列，由数据库分组求和，不加载实体。</p>
+ *
+ * <p>匹配分三轮进行，每轮只处理前几轮剩下的流水和凭证：
+ * <ol>
+ *   <li>一对一：凭证按"金额 + 日期"建立哈希索引，每笔流水从同一天开始向两侧逐日查找，
+ *       直到日期容差，取日期最接近的一张凭证</li>
+ *   <li>多对一：对每张剩余凭证，在日期容差内取同方向的剩余流水，查找金额之和等于凭证金额的组合</li>
+ *   <li>一对多：对每笔剩余流水，在日期容差内取同方向的剩余凭证，查找金额之和等于流水金额的组合</li>
+ * </ol>
+ * 组合查找最后一步使用金额哈希表，组合笔数和候选数量均有上限，保证单次匹配的耗时可控。</p>
+ *
+ * <p>每张凭证、每笔流水最多参与一个匹配组；已存在匹配关系的凭证不会再参与匹配。
+ * 匹配结果在同一事务内以JDBC批量语句写入匹配关系表并更新流水状态，每个匹配组发布一个匹配事件。</p>
+ *
+ * <p>流水金额按交易类型取正负（收入为正、支出为负），与凭证在该银行账号对应科目上的借方净额比较，
+ * 科目范围由 {@link BankAccountSubjectService#resolveSubjectIds(String)} 确定。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see com.finance.entity.BankStatementMatch
+ */
+@Service
+public class BankMatchEngine {
+
+    private static final String ONE_TO_ONE = "一对一";
+    private static final String ONE_TO_MANY = "一对多";
+    private static final String MANY_TO_ONE = "多对一";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BankAccountSubjectService bankAccountSubjectService;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    /** 默认日期容差（天），流水日期与凭证日期相差不超过该天数即可匹配 */
+    @Value("${finance.bank-match.date-tolerance-days:3}")
+    private int defaultToleranceDays;
+
+    /** 一对多、多对一匹配时一组最多包含的笔数 */
+    @Value("${finance.bank-match.max-group-size:3}")
+    private int maxGroupSize;
+
+    /** 组合匹配时每笔流水或凭证最多考察的候选数量（按日期远近选取） */
+    @Value("${finance.bank-match.max-candidates:50}")
+    private int maxCandidates;
+
+    /**
+     * 自动匹配指定银行账户在日期区间内的未对账流水
+     *
+     * @param bankAccount 银行账号
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @param toleranceDays 日期容差（天），为空时使用配置值
+     * @return 匹配结果统计
+     */
+    @Transactional
+    @Timed(value = "finance.bank.match", description = "银行流水自动匹配")
+    public Map<String, Object> match(String bankAccount, LocalDate startDate, LocalDate endDate,
+                                     Integer toleranceDays) {
+        int tolerance = toleranceDays != null ? toleranceDays : defaultToleranceDays;
+        if (tolerance < 0) {
+            throw new RuntimeException("日期容差不能小于0");
+        }
+
+        List<Item> statements = loadStatements(bankAccount, startDate, endDate);
+        List<Item> entries = loadEntries(bankAccountSubjectService.resolveSubjectIds(bankAccount),
+            startDate.minusDays(tolerance), endDate.plusDays(tolerance));
+
+        List<MatchGroup> groups = new ArrayList<>();
+        matchOneToOne(statements, entries, tolerance, groups);
+        matchCombinations(entries, statements, tolerance, groups, MANY_TO_ONE);
+        matchCombinations(statements, entries, tolerance, groups, ONE_TO_MANY);
+        persist(groups);
+
+        int matchedCount = 0;
+        Map<String, Integer> groupCounts = new LinkedHashMap<>();
+        groupCounts.put(ONE_TO_ONE, 0);
+        groupCounts.put(ONE_TO_MANY, 0);
+        groupCounts.put(MANY_TO_ONE, 0);
+        List<Map<String, Object>> matchedPairs = new ArrayList<>();
+        for (MatchGroup group : groups) {
+            matchedCount += group.statements.size();
+            groupCounts.merge(group.type, 1, Integer::sum);
+            Map<String, Object> pair = new HashMap<>();
+            pair.put("matchType", group.type);
+            pair.put("statementIds", ids(group.statements));
+            pair.put("journalEntryIds", ids(group.entries));
+            matchedPairs.add(pair);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("matchedCount", matchedCount);
+        result.put("totalStatements", statements.size());
+        result.put("candidateEntries", entries.size());
+        result.put("groupCount", groups.size());
+        result.put("groupCounts", groupCounts);
+        result.put("toleranceDays", tolerance);
+        result.put("matchedPairs", matchedPairs);
+        return result;
+    }
+
+    /**
+     * 加载未对账流水，金额按交易类型取正负
+     */
+    private List<Item> loadStatements(String bankAccount, LocalDate startDate, LocalDate endDate) {
+        return jdbcTemplate.query(
+            "SELECT id, transaction_date, transaction_type, amount FROM bank_statement " +
+            "WHERE bank_account = ? AND transaction_date BETWEEN ? AND ? AND reconciliation_status = '未对账'",
+            (rs, rowNum) -> {
+                long cents = toCents(rs.getBigDecimal("amount"));
+                return new Item(rs.getLong("id"), rs.getDate("transaction_date").toLocalDate().toEpochDay(),
+                    "收入".equals(rs.getString("transaction_type")) ? cents : -cents);
+            },
+            bankAccount, Date.valueOf(startDate), Date.valueOf(endDate));
+    }
+
+    /**
+     * 加载尚未匹配的已过账凭证及其在银行账号对应科目上的借方净额
+     */
+    private List<Item> loadEntries(List<Long> bankSubjectIds, LocalDate startDate, LocalDate endDate) {
+        if (bankSubjectIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        StringBuilder subjectIds = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        args.add(Date.valueOf(startDate));
+        args.add(Date.valueOf(endDate));
+        for (Long subjectId : bankSubjectIds) {
+            subjectIds.append(subjectIds.length() == 0 ? "?" : ", ?");
+            args.add(subjectId);
+        }
+        String net = "SUM(CASE WHEN l.direction = '借' THEN l.amount ELSE -l.amount END)";
+        return jdbcTemplate.query(
+            "SELECT e.id, e.entry_date, " + net + " AS net_amount " +
+            "FROM journal_entry e JOIN journal_entry_line l ON l.journal_entry_id = e.id " +
+            "WHERE e.status = '已过账' AND e.entry_date BETWEEN ? AND ? " +
+            "AND l.account_subject_id IN (" + subjectIds + ") " +
+            "AND NOT EXISTS (SELECT 1 FROM bank_statement_match m WHERE m.journal_entry_id = e.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM bank_statement s WHERE s.matched_journal_entry_id = e.id) " +
+            "GROUP BY e.id, e.entry_date HAVING " + net + " <> 0",
+            (rs, rowNum) -> new Item(rs.getLong("id"), rs.getDate("entry_date").toLocalDate().toEpochDay(),
+                toCents(rs.getBigDecimal("net_amount"))),
+            args.toArray());
+    }
+
+    /**
+     * 第一轮：按"金额 + 日期"哈希索引做一对一匹配
+     */
+    private void matchOneToOne(List<Item> statements, List<Item> entries, int tolerance, List<MatchGroup> groups) {
+        Map<Key, Deque<Item>> index = new HashMap<>();
+        entries.sort(Comparator.comparingLong((Item item) -> item.day).thenComparingLong(item -> item.id));
+        for (Item entry : entries) {
+            index.computeIfAbsent(new Key(entry.cents, entry.day), k -> new ArrayDeque<>()).add(entry);
+        }
+
+        statements.sort(Comparator.comparingLong((Item item) -> item.day).thenComparingLong(item -> item.id));
+        for (Item statement : statements) {
+            Item entry = null;
+            for (int offset = 0; offset <= tolerance && entry == null; offset++) {
+                entry = poll(index, statement.cents, statement.day - offset);
+                if (entry == null && offset > 0) {
+                    entry = poll(index, statement.cents, statement.day + offset);
+                }
+            }
+            if (entry != null) {
+                statement.matched = true;
+                entry.matched = true;
+                groups.add(new MatchGroup(ONE_TO_ONE,
+                    Collections.singletonList(statement), Collections.singletonList(entry)));
+            }
+        }
+    }
+
+    private Item poll(Map<Key, Deque<Item>> index, long cents, long day) {
+        Deque<Item> bucket = index.get(new Key(cents, day));
+        return bucket != null ? bucket.poll() : null;
+    }
+
+    /**
+     * 第二、三轮：每个剩余目标在日期容差内查找金额之和等于目标金额的一组剩余候选
+     *
+     * @param targets 目标（多对一时为凭证，一对多时为流水）
+     * @param parts 候选（多对一时为流水，一对多时为凭证）
+     */
+    private void matchCombinations(List<Item> targets, List<Item> parts, int tolerance,
+                                   List<MatchGroup> groups, String type) {
+        if (maxGroupSize < 2) {
+            return;
+        }
+        Map<Long, List<Item>> partsByDay = new HashMap<>();
+        for (Item part : parts) {
+            if (!part.matched) {
+                partsByDay.computeIfAbsent(part.day, k -> new ArrayList<>()).add(part);
+            }
+        }
+        if (partsByDay.isEmpty()) {
+            return;
+        }
+
+        for (Item target : targets) {
+            if (target.matched) {
+                continue;
+            }
+            List<Item> candidates = new ArrayList<>();
+            for (int offset = 0; offset <= tolerance && candidates.size() < maxCandidates; offset++) {
+                addCandidates(partsByDay.get(target.day - offset), target, candidates);
+                if (offset > 0) {
+                    addCandidates(partsByDay.get(target.day + offset), target, candidates);
+                }
+            }
+            if (candidates.size() < 2) {
+                continue;
+            }
+            List<Item> combination = findCombination(candidates, target.cents);
+            if (combination != null) {
+                target.matched = true;
+                for (Item part : combination) {
+                    part.matched = true;
+                }
+                List<Item> single = Collections.singletonList(target);
+                groups.add(MANY_TO_ONE.equals(type)
+                    ? new MatchGroup(type, combination, single)
+                    : new MatchGroup(type, single, combination));
+            }
+        }
+    }
+
+    /**
+     * 同方向、金额绝对值小于目标的未匹配候选才可能组成组合
+     */
+    private void addCandidates(List<Item> dayParts, Item target, List<Item> candidates) {
+        if (dayParts == null) {
+            return;
+        }
+        for (Item part : dayParts) {
+            if (candidates.size() >= maxCandidates) {
+                return;
+            }
+            if (!part.matched && Long.signum(part.cents) == Long.signum(target.cents)
+                && Math.abs(part.cents) < Math.abs(target.cents)) {
+                candidates.add(part);
+            }
+        }
+    }
+
+    /**
+     * 按笔数从少到多查找金额之和等于目标的组合
+     */
+    private List<Item> findCombination(List<Item> candidates, long target) {
+        Map<Long, List<Integer>> positionsByCents = new HashMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            positionsByCents.computeIfAbsent(candidates.get(i).cents, k -> new ArrayList<>()).add(i);
+        }
+        Deque<Integer> chosen = new ArrayDeque<>();
+        for (int size = 2; size <= maxGroupSize && size <= candidates.size(); size++) {
+            if (search(candidates, positionsByCents, 0, target, size, chosen)) {
+                List<Item> combination = new ArrayList<>();
+                for (Integer position : chosen) {
+                    combination.add(candidates.get(position));
+                }
+                return combination;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在 start 之后选 remaining 个候选凑出 target，最后一个候选通过金额哈希表直接查找
+     */
+    private boolean search(List<Item> candidates, Map<Long, List<Integer>> positionsByCents, int start,
+                           long target, int remaining, Deque<Integer> chosen) {
+        if (remaining == 1) {
+            List<Integer> positions = positionsByCents.get(target);
+            if (positions != null) {
+                for (Integer position : positions) {
+                    if (position >= start) {
+                        chosen.addLast(position);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        for (int i = start; i <= candidates.size() - remaining; i++) {
+            chosen.addLast(i);
+            if (search(candidates, positionsByCents, i + 1, target - candidates.get(i).cents,
+                remaining - 1, chosen)) {
+                return true;
+            }
+            chosen.removeLast();
+        }
+        return false;
+    }
+
+    /**
+     * 批量写入匹配关系并更新流水对账状态
+     */
+    private void persist(List<MatchGroup> groups) {
+        if (groups.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Date today = Date.valueOf(LocalDate.now());
+        List<Object[]> links = new ArrayList<>();
+        List<Long> linkEntryIds = new ArrayList<>();
+        List<Object[]> statementUpdates = new ArrayList<>();
+        List<DomainEvent> events = new ArrayList<>(groups.size());
+        for (MatchGroup group : groups) {
+            String matchGroup = UUID.randomUUID().toString();
+            events.add(DomainEvent.of(DomainEvent.BANK_STATEMENT, DomainEvent.MATCHED,
+                    group.statements.get(0).id, null)
+                .with("matchType", group.type)
+                .with("statementIds", ids(group.statements))
+                .with("journalEntryIds", ids(group.entries)));
+            for (Item statement : group.statements) {
+                for (Item entry : group.entries) {
+                    links.add(new Object[]{statement.id, entry.id, matchGroup, group.type, now,
+                        entry.id, matchGroup});
+                    linkEntryIds.add(entry.id);
+                }
+                statementUpdates.add(new Object[]{group.entries.get(0).id, today, now, statement.id});
+            }
+        }
+        // 加载候选之后其他操作可能已匹配了同一凭证或流水，写入带条件，任何一行未生效则整体回滚
+        int[] inserted = jdbcTemplate.batchUpdate(
+            "INSERT INTO bank_statement_match (bank_statement_id, journal_entry_id, match_group, match_type, created_at) " +
+            "SELECT ?, ?, ?, ?, ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM bank_statement_match " +
+            "WHERE journal_entry_id = ? AND match_group <> ?)", links);
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] == 0) {
+                throw new RuntimeException("会计分录已与其他银行流水匹配(ID=" + linkEntryIds.get(i) + ")，请重新匹配");
+            }
+        }
+        int[] updated = jdbcTemplate.batchUpdate(
+            "UPDATE bank_statement SET reconciliation_status = '已对账', matched_journal_entry_id = ?, " +
+            "reconciliation_date = ?, updated_at = ? WHERE id = ? AND reconciliation_status = '未对账'", statementUpdates);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw new RuntimeException("银行流水已对账或已删除(ID=" + statementUpdates.get(i)[3] + ")，请重新匹配");
+            }
+        }
+        domainEventBus.publishAll(events);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static List<Long> ids(List<Item> items) {
+        List<Long> ids = new ArrayList<>(items.size());
+        for (Item item : items) {
+            ids.add(item.id);
+        }
+        return ids;
+    }
+
+    /**
+     * 待匹配的流水或凭证：ID、日期（纪元日）、带符号金额（分）
+     */
+    private static class Item {
+        private final long id;
+        private final long day;
+        private final long cents;
+        private boolean matched;
+
+        private Item(long id, long day, long cents) {
+            this.id = id;
+            this.day = day;
+            this.cents = cents;
+        }
+    }
+
+    /**
+     * 一对一索引键：金额 + 日期
+     */
+    private static final class Key {
+        private final long cents;
+        private final long day;
+
+        private Key(long cents, long day) {
+            this.cents = cents;
+            this.day = day;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return cents == other.cents && day == other.day;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(cents) * 31 + Long.hashCode(day);
+        }
+    }
+
+    /**
+     * 一次匹配的结果
+     */
+    private static class MatchGroup {
+        private final String type;
+        private final List<Item> statements;
+        private final List<Item> entries;
+
+        private MatchGroup(String type, List<Item> statements, List<Item> entries) {
+            this.type = type;
+            this.statements = statements;
+            this.entries = entries;
+        }
+    }
+}
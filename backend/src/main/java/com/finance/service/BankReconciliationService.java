@@ -1,24 +1,36 @@
 package com.finance.service;
 
+import com.finance.common.CursorPage;
+import com.finance.common.KeysetPager;
+import com.finance.common.PageQuery;
+import com.finance.common.Specs;
+import com.finance.dto.BookOnlyEntry;
 import com.finance.entity.BankReconciliation;
 import com.finance.entity.BankStatement;
-import com.finance.entity.JournalEntry;
 import com.finance.repository.BankReconciliationRepository;
 import com.finance.repository.BankStatementRepository;
 import com.finance.repository.JournalEntryRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class BankReconciliationService {
+    
+    private static final Set<String> SORTABLE_FIELDS = new HashSet<>(
+        Arrays.asList("reconciliationDate", "createdAt"));
 
     @Autowired
     private BankReconciliationRepository reconciliationRepository;
@@ -32,10 +44,27 @@ public class BankReconciliationService {
     @Autowired
     private BankStatementService bankStatementService;
 
+    @Autowired
+    private BankAccountSubjectService bankAccountSubjectService;
+
+    @Autowired
+    private AccountBalanceService accountBalanceService;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
     public List<BankReconciliation> findAll() {
         return reconciliationRepository.findAll();
     }
 
+    public CursorPage<BankReconciliation> page(String bankAccount, String status, LocalDate startDate,
+                                               LocalDate endDate, PageQuery query) {
+        Specification<BankReconciliation> filter = Specification.<BankReconciliation>where(Specs.equal("bankAccount", bankAccount))
+            .and(Specs.equal("status", status))
+            .and(Specs.between("reconciliationDate", startDate, endDate));
+        return keysetPager.page(BankReconciliation.class, filter, query, SORTABLE_FIELDS);
+    }
+
     public BankReconciliation findById(Long id) {
         return reconciliationRepository.findById(id).orElse(null);
     }
@@ -57,15 +86,16 @@ public class BankReconciliationService {
     /**
      * 自动对账（委托给BankStatementService）
      */
-    @Transactional
-    public Map<String, Object> autoMatch(String bankAccount, LocalDate startDate, LocalDate endDate) {
-        return bankStatementService.autoMatch(bankAccount, startDate, endDate);
+    public Map<String, Object> autoMatch(String bankAccount, LocalDate startDate, LocalDate endDate,
+                                         Integer toleranceDays) {
+        return bankStatementService.autoMatch(bankAccount, startDate, endDate, toleranceDays);
     }
 
     /**
      * 生成银行余额调节表
      */
     @Transactional
+    @Timed(value = "finance.bank.reconciliation-report", description = "生成银行余额调节表")
     public Map<String, Object> generateReconciliationReport(
             String bankAccount, 
             LocalDate reconciliationDate, 
@@ -76,7 +106,7 @@ public class BankReconciliationService {
         BigDecimal bookBalance = calculateBookBalance(bankAccount, reconciliationDate);
 
         // 2. 获取企业已记银行未记（未达账项）
-        List<JournalEntry> bookOnly = getBookOnlyEntries(bankAccount, reconciliationDate);
+        List<BookOnlyEntry> bookOnly = getBookOnlyEntries(bankAccount, reconciliationDate);
         
         // 3. 获取银行已记企业未记（未达账项）
         List<BankStatement> bankOnly = getBankOnlyStatements(bankAccount, reconciliationDate);
@@ -85,12 +115,12 @@ public class BankReconciliationService {
         BigDecimal bookOnlyIncome = BigDecimal.ZERO;
         BigDecimal bookOnlyExpense = BigDecimal.ZERO;
         
-        for (JournalEntry entry : bookOnly) {
-            // 简化处理：根据金额正负判断收支
-            if (entry.getTotalAmount().compareTo(BigDecimal.ZERO) > 0) {
-                bookOnlyIncome = bookOnlyIncome.add(entry.getTotalAmount());
+        for (BookOnlyEntry entry : bookOnly) {
+            // 银行存款科目借方净额为正表示企业已收，为负表示企业已付
+            if (entry.getBankAmount().compareTo(BigDecimal.ZERO) > 0) {
+                bookOnlyIncome = bookOnlyIncome.add(entry.getBankAmount());
             } else {
-                bookOnlyExpense = bookOnlyExpense.add(entry.getTotalAmount().abs());
+                bookOnlyExpense = bookOnlyExpense.add(entry.getBankAmount().abs());
             }
         }
 
@@ -155,58 +185,38 @@ public class BankReconciliationService {
     }
 
     /**
-     * 计算账面余额
+     * 计算账面余额：银行账号对应科目截至对账日的借方净余额
      */
     private BigDecimal calculateBookBalance(String bankAccount, LocalDate endDate) {
-        // 简化处理：查询截止日期前所有银行存款相关凭证
-        List<JournalEntry> entries = journalEntryRepository
-            .findByEntryDateBeforeAndStatus(endDate.plusDays(1), "已过账");
-
-        BigDecimal balance = BigDecimal.ZERO;
-        // 这里需要根据实际的银行存款科目计算
-        // 简化处理，后续可以优化
-        return balance;
+        return accountBalanceService.netBalanceAsOf(
+            bankAccountSubjectService.resolveSubjectIds(bankAccount), endDate);
     }
 
     /**
      * 获取企业已记银行未记的凭证
      */
-    private List<JournalEntry> getBookOnlyEntries(String bankAccount, LocalDate endDate) {
-        // 获取已过账但未匹配的凭证
-        List<JournalEntry> entries = journalEntryRepository
-            .findByEntryDateBeforeAndStatus(endDate.plusDays(1), "已过账");
-
-        // 过滤出未被银行流水匹配的凭证
-        List<Long> matchedEntryIds = bankStatementRepository
-            .findByBankAccount(bankAccount).stream()
-            .filter(s -> s.getMatchedJournalEntryId() != null)
-            .map(BankStatement::getMatchedJournalEntryId)
-            .collect(Collectors.toList());
-
-        return entries.stream()
-            .filter(e -> !matchedEntryIds.contains(e.getId()))
-            .filter(e -> e.getBusinessType() != null && e.getBusinessType().contains("银行"))
-            .collect(Collectors.toList());
+    private List<BookOnlyEntry> getBookOnlyEntries(String bankAccount, LocalDate endDate) {
+        List<Long> subjectIds = bankAccountSubjectService.resolveSubjectIds(bankAccount);
+        if (subjectIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return journalEntryRepository.findUnmatchedBankEntries(subjectIds, endDate, "已过账");
     }
 
     /**
      * 获取银行已记企业未记的流水
      */
     private List<BankStatement> getBankOnlyStatements(String bankAccount, LocalDate endDate) {
-        return bankStatementRepository.findByBankAccount(bankAccount).stream()
-            .filter(s -> s.getTransactionDate().isBefore(endDate.plusDays(1)))
-            .filter(s -> "未对账".equals(s.getReconciliationStatus()))
-            .collect(Collectors.toList());
+        return bankStatementRepository
+            .findByBankAccountAndReconciliationStatusAndTransactionDateLessThanEqual(bankAccount, "未对账", endDate);
     }
 
     /**
      * 获取已匹配数量
      */
     private int getMatchedCount(String bankAccount, LocalDate endDate) {
-        return (int) bankStatementRepository.findByBankAccount(bankAccount).stream()
-            .filter(s -> s.getTransactionDate().isBefore(endDate.plusDays(1)))
-            .filter(s -> "已对账".equals(s.getReconciliationStatus()))
-            .count();
+        return (int) bankStatementRepository
+            .countByBankAccountAndReconciliationStatusAndTransactionDateLessThanEqual(bankAccount, "已对账", endDate);
     }
 
     /**
@@ -224,7 +234,7 @@ public class BankReconciliationService {
             reconciliation.getBankAccount(), 
             reconciliation.getReconciliationDate());
         
-        List<JournalEntry> bookOnly = getBookOnlyEntries(
+        List<BookOnlyEntry> bookOnly = getBookOnlyEntries(
             reconciliation.getBankAccount(), 
             reconciliation.getReconciliationDate());
 
@@ -0,0 +1,410 @@
+package com.finance.service;
+
+import com.finance.common.CsvLines;
+import com.finance.dto.BankStatementImportRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 银行对账单文件解析器
+ *
+ * <p>逐行读取文件，每解析出一笔流水立即交给 {@link Handler}，内存占用与文件大小无关。支持两种格式：</p>
+ * <ul>
+ *   <li>csv：首行为列名，每行一笔流水，支持的列：bankAccount、bankName、transactionDate、transactionNo、
+ *       transactionType、amount、balance、counterparty、counterpartyAccount、purpose、remark。
+ *       未填写交易类型时按金额正负判断，负数为支出</li>
+ *   <li>mt940：SWIFT MT940 对账单，可包含多个报文。:25: 为账号，:60F:/:60M: 为期初余额，
+ *       :61: 为一笔流水（银行参考号优先作为交易流水号），其后的 :86: 为附言，
+ *       附言中的 /NAME/、/ACCT/、/REMI/ 子字段分别作为对方户名、对方账号和用途，
+ *       :62F:/:62M: 为期末余额。流水余额由期初余额逐笔累计得到</li>
+ * </ul>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see BankStatementImportService
+ */
+public final class BankStatementFileParser {
+
+    /** 文件格式：CSV */
+    public static final String CSV = "csv";
+
+    /** 文件格式：MT940 */
+    public static final String MT940 = "mt940";
+
+    private static final String INCOME = "收入";
+    private static final String EXPENSE = "支出";
+
+    /** :61: 起息日、记账日、借贷标记、资金代码、金额、交易类型代码、客户参考号、银行参考号 */
+    private static final Pattern MT940_LINE = Pattern.compile(
+        "^(\\d{6})(\\d{4})?(R?[CD])([A-Z])?(\\d+,\\d*)([A-Z][A-Z0-9]{3})(.*?)(?://(.*))?$");
+
+    /** :60:/:62: 借贷标记、日期、币种、金额 */
+    private static final Pattern MT940_BALANCE = Pattern.compile("^([CD])(\\d{6})([A-Z]{3})(\\d+,\\d*)$");
+
+    private static final Pattern MT940_SUBFIELD = Pattern.compile("/(NAME|ACCT|REMI)/([^/]*)");
+
+    private static final DateTimeFormatter YYMMDD = DateTimeFormatter.ofPattern("yyMMdd");
+
+    private BankStatementFileParser() {
+    }
+
+    /**
+     * 解析结果的接收方
+     */
+    public interface Handler {
+
+        /**
+         * 解析出一笔流水，解析失败时 {@link BankStatementImportRow#getError()} 不为空
+         */
+        void row(BankStatementImportRow row);
+
+        /**
+         * 文件给出的期初或期末余额，用于核对流水余额是否连续
+         *
+         * @param bankAccount 银行账号
+         * @param rowNumber 行号
+         * @param balance 余额
+         * @param opening true为期初余额，false为期末余额
+         */
+        void balance(String bankAccount, int rowNumber, BigDecimal balance, boolean opening);
+    }
+
+    /**
+     * 根据文件名和首行内容判断格式
+     *
+     * @param fileName 文件名
+     * @param firstLine 文件首个非空行，可为null
+     * @return csv 或 mt940
+     */
+    public static String detectFormat(String fileName, String firstLine) {
+        String name = fileName != null ? fileName.toLowerCase() : "";
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".sta") || name.endsWith(".mt940") || name.endsWith(".940")) {
+            return MT940;
+        }
+        if (firstLine != null && (firstLine.startsWith(":20:") || firstLine.startsWith("{1:"))) {
+            return MT940;
+        }
+        return CSV;
+    }
+
+    /**
+     * 解析文件
+     *
+     * @param in 文件输入流，UTF-8编码
+     * @param format 文件格式：csv 或 mt940
+     * @param handler 解析结果的接收方
+     * @throws IOException 读取文件失败时抛出
+     */
+    public static void parse(InputStream in, String format, Handler handler) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        if (MT940.equalsIgnoreCase(format)) {
+            new Mt940Reader(handler).read(reader);
+        } else if (CSV.equalsIgnoreCase(format)) {
+            readCsv(reader, handler);
+        } else {
+            throw new RuntimeException("不支持的文件格式：" + format + "，可选：" + CSV + "、" + MT940);
+        }
+    }
+
+    private static void readCsv(BufferedReader reader, Handler handler) throws IOException {
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> headers = CsvLines.split(CsvLines.stripBom(headerLine));
+        for (int i = 0; i < headers.size(); i++) {
+            columns.put(headers.get(i).trim(), i);
+        }
+
+        String line;
+        int rowNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            rowNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<String> values = CsvLines.split(line);
+            BankStatementImportRow row = new BankStatementImportRow();
+            row.setRowNumber(rowNumber);
+            try {
+                row.setBankAccount(value(values, columns, "bankAccount"));
+                row.setBankName(value(values, columns, "bankName"));
+                row.setTransactionNo(value(values, columns, "transactionNo"));
+                String date = value(values, columns, "transactionDate");
+                row.setTransactionDate(date != null ? parseDate(date) : null);
+                row.setTransactionType(value(values, columns, "transactionType"));
+                BigDecimal amount = decimal(values, columns, "amount");
+                if (amount != null && amount.signum() < 0) {
+                    if (row.getTransactionType() == null) {
+                        row.setTransactionType(EXPENSE);
+                    }
+                    amount = amount.negate();
+                } else if (amount != null && row.getTransactionType() == null) {
+                    row.setTransactionType(INCOME);
+                }
+                row.setAmount(amount);
+                row.setBalance(decimal(values, columns, "balance"));
+                row.setCounterparty(value(values, columns, "counterparty"));
+                row.setCounterpartyAccount(value(values, columns, "counterpartyAccount"));
+                row.setPurpose(value(values, columns, "purpose"));
+                row.setRemark(value(values, columns, "remark"));
+            } catch (RuntimeException e) {
+                row.setError("第" + rowNumber + "行：格式错误（" + e.getMessage() + "）");
+            }
+            handler.row(row);
+        }
+    }
+
+    private static String value(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static BigDecimal decimal(List<String> values, Map<String, Integer> columns, String name) {
+        String value = value(values, columns, name);
+        return value != null ? new BigDecimal(value.replace(",", "")) : null;
+    }
+
+    /**
+     * 解析日期，支持 yyyy-MM-dd、yyyy/MM/dd 和 yyyyMMdd
+     */
+    private static LocalDate parseDate(String value) {
+        if (value.length() == 8 && value.chars().allMatch(Character::isDigit)) {
+            return LocalDate.parse(value, DateTimeFormatter.BASIC_ISO_DATE);
+        }
+        return LocalDate.parse(value.replace('/', '-'));
+    }
+
+    /**
+     * MT940 逐行读取：一个字段以 :标签: 开头，不以冒号开头的行是上一字段的续行
+     */
+    private static class Mt940Reader {
+
+        private final Handler handler;
+        private String bankAccount;
+        private BigDecimal runningBalance;
+        /** 等待 :86: 附言的流水 */
+        private BankStatementImportRow pending;
+        private String tag;
+        private final StringBuilder content = new StringBuilder();
+        private int tagLine;
+
+        private Mt940Reader(Handler handler) {
+            this.handler = handler;
+        }
+
+        private void read(BufferedReader reader) throws IOException {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1) {
+                    line = CsvLines.stripBom(line);
+                }
+                // 去掉SWIFT报文头 {1:...}{2:...}{4:
+                if (line.startsWith("{")) {
+                    int body = line.indexOf("{4:");
+                    if (body < 0) {
+                        continue;
+                    }
+                    line = line.substring(body + 3);
+                }
+                String trimmed = line.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (trimmed.startsWith("-")) {
+                    // 报文结束
+                    endField();
+                    emitPending();
+                    continue;
+                }
+                int end = trimmed.length() > 1 && trimmed.charAt(0) == ':' ? trimmed.indexOf(':', 1) : -1;
+                if (end > 0) {
+                    endField();
+                    tag = trimmed.substring(1, end);
+                    content.setLength(0);
+                    content.append(trimmed.substring(end + 1));
+                    tagLine = lineNumber;
+                } else if (tag != null) {
+                    content.append('\n').append(trimmed);
+                }
+            }
+            endField();
+            emitPending();
+        }
+
+        private void endField() {
+            if (tag == null) {
+                return;
+            }
+            String value = content.toString();
+            switch (tag) {
+                case "20":
+                    emitPending();
+                    bankAccount = null;
+                    runningBalance = null;
+                    break;
+                case "25":
+                    emitPending();
+                    String account = value.trim();
+                    bankAccount = account.substring(account.lastIndexOf('/') + 1);
+                    break;
+                case "60F":
+                case "60M":
+                    emitPending();
+                    runningBalance = balance(value);
+                    if (runningBalance != null) {
+                        handler.balance(bankAccount, tagLine, runningBalance, true);
+                    }
+                    break;
+                case "61":
+                    emitPending();
+                    pending = statementLine(value);
+                    break;
+                case "86":
+                    if (pending != null) {
+                        applyInformation(pending, value);
+                        emitPending();
+                    }
+                    break;
+                case "62F":
+                case "62M":
+                    emitPending();
+                    BigDecimal closing = balance(value);
+                    if (closing != null) {
+                        handler.balance(bankAccount, tagLine, closing, false);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            tag = null;
+        }
+
+        private void emitPending() {
+            if (pending != null) {
+                handler.row(pending);
+                pending = null;
+            }
+        }
+
+        private BigDecimal balance(String value) {
+            Matcher m = MT940_BALANCE.matcher(value.trim());
+            if (!m.matches()) {
+                return null;
+            }
+            BigDecimal amount = amount(m.group(4));
+            return "D".equals(m.group(1)) ? amount.negate() : amount;
+        }
+
+        /**
+         * 解析 :61: 流水行，续行为补充说明，作为备注
+         */
+        private BankStatementImportRow statementLine(String value) {
+            BankStatementImportRow row = new BankStatementImportRow();
+            row.setRowNumber(tagLine);
+            row.setBankAccount(bankAccount);
+            int newline = value.indexOf('\n');
+            String first = (newline >= 0 ? value.substring(0, newline) : value).trim();
+            if (newline >= 0) {
+                row.setRemark(value.substring(newline + 1).trim());
+            }
+            Matcher m = MT940_LINE.matcher(first);
+            if (!m.matches()) {
+                row.setError("第" + tagLine + "行：无法识别的 :61: 流水行");
+                return row;
+            }
+            try {
+                LocalDate valueDate = LocalDate.parse(m.group(1), YYMMDD);
+                row.setTransactionDate(m.group(2) != null ? entryDate(valueDate, m.group(2)) : valueDate);
+            } catch (RuntimeException e) {
+                row.setError("第" + tagLine + "行：日期格式错误（" + e.getMessage() + "）");
+                return row;
+            }
+            // RC、RD 为冲正，方向与原交易相反
+            String mark = m.group(3);
+            boolean credit = "C".equals(mark) || "RD".equals(mark);
+            row.setTransactionType(credit ? INCOME : EXPENSE);
+            row.setAmount(amount(m.group(5)));
+
+            String customerReference = m.group(7).trim();
+            String bankReference = m.group(8) != null ? m.group(8).trim() : "";
+            if (!bankReference.isEmpty()) {
+                row.setTransactionNo(bankReference);
+            } else if (!customerReference.isEmpty() && !"NONREF".equals(customerReference)) {
+                row.setTransactionNo(customerReference);
+            }
+            if (runningBalance != null) {
+                runningBalance = credit ? runningBalance.add(row.getAmount()) : runningBalance.subtract(row.getAmount());
+                row.setBalance(runningBalance);
+            }
+            return row;
+        }
+
+        /**
+         * 记账日只有月日，年份取起息日的年份，跨年时前后调整一年
+         */
+        private LocalDate entryDate(LocalDate valueDate, String monthDay) {
+            int month = Integer.parseInt(monthDay.substring(0, 2));
+            int day = Integer.parseInt(monthDay.substring(2));
+            int year = valueDate.getYear();
+            if (month == 1 && valueDate.getMonthValue() == 12) {
+                year++;
+            } else if (month == 12 && valueDate.getMonthValue() == 1) {
+                year--;
+            }
+            return LocalDate.of(year, month, day);
+        }
+
+        private void applyInformation(BankStatementImportRow row, String value) {
+            String text = value.replace("\n", "");
+            Matcher m = MT940_SUBFIELD.matcher(text);
+            boolean structured = false;
+            while (m.find()) {
+                structured = true;
+                String field = m.group(2).trim();
+                switch (m.group(1)) {
+                    case "NAME":
+                        row.setCounterparty(field);
+                        break;
+                    case "ACCT":
+                        row.setCounterpartyAccount(field);
+                        break;
+                    default:
+                        row.setPurpose(field);
+                        break;
+                }
+            }
+            if (!structured) {
+                row.setPurpose(text.trim());
+            }
+        }
+
+        private BigDecimal amount(String value) {
+            String normalized = value.replace(',', '.');
+            return new BigDecimal(normalized.endsWith(".") ? normalized + "0" : normalized);
+        }
+    }
+}
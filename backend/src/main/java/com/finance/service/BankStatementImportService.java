@@ -0,0 +1,702 @@
+package com.finance.service;
+
+import com.finance.common.BloomFilter;
+import com.finance.dto.BankStatementImportJob;
+import com.finance.dto.BankStatementImportRow;
+import com.finance.entity.BankAccountSubject;
+import com.finance.event.DomainEvent;
+import com.finance.repository.BankAccountSubjectRepository;
+import com.finance.repository.BankStatementRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 银行流水文件导入服务类
+ *
+ * <p>上传的对账单文件保存为临时文件后在后台线程中导入，调用方取得任务ID后轮询进度。
+ * 文件由 {@link BankStatementFileParser} 逐行流式解析，内存占用只与分块大小有关。</p>
+ *
+ * <p>处理流程：
+ * <ol>
+ *   <li>逐笔校验必填项、交易类型和金额，银行名称未提供时取银行账户对应科目中登记的开户银行</li>
+ *   <li>按文件顺序核对每个银行账号的余额连续性：上一笔余额加减本笔金额应等于本笔余额，
+ *       MT940 的期初、期末余额也参与核对；不连续的位置随结果返回，流水照常导入</li>
+ *   <li>按"银行账号 + 交易流水号"去重：文件内重复的只保留第一笔；每个账号第一次出现时流式读取库中该账号的全部
+ *       交易流水号，数量不多时载入哈希集合，命中即跳过；数量较多时载入布隆过滤器，判定不存在的直接写入，
+ *       判定可能存在的每块按账号一次查询确认后跳过。重新导入有重叠的对账单时不会逐笔查询数据库</li>
+ *   <li>每块在独立事务中以JDBC批量语句写入，并发布一个批量事件；并发导入同一账号触发唯一约束时，
+ *       重新确认块内流水后再写一次，其他原因写入失败时块内流水记为失败，后续分块继续导入</li>
+ * </ol>
+ * </p>
+ *
+ * <p>去重依赖 bank_statement 上 (bank_account, transaction_no) 的唯一约束 uk_bank_statement_account_no。
+ * 升级前已有重复数据的库自动更新表结构时不会建出该约束，此时拒绝导入，需先执行
+ * database/bank_statement_unique.sql 去重并添加约束。</p>
+ *
+ * <p>任务进度包括已读取的字节数和各项计数，每写入一块更新一次；已结束的任务保留一段时间后清理。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see BankStatementFileParser
+ */
+@Slf4j
+@Service
+public class BankStatementImportService {
+
+    private static final String RUNNING = "导入中";
+    private static final String DONE = "已完成";
+    private static final String FAILED = "失败";
+
+    private static final String INCOME = "收入";
+    private static final String EXPENSE = "支出";
+
+    /** 返回的错误明细和余额不连续位置的上限，超过时只计数不返回 */
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String SELECT_TRANSACTION_NOS_SQL =
+        "SELECT transaction_no FROM bank_statement WHERE bank_account = ?";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO bank_statement (bank_account, bank_name, transaction_date, transaction_no, transaction_type, " +
+        "amount, balance, counterparty, counterparty_account, purpose, reconciliation_status, remark, " +
+        "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private BankStatementRepository bankStatementRepository;
+
+    @Autowired
+    private BankAccountSubjectRepository bankAccountSubjectRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("bankImportExecutor")
+    private Executor bankImportExecutor;
+
+    /** 每块写入的流水笔数 */
+    @Value("${finance.bank-import.chunk-size:1000}")
+    private int chunkSize;
+
+    /** 载入已有交易流水号的 fetchSize，默认 Integer.MIN_VALUE（MySQL逐行流式读取） */
+    @Value("${finance.bank-import.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    /** 银行账号已有流水不超过该笔数时以哈希集合精确去重，超过时改用布隆过滤器 */
+    @Value("${finance.bank-import.exact-key-limit:100000}")
+    private long exactKeyLimit;
+
+    /** 重复检测布隆过滤器的误判率，误判的流水需到数据库确认 */
+    @Value("${finance.bank-import.bloom-false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    /** 已结束任务的保留时间（分钟），超时后无法再查询 */
+    @Value("${finance.bank-import.job-ttl-minutes:60}")
+    private long jobTtlMinutes;
+
+    /** 已确认 bank_statement 上存在唯一约束，确认后不再检查 */
+    private volatile boolean uniqueKeyVerified;
+
+    /** 分块写入使用的事务模板 */
+    private final TransactionTemplate transactionTemplate;
+
+    /** 导入任务：任务ID -> 任务 */
+    private final Map<String, JobHandle> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BankStatementImportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 提交导入任务，文件内容先保存为临时文件
+     *
+     * @param in 文件输入流
+     * @param fileName 文件名，用于判断格式
+     * @param format 文件格式：csv 或 mt940，为空时按文件名和内容判断
+     * @param bankAccount 默认银行账号，文件中未提供账号时使用
+     * @param bankName 默认银行名称，文件中未提供银行名称时使用
+     * @return 任务状态
+     * @throws IOException 保存临时文件失败时抛出
+     */
+    public BankStatementImportJob submit(InputStream in, String fileName, String format,
+                                         String bankAccount, String bankName) throws IOException {
+        purgeExpiredJobs();
+        requireUniqueKey();
+        Path file = Files.createTempFile("bank-statement-", ".tmp");
+        try {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            String resolvedFormat = format != null && !format.isEmpty()
+                ? format.toLowerCase() : BankStatementFileParser.detectFormat(fileName, firstLine(file));
+            if (!BankStatementFileParser.CSV.equals(resolvedFormat)
+                    && !BankStatementFileParser.MT940.equals(resolvedFormat)) {
+                throw new RuntimeException("不支持的文件格式：" + format + "，可选："
+                    + BankStatementFileParser.CSV + "、" + BankStatementFileParser.MT940);
+            }
+            JobHandle handle = new JobHandle(UUID.randomUUID().toString(), fileName, resolvedFormat, Files.size(file));
+            bankImportExecutor.execute(() -> run(handle, file, bankAccount, bankName));
+            jobs.put(handle.id, handle);
+            return handle.toJob();
+        } catch (RejectedExecutionException e) {
+            Files.deleteIfExists(file);
+            throw new RuntimeException("导入任务过多，请稍后再试");
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * 查询任务进度
+     *
+     * @param id 任务ID
+     * @return 任务状态，任务不存在或已过期时返回null
+     */
+    public BankStatementImportJob getJob(String id) {
+        JobHandle handle = jobs.get(id);
+        return handle != null ? handle.toJob() : null;
+    }
+
+    private void run(JobHandle handle, Path file, String bankAccount, String bankName) {
+        String status = FAILED;
+        try (InputStream in = new CountingInputStream(Files.newInputStream(file), handle)) {
+            ImportContext context = new ImportContext(handle, bankAccount, bankName);
+            BankStatementFileParser.parse(in, handle.format, context);
+            context.flush();
+            status = DONE;
+            log.info("银行流水导入完成：{}，读取{}笔，写入{}笔，重复{}笔，失败{}笔", handle.fileName,
+                handle.rowsRead, handle.insertedCount, handle.duplicateCount, handle.failureCount);
+        } catch (IOException | RuntimeException e) {
+            handle.error = e.getMessage();
+            log.warn("银行流水导入失败：{}，{}", handle.fileName, e.getMessage());
+        } finally {
+            // 先记录完成时间再更新状态，查询到已结束的任务时总带有完成时间
+            handle.finishedAt = LocalDateTime.now();
+            handle.status = status;
+            meterRegistry.counter("finance.bank-import.rows", "result", "inserted").increment(handle.insertedCount);
+            meterRegistry.counter("finance.bank-import.rows", "result", "duplicate").increment(handle.duplicateCount);
+            meterRegistry.counter("finance.bank-import.rows", "result", "failure").increment(handle.failureCount);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("删除临时文件失败：{}", file);
+            }
+        }
+    }
+
+    /**
+     * 在一个事务中批量写入一块流水
+     */
+    private void writeChunk(List<BankStatementImportRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(rows.size());
+        Set<String> accounts = new HashSet<>();
+        for (BankStatementImportRow row : rows) {
+            args.add(new Object[]{row.getBankAccount(), row.getBankName(), Date.valueOf(row.getTransactionDate()),
+                row.getTransactionNo(), row.getTransactionType(), row.getAmount(), row.getBalance(),
+                row.getCounterparty(), row.getCounterpartyAccount(), row.getPurpose(), "未对账", row.getRemark(),
+                now, now});
+            accounts.add(row.getBankAccount());
+        }
+        transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, args);
+            domainEventBus.publish(DomainEvent.bulk(DomainEvent.BANK_STATEMENT)
+                .with("count", rows.size())
+                .with("bankAccounts", new ArrayList<>(accounts)));
+            return null;
+        });
+    }
+
+    /**
+     * 流式读取某银行账号在库中的全部交易流水号
+     */
+    private ExistingNos loadTransactionNos(String bankAccount) {
+        long count = bankStatementRepository.countByBankAccount(bankAccount);
+        // 按载入前的笔数选择结构，读取期间新增的少量流水不影响结果
+        ExistingNos existing = count <= exactKeyLimit
+            ? new ExistingNos(new HashSet<>((int) (count / 0.75f) + 1), null)
+            : new ExistingNos(null, new BloomFilter(count * 2, falsePositiveRate));
+        if (count > 0) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(SELECT_TRANSACTION_NOS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setString(1, bankAccount);
+                return ps;
+            }, rs -> {
+                existing.add(rs.getString(1));
+            });
+        }
+        log.debug("银行账号{}已有{}笔流水，载入{}", bankAccount, count, existing.exact != null ? "哈希集合" : "布隆过滤器");
+        return existing;
+    }
+
+    /**
+     * 确认 bank_statement 上有 (bank_account, transaction_no) 的唯一索引，没有时拒绝导入，
+     * 否则并发导入或布隆过滤器漏判时重复流水会直接写入
+     */
+    private void requireUniqueKey() {
+        if (uniqueKeyVerified) {
+            return;
+        }
+        Boolean present = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String table : new String[] {"bank_statement", "BANK_STATEMENT"}) {
+                Map<String, Set<String>> columnsByIndex = new HashMap<>();
+                try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, table, true, false)) {
+                    while (rs.next()) {
+                        String index = rs.getString("INDEX_NAME");
+                        String column = rs.getString("COLUMN_NAME");
+                        if (index != null && column != null) {
+                            columnsByIndex.computeIfAbsent(index, k -> new HashSet<>())
+                                .add(column.toLowerCase(Locale.ROOT));
+                        }
+                    }
+                }
+                for (Set<String> columns : columnsByIndex.values()) {
+                    if (columns.size() == 2 && columns.contains("bank_account") && columns.contains("transaction_no")) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        if (!Boolean.TRUE.equals(present)) {
+            log.error("bank_statement 缺少唯一约束 uk_bank_statement_account_no (bank_account, transaction_no)，"
+                + "银行流水导入已停用，请执行 database/bank_statement_unique.sql");
+            throw new RuntimeException("银行流水表缺少唯一约束 uk_bank_statement_account_no，"
+                + "请先执行 database/bank_statement_unique.sql 清理重复流水并添加约束");
+        }
+        uniqueKeyVerified = true;
+    }
+
+    private void purgeExpiredJobs() {
+        LocalDateTime expireBefore = LocalDateTime.now().minusMinutes(jobTtlMinutes);
+        jobs.values().removeIf(handle -> handle.finishedAt != null && handle.finishedAt.isBefore(expireBefore));
+    }
+
+    private static String firstLine(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    return line.trim();
+                }
+            }
+            return null;
+        }
+    }
+
+    private static String truncate(String value, int length) {
+        return value != null && value.length() > length ? value.substring(0, length) : value;
+    }
+
+    /**
+     * 单次导入的处理上下文：校验、核对余额、去重并分块写入
+     */
+    private class ImportContext implements BankStatementFileParser.Handler {
+
+        private final JobHandle handle;
+        private final String defaultBankAccount;
+        private final String defaultBankName;
+        /** 银行账号 -> 开户银行，取自银行账户对应科目 */
+        private final Map<String, String> bankNames = new HashMap<>();
+        /** 银行账号 -> 文件中上一笔流水后的余额 */
+        private final Map<String, BigDecimal> lastBalances = new HashMap<>();
+        /** 文件中已出现的"银行账号 + 交易流水号" */
+        private final Set<String> seen = new HashSet<>();
+        /** 银行账号 -> 库中已有的交易流水号，账号第一次出现时载入 */
+        private final Map<String, ExistingNos> existingNos = new HashMap<>();
+        private final List<BankStatementImportRow> pending = new ArrayList<>();
+        /** 待写入流水中过滤器判定可能已在库中、需要查询确认的"银行账号 + 交易流水号" */
+        private final Set<String> suspects = new HashSet<>();
+
+        private ImportContext(JobHandle handle, String bankAccount, String bankName) {
+            this.handle = handle;
+            this.defaultBankAccount = bankAccount != null && !bankAccount.isEmpty() ? bankAccount : null;
+            this.defaultBankName = bankName != null && !bankName.isEmpty() ? bankName : null;
+        }
+
+        @Override
+        public void row(BankStatementImportRow row) {
+            handle.rowsRead++;
+            if (row.getError() != null) {
+                reject(row, row.getError());
+                return;
+            }
+            if (row.getBankAccount() == null) {
+                row.setBankAccount(defaultBankAccount);
+            }
+            if (row.getBankName() == null) {
+                row.setBankName(defaultBankName != null ? defaultBankName : bankNameOf(row.getBankAccount()));
+            }
+            // 校验未通过的流水同样参与余额核对，否则其后的余额都会被误判为不连续
+            checkContinuity(row);
+            String error = validate(row);
+            if (error != null) {
+                reject(row, "第" + row.getRowNumber() + "行：" + error);
+                return;
+            }
+            if (!seen.add(key(row))) {
+                handle.duplicateCount++;
+                return;
+            }
+            ExistingNos existing = existingNos.computeIfAbsent(row.getBankAccount(),
+                BankStatementImportService.this::loadTransactionNos);
+            if (existing.mightContain(row.getTransactionNo())) {
+                if (existing.exact != null) {
+                    handle.duplicateCount++;
+                    return;
+                }
+                suspects.add(key(row));
+            }
+            pending.add(row);
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void balance(String bankAccount, int rowNumber, BigDecimal balance, boolean opening) {
+            String account = bankAccount != null ? bankAccount : defaultBankAccount;
+            BigDecimal last = lastBalances.put(account, balance);
+            if (last != null && last.compareTo(balance) != 0) {
+                balanceBreak(account, rowNumber, last, balance,
+                    opening ? "期初余额与上一笔流水余额不连续" : "期末余额与流水累计余额不一致");
+            }
+        }
+
+        private String validate(BankStatementImportRow row) {
+            if (row.getBankAccount() == null || row.getBankAccount().isEmpty()) {
+                return "银行账号不能为空";
+            }
+            if (row.getBankAccount().length() > 50) {
+                return "银行账号超过50个字符";
+            }
+            if (row.getBankName() == null || row.getBankName().isEmpty()) {
+                return "银行名称不能为空";
+            }
+            if (row.getTransactionDate() == null) {
+                return "交易日期不能为空";
+            }
+            if (row.getTransactionNo() == null || row.getTransactionNo().isEmpty()) {
+                return "交易流水号不能为空";
+            }
+            if (row.getTransactionNo().length() > 50) {
+                return "交易流水号超过50个字符";
+            }
+            if (!INCOME.equals(row.getTransactionType()) && !EXPENSE.equals(row.getTransactionType())) {
+                return "交易类型必须为收入或支出";
+            }
+            if (row.getAmount() == null || row.getAmount().signum() <= 0) {
+                return "交易金额必须大于0";
+            }
+            row.setBankName(truncate(row.getBankName(), 100));
+            row.setCounterparty(truncate(row.getCounterparty(), 200));
+            row.setCounterpartyAccount(truncate(row.getCounterpartyAccount(), 50));
+            row.setPurpose(truncate(row.getPurpose(), 500));
+            row.setRemark(truncate(row.getRemark(), 500));
+            return null;
+        }
+
+        /**
+         * 上一笔余额加减本笔金额应等于本笔余额；本笔未提供余额时按计算值继续核对下一笔
+         */
+        private void checkContinuity(BankStatementImportRow row) {
+            String account = row.getBankAccount();
+            if (account == null || row.getAmount() == null
+                    || (!INCOME.equals(row.getTransactionType()) && !EXPENSE.equals(row.getTransactionType()))) {
+                return;
+            }
+            BigDecimal last = lastBalances.get(account);
+            if (last == null) {
+                if (row.getBalance() != null) {
+                    lastBalances.put(account, row.getBalance());
+                }
+                return;
+            }
+            BigDecimal expected = INCOME.equals(row.getTransactionType())
+                ? last.add(row.getAmount()) : last.subtract(row.getAmount());
+            if (row.getBalance() != null && row.getBalance().compareTo(expected) != 0) {
+                balanceBreak(account, row.getRowNumber(), expected, row.getBalance(), "余额与上一笔余额加减本笔金额不一致");
+            }
+            lastBalances.put(account, row.getBalance() != null ? row.getBalance() : expected);
+        }
+
+        private String bankNameOf(String bankAccount) {
+            if (bankAccount == null) {
+                return null;
+            }
+            return bankNames.computeIfAbsent(bankAccount, account -> bankAccountSubjectRepository
+                .findByBankAccount(account).map(BankAccountSubject::getBankName).orElse(""));
+        }
+
+        /**
+         * 写入一块：过滤器判定可能已存在的流水按账号查询确认并跳过，其余批量写入
+         */
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<BankStatementImportRow> suspectRows = new ArrayList<>();
+            for (BankStatementImportRow row : pending) {
+                if (suspects.contains(key(row))) {
+                    suspectRows.add(row);
+                }
+            }
+            List<BankStatementImportRow> rows = skipExisting(pending, existingKeys(suspectRows));
+            pending.clear();
+            suspects.clear();
+            if (rows.isEmpty()) {
+                return;
+            }
+            try {
+                try {
+                    writeChunk(rows);
+                } catch (DuplicateKeyException e) {
+                    // 载入过滤器之后其他导入写入了相同流水，整块重新确认后再写一次
+                    rows = skipExisting(rows, existingKeys(rows));
+                    if (!rows.isEmpty()) {
+                        writeChunk(rows);
+                    }
+                }
+                handle.insertedCount += rows.size();
+            } catch (RuntimeException e) {
+                for (BankStatementImportRow row : rows) {
+                    seen.remove(key(row));
+                    reject(row, "第" + row.getRowNumber() + "行：写入失败（" + e.getMessage() + "）");
+                }
+            }
+            log.debug("银行流水导入 {}：已读取{}字节，写入{}笔", handle.fileName, handle.bytesRead, handle.insertedCount);
+        }
+
+        /**
+         * 按账号一次查询，返回其中已在库中的"银行账号 + 交易流水号"
+         */
+        private Set<String> existingKeys(List<BankStatementImportRow> rows) {
+            Map<String, List<String>> byAccount = new HashMap<>();
+            for (BankStatementImportRow row : rows) {
+                byAccount.computeIfAbsent(row.getBankAccount(), account -> new ArrayList<>()).add(row.getTransactionNo());
+            }
+            Set<String> existing = new HashSet<>();
+            for (Map.Entry<String, List<String>> entry : byAccount.entrySet()) {
+                for (String transactionNo : bankStatementRepository.findExistingTransactionNos(entry.getKey(), entry.getValue())) {
+                    existing.add(entry.getKey() + "|" + transactionNo);
+                }
+            }
+            return existing;
+        }
+
+        private List<BankStatementImportRow> skipExisting(List<BankStatementImportRow> rows, Set<String> existing) {
+            if (existing.isEmpty()) {
+                return new ArrayList<>(rows);
+            }
+            List<BankStatementImportRow> remaining = new ArrayList<>(rows.size());
+            for (BankStatementImportRow row : rows) {
+                if (existing.contains(key(row))) {
+                    handle.duplicateCount++;
+                } else {
+                    remaining.add(row);
+                }
+            }
+            return remaining;
+        }
+
+        private String key(BankStatementImportRow row) {
+            return row.getBankAccount() + "|" + row.getTransactionNo();
+        }
+
+        private void reject(BankStatementImportRow row, String message) {
+            handle.failureCount++;
+            if (handle.errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("row", row.getRowNumber());
+                error.put("transactionNo", row.getTransactionNo());
+                error.put("message", message);
+                handle.errors.add(error);
+            }
+        }
+
+        private void balanceBreak(String bankAccount, int rowNumber, BigDecimal expected, BigDecimal actual,
+                                  String message) {
+            handle.balanceBreakCount++;
+            if (handle.balanceBreaks.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> balanceBreak = new LinkedHashMap<>();
+                balanceBreak.put("bankAccount", bankAccount);
+                balanceBreak.put("row", rowNumber);
+                balanceBreak.put("expectedBalance", expected);
+                balanceBreak.put("balance", actual);
+                balanceBreak.put("message", message);
+                handle.balanceBreaks.add(balanceBreak);
+            }
+        }
+    }
+
+    /**
+     * 某银行账号在库中已有的交易流水号：笔数不多时为精确的哈希集合，否则为布隆过滤器
+     */
+    private static class ExistingNos {
+
+        private final Set<String> exact;
+        private final BloomFilter filter;
+
+        private ExistingNos(Set<String> exact, BloomFilter filter) {
+            this.exact = exact;
+            this.filter = filter;
+        }
+
+        private void add(String transactionNo) {
+            if (exact != null) {
+                exact.add(transactionNo);
+            } else {
+                filter.put(transactionNo);
+            }
+        }
+
+        /**
+         * 哈希集合返回是否存在；布隆过滤器返回false时一定不存在，返回true时需要确认
+         */
+        private boolean mightContain(String transactionNo) {
+            return exact != null ? exact.contains(transactionNo) : filter.mightContain(transactionNo);
+        }
+    }
+
+    /**
+     * 统计已读取字节数的输入流，用于报告读取进度
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private final JobHandle handle;
+
+        private CountingInputStream(InputStream in, JobHandle handle) {
+            super(in);
+            this.handle = handle;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                handle.bytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                handle.bytesRead += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            handle.bytesRead += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * 导入任务，计数只由导入线程修改，查询时复制一份
+     */
+    private static class JobHandle {
+        private final String id;
+        private final String fileName;
+        private final String format;
+        private final long totalBytes;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final List<Map<String, Object>> errors = Collections.synchronizedList(new ArrayList<>());
+        private final List<Map<String, Object>> balanceBreaks = Collections.synchronizedList(new ArrayList<>());
+        private volatile String status = RUNNING;
+        private volatile long bytesRead;
+        private volatile int rowsRead;
+        private volatile int insertedCount;
+        private volatile int duplicateCount;
+        private volatile int failureCount;
+        private volatile int balanceBreakCount;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private JobHandle(String id, String fileName, String format, long totalBytes) {
+            this.id = id;
+            this.fileName = fileName;
+            this.format = format;
+            this.totalBytes = totalBytes;
+        }
+
+        private BankStatementImportJob toJob() {
+            BankStatementImportJob job = new BankStatementImportJob();
+            job.setId(id);
+            job.setFileName(fileName);
+            job.setFormat(format);
+            job.setStatus(status);
+            job.setTotalBytes(totalBytes);
+            job.setBytesRead(bytesRead);
+            job.setProgress(totalBytes > 0 ? (int) Math.min(100, bytesRead * 100 / totalBytes) : 100);
+            job.setRowsRead(rowsRead);
+            job.setInsertedCount(insertedCount);
+            job.setDuplicateCount(duplicateCount);
+            job.setFailureCount(failureCount);
+            job.setBalanceBreakCount(balanceBreakCount);
+            synchronized (errors) {
+                job.setErrors(new ArrayList<>(errors));
+            }
+            synchronized (balanceBreaks) {
+                job.setBalanceBreaks(new ArrayList<>(balanceBreaks));
+            }
+            job.setErrorsTruncated(failureCount > job.getErrors().size());
+            job.setSubmittedAt(submittedAt);
+            job.setFinishedAt(finishedAt);
+            job.setError(error);
+            return job;
+        }
+    }
+}
@@ -1,23 +1,37 @@
 package com.finance.service;
 
+import com.finance.common.CursorPage;
+import com.finance.common.KeysetPager;
+import com.finance.common.PageQuery;
+import com.finance.common.Specs;
 import com.finance.entity.BankStatement;
-import com.finance.entity.JournalEntry;
+import com.finance.entity.BankStatementMatch;
+import com.finance.event.DomainEvent;
+import com.finance.repository.BankStatementMatchRepository;
 import com.finance.repository.BankStatementRepository;
 import com.finance.repository.JournalEntryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class BankStatementService {
+    
+    private static final Set<String> SORTABLE_FIELDS = new HashSet<>(
+        Arrays.asList("transactionDate", "amount", "createdAt"));
 
     @Autowired
     private BankStatementRepository bankStatementRepository;
@@ -25,10 +39,33 @@ public class BankStatementService {
     @Autowired
     private JournalEntryRepository journalEntryRepository;
 
+    @Autowired
+    private BankStatementMatchRepository bankStatementMatchRepository;
+
+    @Autowired
+    private BankMatchEngine bankMatchEngine;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
     public List<BankStatement> findAll() {
         return bankStatementRepository.findAll();
     }
 
+    public CursorPage<BankStatement> page(String bankAccount, String reconciliationStatus,
+                                          String transactionType, LocalDate startDate, LocalDate endDate,
+                                          String keyword, PageQuery query) {
+        Specification<BankStatement> filter = Specification.<BankStatement>where(Specs.equal("bankAccount", bankAccount))
+            .and(Specs.equal("reconciliationStatus", reconciliationStatus))
+            .and(Specs.equal("transactionType", transactionType))
+            .and(Specs.between("transactionDate", startDate, endDate))
+            .and(Specs.contains(keyword, "transactionNo", "counterparty", "purpose"));
+        return keysetPager.page(BankStatement.class, filter, query, SORTABLE_FIELDS);
+    }
+
     public BankStatement findById(Long id) {
         return bankStatementRepository.findById(id).orElse(null);
     }
@@ -51,68 +88,72 @@ public class BankStatementService {
 
     @Transactional
     public BankStatement save(BankStatement statement) {
-        return bankStatementRepository.save(statement);
+        boolean created = statement.getId() == null;
+        checkDuplicate(statement);
+        BankStatement saved = bankStatementRepository.save(statement);
+        domainEventBus.publish(savedEvent(saved, created));
+        return saved;
     }
 
     @Transactional
     public List<BankStatement> batchSave(List<BankStatement> statements) {
-        return bankStatementRepository.saveAll(statements);
+        List<Boolean> created = new ArrayList<>(statements.size());
+        for (BankStatement statement : statements) {
+            created.add(statement.getId() == null);
+        }
+        checkDuplicates(statements);
+        List<BankStatement> saved = bankStatementRepository.saveAll(statements);
+        List<DomainEvent> events = new ArrayList<>(saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            events.add(savedEvent(saved.get(i), created.get(i)));
+        }
+        domainEventBus.publishAll(events);
+        return saved;
     }
 
+    /**
+     * 删除银行流水，已匹配的先解除所在匹配组，组内其他流水恢复为未对账
+     */
     @Transactional
     public void delete(Long id) {
+        Set<Long> statementIds = releaseMatchGroups(bankStatementMatchRepository.findByBankStatementId(id),
+            new HashSet<>());
         bankStatementRepository.deleteById(id);
+        statementIds.remove(id);
+        if (!statementIds.isEmpty()) {
+            domainEventBus.publish(DomainEvent.of(DomainEvent.BANK_STATEMENT, DomainEvent.UNMATCHED,
+                    statementIds.iterator().next(), null)
+                .with("statementIds", new ArrayList<>(statementIds)));
+        }
+        domainEventBus.publish(DomainEvent.deleted(DomainEvent.BANK_STATEMENT, id));
     }
 
     /**
-     * 自动匹配银行流水和会计分录
+     * 会计分录删除时解除其参与的匹配组，组内流水恢复为未对账
+     *
+     * @param journalEntryId 会计分录ID
      */
     @Transactional
-    public Map<String, Object> autoMatch(String bankAccount, LocalDate startDate, LocalDate endDate) {
-        // 获取未对账的银行流水
-        List<BankStatement> statements = bankStatementRepository
-            .findByBankAccountAndTransactionDateBetween(bankAccount, startDate, endDate)
-            .stream()
-            .filter(s -> "未对账".equals(s.getReconciliationStatus()))
-            .collect(Collectors.toList());
-
-        // 获取同期间已过账的会计分录（涉及银行存款科目）
-        List<JournalEntry> entries = journalEntryRepository
-            .findByEntryDateBetweenAndStatus(startDate, endDate, "已过账");
-
-        int matchedCount = 0;
-        List<Map<String, Object>> matchedPairs = new ArrayList<>();
-
-        // 简单匹配逻辑：金额和日期匹配
-        for (BankStatement statement : statements) {
-            for (JournalEntry entry : entries) {
-                if (entry.getEntryDate().equals(statement.getTransactionDate()) &&
-                    entry.getTotalAmount().compareTo(statement.getAmount()) == 0) {
-                    
-                    // 匹配成功
-                    statement.setReconciliationStatus("已对账");
-                    statement.setMatchedJournalEntryId(entry.getId());
-                    statement.setReconciliationDate(LocalDate.now());
-                    bankStatementRepository.save(statement);
-                    
-                    matchedCount++;
-                    
-                    Map<String, Object> pair = new HashMap<>();
-                    pair.put("statement", statement);
-                    pair.put("entry", entry);
-                    matchedPairs.add(pair);
-                    
-                    break; // 找到匹配后跳出
-                }
-            }
+    public void releaseJournalEntryMatches(Long journalEntryId) {
+        Set<Long> statementIds = releaseMatchGroups(bankStatementMatchRepository.findByJournalEntryId(journalEntryId),
+            new HashSet<>());
+        if (!statementIds.isEmpty()) {
+            domainEventBus.publish(DomainEvent.of(DomainEvent.BANK_STATEMENT, DomainEvent.UNMATCHED,
+                    statementIds.iterator().next(), null)
+                .with("statementIds", new ArrayList<>(statementIds))
+                .with("journalEntryIds", Collections.singletonList(journalEntryId)));
         }
+    }
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("matchedCount", matchedCount);
-        result.put("totalStatements", statements.size());
-        result.put("matchedPairs", matchedPairs);
-        
-        return result;
+    /**
+     * 自动匹配银行流水和会计分录
+     *
+     * @param toleranceDays 日期容差（天），为空时使用配置值
+     * @see BankMatchEngine
+     */
+    public Map<String, Object> autoMatch(String bankAccount, LocalDate startDate, LocalDate endDate,
+                                         Integer toleranceDays) {
+        return bankMatchEngine.match(bankAccount, startDate, endDate, toleranceDays);
     }
 
     /**
@@ -122,27 +163,123 @@ public class BankStatementService {
     public void manualMatch(Long statementId, Long journalEntryId) {
         BankStatement statement = bankStatementRepository.findById(statementId)
             .orElseThrow(() -> new RuntimeException("银行流水不存在"));
-        
+        if (!journalEntryRepository.existsById(journalEntryId)) {
+            throw new RuntimeException("会计分录不存在");
+        }
+        if (!bankStatementMatchRepository.findByBankStatementId(statementId).isEmpty()) {
+            throw new RuntimeException("该银行流水已匹配，请先取消匹配");
+        }
+        if (bankStatementMatchRepository.existsByJournalEntryId(journalEntryId)) {
+            throw new RuntimeException("该会计分录已与其他银行流水匹配");
+        }
+
+        BankStatementMatch match = new BankStatementMatch();
+        match.setBankStatementId(statementId);
+        match.setJournalEntryId(journalEntryId);
+        match.setMatchGroup(UUID.randomUUID().toString());
+        match.setMatchType("手工");
+        bankStatementMatchRepository.save(match);
+
         statement.setReconciliationStatus("已对账");
         statement.setMatchedJournalEntryId(journalEntryId);
         statement.setReconciliationDate(LocalDate.now());
         
         bankStatementRepository.save(statement);
+        domainEventBus.publish(DomainEvent.of(DomainEvent.BANK_STATEMENT, DomainEvent.MATCHED,
+                statementId, statement.getTransactionNo())
+            .with("matchType", match.getMatchType())
+            .with("statementIds", Collections.singletonList(statementId))
+            .with("journalEntryIds", Collections.singletonList(journalEntryId)));
     }
 
     /**
-     * 取消匹配
+     * 取消匹配，同一匹配组内的其他流水一并取消
      */
     @Transactional
     public void unmatch(Long statementId) {
         BankStatement statement = bankStatementRepository.findById(statementId)
             .orElseThrow(() -> new RuntimeException("银行流水不存在"));
-        
-        statement.setReconciliationStatus("未对账");
-        statement.setMatchedJournalEntryId(null);
-        statement.setReconciliationDate(null);
-        
-        bankStatementRepository.save(statement);
+
+        Set<Long> statementIds = new HashSet<>();
+        statementIds.add(statementId);
+        releaseMatchGroups(bankStatementMatchRepository.findByBankStatementId(statementId), statementIds);
+        domainEventBus.publish(DomainEvent.of(DomainEvent.BANK_STATEMENT, DomainEvent.UNMATCHED,
+                statementId, statement.getTransactionNo())
+            .with("statementIds", new ArrayList<>(statementIds)));
+    }
+
+    /**
+     * 同一银行账号下交易流水号不能重复
+     */
+    private void checkDuplicate(BankStatement statement) {
+        boolean exists = statement.getId() == null
+            ? bankStatementRepository.existsByBankAccountAndTransactionNo(
+                statement.getBankAccount(), statement.getTransactionNo())
+            : bankStatementRepository.existsByBankAccountAndTransactionNoAndIdNot(
+                statement.getBankAccount(), statement.getTransactionNo(), statement.getId());
+        if (exists) {
+            throw new RuntimeException("银行账号" + statement.getBankAccount() + "下已有交易流水号"
+                + statement.getTransactionNo());
+        }
+    }
+
+    /**
+     * 批量保存前的重复检查：列表内不能重复，新增流水按银行账号一次查询已存在的交易流水号
+     */
+    private void checkDuplicates(List<BankStatement> statements) {
+        Set<String> keys = new HashSet<>();
+        Map<String, List<String>> newByAccount = new HashMap<>();
+        for (BankStatement statement : statements) {
+            if (!keys.add(statement.getBankAccount() + "|" + statement.getTransactionNo())) {
+                throw new RuntimeException("银行账号" + statement.getBankAccount() + "下交易流水号"
+                    + statement.getTransactionNo() + "重复");
+            }
+            if (statement.getId() == null) {
+                newByAccount.computeIfAbsent(statement.getBankAccount(), account -> new ArrayList<>())
+                    .add(statement.getTransactionNo());
+            } else {
+                checkDuplicate(statement);
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : newByAccount.entrySet()) {
+            List<String> existing = bankStatementRepository.findExistingTransactionNos(entry.getKey(), entry.getValue());
+            if (!existing.isEmpty()) {
+                throw new RuntimeException("银行账号" + entry.getKey() + "下已有交易流水号" + existing.get(0));
+            }
+        }
+    }
+
+    /**
+     * 删除匹配关系所在的整个匹配组，组内流水和 statementIds 中的流水一并恢复为未对账
+     *
+     * @param matches 匹配关系
+     * @param statementIds 需要恢复的流水ID，组内流水会加入其中
+     * @return statementIds
+     */
+    private Set<Long> releaseMatchGroups(List<BankStatementMatch> matches, Set<Long> statementIds) {
+        Set<String> matchGroups = new HashSet<>();
+        for (BankStatementMatch match : matches) {
+            matchGroups.add(match.getMatchGroup());
+        }
+        for (String matchGroup : matchGroups) {
+            for (BankStatementMatch match : bankStatementMatchRepository.findByMatchGroup(matchGroup)) {
+                statementIds.add(match.getBankStatementId());
+            }
+            bankStatementMatchRepository.deleteByMatchGroup(matchGroup);
+        }
+
+        for (BankStatement grouped : bankStatementRepository.findAllById(statementIds)) {
+            grouped.setReconciliationStatus("未对账");
+            grouped.setMatchedJournalEntryId(null);
+            grouped.setReconciliationDate(null);
+            bankStatementRepository.save(grouped);
+        }
+        return statementIds;
+    }
+
+    private static DomainEvent savedEvent(BankStatement statement, boolean created) {
+        return DomainEvent.saved(DomainEvent.BANK_STATEMENT, created, statement.getId(), statement.getTransactionNo())
+            .with("bankAccount", statement.getBankAccount());
     }
 
     /**
@@ -0,0 +1,137 @@
+package com.finance.service;
+
+import com.finance.entity.BusinessPosting;
+import com.finance.entity.JournalEntry;
+import com.finance.repository.BusinessPostingRepository;
+import com.finance.repository.JournalEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 业务单据与凭证关联服务类
+ *
+ * <p>凭证的业务类型为销售、采购、员工费用且填写了业务ID时，视为该单据的凭证。
+ * 不论凭证由 {@link PostingEngine} 生成、手工录入还是批量导入，都写入一条生成记录
+ * （{@link BusinessPosting}），"业务类型 + 业务单据ID"唯一，一张单据只能关联一张凭证；
+ * 生成凭证时也排除已有关联凭证的单据。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see BusinessPosting
+ */
+@Service
+public class BusinessPostingService {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO business_posting (business_type, business_id, journal_entry_id, created_at) VALUES (?, ?, ?, ?)";
+
+    @Autowired
+    private BusinessPostingRepository businessPostingRepository;
+
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 凭证是否关联了可生成凭证的业务单据
+     *
+     * @param businessType 业务类型
+     * @param businessId 业务单据ID
+     * @return 关联时返回true
+     */
+    public static boolean isDocumentLink(String businessType, Long businessId) {
+        return businessId != null && PostingEngine.BUSINESS_TYPES.contains(businessType);
+    }
+
+    /**
+     * 校验业务单据尚未关联其他凭证
+     *
+     * @param businessType 业务类型
+     * @param businessId 业务单据ID
+     * @param journalEntryId 当前凭证ID，新增时为null
+     * @throws RuntimeException 单据已关联其他凭证时抛出
+     */
+    public void assertUnlinked(String businessType, Long businessId, Long journalEntryId) {
+        if (!isDocumentLink(businessType, businessId)) {
+            return;
+        }
+        BusinessPosting posting = businessPostingRepository
+            .findByBusinessTypeAndBusinessId(businessType, businessId).orElse(null);
+        if (posting != null && !posting.getJournalEntryId().equals(journalEntryId)) {
+            throw linked(businessType, businessId, journalEntryRepository.findById(posting.getJournalEntryId())
+                .map(JournalEntry::getVoucherNo).orElse("ID=" + posting.getJournalEntryId()));
+        }
+        for (JournalEntry entry : journalEntryRepository.findByBusinessTypeAndBusinessId(businessType, businessId)) {
+            if (!entry.getId().equals(journalEntryId)) {
+                throw linked(businessType, businessId, entry.getVoucherNo());
+            }
+        }
+    }
+
+    /**
+     * 凭证保存后更新其关联记录，需在保存凭证的同一事务中调用
+     *
+     * @param entry 保存后的凭证
+     */
+    public void link(JournalEntry entry) {
+        boolean documentLink = isDocumentLink(entry.getBusinessType(), entry.getBusinessId());
+        if (documentLink) {
+            BusinessPosting current = businessPostingRepository.findByBusinessTypeAndBusinessId(
+                entry.getBusinessType(), entry.getBusinessId()).orElse(null);
+            if (current != null && Objects.equals(current.getJournalEntryId(), entry.getId())) {
+                return;
+            }
+        }
+        // 关联的单据变化或取消关联时，先删除原记录
+        businessPostingRepository.deleteByJournalEntryId(entry.getId());
+        if (documentLink) {
+            BusinessPosting posting = new BusinessPosting();
+            posting.setBusinessType(entry.getBusinessType());
+            posting.setBusinessId(entry.getBusinessId());
+            posting.setJournalEntryId(entry.getId());
+            businessPostingRepository.save(posting);
+        }
+    }
+
+    /**
+     * 为批量写入的凭证写入关联记录，需在写入凭证的同一事务中调用
+     *
+     * @param entries 已写入、带有ID的凭证，未关联业务单据的忽略
+     */
+    public void linkAll(List<JournalEntry> entries) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (JournalEntry entry : entries) {
+            if (isDocumentLink(entry.getBusinessType(), entry.getBusinessId())) {
+                rows.add(new Object[]{entry.getBusinessType(), entry.getBusinessId(), entry.getId(), now});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    /**
+     * 凭证删除后删除其关联记录，单据可以重新生成凭证
+     *
+     * @param journalEntryId 凭证ID
+     */
+    public void unlink(Long journalEntryId) {
+        businessPostingRepository.deleteByJournalEntryId(journalEntryId);
+    }
+
+    private static RuntimeException linked(String businessType, Long businessId, String voucherNo) {
+        return new RuntimeException(businessType + "单据(ID=" + businessId + ")已关联凭证 " + voucherNo
+            + "，一张单据只能关联一张凭证");
+    }
+}
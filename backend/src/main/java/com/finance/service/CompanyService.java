@@ -1,11 +1,19 @@
 package com.finance.service;
 
+import com.finance.common.CursorPage;
+import com.finance.common.KeysetPager;
+import com.finance.common.PageQuery;
+import com.finance.common.Specs;
 import com.finance.entity.Company;
 import com.finance.repository.CompanyRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 企业信息业务逻辑服务类
@@ -22,10 +30,18 @@ import java.util.List;
 @Service
 public class CompanyService {
     
+    /** 分页查询允许的排序字段（除ID外） */
+    private static final Set<String> SORTABLE_FIELDS = new HashSet<>(
+        Arrays.asList("name", "createdAt"));
+    
     /** 企业信息数据访问对象 */
     @Autowired
     private CompanyRepository companyRepository;
 
+    /** 游标分页查询工具 */
+    @Autowired
+    private KeysetPager keysetPager;
+
     /**
      * 查询所有企业信息
      * 
@@ -35,6 +51,18 @@ public class CompanyService {
         return companyRepository.findAll();
     }
 
+    /**
+     * 游标分页查询
+     * 过滤条件为空时忽略
+     * 
+     * @param query 分页参数
+     * @return 分页结果
+     */
+    public CursorPage<Company> page(String keyword, PageQuery query) {
+        Specification<Company> filter = Specification.<Company>where(Specs.contains(keyword, "name"));
+        return keysetPager.page(Company.class, filter, query, SORTABLE_FIELDS);
+    }
+
     /**
      * 根据ID查询企业信息
      * 
@@ -1,22 +1,43 @@
 package com.finance.service;
 
+import com.finance.common.CursorPage;
+import com.finance.common.KeysetPager;
+import com.finance.common.PageQuery;
+import com.finance.common.Specs;
 import com.finance.entity.Customer;
 import com.finance.repository.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class CustomerService {
     
+    private static final Set<String> SORTABLE_FIELDS = new HashSet<>(
+        Arrays.asList("code", "name", "createdAt"));
+    
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private KeysetPager keysetPager;
+
     public List<Customer> findAll() {
         return customerRepository.findAll();
     }
 
+    public CursorPage<Customer> page(String status, String category, String keyword, PageQuery query) {
+        Specification<Customer> filter = Specification.<Customer>where(Specs.equal("status", status))
+            .and(Specs.equal("category", category))
+            .and(Specs.contains(keyword, "code", "name"));
+        return keysetPager.page(Customer.class, filter, query, SORTABLE_FIELDS);
+    }
+
     public Customer findById(Long id) {
         return customerRepository.findById(id).orElse(null);
     }
@@ -0,0 +1,430 @@
+package com.finance.service;
+
+import com.finance.entity.EmployeeExpense;
+import com.finance.entity.JournalEntry;
+import com.finance.entity.PurchaseOrder;
+import com.finance.entity.SalesInvoice;
+import com.finance.event.DomainEvent;
+import com.finance.event.DomainEventSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 首页看板数据服务
+ *
+ * <p>各类单据的数量和最新单据列表保存在内存中，看板接口直接返回内存数据，不查询数据库：</p>
+ * <ul>
+ *   <li>应用启动后从数据库加载一次，此后订阅 {@link DomainEvent} 增量更新：
+ *       新增加一、删除减一，最新列表相应插入或移除；一批事件处理完后只生成、推送一次</li>
+ *   <li>最新列表中的单据被删除、或批量导入后，只重新加载该类单据的数据（写入时查询，与看板访问量无关）</li>
+ *   <li>每隔一段时间从数据库完整重新加载一次，纠正可能的偏差（如直接改库）</li>
+ * </ul>
+ *
+ * <p>重新加载在一个可重复读的只读事务中进行，同时读取该类单据已提交、尚未投递完成的事件序号：
+ * 这些事件的变动已包含在加载结果中，之后投递到时直接忽略，避免同一变动既计入加载结果又被增量计入一次；
+ * 加载后才提交的事件不在其中，投递到时照常计入。出站记录ID的提交顺序不定，不能以最大序号作为分界。</p>
+ *
+ * <p>数据变化后通过 Server-Sent Events 推送给已订阅的客户端，推送在独立线程中进行，
+ * 连续多次变化只推送最新的一份；空闲连接定时发送注释行保活。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see DomainEvent
+ */
+@Slf4j
+@Service
+public class DashboardService implements DomainEventSubscriber {
+
+    /** 推送事件名 */
+    public static final String SSE_EVENT = "dashboard";
+
+    /** 单据类型 -> 看板中的数量字段、最新列表字段、单据编号字段 */
+    private static final String[][] DOCUMENT_FIELDS = {
+        {DomainEvent.JOURNAL_ENTRY, "journalEntryCount", "journalEntries", "voucherNo"},
+        {DomainEvent.PURCHASE_ORDER, "purchaseOrderCount", "purchaseOrders", "orderNo"},
+        {DomainEvent.SALES_INVOICE, "salesInvoiceCount", "salesInvoices", "invoiceNo"},
+        {DomainEvent.EMPLOYEE_EXPENSE, "employeeExpenseCount", "employeeExpenses", "expenseNo"}
+    };
+
+    @Autowired
+    private JournalEntryService journalEntryService;
+
+    @Autowired
+    private PurchaseOrderService purchaseOrderService;
+
+    @Autowired
+    private SalesInvoiceService salesInvoiceService;
+
+    @Autowired
+    private EmployeeExpenseService employeeExpenseService;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    /** 每类单据保留的最新单据条数 */
+    @Value("${finance.dashboard.latest-size:3}")
+    private int latestSize;
+
+    /** 完整重新加载的间隔（分钟），0表示不定时重新加载 */
+    @Value("${finance.dashboard.resync-minutes:10}")
+    private long resyncMinutes;
+
+    /** 推送连接的超时时间（分钟），超时后客户端自动重连 */
+    @Value("${finance.dashboard.sse-timeout-minutes:30}")
+    private long sseTimeoutMinutes;
+
+    /** 保活注释的发送间隔（秒） */
+    @Value("${finance.dashboard.heartbeat-seconds:30}")
+    private long heartbeatSeconds;
+
+    /** 单据类型 -> 数量，读写均在 this 上同步 */
+    private final Map<String, Long> counts = new HashMap<>();
+
+    /** 单据类型 -> 最新单据，按创建时间倒序 */
+    private final Map<String, List<Map<String, Object>>> latest = new HashMap<>();
+
+    /** 单据类型 -> 最近一次重新加载时尚未投递完成的事件序号，这些事件已包含在加载结果中 */
+    private final Map<String, Set<Long>> coveredByReload = new HashMap<>();
+
+    /** 重新加载使用的只读事务模板，数量、最新列表和未投递事件读自同一快照 */
+    private final TransactionTemplate reloadTemplate;
+
+    private boolean loaded;
+
+    /** 最近一次生成的看板数据，只读 */
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), Collections.emptyMap());
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean pushPending = new AtomicBoolean();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dashboard-push");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public DashboardService(PlatformTransactionManager transactionManager) {
+        this.reloadTemplate = new TransactionTemplate(transactionManager);
+        this.reloadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.reloadTemplate.setReadOnly(true);
+    }
+
+    /**
+     * 启动后加载数据并开始定时任务
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reloadAll();
+        if (resyncMinutes > 0) {
+            scheduler.scheduleWithFixedDelay(this::resync, resyncMinutes, resyncMinutes, TimeUnit.MINUTES);
+        }
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        for (SseEmitter emitter : emitters) {
+            emitter.complete();
+        }
+        emitters.clear();
+    }
+
+    /**
+     * 首页统计数据：各类单据数量
+     *
+     * @return 统计数据
+     */
+    public Map<String, Object> getStatistics() {
+        ensureLoaded();
+        return snapshot.statistics;
+    }
+
+    /**
+     * 最新业务通知：各类单据最新的若干条
+     *
+     * @return 通知数据
+     */
+    public Map<String, Object> getNotifications() {
+        ensureLoaded();
+        return snapshot.notifications;
+    }
+
+    /**
+     * 订阅看板数据推送，连接建立后立即发送一次当前数据
+     *
+     * @return 推送连接
+     */
+    public SseEmitter subscribe() {
+        ensureLoaded();
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(sseTimeoutMinutes));
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(error -> emitters.remove(emitter));
+        emitters.add(emitter);
+        send(emitter, snapshot);
+        return emitter;
+    }
+
+    @Override
+    public boolean accepts(DomainEvent event) {
+        return numberField(event.getDocumentType()) != null;
+    }
+
+    /**
+     * 按一批单据变动事件更新内存数据
+     *
+     * @param events 单据变动事件
+     */
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        synchronized (this) {
+            if (!loaded) {
+                return;
+            }
+            Set<String> reloads = new HashSet<>();
+            for (DomainEvent event : events) {
+                apply(event, reloads);
+            }
+            if (!reloads.isEmpty()) {
+                reload(reloads);
+            }
+            publish();
+        }
+    }
+
+    /**
+     * 应用一个事件，需要从数据库补齐的单据类型加入 reloads，调用方持有 this 的锁
+     */
+    private void apply(DomainEvent event, Set<String> reloads) {
+        String type = event.getDocumentType();
+        Set<Long> covered = coveredByReload.get(type);
+        if (covered != null && event.getSequence() != null && covered.remove(event.getSequence())) {
+            return;
+        }
+        List<Map<String, Object>> items = latest.get(type);
+        switch (event.getAction()) {
+            case DomainEvent.CREATED:
+                counts.merge(type, 1L, Long::sum);
+                if (indexOf(items, event.getId()) < 0) {
+                    items.add(0, item(type, event.getId(), event.getDocumentNo(), event.getOccurredAt()));
+                    if (items.size() > latestSize) {
+                        items.remove(items.size() - 1);
+                    }
+                }
+                break;
+            case DomainEvent.UPDATED:
+            case DomainEvent.POSTED:
+                int index = indexOf(items, event.getId());
+                if (index >= 0) {
+                    items.get(index).put(numberField(type), event.getDocumentNo());
+                }
+                break;
+            case DomainEvent.DELETED:
+                counts.merge(type, -1L, Long::sum);
+                if (indexOf(items, event.getId()) >= 0) {
+                    // 最新列表少了一条，需要从数据库补齐
+                    reloads.add(type);
+                }
+                break;
+            case DomainEvent.BULK:
+                reloads.add(type);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            reloadAll();
+        }
+    }
+
+    private void resync() {
+        try {
+            reloadAll();
+        } catch (RuntimeException e) {
+            log.warn("重新加载看板数据失败：{}", e.getMessage());
+        }
+    }
+
+    private synchronized void reloadAll() {
+        List<String> types = new ArrayList<>();
+        for (String[] fields : DOCUMENT_FIELDS) {
+            types.add(fields[0]);
+        }
+        reload(types);
+        loaded = true;
+        publish();
+    }
+
+    /**
+     * 在同一只读事务中重新加载若干类单据，调用方持有 this 的锁
+     */
+    private void reload(Collection<String> types) {
+        reloadTemplate.executeWithoutResult(status -> {
+            for (String type : types) {
+                reload(type);
+            }
+        });
+    }
+
+    /**
+     * 从数据库重新加载一类单据的数量和最新列表，并记录此时尚未投递完成的事件，调用方持有 this 的锁
+     */
+    private void reload(String type) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        long count;
+        switch (type) {
+            case DomainEvent.JOURNAL_ENTRY:
+                count = journalEntryService.count();
+                for (JournalEntry entry : journalEntryService.getLatest(latestSize)) {
+                    items.add(item(type, entry.getId(), entry.getVoucherNo(), entry.getCreatedAt()));
+                }
+                break;
+            case DomainEvent.PURCHASE_ORDER:
+                count = purchaseOrderService.count();
+                for (PurchaseOrder order : purchaseOrderService.getLatest(latestSize)) {
+                    items.add(item(type, order.getId(), order.getOrderNo(), order.getCreatedAt()));
+                }
+                break;
+            case DomainEvent.SALES_INVOICE:
+                count = salesInvoiceService.count();
+                for (SalesInvoice invoice : salesInvoiceService.getLatest(latestSize)) {
+                    items.add(item(type, invoice.getId(), invoice.getInvoiceNo(), invoice.getCreatedAt()));
+                }
+                break;
+            case DomainEvent.EMPLOYEE_EXPENSE:
+                count = employeeExpenseService.count();
+                for (EmployeeExpense expense : employeeExpenseService.getLatest(latestSize)) {
+                    items.add(item(type, expense.getId(), expense.getExpenseNo(), expense.getCreatedAt()));
+                }
+                break;
+            default:
+                return;
+        }
+        counts.put(type, count);
+        latest.put(type, items);
+        coveredByReload.put(type, domainEventBus.pendingSequences(type));
+    }
+
+    /**
+     * 由当前内存数据生成新的只读快照，并安排一次推送，调用方持有 this 的锁
+     */
+    private void publish() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        Map<String, Object> notifications = new LinkedHashMap<>();
+        for (String[] fields : DOCUMENT_FIELDS) {
+            statistics.put(fields[1], counts.getOrDefault(fields[0], 0L));
+            List<Map<String, Object>> items = new ArrayList<>();
+            for (Map<String, Object> item : latest.getOrDefault(fields[0], Collections.emptyList())) {
+                items.add(Collections.unmodifiableMap(new LinkedHashMap<>(item)));
+            }
+            notifications.put(fields[2], Collections.unmodifiableList(items));
+        }
+        snapshot = new Snapshot(Collections.unmodifiableMap(statistics), Collections.unmodifiableMap(notifications));
+        if (!emitters.isEmpty() && pushPending.compareAndSet(false, true)) {
+            scheduler.execute(this::push);
+        }
+    }
+
+    private void push() {
+        pushPending.set(false);
+        Snapshot current = snapshot;
+        for (SseEmitter emitter : emitters) {
+            send(emitter, current);
+        }
+    }
+
+    private void heartbeat() {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    private void send(SseEmitter emitter, Snapshot data) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("statistics", data.statistics);
+        payload.put("notifications", data.notifications);
+        try {
+            emitter.send(SseEmitter.event().name(SSE_EVENT).data(payload, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开，连接由容器回调清理
+            emitters.remove(emitter);
+        }
+    }
+
+    private static Map<String, Object> item(String type, Long id, String documentNo, LocalDateTime createdAt) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", id);
+        item.put(numberField(type), documentNo);
+        item.put("createdAt", createdAt);
+        return item;
+    }
+
+    private static String numberField(String type) {
+        for (String[] fields : DOCUMENT_FIELDS) {
+            if (fields[0].equals(type)) {
+                return fields[3];
+            }
+        }
+        return null;
+    }
+
+    private static int indexOf(List<Map<String, Object>> items, Long id) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).get("id").equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 看板数据快照
+     */
+    private static class Snapshot {
+        private final Map<String, Object> statistics;
+        private final Map<String, Object> notifications;
+
+        private Snapshot(Map<String, Object> statistics, Map<String, Object> notifications) {
+            this.statistics = statistics;
+            this.notifications = notifications;
+        }
+    }
+}
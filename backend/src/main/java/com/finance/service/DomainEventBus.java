@@ -0,0 +1,279 @@
+package com.finance.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.entity.DomainEventOutbox;
+import com.finance.event.DomainEvent;
+import com.finance.event.DomainEventSubscriber;
+import com.finance.repository.DomainEventOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 领域事件总线
+ *
+ * <p>采用事务出站表（transactional outbox）：</p>
+ * <ul>
+ *   <li>发布：事件写入 {@link DomainEventOutbox}，与业务变动在同一事务中提交或回滚</li>
+ *   <li>投递：事务提交后唤醒单一的投递线程，按出站记录ID顺序每次读取一批未投递的事件，
+ *       依次交给各订阅方，再记录投递时间；同一单据的事件总是按发生顺序投递</li>
+ *   <li>补偿：投递线程另按固定间隔检查未投递的记录，应用在提交后、投递前退出的，重启后继续投递</li>
+ *   <li>清理：已投递的记录保留一段时间后删除</li>
+ * </ul>
+ *
+ * <p>订阅方为实现 {@link DomainEventSubscriber} 的Bean，在投递时才查找，
+ * 因此订阅方可以依赖发布事件的业务服务而不形成循环依赖。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see DomainEvent
+ */
+@Slf4j
+@Service
+public class DomainEventBus {
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
+    @Autowired
+    private DomainEventOutboxRepository outboxRepository;
+
+    @Autowired
+    private ObjectProvider<DomainEventSubscriber> subscribers;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** 每批投递的最大事件数 */
+    @Value("${finance.event-bus.batch-size:200}")
+    private int batchSize;
+
+    /** 检查未投递记录的间隔（毫秒） */
+    @Value("${finance.event-bus.poll-interval-ms:5000}")
+    private long pollIntervalMs;
+
+    /** 已投递记录的保留时间（小时） */
+    @Value("${finance.event-bus.retention-hours:24}")
+    private long retentionHours;
+
+    /** 投递线程读取和标记出站记录使用的事务模板 */
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean drainPending = new AtomicBoolean();
+
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "domain-event-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public DomainEventBus(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 启动后投递遗留的事件并开始定时检查
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        dispatcher.scheduleWithFixedDelay(this::drain, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        dispatcher.scheduleWithFixedDelay(this::purge, 1, 1, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * 发布事件，在当前事务提交后投递；没有事务时立即写入并投递
+     *
+     * @param event 事件
+     */
+    public void publish(DomainEvent event) {
+        publishAll(Collections.singletonList(event));
+    }
+
+    /**
+     * 发布一组事件，按列表顺序投递
+     *
+     * @param events 事件列表
+     */
+    public void publishAll(List<DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<DomainEventOutbox> records = new ArrayList<>(events.size());
+        for (DomainEvent event : events) {
+            records.add(toRecord(event));
+            meterRegistry.counter("finance.events.published",
+                "type", event.getDocumentType(), "action", event.getAction()).increment();
+        }
+        outboxRepository.saveAll(records);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wake();
+                }
+            });
+        } else {
+            wake();
+        }
+    }
+
+    /**
+     * 某类单据已提交、尚未投递完成的事件序号
+     * 订阅方从数据库重新加载时在同一事务中读取，这些事件的变动已包含在加载结果中，之后投递到时应忽略；
+     * 出站记录ID按写入顺序分配、但提交顺序不定，因此不能以最大序号作为分界
+     *
+     * @param documentType 单据类型
+     * @return 事件序号集合
+     */
+    public Set<Long> pendingSequences(String documentType) {
+        return new HashSet<>(outboxRepository.findUnpublishedIds(documentType));
+    }
+
+    /**
+     * 唤醒投递线程，已有待执行的投递时不重复安排
+     */
+    private void wake() {
+        if (drainPending.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 应用关闭中，未投递的记录在下次启动时投递
+                drainPending.set(false);
+            }
+        }
+    }
+
+    /**
+     * 投递全部未投递的事件，每次一批
+     */
+    private void drain() {
+        drainPending.set(false);
+        try {
+            while (true) {
+                List<DomainEventOutbox> batch = outboxRepository.findByPublishedAtIsNullOrderByIdAsc(
+                    PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    return;
+                }
+                deliver(batch);
+                List<Long> ids = new ArrayList<>(batch.size());
+                for (DomainEventOutbox record : batch) {
+                    ids.add(record.getId());
+                }
+                LocalDateTime now = LocalDateTime.now();
+                transactionTemplate.executeWithoutResult(status -> outboxRepository.markPublished(ids, now));
+                if (batch.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            // 定时任务抛出异常会被取消，这里吞掉，下次检查时重试
+            log.warn("投递领域事件失败：{}", e.getMessage(), e);
+        }
+    }
+
+    private void deliver(List<DomainEventOutbox> batch) {
+        List<DomainEvent> events = new ArrayList<>(batch.size());
+        for (DomainEventOutbox record : batch) {
+            events.add(toEvent(record));
+        }
+        subscribers.orderedStream().forEach(subscriber -> {
+            List<DomainEvent> accepted = new ArrayList<>();
+            for (DomainEvent event : events) {
+                if (subscriber.accepts(event)) {
+                    accepted.add(event);
+                }
+            }
+            if (accepted.isEmpty()) {
+                return;
+            }
+            try {
+                subscriber.onEvents(Collections.unmodifiableList(accepted));
+            } catch (RuntimeException e) {
+                String name = subscriber.getClass().getSimpleName();
+                meterRegistry.counter("finance.events.delivery.failures", "subscriber", name).increment();
+                log.warn("订阅方 {} 处理领域事件失败：{}", name, e.getMessage(), e);
+            }
+        });
+        meterRegistry.counter("finance.events.delivered").increment(events.size());
+    }
+
+    private void purge() {
+        try {
+            LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+            Integer deleted = transactionTemplate.execute(status -> outboxRepository.deletePublishedBefore(before));
+            if (deleted != null && deleted > 0) {
+                log.info("清理已投递的领域事件 {} 条", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("清理领域事件失败：{}", e.getMessage());
+        }
+    }
+
+    private DomainEventOutbox toRecord(DomainEvent event) {
+        DomainEventOutbox record = new DomainEventOutbox();
+        record.setDocumentType(event.getDocumentType());
+        record.setAction(event.getAction());
+        record.setDocumentId(event.getId());
+        record.setDocumentNo(event.getDocumentNo());
+        record.setOccurredAt(event.getOccurredAt());
+        if (event.getPayload() != null && !event.getPayload().isEmpty()) {
+            try {
+                record.setPayload(objectMapper.writeValueAsString(event.getPayload()));
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("领域事件附加数据无法序列化：" + e.getMessage(), e);
+            }
+        }
+        return record;
+    }
+
+    private DomainEvent toEvent(DomainEventOutbox record) {
+        Map<String, Object> payload = Collections.emptyMap();
+        if (record.getPayload() != null) {
+            try {
+                payload = objectMapper.readValue(record.getPayload(), PAYLOAD_TYPE);
+            } catch (JsonProcessingException e) {
+                log.warn("领域事件 {} 的附加数据无法解析：{}", record.getId(), e.getMessage());
+            }
+        }
+        return new DomainEvent(record.getId(), record.getDocumentType(), record.getAction(), record.getDocumentId(),
+            record.getDocumentNo(), Collections.unmodifiableMap(payload), record.getOccurredAt());
+    }
+}
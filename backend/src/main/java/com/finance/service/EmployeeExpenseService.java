@@ -1,24 +1,55 @@
 package com.finance.service;
 
+import com.finance.common.CursorPage;
+import com.finance.common.KeysetPager;
+import com.finance.common.PageQuery;
+import com.finance.common.Specs;
 import com.finance.entity.EmployeeExpense;
+import com.finance.event.DomainEvent;
 import com.finance.repository.EmployeeExpenseRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class EmployeeExpenseService {
     
+    private static final Set<String> SORTABLE_FIELDS = new HashSet<>(
+        Arrays.asList("expenseNo", "expenseDate", "amount", "createdAt"));
+    
     @Autowired
     private EmployeeExpenseRepository employeeExpenseRepository;
 
+    @Autowired
+    private NumberSequenceService numberSequenceService;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
     public List<EmployeeExpense> findAll() {
         return employeeExpenseRepository.findAll();
     }
 
+    public CursorPage<EmployeeExpense> page(Long employeeId, String status, String expenseType,
+                                            LocalDate startDate, LocalDate endDate, String keyword,
+                                            PageQuery query) {
+        Specification<EmployeeExpense> filter = Specification.<EmployeeExpense>where(Specs.equal("employee.id", employeeId))
+            .and(Specs.equal("status", status))
+            .and(Specs.equal("expenseType", expenseType))
+            .and(Specs.between("expenseDate", startDate, endDate))
+            .and(Specs.contains(keyword, "expenseNo", "description"));
+        return keysetPager.page(EmployeeExpense.class, filter, query, SORTABLE_FIELDS);
+    }
+
     public EmployeeExpense findById(Long id) {
         return employeeExpenseRepository.findById(id).orElse(null);
     }
@@ -35,24 +66,37 @@ public class EmployeeExpenseService {
         return employeeExpenseRepository.count();
     }
 
+    public List<EmployeeExpense> getLatest(int limit) {
+        return employeeExpenseRepository.findAll(
+            org.springframework.data.domain.PageRequest.of(0, limit, 
+            org.springframework.data.domain.Sort.by(
+                org.springframework.data.domain.Sort.Direction.DESC, "createdAt"
+            ))
+        ).getContent();
+    }
+
     @Transactional
     public EmployeeExpense save(EmployeeExpense expense) {
         // 如果是新增，生成费用单号
         if (expense.getId() == null) {
             expense.setExpenseNo(generateExpenseNo());
         }
-        return employeeExpenseRepository.save(expense);
+        boolean created = expense.getId() == null;
+        EmployeeExpense saved = employeeExpenseRepository.save(expense);
+        domainEventBus.publish(DomainEvent.saved(DomainEvent.EMPLOYEE_EXPENSE, created,
+            saved.getId(), saved.getExpenseNo()).with("status", saved.getStatus()));
+        return saved;
     }
 
     @Transactional
     public void delete(Long id) {
         employeeExpenseRepository.deleteById(id);
+        domainEventBus.publish(DomainEvent.deleted(DomainEvent.EMPLOYEE_EXPENSE, id));
     }
 
     private String generateExpenseNo() {
-        String date = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        long count = employeeExpenseRepository.count() + 1;
-        return String.format("EE-%s-%04d", date, count);
+        return numberSequenceService.nextNumber("EE",
+            prefix -> employeeExpenseRepository.findMaxExpenseNoLike(prefix + "%"));
     }
 }
 
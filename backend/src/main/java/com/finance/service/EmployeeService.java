@@ -1,22 +1,43 @@
 package com.finance.service;
 
+import com.finance.common.CursorPage;
+import com.finance.common.KeysetPager;
+import com.finance.common.PageQuery;
+import com.finance.common.Specs;
 import com.finance.entity.Employee;
 import com.finance.repository.EmployeeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class EmployeeService {
     
+    private static final Set<String> SORTABLE_FIELDS = new HashSet<>(
+        Arrays.asList("employeeNo", "name", "createdAt"));
+    
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private KeysetPager keysetPager;
+
     public List<Employee> findAll() {
         return employeeRepository.findAll();
     }
 
+    public CursorPage<Employee> page(String department, String status, String keyword, PageQuery query) {
+        Specification<Employee> filter = Specification.<Employee>where(Specs.equal("department", department))
+            .and(Specs.equal("status", status))
+            .and(Specs.contains(keyword, "employeeNo", "name"));
+        return keysetPager.page(Employee.class, filter, query, SORTABLE_FIELDS);
+    }
+
     public Employee findById(Long id) {
         return employeeRepository.findById(id).orElse(null);
     }
@@ -0,0 +1,225 @@
+package com.finance.service;
+
+import com.finance.entity.ExchangeRate;
+import com.finance.entity.JournalEntryLine;
+import com.finance.repository.ExchangeRateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 外币汇率服务类
+ *
+ * <p>维护按日期生效的汇率，并提供"某币种在某日适用的汇率"查询。查询结果按"币种 + 日期"缓存在内存中，
+ * 期末调汇、外币凭证录入时同一币种同一日期的汇率只查询一次数据库；未找到汇率的结果也会缓存。
+ * 汇率新增、修改、删除的事务提交后清空缓存，缓存条数超过上限时同样整体清空。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see ExchangeRate
+ */
+@Service
+public class ExchangeRateService {
+
+    /** 本位币 */
+    public static final String BASE_CURRENCY = "CNY";
+
+    /** 本币金额与"外币金额 × 汇率"允许相差的尾差 */
+    private static final BigDecimal ROUNDING_TOLERANCE = new BigDecimal("0.01");
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    /** 汇率缓存的最大条数 */
+    @Value("${finance.exchange-rate.cache-size:10000}")
+    private int cacheSize;
+
+    /** 汇率缓存："币种|日期" -> 适用的汇率，未找到时为空 */
+    private final Map<String, Optional<BigDecimal>> cache = new ConcurrentHashMap<>();
+
+    /** 缓存版本，清空缓存时递增；查询期间版本变化的结果不写入缓存，避免写回已失效的汇率 */
+    private final AtomicLong generation = new AtomicLong();
+
+    public List<ExchangeRate> findAll() {
+        return exchangeRateRepository.findAllByOrderByCurrencyAscEffectiveDateDesc();
+    }
+
+    public List<ExchangeRate> findByCurrency(String currency) {
+        return exchangeRateRepository.findByCurrencyOrderByEffectiveDateDesc(normalize(currency));
+    }
+
+    public ExchangeRate findById(Long id) {
+        return exchangeRateRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * 保存汇率，同一币种同一生效日期只能有一条
+     *
+     * @param exchangeRate 汇率
+     * @return 保存后的汇率
+     */
+    @Transactional
+    public ExchangeRate save(ExchangeRate exchangeRate) {
+        String currency = normalize(exchangeRate.getCurrency());
+        if (currency == null) {
+            throw new RuntimeException("币种不能为空");
+        }
+        if (BASE_CURRENCY.equals(currency)) {
+            throw new RuntimeException("本位币" + BASE_CURRENCY + "无需维护汇率");
+        }
+        if (exchangeRate.getEffectiveDate() == null) {
+            throw new RuntimeException("生效日期不能为空");
+        }
+        if (exchangeRate.getRate() == null || exchangeRate.getRate().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new RuntimeException("汇率必须大于0");
+        }
+        exchangeRateRepository.findByCurrencyAndEffectiveDate(currency, exchangeRate.getEffectiveDate())
+            .filter(existing -> !existing.getId().equals(exchangeRate.getId()))
+            .ifPresent(existing -> {
+                throw new RuntimeException("币种" + currency + "在" + exchangeRate.getEffectiveDate() + "已有汇率");
+            });
+        exchangeRate.setCurrency(currency);
+        ExchangeRate saved = exchangeRateRepository.save(exchangeRate);
+        clearAfterCommit();
+        return saved;
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        exchangeRateRepository.deleteById(id);
+        clearAfterCommit();
+    }
+
+    /**
+     * 查询某币种在指定日期适用的汇率，即该日及之前最近一次生效的汇率
+     *
+     * @param currency 币种，本位币返回1
+     * @param date 日期
+     * @return 汇率，未维护时返回null
+     */
+    public BigDecimal rateOn(String currency, LocalDate date) {
+        String code = normalize(currency);
+        if (code == null || BASE_CURRENCY.equals(code)) {
+            return BigDecimal.ONE;
+        }
+        String key = code + "|" + date;
+        Optional<BigDecimal> cached = cache.get(key);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        long version = generation.get();
+        Optional<BigDecimal> rate = exchangeRateRepository
+            .findFirstByCurrencyAndEffectiveDateLessThanEqualOrderByEffectiveDateDesc(code, date)
+            .map(ExchangeRate::getRate);
+        if (cache.size() >= cacheSize) {
+            clear();
+        }
+        if (generation.get() == version) {
+            cache.putIfAbsent(key, rate);
+        }
+        return rate.orElse(null);
+    }
+
+    /**
+     * 查询某币种在指定日期适用的汇率
+     *
+     * @param currency 币种
+     * @param date 日期
+     * @return 汇率
+     * @throws RuntimeException 未维护汇率时抛出
+     */
+    public BigDecimal requireRateOn(String currency, LocalDate date) {
+        BigDecimal rate = rateOn(currency, date);
+        if (rate == null) {
+            throw new RuntimeException("未维护币种" + normalize(currency) + "在" + date + "及之前生效的汇率");
+        }
+        return rate;
+    }
+
+    /**
+     * 补全并校验分录明细的币种、汇率和外币金额
+     *
+     * <p>币种为空时按本位币处理，本位币明细的汇率为1；外币明细未填汇率时取记账日适用的汇率，
+     * 外币金额必填，本币金额为空时按"外币金额 × 汇率"折算，已填写时须与折算结果一致（允许0.01的尾差）。</p>
+     *
+     * @param line 分录明细
+     * @param entryDate 记账日期
+     * @param revaluation 是否为期末调汇凭证，调汇凭证中外币科目一方的外币金额为0
+     * @throws RuntimeException 校验不通过时抛出
+     */
+    public void applyCurrency(JournalEntryLine line, LocalDate entryDate, boolean revaluation) {
+        String currency = normalize(line.getCurrency());
+        line.setCurrency(currency != null ? currency : BASE_CURRENCY);
+        if (BASE_CURRENCY.equals(line.getCurrency())) {
+            if (line.getExchangeRate() == null) {
+                line.setExchangeRate(BigDecimal.ONE);
+            } else if (line.getExchangeRate().compareTo(BigDecimal.ONE) != 0) {
+                throw new RuntimeException("本位币" + BASE_CURRENCY + "的汇率必须为1");
+            }
+            return;
+        }
+        if (line.getExchangeRate() == null) {
+            line.setExchangeRate(requireRateOn(line.getCurrency(), entryDate));
+        } else if (line.getExchangeRate().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new RuntimeException("汇率必须大于0");
+        }
+        BigDecimal foreignAmount = line.getForeignAmount();
+        if (foreignAmount == null) {
+            throw new RuntimeException("外币明细的外币金额不能为空");
+        }
+        if (revaluation && foreignAmount.signum() == 0) {
+            return;
+        }
+        if (foreignAmount.signum() <= 0) {
+            throw new RuntimeException("外币金额必须大于0");
+        }
+        BigDecimal converted = foreignAmount.multiply(line.getExchangeRate()).setScale(2, RoundingMode.HALF_UP);
+        if (line.getAmount() == null) {
+            line.setAmount(converted);
+        } else if (line.getAmount().subtract(converted).abs().compareTo(ROUNDING_TOLERANCE) > 0) {
+            throw new RuntimeException("本币金额" + line.getAmount() + "与外币金额×汇率" + converted + "不一致");
+        }
+    }
+
+    /**
+     * 统一币种写法：去除空白并转为大写，空值返回null
+     */
+    public static String normalize(String currency) {
+        if (currency == null || currency.trim().isEmpty()) {
+            return null;
+        }
+        return currency.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    private void clearAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            clear();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                clear();
+            }
+        });
+    }
+}
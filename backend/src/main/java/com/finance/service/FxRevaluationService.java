@@ -0,0 +1,324 @@
+package com.finance.service;
+
+import com.finance.entity.AccountSubject;
+import com.finance.entity.JournalEntry;
+import com.finance.entity.JournalEntryLine;
+import com.finance.event.DomainEvent;
+import com.finance.repository.JournalEntryRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 期末汇兑损益调整服务
+ *
+ * <p>期末按期末日适用的汇率重新折算外币科目余额，与账面人民币余额的差额确认为未实现汇兑损益：
+ * <ol>
+ *   <li>在数据库中按"科目 × 币种"汇总截至期末已过账明细的借方、贷方外币金额和人民币金额，相减得到余额（借方为正）</li>
+ *   <li>外币余额乘以期末汇率得到调整后的人民币余额，汇率经 {@link ExchangeRateService} 的缓存取得，
+ *       同一币种只查询一次</li>
+ *   <li>差额不为零的每个"科目 × 币种"生成一张已过账的调整凭证：差额为正时借记外币科目、
+ *       贷记汇兑损益科目，为负时相反；凭证一次领取凭证号，在一个事务中以JDBC批量语句写入</li>
+ * </ol>
+ * </p>
+ *
+ * <p>调整凭证中外币科目一方的明细币种记为该外币、外币金额记为0，下次汇总时账面人民币余额已包含此前的调整，
+ * 因此重复执行同一期间只会补记汇率变动后的差额；某币种缺少汇率、或某科目该币种有明细缺少外币金额时跳过并返回原因，
+ * 补录后重新执行即可。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see ExchangeRateService
+ * @see JournalEntryBatchWriter
+ */
+@Service
+public class FxRevaluationService {
+
+    /** 调整凭证的业务类型 */
+    public static final String BUSINESS_TYPE = "汇兑损益";
+
+    private static final String POSTED = "已过账";
+    private static final String DEBIT = "借";
+    private static final String CREDIT = "贷";
+
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    @Autowired
+    private AccountSubjectService accountSubjectService;
+
+    @Autowired
+    private AccountBalanceService accountBalanceService;
+
+    @Autowired
+    private PeriodCloseService periodCloseService;
+
+    @Autowired
+    private JournalEntryBatchWriter journalEntryBatchWriter;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    /** 汇兑损益科目编码 */
+    @Value("${finance.fx-revaluation.gain-loss-account-code:6603}")
+    private String gainLossAccountCode;
+
+    /** 写入调整凭证使用的事务模板 */
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public FxRevaluationService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 试算期末汇兑损益，不生成凭证
+     *
+     * @param period 会计期间（yyyyMM）
+     * @return 各外币科目的调整明细
+     */
+    public Map<String, Object> preview(Integer period) {
+        return new Run(period).result();
+    }
+
+    /**
+     * 期末汇兑损益调整，生成并过账调整凭证
+     *
+     * @param period 会计期间（yyyyMM）
+     * @param createdBy 制单人
+     * @return 各外币科目的调整明细及生成的凭证数
+     */
+    @Timed(value = "finance.fx.revaluation", description = "期末汇兑损益调整")
+    public Map<String, Object> revalue(Integer period, String createdBy) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("汇兑损益调整正在执行，请稍后再试");
+        }
+        try {
+            Run run = new Run(period);
+            periodCloseService.assertOpen(run.date);
+            List<JournalEntry> entries = run.toEntries(createdBy);
+            if (!entries.isEmpty()) {
+                write(entries);
+            }
+            return run.result();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 在一个事务中写入并过账调整凭证
+     */
+    private void write(List<JournalEntry> entries) {
+        journalEntryBatchWriter.assignVoucherNos(entries);
+
+        transactionTemplate.execute(status -> {
+            journalEntryBatchWriter.insert(entries);
+            accountBalanceService.applyEntries(entries, 1);
+            domainEventBus.publish(DomainEvent.bulk(DomainEvent.JOURNAL_ENTRY)
+                .with("businessType", BUSINESS_TYPE)
+                .with("count", entries.size())
+                .with("postedCount", entries.size()));
+            return null;
+        });
+    }
+
+    /**
+     * 一次调整的计算过程：汇总外币余额、按期末汇率折算差额
+     */
+    private class Run {
+
+        private final Integer period;
+        private final LocalDate date;
+        private final AccountSubjectSnapshot subjects = accountSubjectService.snapshot();
+        private final AccountSubject gainLossSubject;
+        private final List<Item> items = new ArrayList<>();
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        private Run(Integer period) {
+            if (period == null || period % 100 < 1 || period % 100 > 12 || period / 100 < 1900) {
+                throw new RuntimeException("会计期间格式应为 yyyyMM：" + period);
+            }
+            this.period = period;
+            this.date = YearMonth.of(period / 100, period % 100).atEndOfMonth();
+            this.gainLossSubject = subjects.getByCode(gainLossAccountCode);
+            if (gainLossSubject == null || !Boolean.TRUE.equals(gainLossSubject.getEnabled())) {
+                throw new RuntimeException("汇兑损益科目不存在或已停用(编码=" + gainLossAccountCode + ")");
+            }
+
+            for (Object[] row : journalEntryRepository.sumForeignBalances(date, POSTED, ExchangeRateService.BASE_CURRENCY)) {
+                AccountSubject subject = subjects.getById((Long) row[0]);
+                String currency = (String) row[1];
+                long missingForeign = row[6] != null ? ((Number) row[6]).longValue() : 0;
+                if (missingForeign > 0) {
+                    // 外币余额按0计会把整个人民币余额当作汇兑损益冲掉，补录外币金额前不调整
+                    reject(subject, currency, "有" + missingForeign + "条" + currency + "明细缺少外币金额，请补录后再调整");
+                    continue;
+                }
+                BigDecimal rate = exchangeRateService.rateOn(currency, date);
+                if (rate == null) {
+                    reject(subject, currency, "未维护币种" + currency + "在" + date + "及之前生效的汇率");
+                    continue;
+                }
+                BigDecimal foreignBalance = orZero(row[2]).subtract(orZero(row[3]));
+                BigDecimal bookedAmount = orZero(row[4]).subtract(orZero(row[5]));
+                items.add(new Item(subject, currency, foreignBalance, bookedAmount, rate));
+            }
+            items.sort(Comparator.comparing((Item item) -> item.subject.getCode()).thenComparing(item -> item.currency));
+        }
+
+        private void reject(AccountSubject subject, String currency, String message) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("accountCode", subject.getCode());
+            error.put("currency", currency);
+            error.put("message", message);
+            errors.add(error);
+        }
+
+        /**
+         * 为差额不为零的科目生成调整凭证
+         */
+        private List<JournalEntry> toEntries(String createdBy) {
+            LocalDateTime now = LocalDateTime.now();
+            List<JournalEntry> entries = new ArrayList<>();
+            for (Item item : items) {
+                int sign = item.difference.signum();
+                if (sign == 0) {
+                    continue;
+                }
+                BigDecimal amount = item.difference.abs();
+                JournalEntry entry = new JournalEntry();
+                entry.setEntryDate(date);
+                entry.setDescription("期末汇兑损益调整 " + item.currency + " " + item.subject.getCode()
+                    + " " + String.format("%d-%02d", period / 100, period % 100));
+                entry.setBusinessType(BUSINESS_TYPE);
+                entry.setStatus(POSTED);
+                entry.setCreatedBy(createdBy);
+                entry.setCreatedAt(now);
+                entry.setUpdatedAt(now);
+                entry.setTotalAmount(amount);
+                entry.setEntryLines(new ArrayList<>());
+
+                // 外币科目一方带币种、外币金额为0，下次汇总时计入账面人民币余额
+                JournalEntryLine account = line(item.subject, sign > 0 ? DEBIT : CREDIT, amount, now);
+                account.setCurrency(item.currency);
+                account.setExchangeRate(item.rate);
+                account.setForeignAmount(BigDecimal.ZERO);
+                account.setRemark("期末汇率 " + item.rate.stripTrailingZeros().toPlainString());
+                entry.getEntryLines().add(account);
+
+                JournalEntryLine gainLoss = line(gainLossSubject, sign > 0 ? CREDIT : DEBIT, amount, now);
+                gainLoss.setCurrency(ExchangeRateService.BASE_CURRENCY);
+                gainLoss.setExchangeRate(BigDecimal.ONE);
+                gainLoss.setRemark(sign > 0 ? "汇兑收益" : "汇兑损失");
+                entry.getEntryLines().add(gainLoss);
+
+                entries.add(entry);
+                item.entry = entry;
+            }
+            return entries;
+        }
+
+        private JournalEntryLine line(AccountSubject subject, String direction, BigDecimal amount, LocalDateTime now) {
+            JournalEntryLine line = new JournalEntryLine();
+            line.setAccountSubject(subject);
+            line.setDirection(direction);
+            line.setAmount(amount);
+            line.setCreatedAt(now);
+            line.setUpdatedAt(now);
+            return line;
+        }
+
+        private Map<String, Object> result() {
+            BigDecimal gain = BigDecimal.ZERO;
+            BigDecimal loss = BigDecimal.ZERO;
+            int entryCount = 0;
+            List<Map<String, Object>> rows = new ArrayList<>(items.size());
+            for (Item item : items) {
+                if (item.difference.signum() > 0) {
+                    gain = gain.add(item.difference);
+                } else {
+                    loss = loss.subtract(item.difference);
+                }
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("accountId", item.subject.getId());
+                row.put("accountCode", item.subject.getCode());
+                row.put("accountName", item.subject.getName());
+                row.put("currency", item.currency);
+                row.put("foreignBalance", item.foreignBalance);
+                row.put("rate", item.rate);
+                row.put("bookedAmount", item.bookedAmount);
+                row.put("revaluedAmount", item.revaluedAmount);
+                row.put("difference", item.difference);
+                if (item.entry != null) {
+                    row.put("journalEntryId", item.entry.getId());
+                    row.put("voucherNo", item.entry.getVoucherNo());
+                    entryCount++;
+                }
+                rows.add(row);
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("period", period);
+            result.put("revaluationDate", date);
+            result.put("gainLossAccountCode", gainLossSubject.getCode());
+            result.put("items", rows);
+            result.put("gainAmount", gain);
+            result.put("lossAmount", loss);
+            result.put("netGain", gain.subtract(loss));
+            result.put("entryCount", entryCount);
+            result.put("errors", errors);
+            return result;
+        }
+    }
+
+    private static BigDecimal orZero(Object value) {
+        return value != null ? (BigDecimal) value : BigDecimal.ZERO;
+    }
+
+    /**
+     * 一个"科目 × 币种"的外币余额及调整差额
+     */
+    private static class Item {
+        private final AccountSubject subject;
+        private final String currency;
+        private final BigDecimal foreignBalance;
+        private final BigDecimal bookedAmount;
+        private final BigDecimal rate;
+        private final BigDecimal revaluedAmount;
+        /** 调整后人民币余额 - 账面人民币余额，借方为正，为正时是汇兑收益 */
+        private final BigDecimal difference;
+        private JournalEntry entry;
+
+        private Item(AccountSubject subject, String currency, BigDecimal foreignBalance, BigDecimal bookedAmount,
+                     BigDecimal rate) {
+            this.subject = subject;
+            this.currency = currency;
+            this.foreignBalance = foreignBalance;
+            this.bookedAmount = bookedAmount;
+            this.rate = rate;
+            this.revaluedAmount = foreignBalance.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+            this.difference = revaluedAmount.subtract(bookedAmount);
+        }
+    }
+}
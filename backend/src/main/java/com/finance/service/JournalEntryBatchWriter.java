@@ -0,0 +1,157 @@
+package com.finance.service;
+
+import com.finance.entity.JournalEntry;
+import com.finance.entity.JournalEntryLine;
+import com.finance.repository.JournalEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 凭证批量写入
+ *
+ * <p>以JDBC批量语句写入大量凭证及其明细，供批量导入和业务单据生成凭证使用。
+ * 调用方负责校验凭证（借贷平衡、科目有效等）、在事务中调用 {@link #insert}，
+ * 以及为已过账凭证同步科目期间发生额。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see JournalEntryImportService
+ * @see PostingEngine
+ */
+@Service
+public class JournalEntryBatchWriter {
+
+    private static final String INSERT_ENTRY_SQL =
+        "INSERT INTO journal_entry (voucher_no, entry_date, description, total_amount, business_type, " +
+        "business_id, status, created_by, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_LINE_SQL =
+        "INSERT INTO journal_entry_line (journal_entry_id, account_subject_id, direction, amount, remark, " +
+        "currency, exchange_rate, foreign_amount, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    @Autowired
+    private NumberSequenceService numberSequenceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 为一批凭证一次领取凭证号，应在写入事务之外调用
+     *
+     * @param entries 凭证列表
+     */
+    public void assignVoucherNos(List<JournalEntry> entries) {
+        List<String> voucherNos = numberSequenceService.nextNumbers("PZ", entries.size(),
+            prefix -> journalEntryRepository.findMaxVoucherNoLike(prefix + "%"));
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).setVoucherNo(voucherNos.get(i));
+        }
+    }
+
+    /**
+     * 批量写入凭证和明细，写入后凭证对象带有数据库生成的ID，须在事务中调用
+     *
+     * @param entries 已领取凭证号的凭证列表，明细行的科目只需带ID
+     */
+    public void insert(List<JournalEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        long[] ids = insertEntries(entries);
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).setId(ids[i]);
+        }
+        insertLines(entries, ids);
+    }
+
+    /**
+     * 批量插入凭证主表，返回数据库生成的ID
+     */
+    private long[] insertEntries(List<JournalEntry> entries) {
+        return jdbcTemplate.execute((ConnectionCallback<long[]>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_ENTRY_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (JournalEntry entry : entries) {
+                    ps.setString(1, entry.getVoucherNo());
+                    ps.setObject(2, entry.getEntryDate());
+                    ps.setString(3, entry.getDescription());
+                    ps.setBigDecimal(4, entry.getTotalAmount());
+                    ps.setString(5, entry.getBusinessType());
+                    if (entry.getBusinessId() != null) {
+                        ps.setLong(6, entry.getBusinessId());
+                    } else {
+                        ps.setNull(6, Types.BIGINT);
+                    }
+                    ps.setString(7, entry.getStatus());
+                    ps.setString(8, entry.getCreatedBy());
+                    ps.setTimestamp(9, Timestamp.valueOf(entry.getCreatedAt()));
+                    ps.setTimestamp(10, Timestamp.valueOf(entry.getUpdatedAt()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                long[] ids = new long[entries.size()];
+                int index = 0;
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next() && index < ids.length) {
+                        ids[index++] = keys.getLong(1);
+                    }
+                }
+                if (index != ids.length) {
+                    throw new SQLException("未能获取全部凭证ID：期望" + ids.length + "个，实际" + index + "个");
+                }
+                return ids;
+            }
+        });
+    }
+
+    /**
+     * 批量插入凭证明细
+     */
+    private void insertLines(List<JournalEntry> entries, long[] ids) {
+        List<JournalEntryLine> lines = new ArrayList<>();
+        List<Long> entryIds = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            for (JournalEntryLine line : entries.get(i).getEntryLines()) {
+                lines.add(line);
+                entryIds.add(ids[i]);
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_LINE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                JournalEntryLine line = lines.get(i);
+                ps.setLong(1, entryIds.get(i));
+                ps.setLong(2, line.getAccountSubject().getId());
+                ps.setString(3, line.getDirection());
+                ps.setBigDecimal(4, line.getAmount());
+                ps.setString(5, line.getRemark());
+                ps.setString(6, line.getCurrency());
+                ps.setBigDecimal(7, line.getExchangeRate());
+                ps.setBigDecimal(8, line.getForeignAmount());
+                ps.setTimestamp(9, Timestamp.valueOf(line.getCreatedAt()));
+                ps.setTimestamp(10, Timestamp.valueOf(line.getUpdatedAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+    }
+}
@@ -0,0 +1,313 @@
+package com.finance.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.entity.AccountSubject;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 会计分录流式导出服务类
+ *
+ * <p>供审计导出完整总账使用。通过只进JDBC游标逐行读取凭证明细，边读边写入输出流，
+ * 内存占用与导出的数据量无关。MySQL驱动在 fetchSize 为 Integer.MIN_VALUE 时逐行流式返回结果，
+ * 其他数据库按配置的 fetchSize 分批读取。</p>
+ *
+ * <p>支持两种格式：
+ * <ul>
+ *   <li>ndjson：每行一张凭证的JSON对象，明细在 lines 数组中</li>
+ *   <li>csv：每行一条明细，凭证头字段在每行重复，带UTF-8 BOM便于Excel直接打开</li>
+ * </ul>
+ * </p>
+ *
+ * <p>只导出明细行，按科目过滤时凭证中只包含该科目（含下级科目）的明细。
+ * 科目编码和名称取自科目表快照，查询不关联科目表。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class JournalEntryExportService {
+
+    private static final String[] CSV_HEADER = {
+        "voucherNo", "entryDate", "description", "status", "businessType", "businessId", "createdBy",
+        "accountCode", "accountName", "direction", "amount", "currency", "exchangeRate", "foreignAmount", "remark"
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AccountSubjectService accountSubjectService;
+
+    @Autowired
+    private AccountSubjectClosureService accountSubjectClosureService;
+
+    /** 导出查询的 fetchSize，默认 Integer.MIN_VALUE（MySQL逐行流式读取） */
+    @Value("${finance.export.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    /**
+     * 导出会计分录
+     *
+     * @param out 输出流，通常为HTTP响应流
+     * @param format 导出格式：ndjson 或 csv
+     * @param startDate 开始日期（包含），可为空
+     * @param endDate 结束日期（包含），可为空
+     * @param status 凭证状态，可为空
+     * @param accountCode 科目编码，包含其下级科目，可为空
+     * @return 导出的明细行数
+     * @throws IOException 写入输出流失败时抛出
+     */
+    @Timed(value = "finance.journal.export", description = "导出凭证")
+    public long export(OutputStream out, String format, LocalDate startDate, LocalDate endDate,
+                       String status, String accountCode) throws IOException {
+        AccountSubjectSnapshot subjects = accountSubjectService.snapshot();
+        StringBuilder sql = new StringBuilder(
+            "SELECT e.id, e.voucher_no, e.entry_date, e.description, e.total_amount, e.status, " +
+            "e.business_type, e.business_id, e.created_by, l.account_subject_id, l.direction, l.amount, " +
+            "l.currency, l.exchange_rate, l.foreign_amount, l.remark " +
+            "FROM journal_entry e JOIN journal_entry_line l ON l.journal_entry_id = e.id WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (startDate != null) {
+            sql.append(" AND e.entry_date >= ?");
+            args.add(Date.valueOf(startDate));
+        }
+        if (endDate != null) {
+            sql.append(" AND e.entry_date <= ?");
+            args.add(Date.valueOf(endDate));
+        }
+        if (status != null && !status.isEmpty()) {
+            sql.append(" AND e.status = ?");
+            args.add(status);
+        }
+        if (accountCode != null && !accountCode.isEmpty()) {
+            AccountSubject subject = subjects.getByCode(accountCode);
+            if (subject == null) {
+                throw new RuntimeException("会计科目不存在(编码=" + accountCode + ")");
+            }
+            List<Long> subtree = accountSubjectClosureService.descendantIds(subject.getId());
+            sql.append(" AND l.account_subject_id IN (");
+            for (int i = 0; i < subtree.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+                args.add(subtree.get(i));
+            }
+            sql.append(")");
+        }
+        sql.append(" ORDER BY e.entry_date, e.id, l.id");
+
+        RowWriter writer = "csv".equalsIgnoreCase(format)
+            ? new CsvRowWriter(out, subjects) : new NdjsonRowWriter(out, subjects);
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < args.size(); i++) {
+                    ps.setObject(i + 1, args.get(i));
+                }
+                return ps;
+            }, rs -> {
+                try {
+                    writer.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return writer.count;
+    }
+
+    /**
+     * 逐行写出的导出格式
+     */
+    private abstract static class RowWriter {
+        protected final AccountSubjectSnapshot subjects;
+        protected long count;
+
+        RowWriter(AccountSubjectSnapshot subjects) {
+            this.subjects = subjects;
+        }
+
+        abstract void write(ResultSet rs) throws SQLException, IOException;
+
+        abstract void finish() throws IOException;
+
+        protected String code(long subjectId) {
+            AccountSubject subject = subjects.getById(subjectId);
+            return subject != null ? subject.getCode() : null;
+        }
+
+        protected String name(long subjectId) {
+            AccountSubject subject = subjects.getById(subjectId);
+            return subject != null ? subject.getName() : null;
+        }
+    }
+
+    /**
+     * NDJSON：同一凭证的连续明细合并为一个JSON对象
+     */
+    private class NdjsonRowWriter extends RowWriter {
+        private final JsonGenerator generator;
+        private long currentEntryId = -1;
+
+        NdjsonRowWriter(OutputStream out, AccountSubjectSnapshot subjects) throws IOException {
+            super(subjects);
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            long entryId = rs.getLong("id");
+            if (entryId != currentEntryId) {
+                closeEntry();
+                currentEntryId = entryId;
+                generator.writeStartObject();
+                generator.writeNumberField("id", entryId);
+                generator.writeStringField("voucherNo", rs.getString("voucher_no"));
+                generator.writeStringField("entryDate", rs.getDate("entry_date").toLocalDate().toString());
+                generator.writeStringField("description", rs.getString("description"));
+                writeDecimal("totalAmount", rs.getBigDecimal("total_amount"));
+                generator.writeStringField("status", rs.getString("status"));
+                generator.writeStringField("businessType", rs.getString("business_type"));
+                long businessId = rs.getLong("business_id");
+                if (rs.wasNull()) {
+                    generator.writeNullField("businessId");
+                } else {
+                    generator.writeNumberField("businessId", businessId);
+                }
+                generator.writeStringField("createdBy", rs.getString("created_by"));
+                generator.writeArrayFieldStart("lines");
+            }
+            long subjectId = rs.getLong("account_subject_id");
+            generator.writeStartObject();
+            generator.writeStringField("accountCode", code(subjectId));
+            generator.writeStringField("accountName", name(subjectId));
+            generator.writeStringField("direction", rs.getString("direction"));
+            writeDecimal("amount", rs.getBigDecimal("amount"));
+            generator.writeStringField("currency", rs.getString("currency"));
+            writeDecimal("exchangeRate", rs.getBigDecimal("exchange_rate"));
+            writeDecimal("foreignAmount", rs.getBigDecimal("foreign_amount"));
+            generator.writeStringField("remark", rs.getString("remark"));
+            generator.writeEndObject();
+            count++;
+        }
+
+        private void writeDecimal(String field, BigDecimal value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeNumberField(field, value);
+            }
+        }
+
+        private void closeEntry() throws IOException {
+            if (currentEntryId != -1) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+
+        @Override
+        void finish() throws IOException {
+            closeEntry();
+            generator.flush();
+        }
+    }
+
+    /**
+     * CSV：每行一条明细
+     */
+    private static class CsvRowWriter extends RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out, AccountSubjectSnapshot subjects) throws IOException {
+            super(subjects);
+            this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.write('\uFEFF');
+            writeRow((Object[]) CSV_HEADER);
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            long subjectId = rs.getLong("account_subject_id");
+            Object businessId = rs.getObject("business_id");
+            writeRow(
+                rs.getString("voucher_no"),
+                rs.getDate("entry_date").toLocalDate(),
+                rs.getString("description"),
+                rs.getString("status"),
+                rs.getString("business_type"),
+                businessId,
+                rs.getString("created_by"),
+                code(subjectId),
+                name(subjectId),
+                rs.getString("direction"),
+                toPlainString(rs.getBigDecimal("amount")),
+                rs.getString("currency"),
+                toPlainString(rs.getBigDecimal("exchange_rate")),
+                toPlainString(rs.getBigDecimal("foreign_amount")),
+                rs.getString("remark"));
+            count++;
+        }
+
+        private String toPlainString(BigDecimal value) {
+            return value != null ? value.toPlainString() : null;
+        }
+
+        private void writeRow(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writer.write(escape(values[i].toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        /**
+         * 含逗号、引号或换行的字段用双引号包围，内部引号转义为两个引号
+         */
+        private String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        void finish() throws IOException {
+            writer.flush();
+        }
+    }
+}
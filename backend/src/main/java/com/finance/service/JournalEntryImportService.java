@@ -0,0 +1,459 @@
+package com.finance.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.common.CsvLines;
+import com.finance.dto.JournalImportVoucher;
+import com.finance.entity.AccountSubject;
+import com.finance.entity.JournalEntry;
+import com.finance.entity.JournalEntryLine;
+import com.finance.event.DomainEvent;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 会计分录批量导入服务类
+ *
+ * <p>用于月末结账时导入上游系统生成的大量凭证，支持JSON和CSV两种文件格式，
+ * 以流式方式逐张读取凭证，内存占用只与分块大小有关。</p>
+ *
+ * <p>处理流程：
+ * <ol>
+ *   <li>明细行按科目编码在科目表快照中解析，不逐行查询数据库</li>
+ *   <li>逐张校验凭证：必填项、科目有效性、金额、借贷平衡；外币明细的汇率和外币金额按
+ *       {@link ExchangeRateService#applyCurrency} 补全和校验，与手工录入一致</li>
+ *   <li>关联销售、采购、员工费用单据的凭证，单据已关联其他凭证（含文件中前面的凭证）时拒绝</li>
+ *   <li>校验通过的凭证按分块累积，每块一次领取凭证号</li>
+ *   <li>每块在独立事务中以JDBC批量语句写入凭证、明细和单据关联记录，已过账凭证同步科目期间发生额</li>
+ * </ol>
+ * </p>
+ *
+ * <p>单张凭证校验失败或某一块写入失败只影响对应的凭证，不会中断整个导入，
+ * 失败原因按凭证在文件中的位置返回。</p>
+ *
+ * <p>CSV文件首行为列名，每行一条明细，支持的列：voucherKey、entryDate、description、
+ * businessType、businessId、status、createdBy、accountCode、direction、amount、remark、
+ * currency、exchangeRate、foreignAmount。相邻且 voucherKey 相同的行组成一张凭证，
+ * 凭证头信息取自该凭证的第一行。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see JournalImportVoucher
+ */
+@Service
+public class JournalEntryImportService {
+
+    /** 返回的错误明细上限，超过时只计数不返回 */
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    @Autowired
+    private AccountSubjectService accountSubjectService;
+
+    @Autowired
+    private AccountBalanceService accountBalanceService;
+
+    @Autowired
+    private PeriodCloseService periodCloseService;
+
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    @Autowired
+    private JournalEntryBatchWriter journalEntryBatchWriter;
+
+    @Autowired
+    private BusinessPostingService businessPostingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    /** 每块写入的凭证数量 */
+    @Value("${finance.journal-import.chunk-size:500}")
+    private int chunkSize;
+
+    /** 分块写入使用的事务模板 */
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public JournalEntryImportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 导入凭证文件
+     *
+     * @param in 文件输入流
+     * @param format 文件格式：json 或 csv
+     * @return 导入结果，包含总数、成功数、失败数和失败明细
+     * @throws IOException 读取文件失败时抛出
+     */
+    @Timed(value = "finance.journal.import", description = "批量导入凭证")
+    public Map<String, Object> importVouchers(InputStream in, String format) throws IOException {
+        ImportContext context = new ImportContext(accountSubjectService.snapshot());
+        if ("csv".equalsIgnoreCase(format)) {
+            parseCsv(in, context);
+        } else {
+            parseJson(in, context);
+        }
+        context.flush();
+        meterRegistry.counter("finance.journal.import.vouchers", "result", "success").increment(context.successCount);
+        meterRegistry.counter("finance.journal.import.vouchers", "result", "failure").increment(context.failureCount);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("total", context.total);
+        result.put("successCount", context.successCount);
+        result.put("failureCount", context.failureCount);
+        result.put("errors", context.errors);
+        result.put("errorsTruncated", context.failureCount > context.errors.size());
+        return result;
+    }
+
+    /**
+     * 流式解析JSON凭证数组，逐个元素转换，不会一次性读入整个文件
+     */
+    private void parseJson(InputStream in, ImportContext context) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RuntimeException("JSON文件必须是凭证数组");
+            }
+            int index = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new RuntimeException("JSON文件不完整，凭证数组未结束");
+                }
+                index++;
+                if (token != JsonToken.START_OBJECT) {
+                    // 非对象元素记为失败并跳过，继续处理后面的凭证
+                    context.reject(index, null, "数据格式错误：数组元素必须是凭证对象");
+                    parser.skipChildren();
+                    continue;
+                }
+                JsonNode node = parser.readValueAsTree();
+                JournalImportVoucher voucher;
+                try {
+                    voucher = objectMapper.treeToValue(node, JournalImportVoucher.class);
+                } catch (JsonProcessingException e) {
+                    context.reject(index, node.path("voucherKey").asText(null), "数据格式错误：" + e.getOriginalMessage());
+                    continue;
+                }
+                voucher.setRowNumber(index);
+                context.accept(voucher);
+            }
+        }
+    }
+
+    /**
+     * 逐行解析CSV文件，相邻且凭证标识相同的行合并为一张凭证
+     */
+    private void parseCsv(InputStream in, ImportContext context) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return;
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            List<String> headers = CsvLines.split(CsvLines.stripBom(headerLine));
+            for (int i = 0; i < headers.size(); i++) {
+                columns.put(headers.get(i).trim(), i);
+            }
+
+            JournalImportVoucher current = null;
+            String currentError = null;
+            String line;
+            int rowNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                rowNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                List<String> values = CsvLines.split(line);
+                String voucherKey = csvValue(values, columns, "voucherKey");
+                if (current == null || voucherKey == null || !voucherKey.equals(current.getVoucherKey())) {
+                    emitCsvVoucher(context, current, currentError);
+                    current = new JournalImportVoucher();
+                    current.setVoucherKey(voucherKey);
+                    current.setRowNumber(rowNumber);
+                    currentError = null;
+                    try {
+                        String entryDate = csvValue(values, columns, "entryDate");
+                        current.setEntryDate(entryDate != null ? LocalDate.parse(entryDate) : null);
+                        current.setDescription(csvValue(values, columns, "description"));
+                        current.setBusinessType(csvValue(values, columns, "businessType"));
+                        String businessId = csvValue(values, columns, "businessId");
+                        current.setBusinessId(businessId != null ? Long.valueOf(businessId) : null);
+                        current.setStatus(csvValue(values, columns, "status"));
+                        current.setCreatedBy(csvValue(values, columns, "createdBy"));
+                    } catch (RuntimeException e) {
+                        currentError = "第" + rowNumber + "行：凭证信息格式错误（" + e.getMessage() + "）";
+                    }
+                }
+                if (currentError != null) {
+                    continue;
+                }
+                try {
+                    JournalImportVoucher.Line importLine = new JournalImportVoucher.Line();
+                    importLine.setAccountCode(csvValue(values, columns, "accountCode"));
+                    importLine.setDirection(csvValue(values, columns, "direction"));
+                    importLine.setAmount(csvDecimal(values, columns, "amount"));
+                    importLine.setRemark(csvValue(values, columns, "remark"));
+                    importLine.setCurrency(csvValue(values, columns, "currency"));
+                    importLine.setExchangeRate(csvDecimal(values, columns, "exchangeRate"));
+                    importLine.setForeignAmount(csvDecimal(values, columns, "foreignAmount"));
+                    current.getLines().add(importLine);
+                } catch (RuntimeException e) {
+                    currentError = "第" + rowNumber + "行：明细格式错误（" + e.getMessage() + "）";
+                }
+            }
+            emitCsvVoucher(context, current, currentError);
+        }
+    }
+
+    private void emitCsvVoucher(ImportContext context, JournalImportVoucher voucher, String error) {
+        if (voucher == null) {
+            return;
+        }
+        if (error != null) {
+            context.reject(voucher.getRowNumber(), voucher.getVoucherKey(), error);
+        } else {
+            context.accept(voucher);
+        }
+    }
+
+    private String csvValue(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private BigDecimal csvDecimal(List<String> values, Map<String, Integer> columns, String name) {
+        String value = csvValue(values, columns, name);
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    /**
+     * 在一个事务中批量写入一块凭证
+     */
+    private void writeChunk(List<JournalEntry> entries) {
+        journalEntryBatchWriter.assignVoucherNos(entries);
+
+        transactionTemplate.execute(status -> {
+            journalEntryBatchWriter.insert(entries);
+            businessPostingService.linkAll(entries);
+
+            List<JournalEntry> posted = new ArrayList<>();
+            for (JournalEntry entry : entries) {
+                if ("已过账".equals(entry.getStatus())) {
+                    posted.add(entry);
+                }
+            }
+            if (!posted.isEmpty()) {
+                accountBalanceService.applyEntries(posted, 1);
+            }
+            // 整块只发布一个批量事件，与凭证在同一事务中提交
+            domainEventBus.publish(DomainEvent.bulk(DomainEvent.JOURNAL_ENTRY)
+                .with("count", entries.size()).with("postedCount", posted.size()));
+            return null;
+        });
+    }
+
+    /**
+     * 单次导入的处理上下文：校验凭证、累积分块并记录结果
+     */
+    private class ImportContext implements Consumer<JournalImportVoucher> {
+
+        private final AccountSubjectSnapshot subjects;
+        private final List<JournalEntry> pending = new ArrayList<>();
+        private final List<JournalImportVoucher> pendingSources = new ArrayList<>();
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+        /** 文件中已出现的"业务类型 + 业务单据ID" */
+        private final Set<String> linkedDocuments = new HashSet<>();
+        private int total;
+        private int successCount;
+        private int failureCount;
+
+        private ImportContext(AccountSubjectSnapshot subjects) {
+            this.subjects = subjects;
+        }
+
+        @Override
+        public void accept(JournalImportVoucher voucher) {
+            JournalEntry entry;
+            try {
+                entry = toJournalEntry(voucher);
+            } catch (RuntimeException e) {
+                reject(voucher.getRowNumber(), voucher.getVoucherKey(), e.getMessage());
+                return;
+            }
+            total++;
+            pending.add(entry);
+            pendingSources.add(voucher);
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        private void reject(int rowNumber, String voucherKey, String message) {
+            total++;
+            failureCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("row", rowNumber);
+                error.put("voucherKey", voucherKey);
+                error.put("message", message);
+                errors.add(error);
+            }
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                writeChunk(pending);
+                successCount += pending.size();
+            } catch (RuntimeException e) {
+                // 整块写入失败时，块内凭证全部记为失败，后续分块继续导入
+                total -= pending.size();
+                for (JournalEntry entry : pending) {
+                    linkedDocuments.remove(entry.getBusinessType() + "|" + entry.getBusinessId());
+                }
+                for (JournalImportVoucher source : pendingSources) {
+                    reject(source.getRowNumber(), source.getVoucherKey(), "写入失败：" + e.getMessage());
+                }
+            }
+            pending.clear();
+            pendingSources.clear();
+        }
+
+        /**
+         * 校验导入凭证并转换为待写入的分录对象
+         */
+        private JournalEntry toJournalEntry(JournalImportVoucher voucher) {
+            if (voucher.getEntryDate() == null) {
+                throw new RuntimeException("记账日期不能为空");
+            }
+            periodCloseService.assertOpen(voucher.getEntryDate());
+            if (voucher.getDescription() == null || voucher.getDescription().isEmpty()) {
+                throw new RuntimeException("摘要不能为空");
+            }
+            String status = voucher.getStatus() == null || voucher.getStatus().isEmpty()
+                ? "草稿" : voucher.getStatus();
+            if (!Arrays.asList("草稿", "已过账", "已审核").contains(status)) {
+                throw new RuntimeException("状态无效：" + status);
+            }
+            if (voucher.getLines() == null || voucher.getLines().isEmpty()) {
+                throw new RuntimeException("至少需要添加一条分录明细");
+            }
+
+            if (BusinessPostingService.isDocumentLink(voucher.getBusinessType(), voucher.getBusinessId())) {
+                if (linkedDocuments.contains(voucher.getBusinessType() + "|" + voucher.getBusinessId())) {
+                    throw new RuntimeException(voucher.getBusinessType() + "单据(ID=" + voucher.getBusinessId()
+                        + ")在文件中已有凭证，一张单据只能关联一张凭证");
+                }
+                businessPostingService.assertUnlinked(voucher.getBusinessType(), voucher.getBusinessId(), null);
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            JournalEntry entry = new JournalEntry();
+            entry.setEntryDate(voucher.getEntryDate());
+            entry.setDescription(voucher.getDescription());
+            entry.setBusinessType(voucher.getBusinessType());
+            entry.setBusinessId(voucher.getBusinessId());
+            entry.setStatus(status);
+            entry.setCreatedBy(voucher.getCreatedBy());
+            entry.setCreatedAt(now);
+            entry.setUpdatedAt(now);
+            entry.setEntryLines(new ArrayList<>());
+
+            BigDecimal debitTotal = BigDecimal.ZERO;
+            BigDecimal creditTotal = BigDecimal.ZERO;
+            for (int i = 0; i < voucher.getLines().size(); i++) {
+                JournalImportVoucher.Line source = voucher.getLines().get(i);
+                int lineNumber = i + 1;
+                if (!"借".equals(source.getDirection()) && !"贷".equals(source.getDirection())) {
+                    throw new RuntimeException("第" + lineNumber + "条明细：借贷方向必须为借或贷");
+                }
+                AccountSubject subject = subjects.getByCode(source.getAccountCode());
+                if (subject == null) {
+                    throw new RuntimeException("第" + lineNumber + "条明细：会计科目不存在(编码=" + source.getAccountCode() + ")");
+                }
+                if (!Boolean.TRUE.equals(subject.getEnabled())) {
+                    throw new RuntimeException("第" + lineNumber + "条明细：会计科目已停用(编码=" + source.getAccountCode() + ")");
+                }
+
+                JournalEntryLine line = new JournalEntryLine();
+                line.setAccountSubject(subject);
+                line.setDirection(source.getDirection());
+                line.setAmount(source.getAmount());
+                line.setRemark(source.getRemark());
+                line.setCurrency(source.getCurrency());
+                line.setExchangeRate(source.getExchangeRate());
+                line.setForeignAmount(source.getForeignAmount());
+                // 与手工录入相同：汇率按记账日取得，外币明细校验外币金额，本币金额为空时按外币金额折算；
+                // 期末调汇凭证只由系统生成，导入的凭证不论业务类型都须填写外币金额
+                try {
+                    exchangeRateService.applyCurrency(line, voucher.getEntryDate(), false);
+                } catch (RuntimeException e) {
+                    throw new RuntimeException("第" + lineNumber + "条明细：" + e.getMessage());
+                }
+                if (line.getAmount() == null || line.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                    throw new RuntimeException("第" + lineNumber + "条明细：金额必须大于0");
+                }
+                line.setCreatedAt(now);
+                line.setUpdatedAt(now);
+                entry.getEntryLines().add(line);
+
+                if ("借".equals(source.getDirection())) {
+                    debitTotal = debitTotal.add(line.getAmount());
+                } else {
+                    creditTotal = creditTotal.add(line.getAmount());
+                }
+            }
+            if (debitTotal.compareTo(creditTotal) != 0) {
+                throw new RuntimeException("借贷不平衡：借方" + debitTotal + "，贷方" + creditTotal);
+            }
+            entry.setTotalAmount(debitTotal);
+            if (BusinessPostingService.isDocumentLink(entry.getBusinessType(), entry.getBusinessId())) {
+                linkedDocuments.add(entry.getBusinessType() + "|" + entry.getBusinessId());
+            }
+            return entry;
+        }
+    }
+}
@@ -1,17 +1,33 @@
 package com.finance.service;
 
+import com.finance.common.CursorPage;
+import com.finance.common.KeysetPager;
+import com.finance.common.PageQuery;
+import com.finance.common.Specs;
+import com.finance.dto.JournalEntryHeader;
+import com.finance.dto.JournalEntryView;
 import com.finance.entity.AccountSubject;
 import com.finance.entity.JournalEntry;
 import com.finance.entity.JournalEntryLine;
+import com.finance.event.DomainEvent;
 import com.finance.repository.AccountSubjectRepository;
 import com.finance.repository.JournalEntryRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * 会计分录业务逻辑服务类
@@ -43,9 +59,26 @@ import java.util.List;
  * @see JournalEntry
  * @see JournalEntryLine
  */
+@Slf4j
 @Service
 public class JournalEntryService {
     
+    /** 分页查询允许的排序字段（除ID外） */
+    private static final Set<String> SORTABLE_FIELDS = new HashSet<>(
+        Arrays.asList("voucherNo", "entryDate", "totalAmount", "createdAt"));
+    
+    /** 已过账状态 */
+    private static final String POSTED = "已过账";
+    
+    /** 读取视图：只有凭证头 */
+    public static final String VIEW_HEADER = "header";
+    
+    /** 读取视图：凭证头和分录明细 */
+    public static final String VIEW_LINES = "lines";
+    
+    /** 读取视图：凭证头、分录明细及科目编码和名称 */
+    public static final String VIEW_FULL = "full";
+    
     /** 会计分录数据访问对象 */
     @Autowired
     private JournalEntryRepository journalEntryRepository;
@@ -53,14 +86,96 @@ public class JournalEntryService {
     /** 会计科目数据访问对象 */
     @Autowired
     private AccountSubjectRepository accountSubjectRepository;
+    
+    /** 会计科目服务，提供科目表快照 */
+    @Autowired
+    private AccountSubjectService accountSubjectService;
+    
+    /** 科目期间发生额服务 */
+    @Autowired
+    private AccountBalanceService accountBalanceService;
+    
+    /** 单据编号分配服务 */
+    @Autowired
+    private NumberSequenceService numberSequenceService;
+    
+    /** 结账服务，已结账期间的凭证不能变动 */
+    @Autowired
+    private PeriodCloseService periodCloseService;
+
+    /** 游标分页查询工具 */
+    @Autowired
+    private KeysetPager keysetPager;
+
+    /** 单据变动事件发布 */
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    /** 外币汇率服务，外币明细未填写汇率时按凭证日期取汇率 */
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    /** 业务单据与凭证关联，一张单据只能关联一张凭证 */
+    @Autowired
+    private BusinessPostingService businessPostingService;
+
+    @Autowired
+    private BankStatementService bankStatementService;
 
     /**
      * 查询所有会计分录
      * 
-     * @return 会计分录列表
+     * @param view 读取视图：header、lines、full
+     * @return 会计分录列表，按记账日期倒序
      */
-    public List<JournalEntry> findAll() {
-        return journalEntryRepository.findAll();
+    public List<JournalEntryView> findAll(String view) {
+        return findViews(view, journalEntryRepository::findAllHeaders, journalEntryRepository::findAllWithLines);
+    }
+
+    /**
+     * 游标分页查询
+     * 过滤条件为空时忽略
+     * 
+     * @param query 分页参数
+     * @param view 读取视图：header、lines、full；带明细的视图用一条查询补齐本页的明细
+     * @return 分页结果
+     */
+    public CursorPage<JournalEntryView> page(String status, String businessType, LocalDate startDate,
+                                             LocalDate endDate, String keyword, PageQuery query, String view) {
+        checkView(view);
+        Specification<JournalEntry> filter = Specification.<JournalEntry>where(Specs.equal("status", status))
+            .and(Specs.equal("businessType", businessType))
+            .and(Specs.between("entryDate", startDate, endDate))
+            .and(Specs.contains(keyword, "voucherNo", "description"));
+        CursorPage<JournalEntry> entries = keysetPager.page(JournalEntry.class, filter, query, SORTABLE_FIELDS);
+
+        List<JournalEntryView> items = new ArrayList<>(entries.getItems().size());
+        if (VIEW_HEADER.equals(view)) {
+            for (JournalEntry entry : entries.getItems()) {
+                items.add(new JournalEntryView(toHeader(entry), null));
+            }
+        } else if (!entries.getItems().isEmpty()) {
+            List<Long> ids = new ArrayList<>(entries.getItems().size());
+            for (JournalEntry entry : entries.getItems()) {
+                ids.add(entry.getId());
+            }
+            Map<Long, JournalEntry> withLines = new HashMap<>();
+            for (JournalEntry entry : journalEntryRepository.findWithLinesByIdIn(ids)) {
+                withLines.put(entry.getId(), entry);
+            }
+            AccountSubjectSnapshot subjects = VIEW_FULL.equals(view) ? accountSubjectService.snapshot() : null;
+            for (Long id : ids) {
+                items.add(toView(withLines.get(id), subjects));
+            }
+        }
+
+        CursorPage<JournalEntryView> page = new CursorPage<>();
+        page.setItems(items);
+        page.setSize(entries.getSize());
+        page.setHasNext(entries.getHasNext());
+        page.setNextCursor(entries.getNextCursor());
+        page.setTotal(entries.getTotal());
+        return page;
     }
 
     /**
@@ -73,14 +188,34 @@ public class JournalEntryService {
         return journalEntryRepository.findById(id).orElse(null);
     }
 
+    /**
+     * 根据ID查询会计分录的读取模型
+     * 带明细的视图用一条 join fetch 查询取出凭证和全部明细
+     * 
+     * @param id 分录ID
+     * @param view 读取视图：header、lines、full
+     * @return 会计分录，不存在时返回null
+     */
+    public JournalEntryView findView(Long id, String view) {
+        checkView(view);
+        if (VIEW_HEADER.equals(view)) {
+            return journalEntryRepository.findById(id)
+                .map(entry -> new JournalEntryView(toHeader(entry), null)).orElse(null);
+        }
+        AccountSubjectSnapshot subjects = VIEW_FULL.equals(view) ? accountSubjectService.snapshot() : null;
+        return journalEntryRepository.findWithLinesById(id).map(entry -> toView(entry, subjects)).orElse(null);
+    }
+
     /**
      * 根据状态查询会计分录列表
      * 
      * @param status 状态（草稿、已过账、已审核）
-     * @return 该状态的分录列表
+     * @param view 读取视图：header、lines、full
+     * @return 该状态的分录列表，按记账日期倒序
      */
-    public List<JournalEntry> findByStatus(String status) {
-        return journalEntryRepository.findByStatus(status);
+    public List<JournalEntryView> findByStatus(String status, String view) {
+        return findViews(view, () -> journalEntryRepository.findHeadersByStatus(status),
+            () -> journalEntryRepository.findWithLinesByStatus(status));
     }
 
     /**
@@ -89,10 +224,12 @@ public class JournalEntryService {
      * 
      * @param startDate 开始日期（包含）
      * @param endDate 结束日期（包含）
-     * @return 日期范围内的分录列表
+     * @param view 读取视图：header、lines、full
+     * @return 日期范围内的分录列表，按记账日期排序
      */
-    public List<JournalEntry> findByDateRange(LocalDate startDate, LocalDate endDate) {
-        return journalEntryRepository.findByEntryDateBetween(startDate, endDate);
+    public List<JournalEntryView> findByDateRange(LocalDate startDate, LocalDate endDate, String view) {
+        return findViews(view, () -> journalEntryRepository.findHeadersByEntryDateBetween(startDate, endDate),
+            () -> journalEntryRepository.findWithLinesByEntryDateBetween(startDate, endDate));
     }
 
     /**
@@ -128,18 +265,25 @@ public class JournalEntryService {
      *   <li>自动生成凭证号</li>
      *   <li>验证分录明细的完整性</li>
      *   <li>校验借贷平衡</li>
-     *   <li>设置默认值（币种、汇率等）</li>
+     *   <li>设置默认值（币种默认CNY，外币未填写汇率时取凭证日期适用的汇率）</li>
      *   <li>建立主从关系</li>
      *   <li>保存到数据库</li>
+     *   <li>同步科目期间发生额（已过账凭证先冲回原金额再计入新金额）</li>
+     *   <li>业务类型为销售、采购、员工费用且填写了业务ID的，记录单据与凭证的关联，单据已关联其他凭证时不能保存</li>
      * </ol>
      * 
+     * <p>记账日期（修改时包括原记账日期）所在期间已结账的，不能保存。</p>
+     * 
      * @param journalEntry 会计分录对象（包含明细行）
      * @return 保存后的分录对象
      * @throws RuntimeException 当验证失败或保存出错时抛出
      */
     @Transactional
+    @Timed(value = "finance.journal.save", description = "保存会计分录")
     public JournalEntry save(JournalEntry journalEntry) {
         try {
+            periodCloseService.lockOpen(journalEntry.getEntryDate());
+            
             // 设置凭证主表时间戳（如果为null）
             if (journalEntry.getCreatedAt() == null) {
                 journalEntry.setCreatedAt(java.time.LocalDateTime.now());
@@ -153,9 +297,18 @@ public class JournalEntryService {
                 journalEntry.setVoucherNo(generateVoucherNo());
             }
             
+            // 修改时读取原凭证；只有原凭证就是期末调汇凭证时才允许外币科目一方的外币金额为0，
+            // 提交的业务类型由调用方填写，不能单独作为依据
+            JournalEntry existing = journalEntry.getId() != null
+                ? journalEntryRepository.findById(journalEntry.getId()).orElse(null) : null;
+            boolean revaluation = existing != null
+                && FxRevaluationService.BUSINESS_TYPE.equals(existing.getBusinessType())
+                && FxRevaluationService.BUSINESS_TYPE.equals(journalEntry.getBusinessType());
+            
             // 处理分录明细
             if (journalEntry.getEntryLines() != null && !journalEntry.getEntryLines().isEmpty()) {
                 BigDecimal total = BigDecimal.ZERO;
+                AccountSubjectSnapshot subjects = accountSubjectService.snapshot();
                 for (int i = 0; i < journalEntry.getEntryLines().size(); i++) {
                     JournalEntryLine line = journalEntry.getEntryLines().get(i);
                     final int lineNumber = i + 1;  // 使用final变量
@@ -164,28 +317,27 @@ public class JournalEntryService {
                     if (line.getDirection() == null || line.getDirection().isEmpty()) {
                         throw new RuntimeException("第" + lineNumber + "行：借贷方向不能为空");
                     }
+                    // 补全币种和汇率，外币明细校验外币金额，本币金额为空时按外币金额折算
+                    try {
+                        exchangeRateService.applyCurrency(line, journalEntry.getEntryDate(), revaluation);
+                    } catch (RuntimeException e) {
+                        throw new RuntimeException("第" + lineNumber + "行：" + e.getMessage());
+                    }
                     if (line.getAmount() == null || line.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
                         throw new RuntimeException("第" + lineNumber + "行：金额必须大于0");
                     }
                     
-                    // 加载完整的AccountSubject实体
+                    // 按科目表快照校验科目，关联时只引用ID，不查询数据库
                     if (line.getAccountSubject() != null && line.getAccountSubject().getId() != null) {
                         Long subjectId = line.getAccountSubject().getId();
-                        AccountSubject subject = accountSubjectRepository.findById(subjectId)
-                            .orElseThrow(() -> new RuntimeException("第" + lineNumber + "行：会计科目不存在(ID=" + subjectId + ")"));
-                        line.setAccountSubject(subject);
+                        if (subjects.getById(subjectId) == null) {
+                            throw new RuntimeException("第" + lineNumber + "行：会计科目不存在(ID=" + subjectId + ")");
+                        }
+                        line.setAccountSubject(accountSubjectRepository.getReferenceById(subjectId));
                     } else {
                         throw new RuntimeException("第" + lineNumber + "行：会计科目不能为空");
                     }
                     
-                    // 设置默认值
-                    if (line.getCurrency() == null || line.getCurrency().isEmpty()) {
-                        line.setCurrency("CNY");
-                    }
-                    if (line.getExchangeRate() == null) {
-                        line.setExchangeRate(BigDecimal.ONE);
-                    }
-                    
                     // 设置时间戳（如果为null）
                     if (line.getCreatedAt() == null) {
                         line.setCreatedAt(java.time.LocalDateTime.now());
@@ -207,24 +359,62 @@ public class JournalEntryService {
                 throw new RuntimeException("至少需要添加一条分录明细");
             }
             
-            return journalEntryRepository.save(journalEntry);
+            // 修改已过账凭证时，先冲回原凭证计入的发生额
+            if (existing != null) {
+                periodCloseService.lockOpen(existing.getEntryDate());
+                if (POSTED.equals(existing.getStatus())) {
+                    accountBalanceService.applyEntry(existing, -1);
+                }
+            }
+            
+            businessPostingService.assertUnlinked(journalEntry.getBusinessType(), journalEntry.getBusinessId(),
+                journalEntry.getId());
+            boolean created = journalEntry.getId() == null;
+            JournalEntry saved = journalEntryRepository.save(journalEntry);
+            businessPostingService.link(saved);
+            if (POSTED.equals(saved.getStatus())) {
+                accountBalanceService.applyEntry(saved, 1);
+            }
+            domainEventBus.publish(DomainEvent.saved(DomainEvent.JOURNAL_ENTRY, created,
+                saved.getId(), saved.getVoucherNo()).with("status", saved.getStatus())
+                .with("entryDate", saved.getEntryDate()));
+            return saved;
         } catch (Exception e) {
-            // 记录详细错误日志
-            System.err.println("保存会计分录失败：" + e.getMessage());
-            e.printStackTrace();
+            log.error("保存会计分录失败：{}", e.getMessage(), e);
             throw new RuntimeException(e.getMessage(), e);
         }
     }
 
     /**
      * 删除会计分录
-     * 注意：已过账的分录不应被删除，需在调用前进行状态检查
+     * 注意：已过账的分录不应被删除，需在调用前进行状态检查；
+     * 若删除的是已过账分录，其发生额会从科目期间发生额中冲回；
+     * 已结账期间的分录不能删除；
+     * 由业务单据生成的分录删除后，该单据可以重新生成凭证；
+     * 已与银行流水匹配的分录删除时解除所在匹配组
      * 
      * @param id 分录ID
      */
     @Transactional
+    @Timed(value = "finance.journal.delete", description = "删除会计分录")
     public void delete(Long id) {
+        JournalEntry entry = findById(id);
+        if (entry != null) {
+            periodCloseService.lockOpen(entry.getEntryDate());
+        }
+        if (entry != null && POSTED.equals(entry.getStatus())) {
+            accountBalanceService.applyEntry(entry, -1);
+        }
         journalEntryRepository.deleteById(id);
+        // 由业务单据生成的凭证删除后，单据可以重新生成凭证
+        businessPostingService.unlink(id);
+        // 已与银行流水匹配的，解除所在匹配组，流水恢复为未对账
+        bankStatementService.releaseJournalEntryMatches(id);
+        DomainEvent event = DomainEvent.deleted(DomainEvent.JOURNAL_ENTRY, id);
+        if (entry != null) {
+            event.with("status", entry.getStatus()).with("entryDate", entry.getEntryDate());
+        }
+        domainEventBus.publish(event);
     }
 
     /**
@@ -233,19 +423,96 @@ public class JournalEntryService {
      * <p>将分录状态从"草稿"改为"已过账"。
      * 过账后的分录表示已正式生效，将影响账簿和报表。</p>
      * 
+     * <p>过账与科目期间发生额的累加在同一事务中完成；
+     * 对已过账的分录重复过账不会重复计入发生额。</p>
+     * 
      * @param id 分录ID
      * @return 过账后的分录对象，不存在时返回null
      */
     @Transactional
+    @Timed(value = "finance.journal.post", description = "会计分录过账")
     public JournalEntry post(Long id) {
         JournalEntry entry = findById(id);
         if (entry != null) {
-            entry.setStatus("已过账");
-            return journalEntryRepository.save(entry);
+            if (POSTED.equals(entry.getStatus())) {
+                return entry;
+            }
+            entry.setStatus(POSTED);
+            JournalEntry posted = journalEntryRepository.save(entry);
+            accountBalanceService.applyEntry(posted, 1);
+            domainEventBus.publish(DomainEvent.of(DomainEvent.JOURNAL_ENTRY, DomainEvent.POSTED,
+                posted.getId(), posted.getVoucherNo()).with("entryDate", posted.getEntryDate()));
+            return posted;
         }
         return null;
     }
 
+    /**
+     * 按视图选择查询：header 视图用构造表达式只查凭证主表，其他视图一条 join fetch 查询带出明细
+     */
+    private List<JournalEntryView> findViews(String view, Supplier<List<JournalEntryHeader>> headers,
+                                             Supplier<List<JournalEntry>> withLines) {
+        checkView(view);
+        List<JournalEntryView> views = new ArrayList<>();
+        if (VIEW_HEADER.equals(view)) {
+            for (JournalEntryHeader header : headers.get()) {
+                views.add(new JournalEntryView(header, null));
+            }
+            return views;
+        }
+        AccountSubjectSnapshot subjects = VIEW_FULL.equals(view) ? accountSubjectService.snapshot() : null;
+        for (JournalEntry entry : withLines.get()) {
+            views.add(toView(entry, subjects));
+        }
+        return views;
+    }
+
+    private static void checkView(String view) {
+        if (!VIEW_HEADER.equals(view) && !VIEW_LINES.equals(view) && !VIEW_FULL.equals(view)) {
+            throw new RuntimeException("不支持的视图：" + view + "，可选：" + VIEW_HEADER + "、" + VIEW_LINES + "、" + VIEW_FULL);
+        }
+    }
+
+    private static JournalEntryHeader toHeader(JournalEntry entry) {
+        return new JournalEntryHeader(entry.getId(), entry.getVoucherNo(), entry.getEntryDate(),
+            entry.getDescription(), entry.getTotalAmount(), entry.getBusinessType(), entry.getBusinessId(),
+            entry.getStatus(), entry.getCreatedBy(), entry.getApprovedBy(), entry.getApprovedAt(),
+            entry.getCreatedAt(), entry.getUpdatedAt());
+    }
+
+    /**
+     * 转换为带明细的读取模型，明细须已加载
+     * 
+     * @param subjects 科目表快照，为null时不带科目编码和名称
+     */
+    private static JournalEntryView toView(JournalEntry entry, AccountSubjectSnapshot subjects) {
+        List<JournalEntryView.Line> lines = new ArrayList<>();
+        if (entry.getEntryLines() != null) {
+            for (JournalEntryLine source : entry.getEntryLines()) {
+                JournalEntryView.Line line = new JournalEntryView.Line();
+                line.setId(source.getId());
+                // 科目为延迟加载的代理，取ID不会触发查询
+                Long subjectId = source.getAccountSubject().getId();
+                line.setAccountSubjectId(subjectId);
+                if (subjects != null) {
+                    AccountSubject subject = subjects.getById(subjectId);
+                    if (subject != null) {
+                        line.setAccountCode(subject.getCode());
+                        line.setAccountName(subject.getName());
+                    }
+                }
+                line.setDirection(source.getDirection());
+                line.setAmount(source.getAmount());
+                line.setRemark(source.getRemark());
+                line.setCurrency(source.getCurrency());
+                line.setExchangeRate(source.getExchangeRate());
+                line.setForeignAmount(source.getForeignAmount());
+                lines.add(line);
+            }
+        }
+        return new JournalEntryView(toHeader(entry), lines);
+    }
+
     /**
      * 生成凭证号
      * 
@@ -256,35 +523,15 @@ public class JournalEntryService {
      * <ul>
      *   <li>前缀：PZ（凭证拼音缩写）</li>
      *   <li>日期：当前日期，格式YYYYMMDD</li>
-     *   <li>序号：4位数字，当天的第N个凭证</li>
+     *   <li>序号：4位数字，当天的第N个凭证，由 {@link NumberSequenceService} 按号段分配</li>
      * </ul>
      * </p>
      * 
      * @return 新生成的凭证号
      */
     private String generateVoucherNo() {
-        String date = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String prefix = "PZ-" + date + "-";
-        
-        // 查询今天已有的凭证号，找到最大序号
-        List<JournalEntry> todayEntries = journalEntryRepository.findAll();
-        int maxSeq = 0;
-        
-        for (JournalEntry entry : todayEntries) {
-            if (entry.getVoucherNo() != null && entry.getVoucherNo().startsWith(prefix)) {
-                try {
-                    String seqStr = entry.getVoucherNo().substring(prefix.length());
-                    int seq = Integer.parseInt(seqStr);
-                    if (seq > maxSeq) {
-                        maxSeq = seq;
-                    }
-                } catch (Exception e) {
-                    // 忽略解析错误
-                }
-            }
-        }
-        
-        return String.format("%s%04d", prefix, maxSeq + 1);
+        return numberSequenceService.nextNumber("PZ",
+            prefix -> journalEntryRepository.findMaxVoucherNoLike(prefix + "%"));
     }
 }
 
@@ -0,0 +1,442 @@
+package com.finance.service;
+
+import com.finance.common.CursorPage;
+import com.finance.dto.AccountAmountSummary;
+import com.finance.entity.AccountPeriodBalance;
+import com.finance.entity.AccountSubject;
+import com.finance.repository.AccountPeriodBalanceRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 账簿查询服务类
+ *
+ * <p>提供三种账簿：
+ * <ul>
+ *   <li>科目余额表（试算平衡表）：每个科目的期初余额、本期借贷发生额和期末余额，
+ *       下级科目的金额经科目闭包表归集到每一级上级科目，合计行只累加一级科目</li>
+ *   <li>总账：某科目（含下级科目）逐月的借贷发生额、本年累计和月末余额</li>
+ *   <li>明细账：某科目（含下级科目）逐笔的凭证明细及每笔之后的余额</li>
+ * </ul>
+ * 科目余额表和总账的金额取自科目期间发生额及余额快照（见 {@link AccountBalanceService}），
+ * 与凭证数量无关。</p>
+ *
+ * <p>明细账按"记账日期、凭证ID、明细ID"排序，通过只进JDBC游标逐行读取，
+ * 在读取的同时累计余额，每页只读取本页的明细行。下一页游标中带有本页最后一行之后的余额，
+ * 取下一页时从该余额继续累计，不必重新汇总之前的全部明细，几十万行明细的科目也能逐页翻阅。
+ * 只统计已过账的凭证。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class LedgerService {
+
+    private static final String POSTED = "已过账";
+
+    private static final String DEBIT = "借";
+    private static final String CREDIT = "贷";
+    private static final String FLAT = "平";
+
+    private static final char SEPARATOR = '|';
+
+    /** 明细账每页最大条数 */
+    private static final int MAX_DETAIL_SIZE = 1000;
+
+    /** 总账最多查询的月份数 */
+    private static final int MAX_GENERAL_MONTHS = 120;
+
+    @Autowired
+    private AccountBalanceService accountBalanceService;
+
+    @Autowired
+    private AccountSubjectService accountSubjectService;
+
+    @Autowired
+    private AccountSubjectClosureService accountSubjectClosureService;
+
+    @Autowired
+    private AccountPeriodBalanceRepository accountPeriodBalanceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** 明细账查询的 fetchSize，默认 Integer.MIN_VALUE（MySQL逐行流式读取） */
+    @Value("${finance.ledger.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    /**
+     * 生成科目余额表
+     *
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @return 科目余额行（按科目编码排列，不含金额全为0的科目）及一级科目合计
+     */
+    @Timed(value = "finance.report.generate", extraTags = {"type", "trial-balance"}, description = "生成报表")
+    public Map<String, Object> trialBalance(LocalDate startDate, LocalDate endDate) {
+        AccountSubjectSnapshot subjects = accountSubjectService.snapshot();
+
+        // 经科目闭包表归集后，每个科目的金额已包含其全部下级科目
+        Map<Long, Amounts> rolled = new HashMap<>();
+        for (AccountAmountSummary summary : accountBalanceService.summarizeRollup(null, startDate.minusDays(1))) {
+            AccountSubject subject = subjects.getByCode(summary.getCode());
+            if (subject != null) {
+                Amounts amounts = rolled.computeIfAbsent(subject.getId(), id -> new Amounts());
+                amounts.opening = amounts.opening.add(summary.getNetDebit());
+            }
+        }
+        for (AccountAmountSummary summary : accountBalanceService.summarizeRollup(startDate, endDate)) {
+            AccountSubject subject = subjects.getByCode(summary.getCode());
+            if (subject != null) {
+                Amounts amounts = rolled.computeIfAbsent(subject.getId(), id -> new Amounts());
+                amounts.debit = amounts.debit.add(summary.getDebitAmount());
+                amounts.credit = amounts.credit.add(summary.getCreditAmount());
+            }
+        }
+
+        List<AccountSubject> sorted = subjects.getAll().stream()
+            .filter(subject -> rolled.containsKey(subject.getId()))
+            .sorted(Comparator.comparing(AccountSubject::getCode))
+            .collect(Collectors.toList());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Map<String, BigDecimal> total = new LinkedHashMap<>();
+        for (String column : new String[] {"openingDebit", "openingCredit", "debitAmount", "creditAmount",
+                "closingDebit", "closingCredit"}) {
+            total.put(column, BigDecimal.ZERO);
+        }
+        for (AccountSubject subject : sorted) {
+            Amounts amounts = rolled.get(subject.getId());
+            if (amounts.isZero()) {
+                continue;
+            }
+            BigDecimal closing = amounts.closing();
+            Map<String, BigDecimal> columns = new LinkedHashMap<>();
+            columns.put("openingDebit", debitSide(amounts.opening));
+            columns.put("openingCredit", creditSide(amounts.opening));
+            columns.put("debitAmount", amounts.debit);
+            columns.put("creditAmount", amounts.credit);
+            columns.put("closingDebit", debitSide(closing));
+            columns.put("closingCredit", creditSide(closing));
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", subject.getId());
+            row.put("code", subject.getCode());
+            row.put("name", subject.getName());
+            row.put("level", subject.getLevel());
+            row.put("parentId", subject.getParentId());
+            row.put("direction", subject.getDirection());
+            row.putAll(columns);
+            rows.add(row);
+
+            // 上级科目已包含下级科目的金额，合计只累加一级科目
+            if (subjects.getById(subject.getParentId()) == null) {
+                columns.forEach((column, value) -> total.merge(column, value, BigDecimal::add));
+            }
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>(total);
+        summary.put("balanced", total.get("openingDebit").compareTo(total.get("openingCredit")) == 0
+            && total.get("debitAmount").compareTo(total.get("creditAmount")) == 0
+            && total.get("closingDebit").compareTo(total.get("closingCredit")) == 0);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startDate", startDate);
+        report.put("endDate", endDate);
+        report.put("rows", rows);
+        report.put("total", summary);
+        return report;
+    }
+
+    /**
+     * 查询总账
+     *
+     * @param accountCode 科目编码，包含其下级科目
+     * @param startPeriod 开始期间（yyyyMM）
+     * @param endPeriod 结束期间（yyyyMM）
+     * @return 期初余额及逐月的发生额、本年累计和月末余额
+     */
+    @Timed(value = "finance.ledger.general", description = "查询总账")
+    public Map<String, Object> generalLedger(String accountCode, Integer startPeriod, Integer endPeriod) {
+        AccountSubject subject = requireSubject(accountCode);
+        List<Long> subjectIds = subtreeIds(subject);
+        YearMonth start = parsePeriod(startPeriod);
+        YearMonth end = parsePeriod(endPeriod);
+        if (start.isAfter(end)) {
+            throw new RuntimeException("开始期间不能晚于结束期间");
+        }
+        if (start.plusMonths(MAX_GENERAL_MONTHS).isBefore(end)) {
+            throw new RuntimeException("总账最多查询" + MAX_GENERAL_MONTHS + "个月");
+        }
+
+        // 从开始年份的1月起取数，用于计算本年累计
+        Map<Integer, BigDecimal[]> monthly = new HashMap<>();
+        for (Object[] row : accountPeriodBalanceRepository.sumByPeriodBetween(subjectIds,
+                start.getYear() * 100 + 1, endPeriod)) {
+            monthly.put((Integer) row[0], new BigDecimal[] {(BigDecimal) row[1], (BigDecimal) row[2]});
+        }
+
+        BigDecimal opening = accountBalanceService.netBalanceAsOf(subjectIds, start.atDay(1).minusDays(1));
+        BigDecimal balance = opening;
+        BigDecimal yearDebit = BigDecimal.ZERO;
+        BigDecimal yearCredit = BigDecimal.ZERO;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (YearMonth month = YearMonth.of(start.getYear(), 1); !month.isAfter(end); month = month.plusMonths(1)) {
+            if (month.getMonthValue() == 1) {
+                yearDebit = BigDecimal.ZERO;
+                yearCredit = BigDecimal.ZERO;
+            }
+            BigDecimal[] amounts = monthly.getOrDefault(AccountPeriodBalance.periodOf(month.atDay(1)),
+                new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO});
+            yearDebit = yearDebit.add(amounts[0]);
+            yearCredit = yearCredit.add(amounts[1]);
+            if (month.isBefore(start)) {
+                continue;
+            }
+            balance = balance.add(amounts[0]).subtract(amounts[1]);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("period", AccountPeriodBalance.periodOf(month.atDay(1)));
+            row.put("debitAmount", amounts[0]);
+            row.put("creditAmount", amounts[1]);
+            row.put("yearDebitAmount", yearDebit);
+            row.put("yearCreditAmount", yearCredit);
+            row.put("balanceDirection", directionOf(balance));
+            row.put("balance", balance.abs());
+            rows.add(row);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("accountCode", subject.getCode());
+        result.put("accountName", subject.getName());
+        result.put("startPeriod", startPeriod);
+        result.put("endPeriod", endPeriod);
+        result.put("openingDirection", directionOf(opening));
+        result.put("openingBalance", opening.abs());
+        result.put("rows", rows);
+        return result;
+    }
+
+    /**
+     * 分页查询明细账
+     *
+     * @param accountCode 科目编码，包含其下级科目
+     * @param startDate 开始日期（包含），为null时从第一张凭证开始
+     * @param endDate 结束日期（包含），为null时取当天
+     * @param cursor 上一页返回的游标，首页为空
+     * @param size 每页条数，默认100，最大1000
+     * @return 期初、期末余额及本页明细，每行带有该笔之后的余额
+     */
+    @Timed(value = "finance.ledger.detail", description = "查询明细账")
+    public Map<String, Object> detailLedger(String accountCode, LocalDate startDate, LocalDate endDate,
+                                            String cursor, Integer size) {
+        AccountSubjectSnapshot subjects = accountSubjectService.snapshot();
+        AccountSubject subject = requireSubject(accountCode);
+        List<Long> subjectIds = subtreeIds(subject);
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        if (startDate != null && startDate.isAfter(end)) {
+            throw new RuntimeException("开始日期不能晚于结束日期");
+        }
+        int pageSize = size == null ? 100 : Math.max(1, Math.min(size, MAX_DETAIL_SIZE));
+
+        BigDecimal opening = startDate != null
+            ? accountBalanceService.netBalanceAsOf(subjectIds, startDate.minusDays(1)) : BigDecimal.ZERO;
+        DetailCursor after = cursor != null && !cursor.isEmpty() ? DetailCursor.decode(cursor) : null;
+
+        StringBuilder sql = new StringBuilder(
+            "SELECT e.id, e.entry_date, e.voucher_no, e.description, l.id AS line_id, l.account_subject_id, " +
+            "l.direction, l.amount, l.remark " +
+            "FROM journal_entry_line l JOIN journal_entry e ON e.id = l.journal_entry_id " +
+            "WHERE e.status = ? AND e.entry_date <= ? AND l.account_subject_id IN (");
+        List<Object> args = new ArrayList<>();
+        args.add(POSTED);
+        args.add(Date.valueOf(end));
+        for (int i = 0; i < subjectIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            args.add(subjectIds.get(i));
+        }
+        sql.append(")");
+        if (startDate != null) {
+            sql.append(" AND e.entry_date >= ?");
+            args.add(Date.valueOf(startDate));
+        }
+        if (after != null) {
+            sql.append(" AND (e.entry_date > ? OR (e.entry_date = ? AND (e.id > ? OR (e.id = ? AND l.id > ?))))");
+            args.add(Date.valueOf(after.entryDate));
+            args.add(Date.valueOf(after.entryDate));
+            args.add(after.entryId);
+            args.add(after.entryId);
+            args.add(after.lineId);
+        }
+        sql.append(" ORDER BY e.entry_date, e.id, l.id LIMIT ?");
+        args.add(pageSize + 1);
+
+        // 单次顺序读取，边读边累计余额；多读一行用于判断是否还有下一页
+        List<Map<String, Object>> items = new ArrayList<>();
+        BigDecimal[] running = {after != null ? after.balance : opening};
+        boolean[] hasNext = {false};
+        DetailCursor[] last = {null};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, rs -> {
+            if (items.size() == pageSize) {
+                hasNext[0] = true;
+                return;
+            }
+            BigDecimal amount = rs.getBigDecimal("amount");
+            boolean debit = DEBIT.equals(rs.getString("direction"));
+            running[0] = debit ? running[0].add(amount) : running[0].subtract(amount);
+            AccountSubject lineSubject = subjects.getById(rs.getLong("account_subject_id"));
+            LocalDate entryDate = rs.getDate("entry_date").toLocalDate();
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("entryId", rs.getLong("id"));
+            row.put("lineId", rs.getLong("line_id"));
+            row.put("entryDate", entryDate);
+            row.put("voucherNo", rs.getString("voucher_no"));
+            row.put("description", rs.getString("description"));
+            row.put("remark", rs.getString("remark"));
+            row.put("accountCode", lineSubject != null ? lineSubject.getCode() : null);
+            row.put("accountName", lineSubject != null ? lineSubject.getName() : null);
+            row.put("debitAmount", debit ? amount : BigDecimal.ZERO);
+            row.put("creditAmount", debit ? BigDecimal.ZERO : amount);
+            row.put("balanceDirection", directionOf(running[0]));
+            row.put("balance", running[0].abs());
+            items.add(row);
+            last[0] = new DetailCursor(entryDate, rs.getLong("id"), rs.getLong("line_id"), running[0]);
+        });
+
+        CursorPage<Map<String, Object>> page = new CursorPage<>();
+        page.setItems(items);
+        page.setSize(pageSize);
+        page.setHasNext(hasNext[0]);
+        if (hasNext[0]) {
+            page.setNextCursor(last[0].encode());
+        }
+
+        BigDecimal closing = accountBalanceService.netBalanceAsOf(subjectIds, end);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("accountCode", subject.getCode());
+        result.put("accountName", subject.getName());
+        result.put("startDate", startDate);
+        result.put("endDate", end);
+        result.put("openingDirection", directionOf(opening));
+        result.put("openingBalance", opening.abs());
+        result.put("closingDirection", directionOf(closing));
+        result.put("closingBalance", closing.abs());
+        result.put("page", page);
+        return result;
+    }
+
+    private AccountSubject requireSubject(String accountCode) {
+        if (accountCode == null || accountCode.isEmpty()) {
+            throw new RuntimeException("科目编码不能为空");
+        }
+        AccountSubject subject = accountSubjectService.snapshot().getByCode(accountCode);
+        if (subject == null) {
+            throw new RuntimeException("会计科目不存在(编码=" + accountCode + ")");
+        }
+        return subject;
+    }
+
+    private List<Long> subtreeIds(AccountSubject subject) {
+        return accountSubjectClosureService.descendantIds(subject.getId());
+    }
+
+    private static YearMonth parsePeriod(Integer period) {
+        if (period == null || period % 100 < 1 || period % 100 > 12 || period / 100 < 1900) {
+            throw new RuntimeException("会计期间格式应为 yyyyMM：" + period);
+        }
+        return YearMonth.of(period / 100, period % 100);
+    }
+
+    /**
+     * 借方净额的余额方向：正数为借，负数为贷，0为平
+     */
+    private static String directionOf(BigDecimal net) {
+        return net.signum() > 0 ? DEBIT : net.signum() < 0 ? CREDIT : FLAT;
+    }
+
+    private static BigDecimal debitSide(BigDecimal net) {
+        return net.signum() > 0 ? net : BigDecimal.ZERO;
+    }
+
+    private static BigDecimal creditSide(BigDecimal net) {
+        return net.signum() < 0 ? net.negate() : BigDecimal.ZERO;
+    }
+
+    /**
+     * 一个科目的期初借方净额和本期借贷发生额
+     */
+    private static class Amounts {
+        private BigDecimal opening = BigDecimal.ZERO;
+        private BigDecimal debit = BigDecimal.ZERO;
+        private BigDecimal credit = BigDecimal.ZERO;
+
+        private BigDecimal closing() {
+            return opening.add(debit).subtract(credit);
+        }
+
+        private boolean isZero() {
+            return opening.signum() == 0 && debit.signum() == 0 && credit.signum() == 0;
+        }
+    }
+
+    /**
+     * 明细账游标：Base64("记账日期|凭证ID|明细ID|该行之后的借方净余额")
+     */
+    private static class DetailCursor {
+        private final LocalDate entryDate;
+        private final long entryId;
+        private final long lineId;
+        private final BigDecimal balance;
+
+        private DetailCursor(LocalDate entryDate, long entryId, long lineId, BigDecimal balance) {
+            this.entryDate = entryDate;
+            this.entryId = entryId;
+            this.lineId = lineId;
+            this.balance = balance;
+        }
+
+        private String encode() {
+            String raw = entryDate.toString() + SEPARATOR + entryId + SEPARATOR + lineId + SEPARATOR
+                + balance.toPlainString();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static DetailCursor decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR);
+                return new DetailCursor(LocalDate.parse(parts[0]), Long.parseLong(parts[1]),
+                    Long.parseLong(parts[2]), new BigDecimal(parts[3]));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("无效的分页游标");
+            }
+        }
+    }
+}
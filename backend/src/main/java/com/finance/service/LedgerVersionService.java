@@ -0,0 +1,95 @@
+package com.finance.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 总账版本服务
+ *
+ * <p>记录每个会计期间最近一次发生变动（过账、反过账、批量导入、重建发生额）时的全局序号，
+ * 某个期间区间的版本即区间内各期间序号的最大值。报表缓存以该版本作为缓存键的一部分，
+ * 区间内有新的过账时版本随之改变，旧的缓存结果自然失效，不需要逐条清理。</p>
+ *
+ * <p>版本在事务提交后才更新：报表若在提交前读取了旧数据，缓存时记录的是旧版本，
+ * 提交后即不再命中；事务回滚时版本保持不变。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class LedgerVersionService {
+
+    /** 全局变动序号 */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** 会计期间（yyyyMM） -> 该期间最近一次变动的序号 */
+    private final Map<Integer, Long> periodVersions = new ConcurrentHashMap<>();
+
+    /** 全部期间最近一次整体变动（重建发生额）的序号 */
+    private volatile long globalVersion;
+
+    /**
+     * 标记会计期间发生变动，在当前事务提交后生效
+     *
+     * @param periods 会计期间集合（yyyyMM）
+     */
+    public void markChanged(Collection<Integer> periods) {
+        if (periods.isEmpty()) {
+            return;
+        }
+        Set<Integer> copy = new HashSet<>(periods);
+        afterCommit(() -> {
+            long version = sequence.incrementAndGet();
+            for (Integer period : copy) {
+                periodVersions.put(period, version);
+            }
+        });
+    }
+
+    /**
+     * 标记全部会计期间发生变动，在当前事务提交后生效
+     */
+    public void markAllChanged() {
+        afterCommit(() -> globalVersion = sequence.incrementAndGet());
+    }
+
+    /**
+     * 取得会计期间区间的版本
+     *
+     * @param startPeriod 开始期间（包含），为null表示从最早的期间开始
+     * @param endPeriod 结束期间（包含）
+     * @return 区间版本，区间内任一期间变动后该值都会增大
+     */
+    public long versionOf(Integer startPeriod, Integer endPeriod) {
+        long version = globalVersion;
+        for (Map.Entry<Integer, Long> entry : periodVersions.entrySet()) {
+            Integer period = entry.getKey();
+            if ((startPeriod == null || period >= startPeriod) && period <= endPeriod) {
+                version = Math.max(version, entry.getValue());
+            }
+        }
+        return version;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,229 @@
+package com.finance.service;
+
+import com.finance.entity.NumberSequence;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 单据编号分配服务类
+ *
+ * <p>为按日连续编号的单据统一分配编号，格式：前缀-YYYYMMDD-序号，如：PZ-20250101-0001。</p>
+ *
+ * <p>分配规则：
+ * <ul>
+ *   <li>每个"前缀 + 日期"对应 number_sequence 表中的一行计数器</li>
+ *   <li>每次从计数器预领一个号段（默认20个），在独立事务中加锁领取并立即提交</li>
+ *   <li>号段内的序号在内存中分配，同一前缀的并发请求在内存中串行，不会重复</li>
+ *   <li>计数器首次创建时，以单据表中当天已存在的最大编号作为起点，兼容历史数据</li>
+ * </ul>
+ * </p>
+ *
+ * <p>调用方通常已在自己的事务中持有一个连接。号段从专用的小连接池领取，不占用应用连接池，
+ * 避免并发保存时每个请求都持有一个连接再等待第二个连接而耗尽连接池；
+ * 领取号段时也不持有前缀的内存锁，其他请求仍可从已有号段分配编号。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see NumberSequence
+ */
+@Service
+public class NumberSequenceService {
+
+    /** 日期格式 */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM number_sequence WHERE seq_key = ?";
+
+    private static final String LOCK_SQL = "SELECT current_value FROM number_sequence WHERE seq_key = ? FOR UPDATE";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO number_sequence (seq_key, current_value, created_at, updated_at) VALUES (?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+        "UPDATE number_sequence SET current_value = ?, updated_at = ? WHERE seq_key = ?";
+
+    /** 每次预领的号段大小 */
+    @Value("${finance.number-sequence.block-size:20}")
+    private int blockSize;
+
+    /** 领取号段专用的连接池 */
+    private final HikariDataSource sequenceDataSource;
+
+    /** 专用连接池上的数据访问模板 */
+    private final JdbcTemplate sequenceJdbcTemplate;
+
+    /** 专用连接池上的事务模板，领取号段后立即提交 */
+    private final TransactionTemplate sequenceTransactionTemplate;
+
+    /** 各前缀当前持有的号段，键为单据前缀 */
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+
+    @Autowired
+    public NumberSequenceService(DataSourceProperties dataSourceProperties,
+                                 @Value("${finance.number-sequence.pool-size:2}") int poolSize) {
+        this.sequenceDataSource = dataSourceProperties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class).build();
+        this.sequenceDataSource.setPoolName("number-sequence");
+        this.sequenceDataSource.setMaximumPoolSize(poolSize);
+        this.sequenceDataSource.setMinimumIdle(0);
+        this.sequenceJdbcTemplate = new JdbcTemplate(sequenceDataSource);
+        this.sequenceTransactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(sequenceDataSource));
+    }
+
+    /**
+     * 关闭领取号段的连接池
+     */
+    @PreDestroy
+    public void shutdown() {
+        sequenceDataSource.close();
+    }
+
+    /**
+     * 分配下一个单据编号
+     *
+     * @param prefix 单据前缀，如：PZ、PO、SI、EE
+     * @param maxExistingNumber 查询单据表中已存在的最大编号的函数，参数为编号前缀（如 PZ-20250101-），
+     *                          仅在当天计数器首次创建时调用，不存在时返回null
+     * @return 新分配的单据编号
+     */
+    public String nextNumber(String prefix, Function<String, String> maxExistingNumber) {
+        return nextNumbers(prefix, 1, maxExistingNumber).get(0);
+    }
+
+    /**
+     * 一次分配多个单据编号
+     * 用于批量导入，所需数量超过号段大小时按所需数量领取号段，通常只访问一次计数器表
+     *
+     * @param prefix 单据前缀，如：PZ、PO、SI、EE
+     * @param count 需要的编号数量
+     * @param maxExistingNumber 查询单据表中已存在的最大编号的函数，含义同 {@link #nextNumber}
+     * @return 单据编号列表，并发领取号段时可能不连续
+     */
+    public List<String> nextNumbers(String prefix, int count, Function<String, String> maxExistingNumber) {
+        String date = LocalDate.now().format(DATE_FORMAT);
+        Segment segment = segments.computeIfAbsent(prefix, k -> new Segment());
+        List<String> numbers = new ArrayList<>(count);
+        while (true) {
+            synchronized (segment) {
+                segment.take(date, count - numbers.size(), prefix, numbers);
+            }
+            if (numbers.size() >= count) {
+                return numbers;
+            }
+            // 号段已用完，在内存锁之外领取新号段
+            int size = Math.max(blockSize, count - numbers.size());
+            long[] range = reserveBlock(prefix + "-" + date, prefix + "-" + date + "-", size, maxExistingNumber);
+            synchronized (segment) {
+                segment.add(date, range);
+            }
+        }
+    }
+
+    /**
+     * 在专用连接池的独立事务中领取一个号段
+     *
+     * <p>计数器不存在时先在事务之外查询单据表中的最大编号，该查询使用调用方的连接，
+     * 不会在持有专用连接时等待应用连接池。</p>
+     *
+     * @return 号段的起止序号（均包含）
+     */
+    private long[] reserveBlock(String seqKey, String numberPrefix, int size,
+                                Function<String, String> maxExistingNumber) {
+        Integer existing = sequenceJdbcTemplate.queryForObject(EXISTS_SQL, Integer.class, seqKey);
+        long initialValue = existing != null && existing > 0
+            ? 0L : parseSequence(maxExistingNumber.apply(numberPrefix), numberPrefix);
+        try {
+            return sequenceTransactionTemplate.execute(status -> doReserveBlock(seqKey, initialValue, size));
+        } catch (DataIntegrityViolationException e) {
+            // 其他实例同时创建了同一计数器，重新加锁领取即可
+            return sequenceTransactionTemplate.execute(status -> doReserveBlock(seqKey, initialValue, size));
+        }
+    }
+
+    private long[] doReserveBlock(String seqKey, long initialValue, int size) {
+        List<Long> current = sequenceJdbcTemplate.queryForList(LOCK_SQL, Long.class, seqKey);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long value;
+        if (current.isEmpty()) {
+            value = initialValue;
+            sequenceJdbcTemplate.update(INSERT_SQL, seqKey, value + size, now, now);
+        } else {
+            value = current.get(0);
+            sequenceJdbcTemplate.update(UPDATE_SQL, value + size, now, seqKey);
+        }
+        return new long[]{value + 1, value + size};
+    }
+
+    /**
+     * 从已有编号中解析序号，无法解析时视为0
+     */
+    private long parseSequence(String number, String numberPrefix) {
+        if (number == null || !number.startsWith(numberPrefix)) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(number.substring(numberPrefix.length()));
+        } catch (NumberFormatException e) {
+            // 忽略解析错误
+            return 0L;
+        }
+    }
+
+    /**
+     * 内存中持有的号段，并发领取的多个号段按起始序号排列，依次分配
+     */
+    private static class Segment {
+        /** 号段所属日期 */
+        private String date;
+        /** 未用完的号段，每项为下一个可分配序号和号段内最大序号 */
+        private final PriorityQueue<long[]> ranges = new PriorityQueue<>(Comparator.comparingLong(r -> r[0]));
+
+        /**
+         * 从持有的号段中分配编号，日期变化时丢弃前一天的号段
+         */
+        private void take(String today, int count, String prefix, List<String> numbers) {
+            if (!today.equals(date)) {
+                date = today;
+                ranges.clear();
+            }
+            for (int i = 0; i < count && !ranges.isEmpty(); i++) {
+                long[] range = ranges.peek();
+                numbers.add(String.format("%s-%s-%04d", prefix, date, range[0]++));
+                if (range[0] > range[1]) {
+                    ranges.poll();
+                }
+            }
+        }
+
+        /**
+         * 加入新领取的号段，领取期间日期已变化的号段丢弃
+         */
+        private void add(String day, long[] range) {
+            if (!day.equals(date)) {
+                return;
+            }
+            ranges.add(range);
+        }
+    }
+}
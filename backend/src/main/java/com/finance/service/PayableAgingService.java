@@ -0,0 +1,210 @@
+package com.finance.service;
+
+import com.finance.dto.AgingSummary;
+import com.finance.entity.PurchaseOrder;
+import com.finance.repository.PayableBalanceRepository;
+import com.finance.repository.PurchaseOrderRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 应付账款账龄与付款预测服务类
+ *
+ * <p>应付余额（见 {@link com.finance.entity.PayableBalance}）按"供应商 × 到期日"预汇总，
+ * 采购订单保存、删除、付款时在同一事务中先冲回原订单的余额、再计入新的余额。
+ * 账龄分析和付款预测都只在数据库中对余额表求和：</p>
+ * <ul>
+ *   <li>账龄按截止日减到期日的逾期天数分为：未到期、0-30天、31-60天、61-90天、90天以上</li>
+ *   <li>付款预测从截止日起按7天一周划分，默认13周；截止日之前到期的计为已逾期，
+ *       预测区间之后到期的单独合计</li>
+ * </ul>
+ *
+ * <p>采购订单以预计到货日期作为付款到期日，未填写时取订单日期；
+ * 只有已审核、已完成的采购订单计入应付。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class PayableAgingService {
+
+    /** 计入应付的采购订单状态 */
+    public static final List<String> PAYABLE_STATUSES = Arrays.asList("已审核", "已完成");
+
+    /** 付款预测默认周数 */
+    public static final int DEFAULT_FORECAST_WEEKS = 13;
+
+    private static final int MAX_FORECAST_WEEKS = 104;
+
+    @Autowired
+    private PayableBalanceRepository payableBalanceRepository;
+
+    @Autowired
+    private PurchaseOrderRepository purchaseOrderRepository;
+
+    /**
+     * 将采购订单的未支付金额计入（或冲回）应付余额
+     * 需在保存采购订单的同一事务中调用；草稿、已取消或已付清的订单不影响余额
+     *
+     * @param order 采购订单
+     * @param sign 1表示计入，-1表示冲回
+     */
+    public void apply(PurchaseOrder order, int sign) {
+        if (order == null || order.getSupplier() == null || order.getSupplier().getId() == null
+                || !PAYABLE_STATUSES.contains(order.getStatus())) {
+            return;
+        }
+        BigDecimal outstanding = outstandingOf(order);
+        if (outstanding.signum() == 0) {
+            return;
+        }
+        payableBalanceRepository.accumulate(order.getSupplier().getId(), dueDateOf(order),
+            sign > 0 ? outstanding : outstanding.negate(), sign > 0 ? 1 : -1);
+    }
+
+    /**
+     * 根据全部采购订单重建应付余额
+     * 首次启用账龄分析或数据修复时使用
+     *
+     * @return 生成的记录数
+     */
+    @Transactional
+    @Timed(value = "finance.payable.rebuild", description = "重建应付余额")
+    public int rebuild() {
+        payableBalanceRepository.deleteAllInBulk();
+        return payableBalanceRepository.rebuildFromOrders(PAYABLE_STATUSES);
+    }
+
+    /**
+     * 全部供应商的应付账龄
+     *
+     * @param asOf 截止日期，为null时取当天
+     * @return 截止日期、合计及按供应商的账龄汇总
+     */
+    @Transactional(readOnly = true)
+    @Timed(value = "finance.payable.aging", description = "应付账龄分析")
+    public Map<String, Object> portfolio(LocalDate asOf) {
+        LocalDate date = asOf != null ? asOf : LocalDate.now();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("asOf", date);
+        result.put("summary", payableBalanceRepository.sumAging(
+            date, date.minusDays(30), date.minusDays(60), date.minusDays(90)));
+        result.put("suppliers", payableBalanceRepository.sumAgingBySupplier(
+            date, date.minusDays(30), date.minusDays(60), date.minusDays(90)));
+        return result;
+    }
+
+    /**
+     * 单个供应商的应付账龄及未付清的采购订单
+     *
+     * @param supplierId 供应商ID
+     * @param asOf 截止日期，为null时取当天
+     * @return 截止日期、账龄汇总及按到期日排列的未付清采购订单
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> supplier(Long supplierId, LocalDate asOf) {
+        if (supplierId == null) {
+            throw new RuntimeException("供应商不能为空");
+        }
+        LocalDate date = asOf != null ? asOf : LocalDate.now();
+        AgingSummary summary = payableBalanceRepository.sumAgingOfSupplier(
+            date, date.minusDays(30), date.minusDays(60), date.minusDays(90), supplierId);
+
+        List<Map<String, Object>> orders = new ArrayList<>();
+        for (PurchaseOrder order : purchaseOrderRepository.findOpenBySupplier(supplierId, PAYABLE_STATUSES)) {
+            LocalDate dueDate = dueDateOf(order);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", order.getId());
+            row.put("orderNo", order.getOrderNo());
+            row.put("orderDate", order.getOrderDate());
+            row.put("dueDate", dueDate);
+            row.put("totalAmount", order.getTotalAmount());
+            row.put("paidAmount", order.getPaidAmount() != null ? order.getPaidAmount() : BigDecimal.ZERO);
+            row.put("outstandingAmount", outstandingOf(order));
+            row.put("overdueDays", Math.max(0, ChronoUnit.DAYS.between(dueDate, date)));
+            orders.add(row);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("asOf", date);
+        result.put("summary", summary != null ? summary : new AgingSummary(supplierId, null, null,
+            0L, null, null, null, null, null));
+        result.put("orders", orders);
+        return result;
+    }
+
+    /**
+     * 按周预测应付款项
+     *
+     * @param asOf 预测起始日期，为null时取当天
+     * @param weeks 预测周数，为null时取13周
+     * @return 已逾期金额、每周到期金额及累计金额、预测区间之后到期的金额
+     */
+    @Transactional(readOnly = true)
+    @Timed(value = "finance.payable.forecast", description = "应付付款预测")
+    public Map<String, Object> forecast(LocalDate asOf, Integer weeks) {
+        LocalDate start = asOf != null ? asOf : LocalDate.now();
+        int weekCount = weeks != null ? weeks : DEFAULT_FORECAST_WEEKS;
+        if (weekCount < 1 || weekCount > MAX_FORECAST_WEEKS) {
+            throw new RuntimeException("预测周数应在1到" + MAX_FORECAST_WEEKS + "之间");
+        }
+        LocalDate end = start.plusWeeks(weekCount);
+
+        BigDecimal[] amounts = new BigDecimal[weekCount];
+        Arrays.fill(amounts, BigDecimal.ZERO);
+        for (Object[] row : payableBalanceRepository.sumByDueDateBetween(start, end)) {
+            int week = (int) (ChronoUnit.DAYS.between(start, (LocalDate) row[0]) / 7);
+            amounts[week] = amounts[week].add((BigDecimal) row[1]);
+        }
+        Object[] outside = payableBalanceRepository.sumOutside(start, end).get(0);
+        BigDecimal overdue = outside[0] != null ? (BigDecimal) outside[0] : BigDecimal.ZERO;
+        BigDecimal later = outside[1] != null ? (BigDecimal) outside[1] : BigDecimal.ZERO;
+
+        // 已逾期的应付视为需要立即支付，计入累计金额
+        BigDecimal cumulative = overdue;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < weekCount; i++) {
+            cumulative = cumulative.add(amounts[i]);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("week", i + 1);
+            row.put("startDate", start.plusWeeks(i));
+            row.put("endDate", start.plusWeeks(i + 1).minusDays(1));
+            row.put("amount", amounts[i]);
+            row.put("cumulativeAmount", cumulative);
+            rows.add(row);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("asOf", start);
+        result.put("weeks", weekCount);
+        result.put("overdueAmount", overdue);
+        result.put("forecast", rows);
+        result.put("laterAmount", later);
+        result.put("totalAmount", cumulative.add(later));
+        return result;
+    }
+
+    /**
+     * 采购订单的未支付金额：总金额 - 已付款金额
+     */
+    static BigDecimal outstandingOf(PurchaseOrder order) {
+        BigDecimal total = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+        return order.getPaidAmount() != null ? total.subtract(order.getPaidAmount()) : total;
+    }
+
+    private static LocalDate dueDateOf(PurchaseOrder order) {
+        return order.getExpectedDate() != null ? order.getExpectedDate() : order.getOrderDate();
+    }
+}
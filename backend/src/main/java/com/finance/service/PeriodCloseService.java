@@ -0,0 +1,404 @@
+package com.finance.service;
+
+import com.finance.entity.AccountBalanceSnapshot;
+import com.finance.entity.AccountPeriodBalance;
+import com.finance.entity.AccountingPeriod;
+import com.finance.entity.PeriodCloseLock;
+import com.finance.repository.AccountBalanceSnapshotRepository;
+import com.finance.repository.AccountPeriodBalanceRepository;
+import com.finance.repository.AccountingPeriodRepository;
+import com.finance.repository.JournalEntryRepository;
+import com.finance.repository.PeriodCloseLockRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 会计期间结账服务类
+ *
+ * <p>结账冻结一个月份：检查期间内没有未过账的凭证后，以上一个期间的余额快照加上本期发生额，
+ * 生成每个科目截至期末的累计借方、贷方发生额快照。此后该期间内的凭证不能再新增、修改、删除或过账。</p>
+ *
+ * <p>结账规则：
+ * <ul>
+ *   <li>首次结账可以选择任意月份，该月及之前的全部月份一并冻结</li>
+ *   <li>之后只能按顺序结下一个月份</li>
+ *   <li>反结账只能反结最近一个已结账期间，同时删除该期间的快照</li>
+ * </ul>
+ * 因此已结账期间总是从最早的月份起连续的一段，判断某日是否已结账只需与最近一个已结账期间比较。
+ * 已结账区间缓存在内存中，结账、反结账事务提交后以及缓存超过有效期时重新加载。</p>
+ *
+ * <p>结账与过账经 {@link PeriodCloseLock} 锁行互斥：变动科目期间发生额的事务通过 {@link #lockOpen(Collection)}
+ * 加共享锁，并按锁行中记录的最近已结账期间检查，不依赖本实例的缓存；结账、反结账加排他锁，
+ * 等待进行中的过账事务提交后再汇总发生额，快照因此与账簿一致。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see AccountingPeriod
+ * @see AccountBalanceSnapshot
+ */
+@Service
+public class PeriodCloseService {
+
+    private static final String CLOSED = "已结账";
+    private static final String REOPENED = "已反结账";
+    private static final String POSTED = "已过账";
+
+    /** 结账锁行ID */
+    private static final Long LOCK_ID = 1L;
+
+    @Autowired
+    private AccountingPeriodRepository accountingPeriodRepository;
+
+    @Autowired
+    private AccountBalanceSnapshotRepository accountBalanceSnapshotRepository;
+
+    @Autowired
+    private AccountPeriodBalanceRepository accountPeriodBalanceRepository;
+
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    @Autowired
+    private PeriodCloseLockRepository periodCloseLockRepository;
+
+    /** 已结账区间缓存的有效期（秒），其他实例结账、反结账后本实例最迟在有效期后看到 */
+    @Value("${finance.period-close.cache-ttl-seconds:60}")
+    private long cacheTtlSeconds;
+
+    /** 创建锁行使用的独立事务模板 */
+    private final TransactionTemplate requiresNewTemplate;
+
+    /** 已结账区间缓存，null表示尚未加载 */
+    private volatile ClosedRange closedRange;
+
+    @Autowired
+    public PeriodCloseService(PlatformTransactionManager transactionManager) {
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public List<AccountingPeriod> findAll() {
+        return accountingPeriodRepository.findAllByOrderByPeriodDesc();
+    }
+
+    /**
+     * 最近一个已结账期间
+     *
+     * @return 会计期间（yyyyMM），没有已结账期间时返回null
+     */
+    public Integer getClosedThrough() {
+        return closedRange().last;
+    }
+
+    /**
+     * 判断日期所在的会计期间是否已结账
+     *
+     * @param date 日期
+     * @return 已结账返回true
+     */
+    public boolean isClosed(LocalDate date) {
+        Integer last = closedRange().last;
+        return last != null && AccountPeriodBalance.periodOf(date) <= last;
+    }
+
+    /**
+     * 检查日期所在的会计期间未结账
+     *
+     * @param date 日期
+     * @throws RuntimeException 期间已结账时抛出
+     */
+    public void assertOpen(LocalDate date) {
+        if (date != null && isClosed(date)) {
+            throw new RuntimeException("会计期间 " + format(AccountPeriodBalance.periodOf(date)) + " 已结账，不能变动凭证");
+        }
+    }
+
+    /**
+     * 检查会计期间均未结账
+     *
+     * @param periods 会计期间集合（yyyyMM）
+     * @throws RuntimeException 任一期间已结账时抛出
+     */
+    public void assertOpen(Collection<Integer> periods) {
+        check(periods, closedRange().last);
+    }
+
+    /**
+     * 在当前事务中锁定结账锁行，并按数据库中的结账状态检查日期所在的会计期间未结账
+     *
+     * @param date 日期
+     * @throws RuntimeException 期间已结账时抛出
+     * @see #lockOpen(Collection)
+     */
+    @Transactional
+    public void lockOpen(LocalDate date) {
+        if (date != null) {
+            lockOpen(Collections.singleton(AccountPeriodBalance.periodOf(date)));
+        }
+    }
+
+    /**
+     * 在当前事务中锁定结账锁行，并按数据库中的结账状态检查会计期间均未结账
+     *
+     * <p>共享锁持有到事务结束，期间结账需等待；其他实例刚结账的期间同样会被拒绝。</p>
+     *
+     * @param periods 会计期间集合（yyyyMM）
+     * @throws RuntimeException 任一期间已结账时抛出
+     */
+    @Transactional
+    public void lockOpen(Collection<Integer> periods) {
+        check(periods, lockRow(false).getClosedThrough());
+    }
+
+    /**
+     * 取得截至某日可以使用的最近一个余额快照期间
+     * 快照期间的期末不晚于该日，且该期间已结账
+     *
+     * @param date 日期
+     * @return 会计期间（yyyyMM），没有可用快照时返回null
+     */
+    public Integer findSnapshotPeriod(LocalDate date) {
+        ClosedRange range = closedRange();
+        if (range.last == null) {
+            return null;
+        }
+        LocalDate monthEnd = date.with(TemporalAdjusters.lastDayOfMonth());
+        int candidate = AccountPeriodBalance.periodOf(date.equals(monthEnd) ? date : date.withDayOfMonth(1).minusDays(1));
+        int period = Math.min(candidate, range.last);
+        return period >= range.first ? period : null;
+    }
+
+    /**
+     * 结账
+     *
+     * @param period 会计期间（yyyyMM）
+     * @param closedBy 结账人
+     * @return 结账记录
+     */
+    @Transactional
+    @Timed(value = "finance.period.close", description = "期末结账")
+    public AccountingPeriod close(Integer period, String closedBy) {
+        YearMonth month = parse(period);
+        // 先加排他锁，等待进行中的过账事务提交，之后的查询才能看到全部发生额
+        PeriodCloseLock lock = lockRow(true);
+        Integer latest = accountingPeriodRepository.findLatestClosedPeriod();
+        if (latest != null) {
+            if (period <= latest) {
+                throw new RuntimeException("会计期间 " + format(period) + " 已结账");
+            }
+            int next = toPeriod(parse(latest).plusMonths(1));
+            if (period != next) {
+                throw new RuntimeException("请按月份顺序结账，下一个可结账期间为 " + format(next));
+            }
+        }
+
+        // 首次结账时该期间之前的月份一并冻结，需一起检查
+        LocalDate checkStart = latest != null ? month.atDay(1) : LocalDate.of(1900, 1, 1);
+        long unposted = journalEntryRepository.countByEntryDateBetweenAndStatusNot(checkStart, month.atEndOfMonth(), POSTED);
+        if (unposted > 0) {
+            throw new RuntimeException("存在" + unposted + "张未过账的凭证，请过账或删除后再结账");
+        }
+
+        // 期末快照 = 上期快照 + 本期发生额
+        Map<Long, AccountBalanceSnapshot> snapshots = new HashMap<>();
+        if (latest != null) {
+            for (AccountBalanceSnapshot previous : accountBalanceSnapshotRepository.findByPeriod(latest)) {
+                snapshot(snapshots, period, previous.getAccountSubjectId(),
+                    previous.getDebitAmount(), previous.getCreditAmount());
+            }
+        }
+        for (Object[] row : accountPeriodBalanceRepository.sumBySubjectBetween(latest != null ? latest : 0, period)) {
+            snapshot(snapshots, period, (Long) row[0], (BigDecimal) row[1], (BigDecimal) row[2]);
+        }
+        accountBalanceSnapshotRepository.saveAll(snapshots.values());
+
+        AccountingPeriod record = accountingPeriodRepository.findByPeriod(period).orElseGet(AccountingPeriod::new);
+        record.setPeriod(period);
+        record.setStatus(CLOSED);
+        record.setClosedAt(LocalDateTime.now());
+        record.setClosedBy(closedBy);
+        AccountingPeriod saved = accountingPeriodRepository.save(record);
+        lock.setClosedThrough(period);
+        periodCloseLockRepository.save(lock);
+        reloadAfterCommit();
+        return saved;
+    }
+
+    /**
+     * 反结账，只能反结最近一个已结账期间
+     *
+     * @param period 会计期间（yyyyMM）
+     * @param reopenedBy 反结账人
+     * @return 结账记录
+     */
+    @Transactional
+    @Timed(value = "finance.period.reopen", description = "反结账")
+    public AccountingPeriod reopen(Integer period, String reopenedBy) {
+        parse(period);
+        PeriodCloseLock lock = lockRow(true);
+        Integer latest = accountingPeriodRepository.findLatestClosedPeriod();
+        if (latest == null || !latest.equals(period)) {
+            throw new RuntimeException(latest == null
+                ? "没有已结账的会计期间" : "只能反结账最近一个已结账期间 " + format(latest));
+        }
+        accountBalanceSnapshotRepository.deleteByPeriod(period);
+
+        AccountingPeriod record = accountingPeriodRepository.findByPeriod(period)
+            .orElseThrow(() -> new RuntimeException("结账记录不存在"));
+        record.setStatus(REOPENED);
+        record.setReopenedAt(LocalDateTime.now());
+        record.setReopenedBy(reopenedBy);
+        AccountingPeriod saved = accountingPeriodRepository.saveAndFlush(record);
+        lock.setClosedThrough(accountingPeriodRepository.findLatestClosedPeriod());
+        periodCloseLockRepository.save(lock);
+        reloadAfterCommit();
+        return saved;
+    }
+
+    private void snapshot(Map<Long, AccountBalanceSnapshot> snapshots, Integer period, Long subjectId,
+                          BigDecimal debit, BigDecimal credit) {
+        AccountBalanceSnapshot snapshot = snapshots.computeIfAbsent(subjectId, id -> {
+            AccountBalanceSnapshot created = new AccountBalanceSnapshot();
+            created.setPeriod(period);
+            created.setAccountSubjectId(id);
+            created.setDebitAmount(BigDecimal.ZERO);
+            created.setCreditAmount(BigDecimal.ZERO);
+            return created;
+        });
+        snapshot.setDebitAmount(snapshot.getDebitAmount().add(debit));
+        snapshot.setCreditAmount(snapshot.getCreditAmount().add(credit));
+    }
+
+    private ClosedRange closedRange() {
+        ClosedRange range = closedRange;
+        if (range == null || System.nanoTime() - range.loadedAt > cacheTtlSeconds * 1_000_000_000L) {
+            range = reload();
+        }
+        return range;
+    }
+
+    private static void check(Collection<Integer> periods, Integer last) {
+        if (last == null) {
+            return;
+        }
+        for (Integer period : periods) {
+            if (period <= last) {
+                throw new RuntimeException("会计期间 " + format(period) + " 已结账，不能变动凭证");
+            }
+        }
+    }
+
+    /**
+     * 在当前事务中对结账锁行加锁读取，锁行不存在时先以当前最近已结账期间创建
+     *
+     * @param exclusive true加排他锁（结账、反结账），false加共享锁（过账）
+     */
+    private PeriodCloseLock lockRow(boolean exclusive) {
+        PeriodCloseLock lock = findLockRow(exclusive);
+        if (lock == null) {
+            try {
+                requiresNewTemplate.execute(status -> {
+                    if (!periodCloseLockRepository.existsById(LOCK_ID)) {
+                        PeriodCloseLock created = new PeriodCloseLock();
+                        created.setId(LOCK_ID);
+                        created.setClosedThrough(accountingPeriodRepository.findLatestClosedPeriod());
+                        periodCloseLockRepository.saveAndFlush(created);
+                    }
+                    return null;
+                });
+            } catch (DataIntegrityViolationException e) {
+                // 其他实例同时创建了锁行，直接加锁读取即可
+            }
+            lock = findLockRow(exclusive);
+            if (lock == null) {
+                throw new RuntimeException("结账锁行创建失败");
+            }
+        }
+        return lock;
+    }
+
+    private PeriodCloseLock findLockRow(boolean exclusive) {
+        return (exclusive ? periodCloseLockRepository.findForUpdate(LOCK_ID)
+            : periodCloseLockRepository.findForShare(LOCK_ID)).orElse(null);
+    }
+
+    /**
+     * 从数据库加载已结账区间：首个已结账期间即首次结账的期间，此后的期间连续结账
+     */
+    private synchronized ClosedRange reload() {
+        List<Integer> closed = new ArrayList<>();
+        for (AccountingPeriod record : accountingPeriodRepository.findAllByOrderByPeriodDesc()) {
+            if (CLOSED.equals(record.getStatus())) {
+                closed.add(record.getPeriod());
+            }
+        }
+        ClosedRange range = closed.isEmpty()
+            ? new ClosedRange(null, null) : new ClosedRange(closed.get(closed.size() - 1), closed.get(0));
+        closedRange = range;
+        return range;
+    }
+
+    private void reloadAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reload();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload();
+            }
+        });
+    }
+
+    private static YearMonth parse(Integer period) {
+        if (period == null || period % 100 < 1 || period % 100 > 12 || period / 100 < 1900) {
+            throw new RuntimeException("会计期间格式应为 yyyyMM：" + period);
+        }
+        return YearMonth.of(period / 100, period % 100);
+    }
+
+    private static int toPeriod(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    private static String format(int period) {
+        return String.format("%d-%02d", period / 100, period % 100);
+    }
+
+    /**
+     * 已结账区间 [first, last]，没有已结账期间时两端均为null
+     */
+    private static class ClosedRange {
+        private final Integer first;
+        private final Integer last;
+        private final long loadedAt = System.nanoTime();
+
+        private ClosedRange(Integer first, Integer last) {
+            this.first = first;
+            this.last = last;
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.finance.service;
+
+import com.finance.dto.PostingSource;
+import com.finance.entity.AccountSubject;
+import com.finance.entity.JournalEntry;
+import com.finance.entity.JournalEntryLine;
+import com.finance.entity.PostingTemplate;
+import com.finance.event.DomainEvent;
+import com.finance.repository.EmployeeExpenseRepository;
+import com.finance.repository.PostingTemplateRepository;
+import com.finance.repository.PurchaseOrderRepository;
+import com.finance.repository.SalesInvoiceRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 业务单据生成凭证引擎
+ *
+ * <p>将指定日期范围内已审核的销售单、采购订单和员工费用单按凭证模板（{@link PostingTemplate}）
+ * 批量生成借贷平衡的记账凭证，凭证的业务类型、业务ID指向原单据，用于月末集中生成凭证。</p>
+ *
+ * <p>处理流程：
+ * <ol>
+ *   <li>按单据ID顺序分批读取尚未生成凭证的单据，只查询生成凭证所需的列</li>
+ *   <li>逐张按模板生成凭证，科目从科目表快照中解析，单张失败只记录原因</li>
+ *   <li>每批一次领取凭证号，在独立事务中以JDBC批量语句写入凭证、明细和生成记录，
+ *       需要过账时同步科目期间发生额</li>
+ * </ol>
+ * </p>
+ *
+ * <p>幂等：每张单据生成凭证后写入一条"业务类型 + 业务单据ID"唯一的生成记录
+ * （{@link com.finance.entity.BusinessPosting}），读取单据时排除已有记录或已有关联凭证（含手工录入、导入的凭证）的单据，
+ * 重复执行只处理新增的单据。
+ * 同一时间只允许一个生成任务执行；即使多个实例同时执行，唯一约束也保证同一张单据不会生成两张凭证。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see PostingTemplate
+ * @see JournalEntryBatchWriter
+ */
+@Service
+public class PostingEngine {
+
+    /** 业务类型：销售 */
+    public static final String SALES = "销售";
+
+    /** 业务类型：采购 */
+    public static final String PURCHASE = "采购";
+
+    /** 业务类型：员工费用 */
+    public static final String EXPENSE = "员工费用";
+
+    /** 支持生成凭证的业务类型 */
+    public static final List<String> BUSINESS_TYPES =
+        Collections.unmodifiableList(Arrays.asList(SALES, PURCHASE, EXPENSE));
+
+    /** 返回的错误明细上限，超过时只计数不返回 */
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String DEBIT = "借";
+    private static final String CREDIT = "贷";
+
+    /** 各业务类型可以生成凭证的单据状态 */
+    private static final Map<String, List<String>> ELIGIBLE_STATUSES = new HashMap<>();
+
+    static {
+        ELIGIBLE_STATUSES.put(SALES, Arrays.asList("已审核", "已完成"));
+        ELIGIBLE_STATUSES.put(PURCHASE, Arrays.asList("已审核", "已完成"));
+        ELIGIBLE_STATUSES.put(EXPENSE, Arrays.asList("已审核", "已支付"));
+    }
+
+    @Autowired
+    private SalesInvoiceRepository salesInvoiceRepository;
+
+    @Autowired
+    private PurchaseOrderRepository purchaseOrderRepository;
+
+    @Autowired
+    private EmployeeExpenseRepository employeeExpenseRepository;
+
+    @Autowired
+    private PostingTemplateRepository postingTemplateRepository;
+
+    @Autowired
+    private AccountSubjectService accountSubjectService;
+
+    @Autowired
+    private AccountBalanceService accountBalanceService;
+
+    @Autowired
+    private PeriodCloseService periodCloseService;
+
+    @Autowired
+    private JournalEntryBatchWriter journalEntryBatchWriter;
+
+    @Autowired
+    private BusinessPostingService businessPostingService;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** 每批读取、写入的单据数量 */
+    @Value("${finance.posting.chunk-size:500}")
+    private int chunkSize;
+
+    /** 分批写入使用的事务模板 */
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public PostingEngine(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 为日期范围内已审核的业务单据生成凭证
+     *
+     * @param businessType 业务类型：销售、采购、员工费用，为空时处理全部类型
+     * @param startDate 单据日期开始（包含）
+     * @param endDate 单据日期结束（包含）
+     * @param post 是否直接过账，否则生成草稿凭证
+     * @param createdBy 制单人
+     * @return 生成结果，包含单据数、成功数、失败数、各业务类型的凭证数和失败明细
+     */
+    @Timed(value = "finance.posting.generate", description = "业务单据生成凭证")
+    public Map<String, Object> generate(String businessType, LocalDate startDate, LocalDate endDate,
+                                        boolean post, String createdBy) {
+        if (startDate == null || endDate == null) {
+            throw new RuntimeException("开始日期和结束日期不能为空");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new RuntimeException("开始日期不能晚于结束日期");
+        }
+        List<String> types = businessType == null || businessType.isEmpty()
+            ? BUSINESS_TYPES : Collections.singletonList(businessType);
+        for (String type : types) {
+            if (!BUSINESS_TYPES.contains(type)) {
+                throw new RuntimeException("业务类型无效：" + type + "，可选：" + String.join("、", BUSINESS_TYPES));
+            }
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("凭证生成任务正在执行，请稍后再试");
+        }
+        try {
+            Run run = new Run(post, createdBy);
+            for (String type : types) {
+                Long afterId = 0L;
+                while (true) {
+                    List<PostingSource> sources = findSources(type, startDate, endDate, afterId);
+                    if (sources.isEmpty()) {
+                        break;
+                    }
+                    afterId = sources.get(sources.size() - 1).getId();
+                    run.process(type, sources);
+                    if (sources.size() < chunkSize) {
+                        break;
+                    }
+                }
+            }
+            meterRegistry.counter("finance.posting.documents", "result", "success").increment(run.successCount);
+            meterRegistry.counter("finance.posting.documents", "result", "failure").increment(run.failureCount);
+            return run.result();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private List<PostingSource> findSources(String type, LocalDate startDate, LocalDate endDate, Long afterId) {
+        List<String> statuses = ELIGIBLE_STATUSES.get(type);
+        PageRequest limit = PageRequest.of(0, chunkSize);
+        switch (type) {
+            case SALES:
+                return salesInvoiceRepository.findPostingSources(statuses, startDate, endDate, afterId, type, limit);
+            case PURCHASE:
+                return purchaseOrderRepository.findPostingSources(statuses, startDate, endDate, afterId, type, limit);
+            default:
+                return employeeExpenseRepository.findPostingSources(statuses, startDate, endDate, afterId, type, limit);
+        }
+    }
+
+    /**
+     * 在一个事务中写入一批凭证及其生成记录
+     */
+    private void writeChunk(String type, List<JournalEntry> entries, boolean post) {
+        journalEntryBatchWriter.assignVoucherNos(entries);
+
+        transactionTemplate.execute(status -> {
+            journalEntryBatchWriter.insert(entries);
+            businessPostingService.linkAll(entries);
+            if (post) {
+                accountBalanceService.applyEntries(entries, 1);
+            }
+            domainEventBus.publish(DomainEvent.bulk(DomainEvent.JOURNAL_ENTRY)
+                .with("businessType", type)
+                .with("count", entries.size())
+                .with("postedCount", post ? entries.size() : 0));
+            return null;
+        });
+    }
+
+    /**
+     * 单次生成任务的处理上下文：按模板生成凭证、分批写入并记录结果
+     */
+    private class Run {
+
+        private final boolean post;
+        private final String createdBy;
+        private final AccountSubjectSnapshot subjects = accountSubjectService.snapshot();
+        private final Map<String, PostingTemplate> templates = new HashMap<>();
+        private final Map<String, Integer> entryCounts = new LinkedHashMap<>();
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+        private int total;
+        private int successCount;
+        private int failureCount;
+
+        private Run(boolean post, String createdBy) {
+            this.post = post;
+            this.createdBy = createdBy;
+            for (PostingTemplate template : postingTemplateRepository.findByEnabledTrue()) {
+                templates.put(templateKey(template.getBusinessType(), template.getCategory()), template);
+            }
+        }
+
+        private void process(String type, List<PostingSource> sources) {
+            List<JournalEntry> entries = new ArrayList<>(sources.size());
+            List<PostingSource> accepted = new ArrayList<>(sources.size());
+            for (PostingSource source : sources) {
+                total++;
+                try {
+                    entries.add(toJournalEntry(type, source));
+                    accepted.add(source);
+                } catch (RuntimeException e) {
+                    reject(type, source, e.getMessage());
+                }
+            }
+            if (entries.isEmpty()) {
+                return;
+            }
+            try {
+                writeChunk(type, entries, post);
+                successCount += entries.size();
+                entryCounts.merge(type, entries.size(), Integer::sum);
+            } catch (RuntimeException e) {
+                // 整批写入失败时，批内单据全部记为失败，后续批次继续生成
+                for (PostingSource source : accepted) {
+                    reject(type, source, "写入失败：" + e.getMessage());
+                }
+            }
+        }
+
+        private void reject(String type, PostingSource source, String message) {
+            failureCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("businessType", type);
+                error.put("businessId", source.getId());
+                error.put("documentNo", source.getDocumentNo());
+                error.put("message", message);
+                errors.add(error);
+            }
+        }
+
+        /**
+         * 按模板为单据生成凭证
+         */
+        private JournalEntry toJournalEntry(String type, PostingSource source) {
+            if (source.getDocumentDate() == null) {
+                throw new RuntimeException("单据日期为空");
+            }
+            periodCloseService.assertOpen(source.getDocumentDate());
+            PostingTemplate template = templates.get(templateKey(type, source.getCategory()));
+            if (template == null) {
+                template = templates.get(templateKey(type, null));
+            }
+            if (template == null) {
+                throw new RuntimeException("未配置凭证模板：" + type
+                    + (source.getCategory() != null ? "（" + source.getCategory() + "）" : ""));
+            }
+            BigDecimal amount = source.getAmount();
+            if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new RuntimeException("单据金额必须大于0");
+            }
+            BigDecimal tax = template.getTaxAccountCode() != null ? source.getTaxAmount() : BigDecimal.ZERO;
+            if (tax.compareTo(BigDecimal.ZERO) < 0 || tax.compareTo(amount) >= 0) {
+                throw new RuntimeException("税额无效：" + tax);
+            }
+            BigDecimal net = amount.subtract(tax);
+
+            LocalDateTime now = LocalDateTime.now();
+            JournalEntry entry = new JournalEntry();
+            entry.setEntryDate(source.getDocumentDate());
+            entry.setDescription((template.getSummary() != null && !template.getSummary().isEmpty()
+                ? template.getSummary() : type) + " " + source.getDocumentNo());
+            entry.setBusinessType(type);
+            entry.setBusinessId(source.getId());
+            entry.setStatus(post ? "已过账" : "草稿");
+            entry.setCreatedBy(createdBy);
+            entry.setCreatedAt(now);
+            entry.setUpdatedAt(now);
+            entry.setTotalAmount(amount);
+            entry.setEntryLines(new ArrayList<>());
+
+            // 采购的价税合计在贷方，销售、员工费用在借方；税额与不含税金额同在另一方
+            if (PURCHASE.equals(type)) {
+                addLine(entry, template.getDebitAccountCode(), DEBIT, net, source, now);
+                addLine(entry, template.getTaxAccountCode(), DEBIT, tax, source, now);
+                addLine(entry, template.getCreditAccountCode(), CREDIT, amount, source, now);
+            } else {
+                addLine(entry, template.getDebitAccountCode(), DEBIT, amount, source, now);
+                addLine(entry, template.getCreditAccountCode(), CREDIT, net, source, now);
+                addLine(entry, template.getTaxAccountCode(), CREDIT, tax, source, now);
+            }
+            return entry;
+        }
+
+        private void addLine(JournalEntry entry, String accountCode, String direction, BigDecimal amount,
+                             PostingSource source, LocalDateTime now) {
+            if (amount.compareTo(BigDecimal.ZERO) == 0) {
+                return;
+            }
+            AccountSubject subject = subjects.getByCode(accountCode);
+            if (subject == null) {
+                throw new RuntimeException("凭证模板中的会计科目不存在(编码=" + accountCode + ")");
+            }
+            if (!Boolean.TRUE.equals(subject.getEnabled())) {
+                throw new RuntimeException("凭证模板中的会计科目已停用(编码=" + accountCode + ")");
+            }
+            JournalEntryLine line = new JournalEntryLine();
+            line.setAccountSubject(subject);
+            line.setDirection(direction);
+            line.setAmount(amount);
+            line.setRemark(source.getDocumentNo());
+            line.setCurrency("CNY");
+            line.setExchangeRate(BigDecimal.ONE);
+            line.setCreatedAt(now);
+            line.setUpdatedAt(now);
+            entry.getEntryLines().add(line);
+        }
+
+        private Map<String, Object> result() {
+            Map<String, Object> result = new HashMap<>();
+            result.put("total", total);
+            result.put("successCount", successCount);
+            result.put("failureCount", failureCount);
+            result.put("entryCounts", entryCounts);
+            result.put("errors", errors);
+            result.put("errorsTruncated", failureCount > errors.size());
+            return result;
+        }
+    }
+
+    private static String templateKey(String businessType, String category) {
+        return businessType + "|" + (category != null ? category : "");
+    }
+}
@@ -0,0 +1,88 @@
+package com.finance.service;
+
+import com.finance.entity.AccountSubject;
+import com.finance.entity.PostingTemplate;
+import com.finance.repository.PostingTemplateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 凭证模板服务类
+ *
+ * <p>维护业务单据生成凭证使用的科目模板，保存时按科目表快照校验科目编码。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see PostingTemplate
+ * @see PostingEngine
+ */
+@Service
+public class PostingTemplateService {
+
+    @Autowired
+    private PostingTemplateRepository postingTemplateRepository;
+
+    @Autowired
+    private AccountSubjectService accountSubjectService;
+
+    public List<PostingTemplate> findAll() {
+        return postingTemplateRepository.findAllByOrderByBusinessTypeAscCategoryAsc();
+    }
+
+    public PostingTemplate findById(Long id) {
+        return postingTemplateRepository.findById(id).orElse(null);
+    }
+
+    @Transactional
+    public PostingTemplate save(PostingTemplate template) {
+        if (!PostingEngine.BUSINESS_TYPES.contains(template.getBusinessType())) {
+            throw new RuntimeException("业务类型无效：" + template.getBusinessType()
+                + "，可选：" + String.join("、", PostingEngine.BUSINESS_TYPES));
+        }
+        if (template.getCategory() != null && template.getCategory().isEmpty()) {
+            template.setCategory(null);
+        }
+        if (template.getTaxAccountCode() != null && template.getTaxAccountCode().isEmpty()) {
+            template.setTaxAccountCode(null);
+        }
+        if (template.getEnabled() == null) {
+            template.setEnabled(true);
+        }
+        AccountSubjectSnapshot subjects = accountSubjectService.snapshot();
+        checkSubject(subjects, "借方科目", template.getDebitAccountCode());
+        checkSubject(subjects, "贷方科目", template.getCreditAccountCode());
+        if (template.getTaxAccountCode() != null) {
+            checkSubject(subjects, "税额科目", template.getTaxAccountCode());
+        }
+
+        PostingTemplate existing = postingTemplateRepository
+            .findByBusinessTypeAndCategory(template.getBusinessType(), template.getCategory()).orElse(null);
+        if (existing != null && !existing.getId().equals(template.getId())) {
+            throw new RuntimeException("业务类型 " + template.getBusinessType()
+                + (template.getCategory() != null ? "（" + template.getCategory() + "）" : "") + " 已配置凭证模板");
+        }
+        return postingTemplateRepository.save(template);
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        postingTemplateRepository.deleteById(id);
+    }
+
+    private static void checkSubject(AccountSubjectSnapshot subjects, String label, String code) {
+        if (code == null || code.isEmpty()) {
+            throw new RuntimeException(label + "不能为空");
+        }
+        AccountSubject subject = subjects.getByCode(code);
+        if (subject == null) {
+            throw new RuntimeException(label + "不存在(编码=" + code + ")");
+        }
+        if (!Boolean.TRUE.equals(subject.getEnabled())) {
+            throw new RuntimeException(label + "已停用(编码=" + code + ")");
+        }
+    }
+}
@@ -1,26 +1,58 @@
 package com.finance.service;
 
+import com.finance.common.CursorPage;
+import com.finance.common.KeysetPager;
+import com.finance.common.PageQuery;
+import com.finance.common.Specs;
 import com.finance.entity.PurchaseOrder;
 import com.finance.entity.PurchaseOrderLine;
+import com.finance.event.DomainEvent;
 import com.finance.repository.PurchaseOrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class PurchaseOrderService {
     
+    private static final Set<String> SORTABLE_FIELDS = new HashSet<>(
+        Arrays.asList("orderNo", "orderDate", "totalAmount", "createdAt"));
+    
     @Autowired
     private PurchaseOrderRepository purchaseOrderRepository;
 
+    @Autowired
+    private NumberSequenceService numberSequenceService;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    @Autowired
+    private PayableAgingService payableAgingService;
+
     public List<PurchaseOrder> findAll() {
         return purchaseOrderRepository.findAll();
     }
 
+    public CursorPage<PurchaseOrder> page(Long supplierId, String status, LocalDate startDate,
+                                          LocalDate endDate, String keyword, PageQuery query) {
+        Specification<PurchaseOrder> filter = Specification.<PurchaseOrder>where(Specs.equal("supplier.id", supplierId))
+            .and(Specs.equal("status", status))
+            .and(Specs.between("orderDate", startDate, endDate))
+            .and(Specs.contains(keyword, "orderNo"));
+        return keysetPager.page(PurchaseOrder.class, filter, query, SORTABLE_FIELDS);
+    }
+
     public PurchaseOrder findById(Long id) {
         return purchaseOrderRepository.findById(id).orElse(null);
     }
@@ -66,18 +98,69 @@ public class PurchaseOrderService {
             order.setTaxAmount(taxTotal);
         }
         
-        return purchaseOrderRepository.save(order);
+        boolean created = order.getId() == null;
+        if (!created) {
+            // 加锁读取原采购订单，先冲回其计入的应付余额，保存后再按新的金额、到期日计入；
+            // 已付款金额只由登记付款修改，以库中的值为准
+            PurchaseOrder current = purchaseOrderRepository.findForUpdate(order.getId()).orElse(null);
+            if (current != null) {
+                order.setPaidAmount(current.getPaidAmount());
+            }
+            payableAgingService.apply(current, -1);
+        }
+        PurchaseOrder saved = purchaseOrderRepository.save(order);
+        payableAgingService.apply(saved, 1);
+        domainEventBus.publish(DomainEvent.saved(DomainEvent.PURCHASE_ORDER, created,
+            saved.getId(), saved.getOrderNo()).with("status", saved.getStatus()));
+        return saved;
+    }
+
+    /**
+     * 登记采购订单付款
+     * 累加已付款金额并同步应付余额，付清后采购订单状态变为已完成
+     *
+     * @param id 采购订单ID
+     * @param amount 本次付款金额
+     * @return 更新后的采购订单
+     */
+    @Transactional
+    public PurchaseOrder pay(Long id, BigDecimal amount) {
+        PurchaseOrder order = purchaseOrderRepository.findForUpdate(id)
+            .orElseThrow(() -> new RuntimeException("采购订单不存在"));
+        if (!PayableAgingService.PAYABLE_STATUSES.contains(order.getStatus())) {
+            throw new RuntimeException("采购订单状态为" + order.getStatus() + "，审核后才能登记付款");
+        }
+        if (amount == null || amount.signum() <= 0) {
+            throw new RuntimeException("付款金额必须大于0");
+        }
+        BigDecimal outstanding = PayableAgingService.outstandingOf(order);
+        if (amount.compareTo(outstanding) > 0) {
+            throw new RuntimeException("付款金额超过未付金额" + outstanding);
+        }
+
+        payableAgingService.apply(order, -1);
+        BigDecimal paid = order.getPaidAmount() != null ? order.getPaidAmount() : BigDecimal.ZERO;
+        order.setPaidAmount(paid.add(amount));
+        if (amount.compareTo(outstanding) == 0) {
+            order.setStatus("已完成");
+        }
+        PurchaseOrder saved = purchaseOrderRepository.save(order);
+        payableAgingService.apply(saved, 1);
+        domainEventBus.publish(DomainEvent.saved(DomainEvent.PURCHASE_ORDER, false,
+            saved.getId(), saved.getOrderNo()).with("status", saved.getStatus()));
+        return saved;
     }
 
     @Transactional
     public void delete(Long id) {
+        purchaseOrderRepository.findForUpdate(id).ifPresent(order -> payableAgingService.apply(order, -1));
         purchaseOrderRepository.deleteById(id);
+        domainEventBus.publish(DomainEvent.deleted(DomainEvent.PURCHASE_ORDER, id));
     }
 
     private String generateOrderNo() {
-        String date = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        long count = purchaseOrderRepository.count() + 1;
-        return String.format("PO-%s-%04d", date, count);
+        return numberSequenceService.nextNumber("PO",
+            prefix -> purchaseOrderRepository.findMaxOrderNoLike(prefix + "%"));
     }
 }
 
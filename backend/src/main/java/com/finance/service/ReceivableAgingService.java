@@ -0,0 +1,149 @@
+package com.finance.service;
+
+import com.finance.dto.AgingSummary;
+import com.finance.entity.SalesInvoice;
+import com.finance.repository.ReceivableBalanceRepository;
+import com.finance.repository.SalesInvoiceRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 应收账款账龄服务类
+ *
+ * <p>应收余额（见 {@link com.finance.entity.ReceivableBalance}）按"客户 × 到期日"预汇总，
+ * 销售单保存、删除、收款时在同一事务中先冲回原单据的余额、再计入新的余额，
+ * 因此账龄查询只需在数据库中对余额表按到期日分段求和，耗时与销售单数量无关。</p>
+ *
+ * <p>账龄按截止日减到期日的逾期天数分为：未到期、0-30天、31-60天、61-90天、90天以上。
+ * 销售单未填写到期日时以销售日期作为到期日，只有已审核、已完成的销售单计入应收。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@Service
+public class ReceivableAgingService {
+
+    /** 计入应收的销售单状态 */
+    public static final List<String> RECEIVABLE_STATUSES = Arrays.asList("已审核", "已完成");
+
+    @Autowired
+    private ReceivableBalanceRepository receivableBalanceRepository;
+
+    @Autowired
+    private SalesInvoiceRepository salesInvoiceRepository;
+
+    /**
+     * 将销售单的未收回金额计入（或冲回）应收余额
+     * 需在保存销售单的同一事务中调用；草稿、已取消或已收清的销售单不影响余额
+     *
+     * @param invoice 销售单
+     * @param sign 1表示计入，-1表示冲回
+     */
+    public void apply(SalesInvoice invoice, int sign) {
+        if (invoice == null || invoice.getCustomer() == null || invoice.getCustomer().getId() == null
+                || !RECEIVABLE_STATUSES.contains(invoice.getStatus())) {
+            return;
+        }
+        BigDecimal outstanding = outstandingOf(invoice);
+        if (outstanding.signum() == 0) {
+            return;
+        }
+        receivableBalanceRepository.accumulate(invoice.getCustomer().getId(), dueDateOf(invoice),
+            sign > 0 ? outstanding : outstanding.negate(), sign > 0 ? 1 : -1);
+    }
+
+    /**
+     * 根据全部销售单重建应收余额
+     * 首次启用账龄分析或数据修复时使用
+     *
+     * @return 生成的记录数
+     */
+    @Transactional
+    @Timed(value = "finance.receivable.rebuild", description = "重建应收余额")
+    public int rebuild() {
+        receivableBalanceRepository.deleteAllInBulk();
+        return receivableBalanceRepository.rebuildFromInvoices(RECEIVABLE_STATUSES);
+    }
+
+    /**
+     * 全部客户的应收账龄
+     *
+     * @param asOf 截止日期，为null时取当天
+     * @return 截止日期、合计及按客户的账龄汇总
+     */
+    @Transactional(readOnly = true)
+    @Timed(value = "finance.receivable.aging", description = "应收账龄分析")
+    public Map<String, Object> portfolio(LocalDate asOf) {
+        LocalDate date = asOf != null ? asOf : LocalDate.now();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("asOf", date);
+        result.put("summary", receivableBalanceRepository.sumAging(
+            date, date.minusDays(30), date.minusDays(60), date.minusDays(90)));
+        result.put("customers", receivableBalanceRepository.sumAgingByCustomer(
+            date, date.minusDays(30), date.minusDays(60), date.minusDays(90)));
+        return result;
+    }
+
+    /**
+     * 单个客户的应收账龄及未收清的销售单
+     *
+     * @param customerId 客户ID
+     * @param asOf 截止日期，为null时取当天
+     * @return 截止日期、账龄汇总及按到期日排列的未收清销售单
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> customer(Long customerId, LocalDate asOf) {
+        if (customerId == null) {
+            throw new RuntimeException("客户不能为空");
+        }
+        LocalDate date = asOf != null ? asOf : LocalDate.now();
+        AgingSummary summary = receivableBalanceRepository.sumAgingOfCustomer(
+            date, date.minusDays(30), date.minusDays(60), date.minusDays(90), customerId);
+
+        List<Map<String, Object>> invoices = new ArrayList<>();
+        for (SalesInvoice invoice : salesInvoiceRepository.findOpenByCustomer(customerId, RECEIVABLE_STATUSES)) {
+            LocalDate dueDate = dueDateOf(invoice);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", invoice.getId());
+            row.put("invoiceNo", invoice.getInvoiceNo());
+            row.put("invoiceDate", invoice.getInvoiceDate());
+            row.put("dueDate", dueDate);
+            row.put("totalAmount", invoice.getTotalAmount());
+            row.put("receivedAmount", invoice.getReceivedAmount() != null ? invoice.getReceivedAmount() : BigDecimal.ZERO);
+            row.put("outstandingAmount", outstandingOf(invoice));
+            row.put("overdueDays", Math.max(0, ChronoUnit.DAYS.between(dueDate, date)));
+            invoices.add(row);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("asOf", date);
+        result.put("summary", summary != null ? summary : new AgingSummary(customerId, null, null,
+            0L, null, null, null, null, null));
+        result.put("invoices", invoices);
+        return result;
+    }
+
+    /**
+     * 销售单的未收回金额：总金额 - 已收款金额
+     */
+    static BigDecimal outstandingOf(SalesInvoice invoice) {
+        BigDecimal total = invoice.getTotalAmount() != null ? invoice.getTotalAmount() : BigDecimal.ZERO;
+        return invoice.getReceivedAmount() != null ? total.subtract(invoice.getReceivedAmount()) : total;
+    }
+
+    private static LocalDate dueDateOf(SalesInvoice invoice) {
+        return invoice.getDueDate() != null ? invoice.getDueDate() : invoice.getInvoiceDate();
+    }
+}
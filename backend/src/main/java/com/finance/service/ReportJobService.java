@@ -0,0 +1,348 @@
+package com.finance.service;
+
+import com.finance.dto.ReportJob;
+import com.finance.entity.AccountPeriodBalance;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 报表任务服务
+ *
+ * <p>报表在独立线程池中异步生成，调用方提交任务后取得任务ID，再轮询或长轮询任务状态。
+ * 同步报表接口也经由本服务取数，共享同一份缓存。</p>
+ *
+ * <p>缓存与去重：
+ * <ul>
+ *   <li>报表结果按"报表类型 + 日期区间"缓存，同时记录生成时的总账版本
+ *       （见 {@link LedgerVersionService}）和科目表快照版本；版本一致才命中，
+ *       区间内的期间有新的过账后旧结果即失效</li>
+ *   <li>相同报表、相同版本的请求在生成过程中只计算一次，后到的请求等待同一个结果，
+ *       多个看板同时刷新时不会各自扫描一遍总账</li>
+ * </ul>
+ * 缓存条数和已完成任务的保留时间均可配置，超出时淘汰最久未使用的缓存、清理过期任务。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ * @see ReportService
+ */
+@Service
+public class ReportJobService {
+
+    /** 报表类型：资产负债表 */
+    public static final String BALANCE_SHEET = "balance-sheet";
+
+    /** 报表类型：利润表 */
+    public static final String INCOME_STATEMENT = "income-statement";
+
+    /** 报表类型：现金流量表 */
+    public static final String CASH_FLOW = "cash-flow";
+
+    /** 报表类型：科目余额表 */
+    public static final String TRIAL_BALANCE = "trial-balance";
+
+    private static final String RUNNING = "生成中";
+    private static final String DONE = "已完成";
+    private static final String FAILED = "失败";
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountSubjectService accountSubjectService;
+
+    @Autowired
+    private LedgerVersionService ledgerVersionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("reportExecutor")
+    private Executor reportExecutor;
+
+    /** 最多缓存的报表数量 */
+    @Value("${finance.report.cache-size:100}")
+    private int cacheSize;
+
+    /** 已完成任务的保留时间（分钟），超时后无法再查询 */
+    @Value("${finance.report.job-ttl-minutes:10}")
+    private long jobTtlMinutes;
+
+    /** 报表缓存："类型|开始日期|结束日期" -> 缓存结果，按访问顺序淘汰 */
+    private Map<String, CachedReport> cache;
+
+    /** 生成中的报表："类型|开始日期|结束日期|版本" -> 结果 */
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+
+    /** 报表任务：任务ID -> 任务 */
+    private final Map<String, JobHandle> jobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedReport>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedReport> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * 同步取得报表，优先使用缓存
+     *
+     * @param reportType 报表类型
+     * @param startDate 开始日期，资产负债表忽略
+     * @param endDate 结束日期
+     * @return 报表内容
+     */
+    public Map<String, Object> generate(String reportType, LocalDate startDate, LocalDate endDate) {
+        try {
+            return lookup(reportType, startDate, endDate).future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * 提交报表任务
+     *
+     * @param reportType 报表类型
+     * @param startDate 开始日期，资产负债表忽略
+     * @param endDate 结束日期
+     * @return 任务状态，命中缓存时任务已完成
+     */
+    public ReportJob submit(String reportType, LocalDate startDate, LocalDate endDate) {
+        purgeExpiredJobs();
+        Lookup lookup = lookup(reportType, startDate, endDate);
+        JobHandle handle = new JobHandle(UUID.randomUUID().toString(), lookup.reportType,
+            lookup.startDate, lookup.endDate, lookup.cached, lookup.future);
+        jobs.put(handle.id, handle);
+        return handle.toJob();
+    }
+
+    /**
+     * 查询任务状态
+     *
+     * @param id 任务ID
+     * @return 任务状态，任务不存在或已过期时返回null
+     */
+    public ReportJob getJob(String id) {
+        JobHandle handle = jobs.get(id);
+        return handle != null ? handle.toJob() : null;
+    }
+
+    /**
+     * 任务完成（成功或失败）时得到任务状态，用于长轮询
+     *
+     * @param id 任务ID
+     * @return 任务完成时完成的Future，任务不存在时返回null
+     */
+    public CompletableFuture<ReportJob> whenDone(String id) {
+        JobHandle handle = jobs.get(id);
+        return handle != null ? handle.done.handle((result, error) -> handle.toJob()) : null;
+    }
+
+    /**
+     * 查找缓存，未命中时加入或发起一次生成
+     */
+    private Lookup lookup(String reportType, LocalDate startDate, LocalDate endDate) {
+        if (endDate == null) {
+            throw new RuntimeException("结束日期不能为空");
+        }
+        if (BALANCE_SHEET.equals(reportType)) {
+            startDate = null;
+        } else if (INCOME_STATEMENT.equals(reportType) || CASH_FLOW.equals(reportType)
+                || TRIAL_BALANCE.equals(reportType)) {
+            if (startDate == null) {
+                throw new RuntimeException("开始日期不能为空");
+            }
+            if (startDate.isAfter(endDate)) {
+                throw new RuntimeException("开始日期不能晚于结束日期");
+            }
+        } else {
+            throw new RuntimeException("不支持的报表类型：" + reportType
+                + "，可选：" + BALANCE_SHEET + "、" + INCOME_STATEMENT + "、" + CASH_FLOW + "、" + TRIAL_BALANCE);
+        }
+
+        String reportKey = reportType + "|" + startDate + "|" + endDate;
+        // 科目余额表的期初余额取决于开始日期之前的全部期间
+        long ledgerVersion = ledgerVersionService.versionOf(
+            startDate != null && !TRIAL_BALANCE.equals(reportType) ? AccountPeriodBalance.periodOf(startDate) : null,
+            AccountPeriodBalance.periodOf(endDate));
+        String version = ledgerVersion + "|" + accountSubjectService.snapshot().getVersion();
+
+        CachedReport cached = cache.get(reportKey);
+        if (cached != null && cached.version.equals(version)) {
+            countLookup(reportType, "hit");
+            return new Lookup(reportType, startDate, endDate, true, CompletableFuture.completedFuture(cached.result));
+        }
+
+        String flightKey = reportKey + "|" + version;
+        CompletableFuture<Map<String, Object>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = inFlight.putIfAbsent(flightKey, created);
+        if (existing != null) {
+            countLookup(reportType, "shared");
+            return new Lookup(reportType, startDate, endDate, false, existing);
+        }
+
+        countLookup(reportType, "miss");
+        LocalDate start = startDate;
+        try {
+            reportExecutor.execute(() -> {
+                try {
+                    created.complete(Collections.unmodifiableMap(run(reportType, start, endDate)));
+                } catch (Throwable e) {
+                    created.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(flightKey, created);
+            throw new RuntimeException("报表任务过多，请稍后再试");
+        }
+        created.whenComplete((result, error) -> {
+            // 以生成前取得的版本缓存：生成期间若有新的过账，下次查询时版本不一致，会重新生成
+            if (error == null) {
+                cache.put(reportKey, new CachedReport(version, result));
+            }
+            inFlight.remove(flightKey, created);
+        });
+        return new Lookup(reportType, startDate, endDate, false, created);
+    }
+
+    private Map<String, Object> run(String reportType, LocalDate startDate, LocalDate endDate) {
+        switch (reportType) {
+            case BALANCE_SHEET:
+                return reportService.generateBalanceSheet(endDate);
+            case INCOME_STATEMENT:
+                return reportService.generateIncomeStatement(startDate, endDate);
+            case TRIAL_BALANCE:
+                return ledgerService.trialBalance(startDate, endDate);
+            default:
+                return reportService.generateCashFlow(startDate, endDate);
+        }
+    }
+
+    /**
+     * 记录缓存查找结果：hit 命中缓存，shared 等待生成中的同一报表，miss 发起生成
+     */
+    private void countLookup(String reportType, String result) {
+        meterRegistry.counter("finance.report.cache", "type", reportType, "result", result).increment();
+    }
+
+    /**
+     * 清理完成时间超过保留时间的任务
+     */
+    private void purgeExpiredJobs() {
+        LocalDateTime expireBefore = LocalDateTime.now().minusMinutes(jobTtlMinutes);
+        jobs.values().removeIf(handle -> handle.finishedAt != null && handle.finishedAt.isBefore(expireBefore));
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+            ? error.getCause() : error;
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+    }
+
+    /**
+     * 缓存的报表及生成时的版本
+     */
+    private static class CachedReport {
+        private final String version;
+        private final Map<String, Object> result;
+
+        private CachedReport(String version, Map<String, Object> result) {
+            this.version = version;
+            this.result = result;
+        }
+    }
+
+    /**
+     * 一次缓存查找的结果
+     */
+    private static class Lookup {
+        private final String reportType;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final boolean cached;
+        private final CompletableFuture<Map<String, Object>> future;
+
+        private Lookup(String reportType, LocalDate startDate, LocalDate endDate, boolean cached,
+                       CompletableFuture<Map<String, Object>> future) {
+            this.reportType = reportType;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.cached = cached;
+            this.future = future;
+        }
+    }
+
+    /**
+     * 报表任务
+     */
+    private static class JobHandle {
+        private final String id;
+        private final String reportType;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final boolean cached;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final CompletableFuture<Map<String, Object>> future;
+        /** 记录完成时间后才完成，长轮询等待它而不是 future，保证拿到的状态带有完成时间 */
+        private final CompletableFuture<Map<String, Object>> done;
+        private volatile LocalDateTime finishedAt;
+
+        private JobHandle(String id, String reportType, LocalDate startDate, LocalDate endDate, boolean cached,
+                          CompletableFuture<Map<String, Object>> future) {
+            this.id = id;
+            this.reportType = reportType;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.cached = cached;
+            this.future = future;
+            this.done = future.whenComplete((result, error) -> finishedAt = LocalDateTime.now());
+        }
+
+        private ReportJob toJob() {
+            ReportJob job = new ReportJob();
+            job.setId(id);
+            job.setReportType(reportType);
+            job.setStartDate(startDate);
+            job.setEndDate(endDate);
+            job.setCached(cached);
+            job.setSubmittedAt(submittedAt);
+            if (!done.isDone()) {
+                job.setStatus(RUNNING);
+                return job;
+            }
+            job.setFinishedAt(finishedAt);
+            try {
+                job.setResult(future.join());
+                job.setStatus(DONE);
+            } catch (CompletionException e) {
+                job.setStatus(FAILED);
+                job.setError(unwrap(e).getMessage());
+            }
+            return job;
+        }
+    }
+}
@@ -1,8 +1,7 @@
 package com.finance.service;
 
-import com.finance.entity.JournalEntry;
-import com.finance.entity.JournalEntryLine;
-import com.finance.repository.JournalEntryRepository;
+import com.finance.dto.AccountAmountSummary;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -14,12 +13,19 @@ import java.util.Map;
 
 /**
  * 财务报表服务
+ *
+ * <p>报表数据取自科目期间发生额（见 {@link AccountBalanceService}）以及
+ * 数据库端按科目分组的明细汇总查询，计算过程只处理紧凑的汇总行，
+ * 不再逐张加载凭证及明细实体。</p>
+ *
+ * <p>报表项目按一级科目取数时包含其全部下级科目：汇总查询经科目闭包表把每笔发生额
+ * 归集到它的每一级上级科目，按 parentId 确定层级，与科目编码是否带有上级编码前缀无关。</p>
  */
 @Service
 public class ReportService {
 
     @Autowired
-    private JournalEntryRepository journalEntryRepository;
+    private AccountBalanceService accountBalanceService;
 
     @Autowired
     private CompanyService companyService;
@@ -27,14 +33,12 @@ public class ReportService {
     /**
      * 生成资产负债表
      */
+    @Timed(value = "finance.report.generate", extraTags = {"type", "balance-sheet"}, description = "生成报表")
     public Map<String, Object> generateBalanceSheet(LocalDate endDate) {
         Map<String, Object> report = new HashMap<>();
         
-        // 获取截止日期前的所有已过账凭证
-        List<JournalEntry> entries = journalEntryRepository.findByEntryDateBeforeAndStatus(endDate.plusDays(1), "已过账");
-        
-        // 按科目类型汇总余额
-        Map<String, BigDecimal> balances = calculateBalances(entries);
+        // 按科目汇总截止日期前的全部已过账发生额
+        Map<String, BigDecimal> balances = calculateBalances(accountBalanceService.summarizeRollup(null, endDate));
         
         // 资产项
         Map<String, Object> assets = new HashMap<>();
@@ -114,14 +118,12 @@ public class ReportService {
     /**
      * 生成利润表
      */
+    @Timed(value = "finance.report.generate", extraTags = {"type", "income-statement"}, description = "生成报表")
     public Map<String, Object> generateIncomeStatement(LocalDate startDate, LocalDate endDate) {
         Map<String, Object> report = new HashMap<>();
         
-        // 获取期间内的已过账凭证
-        List<JournalEntry> entries = journalEntryRepository.findByEntryDateBetweenAndStatus(startDate, endDate, "已过账");
-        
-        // 按科目汇总
-        Map<String, BigDecimal> balances = calculateBalances(entries);
+        // 按科目汇总期间内的已过账发生额
+        Map<String, BigDecimal> balances = calculateBalances(accountBalanceService.summarizeRollup(startDate, endDate));
         
         // 收入
         BigDecimal revenue = getBalance(balances, "6001"); // 主营业务收入
@@ -184,43 +186,28 @@ public class ReportService {
     /**
      * 生成现金流量表
      */
+    @Timed(value = "finance.report.generate", extraTags = {"type", "cash-flow"}, description = "生成报表")
     public Map<String, Object> generateCashFlow(LocalDate startDate, LocalDate endDate) {
         Map<String, Object> report = new HashMap<>();
         
-        // 获取期间内的已过账凭证
-        List<JournalEntry> entries = journalEntryRepository.findByEntryDateBetweenAndStatus(startDate, endDate, "已过账");
-        
         // 计算现金流量（简化版，实际应该根据业务类型详细分类）
         BigDecimal operatingCashFlow = BigDecimal.ZERO;
         BigDecimal investingCashFlow = BigDecimal.ZERO;
         BigDecimal financingCashFlow = BigDecimal.ZERO;
         
-        for (JournalEntry entry : entries) {
-            for (JournalEntryLine line : entry.getEntryLines()) {
-                if (line.getAccountSubject() != null) {
-                    String code = line.getAccountSubject().getCode();
-                    BigDecimal amount = line.getAmount();
-                    
-                    // 判断是借方还是贷方
-                    if ("贷".equals(line.getDirection())) {
-                        amount = amount.negate();
-                    }
-                    
-                    // 现金类科目
-                    if (code.startsWith("1001") || code.startsWith("1002")) {
-                        // 根据业务类型分类
-                        String businessType = entry.getBusinessType();
-                        if ("采购".equals(businessType) || "销售".equals(businessType) || "员工费用".equals(businessType)) {
-                            operatingCashFlow = operatingCashFlow.add(amount);
-                        } else if ("投资".equals(businessType)) {
-                            investingCashFlow = investingCashFlow.add(amount);
-                        } else if ("融资".equals(businessType)) {
-                            financingCashFlow = financingCashFlow.add(amount);
-                        } else {
-                            operatingCashFlow = operatingCashFlow.add(amount);
-                        }
-                    }
-                }
+        // 现金类科目按业务类型汇总的发生额，借方为流入、贷方为流出
+        for (AccountAmountSummary summary : accountBalanceService.summarizeCash(startDate, endDate)) {
+            BigDecimal amount = summary.getNetDebit();
+            
+            // 根据业务类型分类
+            String businessType = summary.getBusinessType();
+            if ("投资".equals(businessType)) {
+                investingCashFlow = investingCashFlow.add(amount);
+            } else if ("融资".equals(businessType)) {
+                financingCashFlow = financingCashFlow.add(amount);
+            } else {
+                // 采购、销售、员工费用及其他业务均归入经营活动
+                operatingCashFlow = operatingCashFlow.add(amount);
             }
         }
         
@@ -242,36 +229,21 @@ public class ReportService {
 
     /**
      * 计算各科目余额
+     * 同一科目的多行汇总结果（不同期间段）合并为一个余额
      */
-    private Map<String, BigDecimal> calculateBalances(List<JournalEntry> entries) {
+    private Map<String, BigDecimal> calculateBalances(List<AccountAmountSummary> summaries) {
         Map<String, BigDecimal> balances = new HashMap<>();
         
-        for (JournalEntry entry : entries) {
-            if (entry.getEntryLines() != null) {
-                for (JournalEntryLine line : entry.getEntryLines()) {
-                    if (line.getAccountSubject() != null) {
-                        String code = line.getAccountSubject().getCode();
-                        BigDecimal amount = line.getAmount();
-                        String direction = line.getDirection();
-                        String subjectDirection = line.getAccountSubject().getDirection();
-                        
-                        // 根据科目借贷方向和分录借贷方向计算余额
-                        BigDecimal change = amount;
-                        if (!direction.equals(subjectDirection)) {
-                            change = amount.negate();
-                        }
-                        
-                        balances.put(code, balances.getOrDefault(code, BigDecimal.ZERO).add(change));
-                    }
-                }
-            }
+        for (AccountAmountSummary summary : summaries) {
+            // 根据科目余额方向计算余额：借方科目为借减贷，贷方科目为贷减借
+            balances.merge(summary.getCode(), summary.getBalance(), BigDecimal::add);
         }
         
         return balances;
     }
 
     /**
-     * 获取指定科目的余额
+     * 获取指定科目（含全部下级科目）的余额
      */
     private BigDecimal getBalance(Map<String, BigDecimal> balances, String... codes) {
         BigDecimal total = BigDecimal.ZERO;
@@ -1,26 +1,58 @@
 package com.finance.service;
 
+import com.finance.common.CursorPage;
+import com.finance.common.KeysetPager;
+import com.finance.common.PageQuery;
+import com.finance.common.Specs;
 import com.finance.entity.SalesInvoice;
 import com.finance.entity.SalesInvoiceLine;
+import com.finance.event.DomainEvent;
 import com.finance.repository.SalesInvoiceRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class SalesInvoiceService {
     
+    private static final Set<String> SORTABLE_FIELDS = new HashSet<>(
+        Arrays.asList("invoiceNo", "invoiceDate", "totalAmount", "createdAt"));
+    
     @Autowired
     private SalesInvoiceRepository salesInvoiceRepository;
 
+    @Autowired
+    private NumberSequenceService numberSequenceService;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    @Autowired
+    private ReceivableAgingService receivableAgingService;
+
     public List<SalesInvoice> findAll() {
         return salesInvoiceRepository.findAll();
     }
 
+    public CursorPage<SalesInvoice> page(Long customerId, String status, LocalDate startDate,
+                                         LocalDate endDate, String keyword, PageQuery query) {
+        Specification<SalesInvoice> filter = Specification.<SalesInvoice>where(Specs.equal("customer.id", customerId))
+            .and(Specs.equal("status", status))
+            .and(Specs.between("invoiceDate", startDate, endDate))
+            .and(Specs.contains(keyword, "invoiceNo"));
+        return keysetPager.page(SalesInvoice.class, filter, query, SORTABLE_FIELDS);
+    }
+
     public SalesInvoice findById(Long id) {
         return salesInvoiceRepository.findById(id).orElse(null);
     }
@@ -66,18 +98,69 @@ public class SalesInvoiceService {
             invoice.setTaxAmount(taxTotal);
         }
         
-        return salesInvoiceRepository.save(invoice);
+        boolean created = invoice.getId() == null;
+        if (!created) {
+            // 加锁读取原销售单，先冲回其计入的应收余额，保存后再按新的金额、到期日计入；
+            // 已收款金额只由登记收款修改，以库中的值为准
+            SalesInvoice current = salesInvoiceRepository.findForUpdate(invoice.getId()).orElse(null);
+            if (current != null) {
+                invoice.setReceivedAmount(current.getReceivedAmount());
+            }
+            receivableAgingService.apply(current, -1);
+        }
+        SalesInvoice saved = salesInvoiceRepository.save(invoice);
+        receivableAgingService.apply(saved, 1);
+        domainEventBus.publish(DomainEvent.saved(DomainEvent.SALES_INVOICE, created,
+            saved.getId(), saved.getInvoiceNo()).with("status", saved.getStatus()));
+        return saved;
+    }
+
+    /**
+     * 登记销售单收款
+     * 累加已收款金额并同步应收余额，收清后销售单状态变为已完成
+     *
+     * @param id 销售单ID
+     * @param amount 本次收款金额
+     * @return 更新后的销售单
+     */
+    @Transactional
+    public SalesInvoice receive(Long id, BigDecimal amount) {
+        SalesInvoice invoice = salesInvoiceRepository.findForUpdate(id)
+            .orElseThrow(() -> new RuntimeException("销售单不存在"));
+        if (!ReceivableAgingService.RECEIVABLE_STATUSES.contains(invoice.getStatus())) {
+            throw new RuntimeException("销售单状态为" + invoice.getStatus() + "，审核后才能登记收款");
+        }
+        if (amount == null || amount.signum() <= 0) {
+            throw new RuntimeException("收款金额必须大于0");
+        }
+        BigDecimal outstanding = ReceivableAgingService.outstandingOf(invoice);
+        if (amount.compareTo(outstanding) > 0) {
+            throw new RuntimeException("收款金额超过未收金额" + outstanding);
+        }
+
+        receivableAgingService.apply(invoice, -1);
+        BigDecimal received = invoice.getReceivedAmount() != null ? invoice.getReceivedAmount() : BigDecimal.ZERO;
+        invoice.setReceivedAmount(received.add(amount));
+        if (amount.compareTo(outstanding) == 0) {
+            invoice.setStatus("已完成");
+        }
+        SalesInvoice saved = salesInvoiceRepository.save(invoice);
+        receivableAgingService.apply(saved, 1);
+        domainEventBus.publish(DomainEvent.saved(DomainEvent.SALES_INVOICE, false,
+            saved.getId(), saved.getInvoiceNo()).with("status", saved.getStatus()));
+        return saved;
     }
 
     @Transactional
     public void delete(Long id) {
+        salesInvoiceRepository.findForUpdate(id).ifPresent(invoice -> receivableAgingService.apply(invoice, -1));
         salesInvoiceRepository.deleteById(id);
+        domainEventBus.publish(DomainEvent.deleted(DomainEvent.SALES_INVOICE, id));
     }
 
     private String generateInvoiceNo() {
-        String date = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        long count = salesInvoiceRepository.count() + 1;
-        return String.format("SI-%s-%04d", date, count);
+        return numberSequenceService.nextNumber("SI",
+            prefix -> salesInvoiceRepository.findMaxInvoiceNoLike(prefix + "%"));
     }
 }
 
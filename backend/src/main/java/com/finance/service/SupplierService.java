@@ -1,22 +1,43 @@
 package com.finance.service;
 
+import com.finance.common.CursorPage;
+import com.finance.common.KeysetPager;
+import com.finance.common.PageQuery;
+import com.finance.common.Specs;
 import com.finance.entity.Supplier;
 import com.finance.repository.SupplierRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class SupplierService {
     
+    private static final Set<String> SORTABLE_FIELDS = new HashSet<>(
+        Arrays.asList("code", "name", "createdAt"));
+    
     @Autowired
     private SupplierRepository supplierRepository;
 
+    @Autowired
+    private KeysetPager keysetPager;
+
     public List<Supplier> findAll() {
         return supplierRepository.findAll();
     }
 
+    public CursorPage<Supplier> page(String status, String category, String keyword, PageQuery query) {
+        Specification<Supplier> filter = Specification.<Supplier>where(Specs.equal("status", status))
+            .and(Specs.equal("category", category))
+            .and(Specs.contains(keyword, "code", "name"));
+        return keysetPager.page(Supplier.class, filter, query, SORTABLE_FIELDS);
+    }
+
     public Supplier findById(Long id) {
         return supplierRepository.findById(id).orElse(null);
     }
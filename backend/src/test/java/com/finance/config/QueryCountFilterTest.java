@@ -0,0 +1,132 @@
+package com.finance.config;
+
+import com.finance.common.QueryStats;
+import com.finance.entity.AccountSubject;
+import com.finance.entity.JournalEntry;
+import com.finance.entity.JournalEntryLine;
+import com.finance.service.AccountSubjectService;
+import com.finance.service.JournalEntryService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 接口SQL条数测试
+ *
+ * <p>经 {@link QueryCountFilter} 统计每个请求执行的SQL，断言凭证查询接口的SQL条数不随凭证数量增长，
+ * 并确认流式导出接口在开启响应头时不缓存响应体。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@SpringBootTest(properties = "finance.query-counter.expose-header=true")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryCountFilterTest {
+
+    private static final int VOUCHER_COUNT = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountSubjectService accountSubjectService;
+
+    @Autowired
+    private JournalEntryService journalEntryService;
+
+    private Long firstEntryId;
+
+    @BeforeAll
+    void seed() {
+        AccountSubject bank = subject("1002", "银行存款", "资产", "借方");
+        AccountSubject revenue = subject("6001", "主营业务收入", "损益", "贷方");
+        for (int i = 0; i < VOUCHER_COUNT; i++) {
+            JournalEntry entry = new JournalEntry();
+            entry.setEntryDate(LocalDate.of(2025, 3, 1).plusDays(i));
+            entry.setDescription("销售收款 " + i);
+            entry.setStatus("已过账");
+            entry.setEntryLines(new ArrayList<>());
+            entry.getEntryLines().add(line(bank, "借", 100 + i));
+            entry.getEntryLines().add(line(revenue, "贷", 100 + i));
+            JournalEntry saved = journalEntryService.save(entry);
+            if (firstEntryId == null) {
+                firstEntryId = saved.getId();
+            }
+        }
+    }
+
+    @Test
+    void listWithLinesDoesNotQueryPerVoucher() throws Exception {
+        QueryStats stats = stats(mockMvc.perform(get("/journal-entry/list").param("view", "full"))
+            .andExpect(status().isOk())
+            .andReturn());
+        stats.assertAtMost(3);
+    }
+
+    @Test
+    void detailLoadsVoucherInOneQuery() throws Exception {
+        MvcResult result = mockMvc.perform(get("/journal-entry/" + firstEntryId))
+            .andExpect(status().isOk())
+            .andReturn();
+        QueryStats stats = stats(result);
+        assertTrue(stats.getTotal() > 0, "未统计到SQL，检查QueryCountInspector是否已注册");
+        stats.assertAtMost(1);
+        assertEquals(String.valueOf(stats.getTotal()), result.getResponse().getHeader(QueryCountFilter.HEADER));
+    }
+
+    @Test
+    void exportIsStreamedWithoutQueryCountHeader() throws Exception {
+        MvcResult result = mockMvc.perform(get("/journal-entry/export").param("format", "ndjson"))
+            .andExpect(status().isOk())
+            .andReturn();
+        assertNull(result.getResponse().getHeader(QueryCountFilter.HEADER));
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertEquals(VOUCHER_COUNT, body.trim().split("\n").length);
+    }
+
+    private static QueryStats stats(MvcResult result) {
+        QueryStats stats = (QueryStats) result.getRequest().getAttribute(QueryCountFilter.STATS_ATTRIBUTE);
+        assertNotNull(stats);
+        return stats;
+    }
+
+    private AccountSubject subject(String code, String name, String type, String direction) {
+        AccountSubject subject = new AccountSubject();
+        subject.setCode(code);
+        subject.setName(name);
+        subject.setType(type);
+        subject.setCategory(type);
+        subject.setParentId(0L);
+        subject.setLevel(1);
+        subject.setDirection(direction);
+        subject.setEnabled(true);
+        return accountSubjectService.save(subject);
+    }
+
+    private static JournalEntryLine line(AccountSubject subject, String direction, int amount) {
+        JournalEntryLine line = new JournalEntryLine();
+        line.setAccountSubject(subject);
+        line.setDirection(direction);
+        line.setAmount(BigDecimal.valueOf(amount));
+        return line;
+    }
+}
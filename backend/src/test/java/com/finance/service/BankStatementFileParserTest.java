@@ -0,0 +1,240 @@
+package com.finance.service;
+
+import com.finance.dto.BankStatementImportRow;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 银行对账单文件解析测试
+ *
+ * <p>以 bank-statement 目录下的示例对账单为输入，核对 CSV 和 MT940 解析出的流水字段、余额和期初期末余额。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+class BankStatementFileParserTest {
+
+    static final String CSV_SAMPLE = "/bank-statement/sample-statement.csv";
+
+    static final String MT940_SAMPLE = "/bank-statement/sample-statement.sta";
+
+    @Test
+    void detectsFormatFromFileNameThenFirstLine() {
+        assertEquals(BankStatementFileParser.CSV, BankStatementFileParser.detectFormat("3月.CSV", ":20:X"));
+        assertEquals(BankStatementFileParser.MT940, BankStatementFileParser.detectFormat("sample.sta", null));
+        assertEquals(BankStatementFileParser.MT940, BankStatementFileParser.detectFormat("upload", "{1:F01ICBK}"));
+        assertEquals(BankStatementFileParser.MT940, BankStatementFileParser.detectFormat(null, ":20:STMT"));
+        assertEquals(BankStatementFileParser.CSV, BankStatementFileParser.detectFormat("upload", "bankAccount,amount"));
+    }
+
+    @Test
+    void parsesCsvSample() throws IOException {
+        Collector result = parse(resource(CSV_SAMPLE), BankStatementFileParser.CSV);
+
+        assertEquals(5, result.rows.size());
+        assertTrue(result.balances.isEmpty());
+        for (BankStatementImportRow row : result.rows) {
+            assertNull(row.getError());
+            assertEquals("6222020200012345678", row.getBankAccount());
+            assertEquals("中国工商银行北京分行", row.getBankName());
+        }
+
+        BankStatementImportRow first = result.rows.get(0);
+        assertEquals(2, first.getRowNumber());
+        assertEquals(LocalDate.of(2025, 3, 1), first.getTransactionDate());
+        assertEquals("ICBC20250301001", first.getTransactionNo());
+        assertEquals("收入", first.getTransactionType());
+        assertDecimal("50000.00", first.getAmount());
+        assertDecimal("150000.00", first.getBalance());
+        assertEquals("北京华信科技有限公司", first.getCounterparty());
+        assertEquals("110060123456789", first.getCounterpartyAccount());
+        assertEquals("货款", first.getPurpose());
+        assertNull(first.getRemark());
+
+        // 带引号的字段中可以有逗号
+        assertEquals("运费,3月", result.rows.get(1).getPurpose());
+        assertNull(result.rows.get(2).getCounterparty());
+
+        // 未填写交易类型时按金额正负判断，金额取绝对值
+        BankStatementImportRow fee = result.rows.get(4);
+        assertEquals(6, fee.getRowNumber());
+        assertEquals("支出", fee.getTransactionType());
+        assertDecimal("350.00", fee.getAmount());
+        assertDecimal("149649.50", fee.getBalance());
+        assertEquals("金额为负时按支出导入", fee.getRemark());
+    }
+
+    @Test
+    void reportsMalformedCsvRowAndContinues() throws IOException {
+        String content = read(CSV_SAMPLE).replace("2025-03-03", "2025-13-03");
+        Collector result = parse(content, BankStatementFileParser.CSV);
+
+        assertEquals(5, result.rows.size());
+        assertNotNull(result.rows.get(2).getError());
+        assertTrue(result.rows.get(2).getError().startsWith("第4行"));
+        assertNull(result.rows.get(3).getError());
+    }
+
+    @Test
+    void parsesMt940Sample() throws IOException {
+        Collector result = parse(resource(MT940_SAMPLE), BankStatementFileParser.MT940);
+
+        assertEquals(4, result.rows.size());
+        for (BankStatementImportRow row : result.rows) {
+            assertNull(row.getError());
+            assertEquals("6222020200087654321", row.getBankAccount());
+            assertNull(row.getBankName());
+        }
+
+        BankStatementImportRow first = result.rows.get(0);
+        assertEquals(6, first.getRowNumber());
+        assertEquals(LocalDate.of(2025, 3, 1), first.getTransactionDate());
+        assertEquals("ICBC20250301101", first.getTransactionNo());
+        assertEquals("收入", first.getTransactionType());
+        assertDecimal("50000.00", first.getAmount());
+        assertEquals("北京华信科技有限公司", first.getCounterparty());
+        assertEquals("110060123456789", first.getCounterpartyAccount());
+        assertEquals("货款", first.getPurpose());
+
+        BankStatementImportRow payment = result.rows.get(1);
+        assertEquals("支出", payment.getTransactionType());
+        assertDecimal("12000.50", payment.getAmount());
+
+        // 金额小数部分为空；附言无子字段时整体作为用途
+        BankStatementImportRow payroll = result.rows.get(2);
+        assertDecimal("8000", payroll.getAmount());
+        assertEquals("工资代发", payroll.getPurpose());
+        assertNull(payroll.getCounterparty());
+
+        // 没有银行参考号时取客户参考号
+        BankStatementImportRow receipt = result.rows.get(3);
+        assertEquals("INV2025031", receipt.getTransactionNo());
+        assertEquals(LocalDate.of(2025, 3, 5), receipt.getTransactionDate());
+        assertNull(receipt.getCounterpartyAccount());
+
+        // 流水余额由期初余额逐笔累计
+        assertDecimal("150000.00", first.getBalance());
+        assertDecimal("137999.50", payment.getBalance());
+        assertDecimal("129999.50", payroll.getBalance());
+        assertDecimal("149999.50", receipt.getBalance());
+
+        assertEquals(2, result.balances.size());
+        Balance opening = result.balances.get(0);
+        assertTrue(opening.opening);
+        assertEquals("6222020200087654321", opening.bankAccount);
+        assertEquals(5, opening.rowNumber);
+        assertDecimal("100000.00", opening.balance);
+        Balance closing = result.balances.get(1);
+        assertEquals(false, closing.opening);
+        assertDecimal("149999.50", closing.balance);
+    }
+
+    @Test
+    void parsesMt940ReversalAndDebitBalance() throws IOException {
+        String content = read(MT940_SAMPLE)
+            .replace(":60F:C250228CNY100000,00", ":60F:D250228CNY100,00")
+            .replace("2503010301C50000,00", "2503010301RD50000,00");
+        Collector result = parse(content, BankStatementFileParser.MT940);
+
+        assertDecimal("-100.00", result.balances.get(0).balance);
+        // RD 为借方冲正，按收入计
+        assertEquals("收入", result.rows.get(0).getTransactionType());
+        assertDecimal("49900.00", result.rows.get(0).getBalance());
+    }
+
+    @Test
+    void reportsUnrecognizedMt940Line() throws IOException {
+        String content = read(MT940_SAMPLE).replace(":61:2503020302D12000,50", ":61:25030X0302D12000,50");
+        Collector result = parse(content, BankStatementFileParser.MT940);
+
+        assertEquals(4, result.rows.size());
+        assertEquals("第8行：无法识别的 :61: 流水行", result.rows.get(1).getError());
+        assertNull(result.rows.get(2).getError());
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        assertThrows(RuntimeException.class,
+            () -> BankStatementFileParser.parse(new ByteArrayInputStream(new byte[0]), "xlsx", new Collector()));
+    }
+
+    static String read(String name) throws IOException {
+        try (InputStream in = resource(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static InputStream resource(String name) {
+        InputStream in = BankStatementFileParserTest.class.getResourceAsStream(name);
+        assertNotNull(in, "缺少测试文件 " + name);
+        return in;
+    }
+
+    private static Collector parse(String content, String format) throws IOException {
+        return parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    private static Collector parse(InputStream in, String format) throws IOException {
+        Collector collector = new Collector();
+        try (InputStream input = in) {
+            BankStatementFileParser.parse(input, format, collector);
+        }
+        return collector;
+    }
+
+    private static void assertDecimal(String expected, BigDecimal actual) {
+        assertNotNull(actual);
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), "期望 " + expected + "，实际 " + actual);
+    }
+
+    private static class Collector implements BankStatementFileParser.Handler {
+        private final List<BankStatementImportRow> rows = new ArrayList<>();
+        private final List<Balance> balances = new ArrayList<>();
+
+        @Override
+        public void row(BankStatementImportRow row) {
+            rows.add(row);
+        }
+
+        @Override
+        public void balance(String bankAccount, int rowNumber, BigDecimal balance, boolean opening) {
+            balances.add(new Balance(bankAccount, rowNumber, balance, opening));
+        }
+    }
+
+    private static class Balance {
+        private final String bankAccount;
+        private final int rowNumber;
+        private final BigDecimal balance;
+        private final boolean opening;
+
+        private Balance(String bankAccount, int rowNumber, BigDecimal balance, boolean opening) {
+            this.bankAccount = bankAccount;
+            this.rowNumber = rowNumber;
+            this.balance = balance;
+            this.opening = opening;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.finance.service;
+
+import com.finance.dto.BankStatementImportJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 银行流水导入测试
+ *
+ * <p>以示例对账单及其改动后的内容导入，核对余额连续性检查、MT940 期初期末余额核对和文件内重复流水的处理，
+ * 以及缺少唯一约束时拒绝导入。
+ * 每个用例使用不同的银行账号，互不影响。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@SpringBootTest
+class BankStatementImportServiceTest {
+
+    private static final String CSV_ACCOUNT = "6222020200012345678";
+
+    private static final String MT940_ACCOUNT = "6222020200087654321";
+
+    private static final AtomicInteger ACCOUNT_SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private BankStatementImportService bankStatementImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void importsCsvSampleWithoutBalanceBreaks() throws Exception {
+        BankStatementImportJob job = importFile(csvSample(), "sample-statement.csv");
+
+        assertEquals(5, job.getRowsRead());
+        assertEquals(5, job.getInsertedCount());
+        assertEquals(0, job.getDuplicateCount());
+        assertEquals(0, job.getFailureCount());
+        assertEquals(0, job.getBalanceBreakCount());
+    }
+
+    @Test
+    void reportsCsvBalanceBreak() throws Exception {
+        // 去掉3月3日的支出，3月5日的余额与上一笔余额加收入金额不一致
+        String content = csvSample().replaceAll("(?m)^.*ICBC20250303001.*\r?\n", "");
+        BankStatementImportJob job = importFile(content, "sample-statement.csv");
+
+        assertEquals(4, job.getInsertedCount());
+        assertEquals(1, job.getBalanceBreakCount());
+        Map<String, Object> balanceBreak = job.getBalanceBreaks().get(0);
+        assertEquals(4, balanceBreak.get("row"));
+        assertDecimal("157999.50", balanceBreak.get("expectedBalance"));
+        assertDecimal("149999.50", balanceBreak.get("balance"));
+        assertEquals("余额与上一笔余额加减本笔金额不一致", balanceBreak.get("message"));
+    }
+
+    @Test
+    void skipsDuplicatesWithinFile() throws Exception {
+        String content = csvSample();
+        String firstRow = content.split("\r?\n")[1];
+        BankStatementImportJob job = importFile(content + firstRow + "\n", "sample-statement.csv");
+
+        assertEquals(6, job.getRowsRead());
+        assertEquals(5, job.getInsertedCount());
+        assertEquals(1, job.getDuplicateCount());
+        assertEquals(0, job.getFailureCount());
+    }
+
+    @Test
+    void skipsRowsAlreadyImported() throws Exception {
+        String content = csvSample();
+        importFile(content, "sample-statement.csv");
+        BankStatementImportJob job = importFile(content, "sample-statement.csv");
+
+        assertEquals(0, job.getInsertedCount());
+        assertEquals(5, job.getDuplicateCount());
+    }
+
+    @Test
+    void importsMt940SampleWithMatchingClosingBalance() throws Exception {
+        BankStatementImportJob job = importFile(mt940Sample(), "sample-statement.sta");
+
+        assertEquals(4, job.getInsertedCount());
+        assertEquals(0, job.getFailureCount());
+        assertEquals(0, job.getBalanceBreakCount());
+    }
+
+    @Test
+    void reportsMt940ClosingBalanceMismatch() throws Exception {
+        String content = mt940Sample().replace(":62F:C250305CNY149999,50", ":62F:C250305CNY149000,00");
+        BankStatementImportJob job = importFile(content, "sample-statement.sta");
+
+        assertEquals(4, job.getInsertedCount());
+        assertEquals(1, job.getBalanceBreakCount());
+        Map<String, Object> balanceBreak = job.getBalanceBreaks().get(0);
+        assertEquals(14, balanceBreak.get("row"));
+        assertDecimal("149999.50", balanceBreak.get("expectedBalance"));
+        assertDecimal("149000.00", balanceBreak.get("balance"));
+        assertEquals("期末余额与流水累计余额不一致", balanceBreak.get("message"));
+    }
+
+    @Test
+    void reportsMt940OpeningBalanceNotContinuingPreviousStatement() throws Exception {
+        String account = uniqueAccount();
+        String sample = mt940Sample(account);
+        String next = ":20:STMT20250306\n"
+            + ":25:ICBKCNBJ/" + account + "\n"
+            + ":60F:C250305CNY150000,00\n"
+            + ":61:2503060306C100,00NTRFNONREF//ICBC20250306101\n"
+            + ":86:/NAME/北京华信科技有限公司/REMI/货款\n"
+            + ":62F:C250306CNY150100,00\n"
+            + "-}\n";
+        BankStatementImportJob job = importFile(sample + "\n" + next, "sample-statement.sta");
+
+        assertEquals(5, job.getInsertedCount());
+        assertEquals(1, job.getBalanceBreakCount());
+        Map<String, Object> balanceBreak = job.getBalanceBreaks().get(0);
+        assertDecimal("149999.50", balanceBreak.get("expectedBalance"));
+        assertDecimal("150000.00", balanceBreak.get("balance"));
+        assertEquals("期初余额与上一笔流水余额不连续", balanceBreak.get("message"));
+    }
+
+    @Test
+    void rejectsImportWithoutUniqueKey() throws Exception {
+        String content = csvSample();
+        jdbcTemplate.execute("ALTER TABLE bank_statement DROP CONSTRAINT uk_bank_statement_account_no");
+        ReflectionTestUtils.setField(bankStatementImportService, "uniqueKeyVerified", false);
+        try {
+            RuntimeException e = assertThrows(RuntimeException.class, () -> bankStatementImportService.submit(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), "sample-statement.csv",
+                null, null, null));
+            assertTrue(e.getMessage().contains("uk_bank_statement_account_no"));
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE bank_statement ADD CONSTRAINT uk_bank_statement_account_no "
+                + "UNIQUE (bank_account, transaction_no)");
+        }
+        assertEquals(5, importFile(content, "sample-statement.csv").getInsertedCount());
+    }
+
+    private BankStatementImportJob importFile(String content, String fileName) throws Exception {
+        BankStatementImportJob job = bankStatementImportService.submit(
+            new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), fileName, null, null, "中国工商银行");
+        for (int i = 0; i < 200 && job.getFinishedAt() == null; i++) {
+            Thread.sleep(50);
+            job = bankStatementImportService.getJob(job.getId());
+            assertNotNull(job);
+        }
+        assertNotNull(job.getFinishedAt(), "导入未在10秒内完成");
+        assertNull(job.getError());
+        assertEquals("已完成", job.getStatus());
+        return job;
+    }
+
+    /**
+     * CSV 示例，银行账号替换为本用例独有的账号
+     */
+    private static String csvSample() throws IOException {
+        return BankStatementFileParserTest.read(BankStatementFileParserTest.CSV_SAMPLE)
+            .replace(CSV_ACCOUNT, uniqueAccount());
+    }
+
+    /**
+     * MT940 示例，银行账号替换为本用例独有的账号
+     */
+    private static String mt940Sample() throws IOException {
+        return mt940Sample(uniqueAccount());
+    }
+
+    private static String mt940Sample(String account) throws IOException {
+        return BankStatementFileParserTest.read(BankStatementFileParserTest.MT940_SAMPLE)
+            .replace(MT940_ACCOUNT, account);
+    }
+
+    private static String uniqueAccount() {
+        return "TEST" + System.nanoTime() + ACCOUNT_SEQUENCE.incrementAndGet();
+    }
+
+    private static void assertDecimal(String expected, Object actual) {
+        assertNotNull(actual);
+        assertEquals(0, new BigDecimal(expected).compareTo((BigDecimal) actual), "期望 " + expected + "，实际 " + actual);
+    }
+}
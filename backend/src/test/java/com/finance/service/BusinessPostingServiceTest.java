@@ -0,0 +1,188 @@
+package com.finance.service;
+
+import com.finance.dto.PostingSource;
+import com.finance.entity.AccountSubject;
+import com.finance.entity.Customer;
+import com.finance.entity.JournalEntry;
+import com.finance.entity.JournalEntryLine;
+import com.finance.entity.SalesInvoice;
+import com.finance.repository.BusinessPostingRepository;
+import com.finance.repository.CustomerRepository;
+import com.finance.repository.SalesInvoiceRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 业务单据与凭证关联测试
+ *
+ * <p>手工录入或导入的凭证指向业务单据时记录关联，同一张单据不能再关联第二张凭证，
+ * 生成凭证时也不再读取该单据。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BusinessPostingServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 4, 10);
+
+    private static final List<String> ELIGIBLE = Arrays.asList("已审核", "已完成");
+
+    @Autowired
+    private JournalEntryService journalEntryService;
+
+    @Autowired
+    private JournalEntryImportService journalEntryImportService;
+
+    @Autowired
+    private AccountSubjectService accountSubjectService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SalesInvoiceRepository salesInvoiceRepository;
+
+    @Autowired
+    private BusinessPostingRepository businessPostingRepository;
+
+    private AccountSubject receivable;
+
+    private AccountSubject revenue;
+
+    private Customer customer;
+
+    @BeforeAll
+    void seed() {
+        receivable = subject("9122", "应收账款-测试", "资产", "借方");
+        revenue = subject("9601", "主营业务收入-测试", "损益", "贷方");
+        customer = new Customer();
+        customer.setCode("CUS-BP-" + System.nanoTime());
+        customer.setName("关联测试客户");
+        customer = customerRepository.save(customer);
+    }
+
+    @Test
+    void manualVoucherLinksDocumentAndExcludesItFromGeneration() {
+        SalesInvoice invoice = invoice();
+        assertTrue(pendingIds().contains(invoice.getId()));
+
+        JournalEntry saved = journalEntryService.save(voucher(invoice.getId()));
+
+        assertTrue(businessPostingRepository.findByBusinessTypeAndBusinessId(PostingEngine.SALES, invoice.getId())
+            .filter(posting -> posting.getJournalEntryId().equals(saved.getId())).isPresent());
+        assertFalse(pendingIds().contains(invoice.getId()));
+        RuntimeException e = assertThrows(RuntimeException.class,
+            () -> journalEntryService.save(voucher(invoice.getId())));
+        assertTrue(e.getMessage().contains(saved.getVoucherNo()));
+
+        // 修改凭证本身不受影响，删除后单据可以重新生成凭证
+        saved.setDescription("修改摘要");
+        journalEntryService.save(saved);
+        journalEntryService.delete(saved.getId());
+        assertFalse(businessPostingRepository.findByBusinessTypeAndBusinessId(PostingEngine.SALES, invoice.getId())
+            .isPresent());
+        assertTrue(pendingIds().contains(invoice.getId()));
+    }
+
+    @Test
+    void importRejectsSecondVoucherForSameDocument() throws Exception {
+        SalesInvoice invoice = invoice();
+        String csv = "voucherKey,entryDate,description,businessType,businessId,accountCode,direction,amount\n"
+            + csvVoucher("A", invoice.getId())
+            + csvVoucher("B", invoice.getId());
+
+        Map<String, Object> result = journalEntryImportService.importVouchers(
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "csv");
+
+        assertEquals(1, result.get("successCount"));
+        assertEquals(1, result.get("failureCount"));
+        assertTrue(businessPostingRepository.findByBusinessTypeAndBusinessId(PostingEngine.SALES, invoice.getId())
+            .isPresent());
+        assertFalse(pendingIds().contains(invoice.getId()));
+        assertThrows(RuntimeException.class, () -> journalEntryService.save(voucher(invoice.getId())));
+    }
+
+    private List<Long> pendingIds() {
+        List<Long> ids = new ArrayList<>();
+        for (PostingSource source : salesInvoiceRepository.findPostingSources(ELIGIBLE, DATE, DATE, 0L,
+                PostingEngine.SALES, PageRequest.of(0, 1000))) {
+            ids.add(source.getId());
+        }
+        return ids;
+    }
+
+    private SalesInvoice invoice() {
+        SalesInvoice invoice = new SalesInvoice();
+        invoice.setInvoiceNo("SI-BP-" + System.nanoTime());
+        invoice.setCustomer(customer);
+        invoice.setInvoiceDate(DATE);
+        invoice.setTotalAmount(new BigDecimal("113.00"));
+        invoice.setTaxAmount(new BigDecimal("13.00"));
+        invoice.setStatus("已审核");
+        return salesInvoiceRepository.save(invoice);
+    }
+
+    private JournalEntry voucher(Long invoiceId) {
+        JournalEntry entry = new JournalEntry();
+        entry.setEntryDate(DATE);
+        entry.setDescription("销售收入");
+        entry.setStatus("草稿");
+        entry.setBusinessType(PostingEngine.SALES);
+        entry.setBusinessId(invoiceId);
+        entry.setEntryLines(new ArrayList<>());
+        entry.getEntryLines().add(line(receivable, "借"));
+        entry.getEntryLines().add(line(revenue, "贷"));
+        return entry;
+    }
+
+    private String csvVoucher(String key, Long invoiceId) {
+        return key + ",2025-04-10,销售收入,销售," + invoiceId + "," + receivable.getCode() + ",借,113.00\n"
+            + key + ",2025-04-10,销售收入,销售," + invoiceId + "," + revenue.getCode() + ",贷,113.00\n";
+    }
+
+    private static JournalEntryLine line(AccountSubject subject, String direction) {
+        JournalEntryLine line = new JournalEntryLine();
+        line.setAccountSubject(subject);
+        line.setDirection(direction);
+        line.setAmount(new BigDecimal("113.00"));
+        return line;
+    }
+
+    private AccountSubject subject(String code, String name, String type, String direction) {
+        AccountSubject existing = accountSubjectService.findByCode(code);
+        if (existing != null) {
+            return existing;
+        }
+        AccountSubject subject = new AccountSubject();
+        subject.setCode(code);
+        subject.setName(name);
+        subject.setType(type);
+        subject.setCategory(type);
+        subject.setParentId(0L);
+        subject.setLevel(1);
+        subject.setDirection(direction);
+        subject.setEnabled(true);
+        return accountSubjectService.save(subject);
+    }
+}
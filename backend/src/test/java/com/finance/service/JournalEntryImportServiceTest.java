@@ -0,0 +1,66 @@
+package com.finance.service;
+
+import com.finance.entity.AccountSubject;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 凭证批量导入测试
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@SpringBootTest
+class JournalEntryImportServiceTest {
+
+    @Autowired
+    private JournalEntryImportService journalEntryImportService;
+
+    @Autowired
+    private AccountSubjectService accountSubjectService;
+
+    @Test
+    void rejectsNonObjectJsonElementsAndContinues() throws Exception {
+        subject("9123", "其他应收款-测试", "资产", "借方");
+        subject("9603", "其他业务收入-测试", "损益", "贷方");
+        String voucher = "{\"voucherKey\":\"%s\",\"entryDate\":\"2025-04-11\",\"description\":\"导入\","
+            + "\"lines\":[{\"accountCode\":\"9123\",\"direction\":\"借\",\"amount\":10},"
+            + "{\"accountCode\":\"9603\",\"direction\":\"贷\",\"amount\":10}]}";
+        String json = "[" + String.format(voucher, "A") + ", 42, \"x\", [1, {\"a\": 2}], null, "
+            + String.format(voucher, "B") + "]";
+
+        Map<String, Object> result = journalEntryImportService.importVouchers(
+            new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), "json");
+
+        assertEquals(6, result.get("total"));
+        assertEquals(2, result.get("successCount"));
+        assertEquals(4, result.get("failureCount"));
+        List<?> errors = (List<?>) result.get("errors");
+        assertEquals(4, errors.size());
+    }
+
+    private void subject(String code, String name, String type, String direction) {
+        if (accountSubjectService.findByCode(code) != null) {
+            return;
+        }
+        AccountSubject subject = new AccountSubject();
+        subject.setCode(code);
+        subject.setName(name);
+        subject.setType(type);
+        subject.setCategory(type);
+        subject.setParentId(0L);
+        subject.setLevel(1);
+        subject.setDirection(direction);
+        subject.setEnabled(true);
+        accountSubjectService.save(subject);
+    }
+}
@@ -0,0 +1,72 @@
+package com.finance.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 单据编号分配测试
+ *
+ * <p>多个线程在各自的事务中同时分配编号，号段从专用连接池领取，编号不重复。</p>
+ *
+ * @author 财务管理系统
+ * @version 1.0
+ * @since 2025-01-01
+ */
+@SpringBootTest
+class NumberSequenceServiceTest {
+
+    @Autowired
+    private NumberSequenceService numberSequenceService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void concurrentTransactionsGetDistinctNumbers() throws Exception {
+        String prefix = "T" + (System.nanoTime() % 100000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> transactionTemplate.execute(status -> {
+                    List<String> numbers = new ArrayList<>();
+                    for (int i = 0; i < 30; i++) {
+                        numbers.add(numberSequenceService.nextNumber(prefix, p -> null));
+                    }
+                    numbers.addAll(numberSequenceService.nextNumbers(prefix, 25, p -> null));
+                    return numbers;
+                })));
+            }
+            Set<String> all = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                for (String number : future.get()) {
+                    assertTrue(number.startsWith(prefix + "-"), number);
+                    assertTrue(all.add(number), "编号重复：" + number);
+                }
+            }
+            assertEquals(8 * 55, all.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void firstBlockContinuesFromExistingNumber() {
+        String prefix = "U" + (System.nanoTime() % 100000);
+        String first = numberSequenceService.nextNumber(prefix, p -> p + "0041");
+        assertTrue(first.endsWith("-0042"), first);
+    }
+}
@@ -0,0 +1,65 @@
+-- 银行流水去重并添加唯一约束 uk_bank_statement_account_no (bank_account, transaction_no)
+-- 适用于升级前已有数据的库：JPA 自动更新表结构时遇到重复数据会静默跳过唯一约束，
+-- 而银行流水导入依赖该约束兜底去重，缺少约束时导入会直接报错。
+-- 执行方式：mysql -u root -p finance_db < database/bank_statement_unique.sql
+
+USE finance_db;
+
+-- 1. 列出重复的流水（仅供查看）
+SELECT bank_account, transaction_no, COUNT(*) AS duplicate_count, GROUP_CONCAT(id ORDER BY id) AS ids
+FROM bank_statement
+GROUP BY bank_account, transaction_no
+HAVING COUNT(*) > 1;
+
+-- 2. 每组保留一笔：优先保留已参与匹配的流水，其次保留ID最小的
+DROP TEMPORARY TABLE IF EXISTS tmp_bank_statement_keep;
+CREATE TEMPORARY TABLE tmp_bank_statement_keep (PRIMARY KEY (id))
+SELECT id
+FROM (
+    SELECT s.id,
+           ROW_NUMBER() OVER (
+               PARTITION BY s.bank_account, s.transaction_no
+               ORDER BY EXISTS (SELECT 1 FROM bank_statement_match m WHERE m.bank_statement_id = s.id) DESC, s.id
+           ) AS rn
+    FROM bank_statement s
+) ranked
+WHERE rn = 1;
+
+-- 3. 删除其余未对账、未参与匹配的重复流水
+DELETE s
+FROM bank_statement s
+LEFT JOIN tmp_bank_statement_keep k ON k.id = s.id
+LEFT JOIN bank_statement_match m ON m.bank_statement_id = s.id
+WHERE k.id IS NULL
+  AND m.id IS NULL
+  AND s.reconciliation_status = '未对账';
+
+DROP TEMPORARY TABLE tmp_bank_statement_keep;
+
+-- 4. 仍然重复的流水已分别参与匹配或已对账，需先在系统中取消匹配后删除多余的一笔，再重新执行本脚本；
+--    此处有结果时第5步添加约束会因重复数据失败
+SELECT bank_account, transaction_no, COUNT(*) AS duplicate_count, GROUP_CONCAT(id ORDER BY id) AS ids
+FROM bank_statement
+GROUP BY bank_account, transaction_no
+HAVING COUNT(*) > 1;
+
+-- 5. 添加唯一约束，已存在时跳过；原普通索引被唯一约束取代，一并删除
+SET @has_unique = (SELECT COUNT(*) FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = 'bank_statement'
+                     AND index_name = 'uk_bank_statement_account_no');
+SET @ddl = IF(@has_unique = 0,
+              'ALTER TABLE bank_statement ADD CONSTRAINT uk_bank_statement_account_no UNIQUE (bank_account, transaction_no)',
+              'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @has_old_index = (SELECT COUNT(*) FROM information_schema.statistics
+                      WHERE table_schema = DATABASE() AND table_name = 'bank_statement'
+                        AND index_name = 'idx_bank_statement_account_no');
+SET @ddl = IF(@has_old_index > 0,
+              'ALTER TABLE bank_statement DROP INDEX idx_bank_statement_account_no',
+              'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
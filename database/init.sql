@@ -89,12 +89,9 @@ VALUES
 ('EMP002', '李四', '销售部', '销售经理', '13800138002', 'lisi@company.com', '2023-03-20', '在职', '6222021002222222222', '销售骨干', NOW(), NOW()),
 ('EMP003', '王五', '技术部', '软件工程师', '13800138003', 'wangwu@company.com', '2023-06-01', '在职', '6222021003333333333', '技术人员', NOW(), NOW());
 
-
-
-
-
-
-
-
-
-
+-- 插入默认凭证模板（业务单据生成凭证使用）
+INSERT INTO posting_template (business_type, category, summary, debit_account_code, credit_account_code, tax_account_code, enabled, remark, created_at, updated_at)
+VALUES
+('销售', NULL, '销售收入', '1122', '6001', '2221', true, '借应收账款，贷主营业务收入、应交税费', NOW(), NOW()),
+('采购', NULL, '采购入库', '1405', '2201', '2221', true, '借库存商品、应交税费，贷应付账款', NOW(), NOW()),
+('员工费用', NULL, '费用报销', '6602', '2211', NULL, true, '借管理费用，贷应付职工薪酬', NOW(), NOW());